@@ -0,0 +1,269 @@
+/*
+ * #%L
+ * restdoc-benchmarks
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.benchmarks;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.iggroup.oss.restdoclet.doclet.util.DocTypeUtils;
+import com.iggroup.oss.restdoclet.doclet.util.JavadocFixture;
+import com.sun.javadoc.MethodDoc;
+import com.sun.javadoc.RootDoc;
+import com.sun.javadoc.Type;
+
+/**
+ * Rendering of type names and documentation by {@link DocTypeUtils} over a
+ * generated hierarchy of documented types: <code>breadth</code> chains of
+ * <code>depth</code> classes, each class extending the previous one and
+ * holding a list of items, and an interface returning them plainly and in
+ * collections. The types don't refer to each other in cycles, so every
+ * rendering nests the whole chain rather than stopping at a type already
+ * processed. The Java documentation tool is run once, in the set-up, so
+ * <code>tools.jar</code> has to be on the class-path:
+ *
+ * <pre>
+ * java -cp benchmarks.jar:$JAVA_HOME/lib/tools.jar org.openjdk.jmh.Main
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DocTypeUtilsBenchmark {
+
+   private static final String PACKAGE = "com.example.domain";
+
+   /**
+    * The length of each chain of classes.
+    */
+   @Param({"2", "4"})
+   private int depth;
+
+   /**
+    * The number of chains of classes.
+    */
+   @Param({"4", "16"})
+   private int breadth;
+
+   private File dir;
+
+   /**
+    * The return types of the interface's methods.
+    */
+   private Type[] types;
+
+   /**
+    * Generates the types and runs the Java documentation tool over them.
+    *
+    * @throws IOException if the types can't be generated.
+    */
+   @Setup
+   public void setUp() throws IOException {
+      dir = SyntheticCatalogue.createTempDirectory("restdoclet-types");
+      final File sources = new File(dir, PACKAGE.replace('.', '/'));
+      sources.mkdirs();
+      generate(sources);
+
+      final RootDoc root = JavadocFixture.run(dir.getPath(), null, PACKAGE);
+      final List<Type> returnTypes = new ArrayList<Type>();
+      for (MethodDoc method : root.classNamed(PACKAGE + ".Api").methods()) {
+         returnTypes.add(method.returnType());
+      }
+      types = returnTypes.toArray(new Type[returnTypes.size()]);
+   }
+
+   /**
+    * Deletes the generated types.
+    */
+   @TearDown
+   public void tearDown() {
+      SyntheticCatalogue.delete(dir);
+   }
+
+   /**
+    * Renders the names of the return types.
+    *
+    * @param blackhole the sink of the names.
+    */
+   @Benchmark
+   public void getTypeName(final Blackhole blackhole) {
+      for (Type type : types) {
+         blackhole.consume(DocTypeUtils.getTypeName(type));
+      }
+   }
+
+   /**
+    * Renders the documentation of the return types, as at the start of a
+    * doclet run.
+    *
+    * @param blackhole the sink of the documentation.
+    */
+   @Benchmark
+   public void getTypeDoc(final Blackhole blackhole) {
+      DocTypeUtils.clearTypeDocCache();
+      for (Type type : types) {
+         blackhole.consume(DocTypeUtils.getTypeDoc(type));
+      }
+   }
+
+   /**
+    * Renders the documentation of the return types again, as for later
+    * controllers of a doclet run.
+    *
+    * @param blackhole the sink of the documentation.
+    */
+   @Benchmark
+   public void getTypeDocRepeated(final Blackhole blackhole) {
+      for (Type type : types) {
+         blackhole.consume(DocTypeUtils.getTypeDoc(type));
+      }
+   }
+
+   private void generate(final File sources) throws IOException {
+      final StringBuilder kind = new StringBuilder();
+      kind.append("package ").append(PACKAGE).append(";\n");
+      kind.append("/** The kind of a node. */\npublic enum Kind {\n");
+      kind.append("   /** A plain node. */\n   PLAIN,\n");
+      kind.append("   /** A node with children. */\n   BRANCH,\n");
+      kind.append("   /** A node without children. */\n   LEAF\n}\n");
+      write(new File(sources, "Kind.java"), kind);
+
+      final StringBuilder api = new StringBuilder();
+      api.append("package ").append(PACKAGE).append(";\n");
+      api.append("import java.util.List;\nimport java.util.Map;\n");
+      api.append("/** The operations on nodes. */\npublic interface Api {\n");
+      for (int i = 0; i < breadth; i++) {
+         final String first = node(0, i);
+         final String leaf = node(depth - 1, i);
+         api.append("   /** Lists roots.\n    * @return the roots. */\n");
+         api.append("   List<").append(first).append("> roots").append(i)
+            .append("();\n");
+         api.append("   /** Gets a leaf.\n    * @return the leaf. */\n");
+         api.append("   ").append(leaf).append(" leaf").append(i)
+            .append("();\n");
+         api.append("   /** Maps leaves.\n    * @return the leaves. */\n");
+         api.append("   Map<String, ").append(leaf).append("> leaves")
+            .append(i).append("();\n");
+      }
+      api.append("}\n");
+      write(new File(sources, "Api.java"), api);
+
+      for (int d = 0; d < depth; d++) {
+         for (int i = 0; i < breadth; i++) {
+            write(new File(sources, node(d, i) + ".java"), nodeSource(d, i));
+            write(new File(sources, item(d, i) + ".java"), itemSource(d, i));
+         }
+      }
+   }
+
+   private StringBuilder nodeSource(final int d, final int i) {
+      final String name = node(d, i);
+      final String suffix = d + "x" + i;
+      final StringBuilder node = new StringBuilder();
+      node.append("package ").append(PACKAGE).append(";\n");
+      node.append("import java.util.List;\n");
+      node.append("/** Node ").append(suffix).append(". */\n");
+      node.append("public class ").append(name);
+      if (d > 0) {
+         node.append(" extends ").append(node(d - 1, i));
+      }
+      node.append(" {\n");
+      node.append("   /** The limit of node ").append(suffix).append(". */\n");
+      node.append("   public static final int LIMIT").append(suffix)
+         .append(" = ").append(d).append(";\n");
+      field(node, "String", "name" + suffix, "The name of the node.");
+      field(node, "Kind", "kind" + suffix, "The kind of the node.");
+      field(node, "int", "weight" + suffix, "The weight of the node.");
+      field(node, "List<" + item(d, i) + ">", "items" + suffix,
+         "The items of the node.");
+      node.append("}\n");
+      return node;
+   }
+
+   private StringBuilder itemSource(final int d, final int i) {
+      final StringBuilder item = new StringBuilder();
+      item.append("package ").append(PACKAGE).append(";\n");
+      item.append("/** Item of node ").append(d).append('x').append(i)
+         .append(". */\n");
+      item.append("public class ").append(item(d, i)).append(" {\n");
+      field(item, "String", "label", "The label of the item.");
+      field(item, "long", "quantity", "The quantity of the item.");
+      item.append("}\n");
+      return item;
+   }
+
+   private static void field(final StringBuilder node, final String type,
+                             final String name, final String comment) {
+      final String property =
+         Character.toUpperCase(name.charAt(0)) + name.substring(1);
+      node.append("   /** ").append(comment).append(" */\n");
+      node.append("   private ").append(type).append(' ').append(name)
+         .append(";\n");
+      node.append("   /** Gets the ").append(name).append(".\n");
+      node.append("    * @return the ").append(name).append(". */\n");
+      node.append("   public ").append(type).append(" get").append(property)
+         .append("() { return ").append(name).append("; }\n");
+      node.append("   /** Sets the ").append(name).append(".\n");
+      node.append("    * @param value the ").append(name).append(". */\n");
+      node.append("   public void set").append(property).append('(')
+         .append(type).append(" value) { ").append(name)
+         .append(" = value; }\n");
+   }
+
+   private static String node(final int d, final int i) {
+      return "Node" + d + "x" + i;
+   }
+
+   private static String item(final int d, final int i) {
+      return "Item" + d + "x" + i;
+   }
+
+   private static void write(final File file, final CharSequence source)
+      throws IOException {
+      final Writer writer = new FileWriter(file);
+      try {
+         writer.append(source);
+      } finally {
+         writer.close();
+      }
+   }
+
+}
@@ -0,0 +1,204 @@
+/*
+ * #%L
+ * restdoc-benchmarks
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.commons.io.FileUtils;
+import org.jibx.runtime.JiBXException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.iggroup.oss.restdoclet.doclet.type.Service;
+import com.iggroup.oss.restdoclet.doclet.type.ServiceSummary;
+import com.iggroup.oss.restdoclet.doclet.type.Services;
+import com.iggroup.oss.restdoclet.doclet.util.CatalogueCodec;
+import com.iggroup.oss.restdoclet.doclet.util.JiBXUtils;
+import com.iggroup.oss.restdoclet.doclet.util.ServiceSummaryReader;
+
+/**
+ * Marshalling and unmarshalling of services with {@link JiBXUtils}, as done by
+ * the plugin and the web-application, against the readers that can replace
+ * it: {@link ServiceSummaryReader} and {@link CatalogueCodec}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JiBXUtilsBenchmark {
+
+   /**
+    * The number of services in the listing.
+    */
+   @Param({"10", "100", "1000"})
+   private int services;
+
+   private File dir;
+
+   private Services listing;
+
+   private Service service;
+
+   private byte[] listingXml;
+
+   private byte[] serviceXml;
+
+   private byte[] listingBinary;
+
+   private byte[] serviceBinary;
+
+   /**
+    * Builds the catalogue and its serialised forms.
+    *
+    * @throws IOException if the catalogue can't be written.
+    * @throws JiBXException if JiBX fails.
+    */
+   @Setup
+   public void setUp() throws IOException, JiBXException {
+      dir = SyntheticCatalogue.createTempDirectory("restdoclet-jibx");
+      listing = SyntheticCatalogue.services(services);
+      service = listing.getServices().iterator().next();
+      SyntheticCatalogue.write(dir, services, true);
+      listingXml =
+         FileUtils.readFileToByteArray(new File(dir, "restdoc-services.xml"));
+      serviceXml =
+         FileUtils.readFileToByteArray(new File(dir, "restdoc-service-"
+            + service.getIdentifier() + ".xml"));
+      listingBinary =
+         FileUtils.readFileToByteArray(new File(dir, "restdoc-services"
+            + CatalogueCodec.SUFFIX));
+      serviceBinary =
+         FileUtils.readFileToByteArray(new File(dir, "restdoc-service-"
+            + service.getIdentifier() + CatalogueCodec.SUFFIX));
+   }
+
+   /**
+    * Deletes the catalogue.
+    */
+   @TearDown
+   public void tearDown() {
+      SyntheticCatalogue.delete(dir);
+   }
+
+   /**
+    * Marshals a single service, as the plugin does for every service.
+    *
+    * @return the file written.
+    * @throws IOException if the file can't be written.
+    * @throws JiBXException if JiBX fails.
+    */
+   @Benchmark
+   public File marshallService() throws IOException, JiBXException {
+      final File file = new File(dir, "marshalled-service.xml");
+      JiBXUtils.marshallService(service, file);
+      return file;
+   }
+
+   /**
+    * Marshals the listing of services.
+    *
+    * @return the file written.
+    * @throws IOException if the file can't be written.
+    * @throws JiBXException if JiBX fails.
+    */
+   @Benchmark
+   public File marshallServices() throws IOException, JiBXException {
+      final File file = new File(dir, "marshalled-services.xml");
+      JiBXUtils.marshallServices(listing, file);
+      return file;
+   }
+
+   /**
+    * Unmarshals a single service.
+    *
+    * @return the service.
+    * @throws JiBXException if JiBX fails.
+    */
+   @Benchmark
+   public Service unmarshallService() throws JiBXException {
+      return JiBXUtils.unmarshallService(new ByteArrayInputStream(serviceXml));
+   }
+
+   /**
+    * Unmarshals the listing of services.
+    *
+    * @return the services.
+    * @throws JiBXException if JiBX fails.
+    * @throws IOException never.
+    */
+   @Benchmark
+   public Services unmarshallServices() throws JiBXException, IOException {
+      return JiBXUtils.unmarshallServices(new ByteArrayInputStream(listingXml));
+   }
+
+   /**
+    * Streams the listing of services into summaries.
+    *
+    * @return the summaries.
+    * @throws XMLStreamException if the listing can't be parsed.
+    */
+   @Benchmark
+   public List<ServiceSummary> readServiceSummaries() throws XMLStreamException {
+      return ServiceSummaryReader.readServices(new ByteArrayInputStream(
+         listingXml));
+   }
+
+   /**
+    * Decodes a single service from its binary form.
+    *
+    * @return the service.
+    * @throws IOException if the service can't be decoded.
+    */
+   @Benchmark
+   public Service readBinaryService() throws IOException {
+      return CatalogueCodec.readService(new ByteArrayInputStream(serviceBinary));
+   }
+
+   /**
+    * Decodes the summaries of the services from the binary listing.
+    *
+    * @return the summaries.
+    * @throws IOException if the listing can't be decoded.
+    */
+   @Benchmark
+   public List<ServiceSummary> readBinaryServiceSummaries() throws IOException {
+      return CatalogueCodec.readServiceSummaries(new ByteArrayInputStream(
+         listingBinary));
+   }
+
+}
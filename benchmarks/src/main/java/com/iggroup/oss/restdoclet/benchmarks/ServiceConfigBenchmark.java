@@ -0,0 +1,199 @@
+/*
+ * #%L
+ * restdoc-benchmarks
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jibx.runtime.JiBXException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.iggroup.oss.restdoclet.doclet.type.Service;
+import com.iggroup.oss.restdoclet.doclet.type.ServiceSummary;
+import com.iggroup.oss.restdoclet.doclet.util.CatalogueCodec;
+import com.iggroup.oss.restdoclet.web.ServiceConfig;
+
+/**
+ * Requests served by {@link ServiceConfig} over synthetic catalogues. With
+ * <code>cached</code> false, the files read are touched before every
+ * invocation, so that each one reads them again as after a redeployment.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceConfigBenchmark {
+
+   /**
+    * The number of applications in the catalogue.
+    */
+   @Param({"1", "10"})
+   private int applications;
+
+   /**
+    * The number of services of each application.
+    */
+   @Param({"10", "100", "1000"})
+   private int services;
+
+   /**
+    * Whether the binary catalogue files are deployed next to the XML.
+    */
+   @Param({"false", "true"})
+   private boolean binary;
+
+   /**
+    * Whether the files read are left unchanged between invocations.
+    */
+   @Param({"true", "false"})
+   private boolean cached;
+
+   private File dir;
+
+   /**
+    * The identifier of the service requested by the next invocation.
+    */
+   private int identifier;
+
+   /**
+    * The modification time given to touched files, increased at each touch.
+    */
+   private long stamp;
+
+   /**
+    * Deploys the catalogue.
+    *
+    * @throws IOException if the catalogue can't be written.
+    * @throws JiBXException if JiBX fails.
+    */
+   @Setup
+   public void setUp() throws IOException, JiBXException {
+      dir = SyntheticCatalogue.createTempDirectory("restdoclet-web");
+      for (int i = 0; i < applications; i++) {
+         final File application = new File(dir, application(i));
+         application.mkdir();
+         SyntheticCatalogue.write(application, services, binary);
+      }
+      ServiceConfig.setConfigPath(dir.getAbsolutePath());
+      stamp = System.currentTimeMillis();
+   }
+
+   /**
+    * Picks the service requested next and, unless <code>cached</code>, touches
+    * the files the invocation reads.
+    */
+   @Setup(Level.Invocation)
+   public void nextInvocation() {
+      identifier = identifier % services + 1;
+      if (!cached) {
+         stamp += 1000;
+         for (int i = 0; i < applications; i++) {
+            touch(application(i), "restdoc-services");
+         }
+         touch(application(0), "restdoc-service-" + identifier);
+         touch(application(0), "restdoc-catalogue");
+      }
+   }
+
+   /**
+    * Deletes the catalogue.
+    */
+   @TearDown
+   public void tearDown() {
+      SyntheticCatalogue.delete(dir);
+   }
+
+   /**
+    * Lists the services of every application.
+    *
+    * @param blackhole the sink of the listings.
+    * @throws IOException if a listing can't be read.
+    * @throws XMLStreamException if a listing can't be parsed.
+    */
+   @Benchmark
+   public void getServices(final Blackhole blackhole) throws IOException,
+      XMLStreamException {
+      for (int i = 0; i < applications; i++) {
+         blackhole.consume(ServiceConfig.getServices(application(i)));
+      }
+   }
+
+   /**
+    * Searches all applications for the URIs of one service.
+    *
+    * @return the matching services.
+    * @throws IOException if a listing can't be read.
+    * @throws XMLStreamException if a listing can't be parsed.
+    */
+   @Benchmark
+   public Collection<ServiceSummary> findServices() throws IOException,
+      XMLStreamException {
+      return ServiceConfig.findServices("resource-" + identifier + "/");
+   }
+
+   /**
+    * Gets a service of the first application.
+    *
+    * @return the service.
+    * @throws IOException if the service can't be read.
+    * @throws JiBXException if the service can't be parsed.
+    */
+   @Benchmark
+   public Service getService() throws IOException, JiBXException {
+      return ServiceConfig.getService(application(0),
+         String.valueOf(identifier));
+   }
+
+   private static String application(final int index) {
+      return "application-" + index;
+   }
+
+   private void touch(final String application, final String name) {
+      final File xml = new File(new File(dir, application), name + ".xml");
+      final File bin =
+         new File(new File(dir, application), name + CatalogueCodec.SUFFIX);
+      if (xml.exists()) {
+         xml.setLastModified(stamp);
+      }
+      if (bin.exists()) {
+         bin.setLastModified(stamp);
+      }
+   }
+
+}
@@ -0,0 +1,253 @@
+/*
+ * #%L
+ * restdoc-benchmarks
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.jibx.runtime.JiBXException;
+
+import com.iggroup.oss.restdoclet.doclet.type.BodyParameter;
+import com.iggroup.oss.restdoclet.doclet.type.Controller;
+import com.iggroup.oss.restdoclet.doclet.type.ControllerSummary;
+import com.iggroup.oss.restdoclet.doclet.type.FieldParameter;
+import com.iggroup.oss.restdoclet.doclet.type.Method;
+import com.iggroup.oss.restdoclet.doclet.type.ModelParameter;
+import com.iggroup.oss.restdoclet.doclet.type.PathParameter;
+import com.iggroup.oss.restdoclet.doclet.type.RequestParameter;
+import com.iggroup.oss.restdoclet.doclet.type.ResponseParameter;
+import com.iggroup.oss.restdoclet.doclet.type.RestParameter;
+import com.iggroup.oss.restdoclet.doclet.type.Service;
+import com.iggroup.oss.restdoclet.doclet.type.Services;
+import com.iggroup.oss.restdoclet.doclet.type.Uri;
+import com.iggroup.oss.restdoclet.doclet.util.CatalogueCodec;
+import com.iggroup.oss.restdoclet.doclet.util.JiBXCodec;
+
+/**
+ * Builds catalogues of made-up services, shaped like the ones the plugin
+ * generates for the sample project, and writes them out as the plugin would.
+ */
+final class SyntheticCatalogue {
+
+   /**
+    * The number of methods of each service.
+    */
+   static final int METHODS = 4;
+
+   /**
+    * The number of services of each controller.
+    */
+   private static final int SERVICES_PER_CONTROLLER = 5;
+
+   /**
+    * The number of fields of each body parameter.
+    */
+   private static final int FIELDS = 6;
+
+   private static final String[] REQUEST_METHODS = {"GET", "POST", "PUT",
+      "DELETE"};
+
+   private static final String JAVADOC =
+      "Handles the resource. The request is validated against the resource's"
+         + " rules before it is processed.\n<p>\nDocumented at length, as"
+         + " controllers tend to be.";
+
+   /**
+    * Private constructor to "silence" PMD.
+    */
+   private SyntheticCatalogue() {
+      super();
+   }
+
+   /**
+    * Gets the URI of a made-up service.
+    *
+    * @param identifier the identifier of the service.
+    * @return the service's URI.
+    */
+   static String uri(final int identifier) {
+      return "/accounts/" + (identifier % 7) + "/resource-" + identifier
+         + "/{id}";
+   }
+
+   /**
+    * Builds a made-up service.
+    *
+    * @param identifier the identifier of the service.
+    * @return the service.
+    */
+   static Service service(final int identifier) {
+      final Collection<Uri> uris = new ArrayList<Uri>();
+      uris.add(new Uri(uri(identifier), false));
+      if (identifier % 3 == 0) {
+         uris.add(new Uri("/legacy" + uri(identifier), true));
+      }
+
+      final Collection<Method> methods = new ArrayList<Method>();
+      for (int i = 0; i < METHODS; i++) {
+         methods.add(method(identifier, i, uris));
+      }
+      return new Service(identifier, uris, new Controller(
+         controllerType(identifier), JAVADOC, methods));
+   }
+
+   /**
+    * Builds a listing of made-up services.
+    *
+    * @param count the number of services.
+    * @return the listing.
+    */
+   static Services services(final int count) {
+      final Services services = new Services();
+      ControllerSummary controller = null;
+      for (int identifier = 1; identifier <= count; identifier++) {
+         final Service service = service(identifier);
+         if (controller == null
+            || !controller.getType().equals(controllerType(identifier))) {
+            controller =
+               new ControllerSummary(controllerType(identifier), JAVADOC);
+            services.addController(controller);
+         }
+         controller.addService(service);
+      }
+      return services;
+   }
+
+   /**
+    * Writes a listing of made-up services and each of its services to a
+    * directory, as XML and optionally in binary form.
+    *
+    * @param dir the directory of the application.
+    * @param count the number of services.
+    * @param binary whether the binary forms, including the packed catalogue,
+    *           are written too.
+    * @throws IOException if the files can't be written.
+    * @throws JiBXException if JiBX fails.
+    */
+   static void write(final File dir, final int count, final boolean binary)
+      throws IOException, JiBXException {
+      final Services services = services(count);
+      JiBXCodec.marshal(services, new File(dir,
+         "restdoc-services.xml"));
+      for (Service service : services.getServices()) {
+         JiBXCodec.marshal(service, new File(dir, "restdoc-service-"
+            + service.getIdentifier() + ".xml"));
+      }
+      if (binary) {
+         CatalogueCodec.writeServices(services, new File(dir,
+            "restdoc-services" + CatalogueCodec.SUFFIX));
+         for (Service service : services.getServices()) {
+            CatalogueCodec.writeService(service, new File(dir,
+               "restdoc-service-" + service.getIdentifier()
+                  + CatalogueCodec.SUFFIX));
+         }
+         CatalogueCodec.writeCatalogue(services.getServices(), new File(dir,
+            CatalogueCodec.CATALOGUE_FILE));
+      }
+   }
+
+   /**
+    * Deletes a directory and its contents.
+    *
+    * @param dir the directory.
+    */
+   static void delete(final File dir) {
+      final File[] files = dir.listFiles();
+      if (files != null) {
+         for (File file : files) {
+            delete(file);
+         }
+      }
+      dir.delete();
+   }
+
+   /**
+    * Creates an empty temporary directory.
+    *
+    * @param prefix the prefix of the directory's name.
+    * @return the directory.
+    * @throws IOException if the directory can't be created.
+    */
+   static File createTempDirectory(final String prefix) throws IOException {
+      final File dir = File.createTempFile(prefix, "");
+      if (!dir.delete() || !dir.mkdir()) {
+         throw new IOException("Can't create " + dir);
+      }
+      return dir;
+   }
+
+   private static String controllerType(final int identifier) {
+      return "com.example.web.controller.Resource"
+         + ((identifier - 1) / SERVICES_PER_CONTROLLER) + "Controller";
+   }
+
+   private static Method method(final int identifier, final int index,
+                                final Collection<Uri> uris) {
+      final Method method = new Method();
+      method.setName("handle" + identifier + "x" + index);
+      method.setRequestMethod(REQUEST_METHODS[index % REQUEST_METHODS.length]);
+      method.setJavadoc(JAVADOC);
+      method.setUris(uris);
+      method.setRestParams(new ArrayList<RestParameter>());
+      method.setModelParams(new ArrayList<ModelParameter>());
+      method.setBodyParams(new ArrayList<BodyParameter>());
+
+      final PathParameter id = new PathParameter();
+      id.setName("id");
+      id.setType("java.lang.String");
+      id.setJavadoc("the identifier of the resource");
+      method.setPathParams(new ArrayList<PathParameter>());
+      method.getPathParams().add(id);
+
+      final RequestParameter page = new RequestParameter();
+      page.setName("page");
+      page.setType("int");
+      page.setJavadoc("the page of results");
+      page.setRequired(false);
+      page.setDefaultValue("1");
+      method.setRequestParams(new ArrayList<RequestParameter>());
+      method.getRequestParams().add(page);
+
+      final String model = "com.example.domain.Resource" + identifier;
+      if (index % 2 == 1) {
+         final BodyParameter body = new BodyParameter();
+         body.setName("resource");
+         body.setType(model);
+         body.setJavadoc("the resource");
+         body.setFields(new ArrayList<FieldParameter>());
+         for (int i = 0; i < FIELDS; i++) {
+            final FieldParameter field =
+               new FieldParameter("field" + i, "java.lang.String");
+            field.setJavadoc("field " + i + " of the resource");
+            body.getFields().add(field);
+         }
+         method.getBodyParams().add(body);
+      }
+
+      method.setResponseParams(new ArrayList<ResponseParameter>());
+      method.getResponseParams().add(
+         new ResponseParameter("resource", model,
+            "<table><tr><td>name</td><td>the name</td></tr></table>"));
+      return method;
+   }
+
+}
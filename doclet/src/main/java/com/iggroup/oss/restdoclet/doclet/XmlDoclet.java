@@ -20,16 +20,37 @@
 package com.iggroup.oss.restdoclet.doclet;
 
 import static com.iggroup.oss.restdoclet.doclet.util.AnnotationUtils.isAnnotated;
-import static com.iggroup.oss.restdoclet.doclet.util.JiBXUtils.marshallController;
+import static com.iggroup.oss.restdoclet.doclet.util.JiBXCodec.marshal;
+import static com.iggroup.oss.restdoclet.doclet.util.JiBXCodec.unmarshal;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
 import org.jibx.runtime.JiBXException;
 
 import com.iggroup.oss.restdoclet.doclet.type.Controller;
+import com.iggroup.oss.restdoclet.doclet.type.TypeDocs;
 import com.iggroup.oss.restdoclet.doclet.type.builder.ControllerBuilder;
+import com.iggroup.oss.restdoclet.doclet.util.AnnotationUtils;
+import com.iggroup.oss.restdoclet.doclet.util.ControllerFingerprints;
+import com.iggroup.oss.restdoclet.doclet.util.ControllerSources;
+import com.iggroup.oss.restdoclet.doclet.util.DocTypeUtils;
 import com.iggroup.oss.restdoclet.doclet.util.DocletUtils;
+import com.iggroup.oss.restdoclet.doclet.util.TypeDocBudget;
 import com.sun.javadoc.ClassDoc;
 import com.sun.javadoc.Doclet;
 import com.sun.javadoc.LanguageVersion;
@@ -37,11 +58,85 @@ import com.sun.javadoc.RootDoc;
 
 /**
  * Doclet to generate Java documentation in XML format.
+ * <p>
+ * The Java documentation tool parses every source file it's given before the
+ * doclet starts, though only controllers are documented. {@link #main} runs
+ * it over the controllers and the types they refer to only.
  */
 public final class XmlDoclet extends Doclet {
 
    private static final Logger LOG = Logger.getLogger(XmlDoclet.class);
 
+   /**
+    * System property for the number of threads writing documentation files.
+    * Controllers are written one at a time by the Java documentation tool's
+    * thread unless this is greater than one.
+    */
+   public static final String THREADS = "RESTDOCLET_THREADS";
+
+   /**
+    * System property enabling incremental generation: controllers whose
+    * fingerprint is the one recorded in the manifest by the last run, and
+    * whose documentation file exists, are not documented again.
+    * 
+    * @see ControllerFingerprints
+    */
+   public static final String INCREMENTAL = "RESTDOCLET_INCREMENTAL";
+
+   /**
+    * System property enabling the type registry: the documentation of the
+    * types of parameters is written once, to {@link TypeDocs#FILE}, and
+    * parameters refer to it instead of inlining it. In incremental mode the
+    * registry of the last run is kept, since unchanged controllers still
+    * refer to it.
+    * 
+    * @see DocTypeUtils#initTypeDoc(com.iggroup.oss.restdoclet.doclet.type.BaseType,
+    *      com.sun.javadoc.Type)
+    */
+   public static final String TYPE_REGISTRY = "RESTDOCLET_TYPE_REGISTRY";
+
+   /**
+    * System property for the maximum number of nested levels of types in the
+    * documentation of a parameter's type.
+    * 
+    * @see TypeDocBudget
+    */
+   public static final String TYPE_DOC_MAX_DEPTH =
+      "RESTDOCLET_TYPE_DOC_MAX_DEPTH";
+
+   /**
+    * System property for the maximum number of attributes documented per
+    * type in the documentation of a parameter's type.
+    * 
+    * @see TypeDocBudget
+    */
+   public static final String TYPE_DOC_MAX_ATTRIBUTES =
+      "RESTDOCLET_TYPE_DOC_MAX_ATTRIBUTES";
+
+   /**
+    * System property for the maximum length, in characters, of the
+    * documentation of a parameter's type.
+    * 
+    * @see TypeDocBudget
+    */
+   public static final String TYPE_DOC_MAX_LENGTH =
+      "RESTDOCLET_TYPE_DOC_MAX_LENGTH";
+
+   /**
+    * System property for the number of controllers {@link #main} documents
+    * per run of the Java documentation tool. Every run builds the model of
+    * its controllers and of the types they refer to only, so memory is
+    * bounded by the size of a batch rather than of the source path. All
+    * controllers are documented in one run unless this is greater than zero.
+    */
+   public static final String BATCH_SIZE = "RESTDOCLET_BATCH_SIZE";
+
+   /**
+    * The state shared by the batches of a run of {@link #main}, or
+    * <code>null</code> unless batches are being run.
+    */
+   private static Batches batches;
+
    /**
     * Private constructor to "silence" PMD.
     */
@@ -72,17 +167,85 @@ public final class XmlDoclet extends Doclet {
       throws IOException, JiBXException {
 
       LOG.info("Finding controllers.....");
+      final int threads = Integer.getInteger(THREADS, 1);
+      final ThreadPoolExecutor executor;
+      if (threads > 1) {
+         LOG.info("Writing controllers with " + threads + " threads");
+         executor =
+            new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+               new ArrayBlockingQueue<Runnable>(threads * 2),
+               new ThreadPoolExecutor.CallerRunsPolicy());
+      } else {
+         executor = null;
+      }
+      final ControllerFingerprints fingerprints;
+      final TypeDocs typeDocs;
+      if (batches == null) {
+         fingerprints = fingerprints();
+         typeDocs =
+            typeDocs(fingerprints != null && fingerprints.isCompatible());
+      } else {
+         fingerprints = batches.fingerprints;
+         typeDocs = batches.typeDocs;
+      }
+      DocTypeUtils.setTypeDocs(typeDocs);
+      DocTypeUtils.setBudget(budget());
+      final List<Future<Void>> writes = new ArrayList<Future<Void>>();
       Boolean found = false;
-      for (ClassDoc classDoc : rootDoc.classes()) {
-         LOG.debug("Controller? " + classDoc.qualifiedName() + ".java");
-         if (isAnnotated(classDoc,
-            org.springframework.stereotype.Controller.class)) {
-            LOG.info("Found controller.  Generating javadoc xml for "
-               + classDoc.qualifiedName() + ".java");
-            marshallController(
-               new ControllerBuilder().build(new Controller(), classDoc),
-               DocletUtils.documentationFile(classDoc));
-            found = true;
+      int skipped = 0;
+      try {
+         for (ClassDoc classDoc : rootDoc.classes()) {
+            if (batches != null && !batches.isInBatch(classDoc)) {
+               // another batch's controller, or a type this batch's refer to
+               continue;
+            }
+            LOG.debug("Controller? " + classDoc.qualifiedName() + ".java");
+            if (isAnnotated(classDoc,
+               org.springframework.stereotype.Controller.class)
+               && fingerprints != null && fingerprints.isUnchanged(classDoc)) {
+               LOG.info("Found unchanged controller "
+                  + classDoc.qualifiedName() + ".java");
+               skipped++;
+               found = true;
+            } else if (isAnnotated(classDoc,
+               org.springframework.stereotype.Controller.class)) {
+               LOG.info("Found controller.  Generating javadoc xml for "
+                  + classDoc.qualifiedName() + ".java");
+               final Controller controller =
+                  new ControllerBuilder().build(new Controller(), classDoc);
+               final File file = DocletUtils.documentationFile(classDoc);
+               if (executor == null) {
+                  marshal(controller, file);
+               } else {
+                  writes.add(executor.submit(new Callable<Void>() {
+
+                     @Override
+                     public Void call() throws JiBXException, IOException {
+                        marshal(controller, file);
+                        return null;
+                     }
+                  }));
+               }
+               found = true;
+            }
+         }
+         for (Future<Void> write : writes) {
+            awaitWrite(write);
+         }
+         if (typeDocs != null) {
+            marshal(typeDocs, new File(TypeDocs.FILE));
+            LOG.info("Registered documentation of " + typeDocs.size()
+               + " types");
+         }
+         if (fingerprints != null) {
+            fingerprints.store();
+            LOG.info("Skipped " + skipped + " unchanged controllers");
+         }
+      } finally {
+         DocTypeUtils.setTypeDocs(null);
+         DocTypeUtils.setBudget(TypeDocBudget.UNLIMITED);
+         if (executor != null) {
+            executor.shutdownNow();
          }
       }
       if (!found) {
@@ -92,6 +255,234 @@ public final class XmlDoclet extends Doclet {
       LOG.info("Done finding controllers.");
    }
 
+   /**
+    * Gets the budget of the documentation of types set by the system
+    * properties.
+    * 
+    * @return the budget.
+    */
+   private static TypeDocBudget budget() {
+      return new TypeDocBudget(Integer.getInteger(TYPE_DOC_MAX_DEPTH, 0),
+         Integer.getInteger(TYPE_DOC_MAX_ATTRIBUTES, 0), Integer.getInteger(
+            TYPE_DOC_MAX_LENGTH, 0));
+   }
+
+   /**
+    * Gets the effective values of the system properties that change the
+    * documentation of controllers, recorded with their fingerprints. Limits
+    * of zero or less all mean no limit.
+    * 
+    * @return the values, keyed by system property.
+    */
+   private static Map<String, String> options() {
+      final TypeDocBudget budget = budget();
+      final Map<String, String> options = new TreeMap<String, String>();
+      options.put(TYPE_REGISTRY, String.valueOf(Boolean
+         .getBoolean(TYPE_REGISTRY)));
+      options.put(TYPE_DOC_MAX_DEPTH, String.valueOf(Math.max(0, budget
+         .getMaxDepth())));
+      options.put(TYPE_DOC_MAX_ATTRIBUTES, String.valueOf(Math.max(0, budget
+         .getMaxAttributes())));
+      options.put(TYPE_DOC_MAX_LENGTH, String.valueOf(Math.max(0, budget
+         .getMaxLength())));
+      return options;
+   }
+
+   /**
+    * Loads the fingerprints of the last run, if incremental.
+    * 
+    * @return the fingerprints or <code>null</code> if not incremental.
+    * @throws IOException if the manifest can't be read.
+    */
+   private static ControllerFingerprints fingerprints() throws IOException {
+      if (Boolean.getBoolean(INCREMENTAL)) {
+         return new ControllerFingerprints(new File(
+            ControllerFingerprints.MANIFEST_FILE), options());
+      }
+      return null;
+   }
+
+   /**
+    * Creates the type registry of this run, if enabled.
+    * 
+    * @param incremental <code>true</code> to start from the registry written
+    *           by the last run, if any.
+    * @return the registry or <code>null</code> if not enabled.
+    * @throws IOException if the last registry can't be read.
+    * @throws JiBXException if JiBX fails.
+    */
+   private static TypeDocs typeDocs(final boolean incremental)
+      throws IOException, JiBXException {
+      if (!Boolean.getBoolean(TYPE_REGISTRY)) {
+         return null;
+      }
+      final TypeDocs typeDocs = new TypeDocs();
+      final File file = new File(TypeDocs.FILE);
+      if (incremental && file.isFile()) {
+         typeDocs.addAll(unmarshal(TypeDocs.class, file));
+      }
+      return typeDocs;
+   }
+
+   /**
+    * Waits for a controller to be written.
+    * 
+    * @param write the pending write.
+    * @throws IOException if the controller couldn't be written.
+    * @throws JiBXException if JiBX fails.
+    */
+   private static void awaitWrite(final Future<Void> write)
+      throws IOException, JiBXException {
+      try {
+         write.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new IOException("Interrupted writing controllers", e);
+      } catch (ExecutionException e) {
+         final Throwable cause = e.getCause();
+         if (cause instanceof IOException) {
+            throw (IOException) cause;
+         } else if (cause instanceof JiBXException) {
+            throw (JiBXException) cause;
+         } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+         } else if (cause instanceof Error) {
+            throw (Error) cause;
+         }
+         throw new IllegalStateException(cause);
+      }
+   }
+
+   /**
+    * Runs the Java documentation tool with this doclet over the source files
+    * of the controllers of a source path, and of the types they refer to,
+    * instead of over every source file.
+    * <p>
+    * System properties such as {@link #TYPE_REGISTRY} are set on the command
+    * line of the Java virtual machine running this method, which must have
+    * the Java documentation tool in its class-path. With {@link #BATCH_SIZE},
+    * the controllers are documented in batches, one run of the tool each.
+    * 
+    * @param args the options of the Java documentation tool, including
+    *           <code>-sourcepath</code>; the source files are found in the
+    *           source path and must not be given.
+    * @throws IOException if a source file can't be read.
+    * @throws JiBXException if the type registry of the last run can't be
+    *            read.
+    * @see ControllerSources
+    */
+   public static void main(final String[] args) throws IOException,
+      JiBXException {
+      DocletUtils.initialiseLogging();
+      String sourcePath = null;
+      for (int i = 0; i < args.length - 1; i++) {
+         if ("-sourcepath".equals(args[i])) {
+            sourcePath = args[i + 1];
+         }
+      }
+      if (sourcePath == null) {
+         System.err.println("Usage: XmlDoclet -sourcepath <path>"
+            + " [javadoc options]");
+         System.exit(2);
+      }
+      final ControllerSources sources = new ControllerSources(sourcePath);
+      final List<File> controllers = sources.findControllers();
+      if (controllers.isEmpty()) {
+         LOG.error("No controllers with Spring @Controller annotation found in "
+            + sourcePath);
+         System.exit(1);
+      }
+      final int batchSize = Integer.getInteger(BATCH_SIZE, 0);
+      final int size =
+         batchSize > 0 ? Math.min(batchSize, controllers.size()) : controllers
+            .size();
+      if (size < controllers.size()) {
+         final ControllerFingerprints fingerprints = fingerprints();
+         batches =
+            new Batches(fingerprints, typeDocs(fingerprints != null
+               && fingerprints.isCompatible()));
+      }
+      int result = 0;
+      try {
+         int from = 0;
+         while (from < controllers.size() && result == 0) {
+            final List<File> batch =
+               controllers.subList(from, Math.min(from + size, controllers
+                  .size()));
+            if (batches != null) {
+               LOG.info("Documenting controllers " + (from + 1) + " to "
+                  + (from + batch.size()) + " of " + controllers.size());
+               batches.setBatch(batch);
+            }
+            result = javadoc(args, sources.closure(batch));
+            from += batch.size();
+         }
+      } finally {
+         batches = null;
+      }
+      System.exit(result);
+   }
+
+   /**
+    * Runs the Java documentation tool with this doclet. The doclet is loaded
+    * by this class's class loader, so runs share its state.
+    * 
+    * @param args the options of the Java documentation tool.
+    * @param sources the source files.
+    * @return the exit code of the Java documentation tool.
+    */
+   private static int javadoc(final String[] args,
+                              final Collection<File> sources) {
+      final List<String> javadocArgs = new ArrayList<String>();
+      for (String arg : args) {
+         javadocArgs.add(arg);
+      }
+      for (File source : sources) {
+         javadocArgs.add(source.getPath());
+      }
+      return com.sun.tools.javadoc.Main.execute("javadoc", XmlDoclet.class
+         .getName(), XmlDoclet.class.getClassLoader(), javadocArgs
+         .toArray(new String[javadocArgs.size()]));
+   }
+
+   /**
+    * The state the batches of a run share, which a single run keeps from start
+    * to end.
+    */
+   private static final class Batches {
+
+      private final ControllerFingerprints fingerprints;
+
+      private final TypeDocs typeDocs;
+
+      /**
+       * The source files of the controllers of the current batch.
+       */
+      private final Set<File> batch = new HashSet<File>();
+
+      Batches(final ControllerFingerprints fingerprints,
+              final TypeDocs typeDocs) {
+         this.fingerprints = fingerprints;
+         this.typeDocs = typeDocs;
+      }
+
+      void setBatch(final Collection<File> controllers) {
+         batch.clear();
+         for (File controller : controllers) {
+            batch.add(controller.getAbsoluteFile());
+         }
+      }
+
+      /**
+       * Determines if a class is declared by a controller's source file of
+       * the current batch.
+       */
+      boolean isInBatch(final ClassDoc classDoc) {
+         return classDoc.position() != null
+            && batch.contains(classDoc.position().file().getAbsoluteFile());
+      }
+   }
+
    /**
     * Invoked by the Java documentation tool.
     * 
@@ -103,6 +494,13 @@ public final class XmlDoclet extends Doclet {
       boolean result = true;
 
       DocletUtils.initialiseLogging();
+      if (batches == null) {
+         DocTypeUtils.clearTypeDocCache();
+      } else {
+         // the batches share the documentation rendered so far, not models
+         DocTypeUtils.clearModelIndexes();
+      }
+      AnnotationUtils.clearAnnotationIndex();
       try {
          LOG.info("Generating RESTDoc... ");
          controllerDocs(rootDoc);
@@ -111,6 +509,7 @@ public final class XmlDoclet extends Doclet {
          e.printStackTrace();
          result = false;
       }
+      DocTypeUtils.logTypeDocCacheStatistics();
       return result;
    }
 
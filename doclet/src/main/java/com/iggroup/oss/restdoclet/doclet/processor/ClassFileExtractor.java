@@ -0,0 +1,246 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.processor;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Generates the documentation of the controllers of compiled classes, without
+ * running the Java documentation tool over the sources.
+ * <p>
+ * Controllers are found by looking for the descriptor of Spring's
+ * <code>@Controller</code> in the constant pool of the class files, without
+ * loading them. The controllers found are then handed by name to
+ * {@link ControllerProcessor}, through the compiler's API: the compiler reads
+ * their class files, and those of the types they refer to, but compiles and
+ * parses nothing. The documentation comments are read from the source path
+ * by a lexer (see {@link SourceComments}), only for the classes documented.
+ * The documentation is the same as the doclet's. The names of parameters the
+ * compiler doesn't read from the class files are read from the source files
+ * too. Nested controllers are handed by binary name, e.g.
+ * <code>Outer$Inner</code>; anonymous and local classes, which can't be
+ * named, are skipped.
+ */
+public final class ClassFileExtractor {
+
+   private static final Logger LOG = Logger
+      .getLogger(ClassFileExtractor.class);
+
+   private static final String CLASS = ".class";
+
+   /**
+    * The pattern of the names of class files of anonymous and local classes,
+    * whose names start with a digit after the enclosing class's.
+    */
+   private static final Pattern UNNAMED = Pattern.compile(".*\\$\\d.*");
+
+   /**
+    * The descriptor of <code>@Controller</code>, as found in the constant
+    * pool of annotated classes.
+    */
+   private static final byte[] CONTROLLER;
+
+   static {
+      final String descriptor =
+         "L" + org.springframework.stereotype.Controller.class.getName()
+            .replace('.', '/') + ";";
+      CONTROLLER = new byte[descriptor.length()];
+      for (int i = 0; i < CONTROLLER.length; i++) {
+         CONTROLLER[i] = (byte) descriptor.charAt(i);
+      }
+   }
+
+   /**
+    * The directory of the class files.
+    */
+   private final File classes;
+
+   /**
+    * The source path of the class files.
+    */
+   private final String sourcePath;
+
+   /**
+    * The directory documentation files are written to.
+    */
+   private final File outputDirectory;
+
+   /**
+    * The class-path of the class files' dependencies.
+    */
+   private final String classPath;
+
+   /**
+    * Constructs an extractor.
+    *
+    * @param classes the directory of the class files.
+    * @param sourcePath the source path of the class files: directories
+    *           separated by the path separator.
+    * @param outputDirectory the directory documentation files are written to.
+    * @param classPath the class-path of the class files' dependencies, or
+    *           <code>null</code>.
+    */
+   public ClassFileExtractor(final File classes, final String sourcePath,
+                             final File outputDirectory,
+                             final String classPath) {
+      super();
+      this.classes = classes;
+      this.sourcePath = sourcePath;
+      this.outputDirectory = outputDirectory;
+      this.classPath = classPath;
+   }
+
+   /**
+    * Finds the controllers in the class files.
+    *
+    * @return the binary names of the controllers.
+    * @throws IOException if a class file can't be read.
+    */
+   public List<String> findControllers() throws IOException {
+      final List<String> controllers = new ArrayList<String>();
+      findControllers(classes, "", controllers);
+      return controllers;
+   }
+
+   private void findControllers(final File directory, final String pkg,
+                                final List<String> controllers)
+      throws IOException {
+      final File[] files = directory.listFiles();
+      if (files != null) {
+         for (File file : files) {
+            final String name = file.getName();
+            if (file.isDirectory()) {
+               findControllers(file, pkg + name + ".", controllers);
+            } else if (name.endsWith(CLASS) && !UNNAMED.matcher(name).matches()
+               && isController(file)) {
+               controllers.add(pkg
+                  + name.substring(0, name.length() - CLASS.length()));
+            }
+         }
+      }
+   }
+
+   /**
+    * Determines if a class file refers to <code>@Controller</code>.
+    */
+   private static boolean isController(final File file) throws IOException {
+      final byte[] bytes = new byte[(int) file.length()];
+      final DataInputStream input =
+         new DataInputStream(new FileInputStream(file));
+      try {
+         input.readFully(bytes);
+      } finally {
+         input.close();
+      }
+      final int last = bytes.length - CONTROLLER.length;
+      for (int i = 0; i <= last; i++) {
+         int j = 0;
+         while (j < CONTROLLER.length && bytes[i + j] == CONTROLLER[j]) {
+            j++;
+         }
+         if (j == CONTROLLER.length) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Generates the documentation of the controllers.
+    *
+    * @return <code>true</code> if documentation was generated successfully,
+    *         <code>false</code> otherwise.
+    * @throws IOException if a class file can't be read.
+    */
+   public boolean extract() throws IOException {
+      final List<String> controllers = findControllers();
+      if (controllers.isEmpty()) {
+         LOG.warn("No controllers with Spring @Controller annotation found in "
+            + classes);
+         return false;
+      }
+      LOG.info("Found " + controllers.size() + " controllers in " + classes);
+
+      final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+      if (compiler == null) {
+         throw new IllegalStateException("No Java compiler available");
+      }
+      final List<String> options = new ArrayList<String>();
+      options.add("-proc:only");
+      options.add("-implicit:none");
+      options.add("-classpath");
+      options.add(classPath == null ? classes.getPath() : classes.getPath()
+         + File.pathSeparator + classPath);
+      options.add("-A" + ControllerProcessor.OUTPUT_DIRECTORY + "="
+         + outputDirectory.getPath());
+      options.add("-A" + ControllerProcessor.SOURCE_PATH + "=" + sourcePath);
+
+      final StandardJavaFileManager fileManager =
+         compiler.getStandardFileManager(null, null, null);
+      try {
+         final CompilationTask task =
+            compiler.getTask(null, fileManager, null, options, controllers,
+               Collections.<JavaFileObject> emptyList());
+         task.setProcessors(Collections.singletonList(new ControllerProcessor()));
+         return task.call();
+      } finally {
+         fileManager.close();
+      }
+   }
+
+   /**
+    * Generates the documentation of the controllers of a directory of class
+    * files.
+    *
+    * @param args the directory of the class files, their source path, the
+    *           directory documentation files are written to and, optionally,
+    *           the class-path of the class files' dependencies.
+    * @throws IOException if a class file can't be read.
+    */
+   public static void main(final String[] args) throws IOException {
+      if (args.length < 3) {
+         System.err.println("Usage: ClassFileExtractor <classes> <sourcepath>"
+            + " <output directory> [classpath]");
+         System.exit(2);
+      }
+      final boolean result =
+         new ClassFileExtractor(new File(args[0]), args[1], new File(args[2]),
+            args.length > 3 ? args[3] : null).extract();
+      if (!result) {
+         System.exit(1);
+      }
+   }
+
+}
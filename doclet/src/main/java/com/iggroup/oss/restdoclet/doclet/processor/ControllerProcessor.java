@@ -0,0 +1,299 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.processor;
+
+import static com.iggroup.oss.restdoclet.doclet.util.JiBXCodec.marshal;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+
+import org.apache.log4j.Logger;
+import org.jibx.runtime.JiBXException;
+
+import com.iggroup.oss.restdoclet.doclet.type.Controller;
+import com.iggroup.oss.restdoclet.doclet.type.TypeDocs;
+import com.iggroup.oss.restdoclet.doclet.util.DocletUtils;
+import com.iggroup.oss.restdoclet.doclet.util.TypeDocBudget;
+
+/**
+ * Annotation processor generating the same documentation as
+ * <code>XmlDoclet</code> while the controllers are compiled, instead of in a
+ * separate run of the Java documentation tool. The documentation of every
+ * class annotated with Spring's <code>@Controller</code> is written to a
+ * <code>.controller.xml</code> file, by default next to the class files.
+ * <p>
+ * The processor isn't registered as a service, so it only runs when asked
+ * for:
+ *
+ * <pre>
+ * javac -processor com.iggroup.oss.restdoclet.doclet.processor.ControllerProcessor ...
+ * </pre>
+ *
+ * Options:
+ * <ul>
+ * <li><code>-Arestdoclet.outputDirectory=&lt;dir&gt;</code>: the directory
+ * documentation files are written to instead of the class output directory.
+ * </li>
+ * <li><code>-Arestdoclet.typeRegistry=true</code>: write the documentation
+ * of parameters' types to a registry, {@link TypeDocs#FILE}, as the doclet
+ * does when <code>RESTDOCLET_TYPE_REGISTRY</code> is set.</li>
+ * <li><code>-Arestdoclet.sourcepath=&lt;path&gt;</code>: the source files
+ * the documentation comments of classes only known from class files are read
+ * from (see {@link ClassFileExtractor}).</li>
+ * <li><code>-Arestdoclet.typeDocMaxDepth=&lt;n&gt;</code>,
+ * <code>-Arestdoclet.typeDocMaxAttributes=&lt;n&gt;</code> and
+ * <code>-Arestdoclet.typeDocMaxLength=&lt;n&gt;</code>: the limits of the
+ * documentation of a type (see {@link TypeDocBudget}), as the doclet's
+ * <code>RESTDOCLET_TYPE_DOC_MAX_*</code> properties.</li>
+ * </ul>
+ * The compiler only keeps the documentation comments of the classes it
+ * compiles, so without a source path the types of parameters should be
+ * compiled together with the controllers for their documentation to be
+ * rendered.
+ */
+@SupportedAnnotationTypes("org.springframework.stereotype.Controller")
+@SupportedOptions({ControllerProcessor.OUTPUT_DIRECTORY,
+   ControllerProcessor.TYPE_REGISTRY, ControllerProcessor.SOURCE_PATH,
+   ControllerProcessor.TYPE_DOC_MAX_DEPTH,
+   ControllerProcessor.TYPE_DOC_MAX_ATTRIBUTES,
+   ControllerProcessor.TYPE_DOC_MAX_LENGTH})
+public class ControllerProcessor extends AbstractProcessor {
+
+   /**
+    * Option for the directory documentation files are written to.
+    */
+   public static final String OUTPUT_DIRECTORY = "restdoclet.outputDirectory";
+
+   /**
+    * Option enabling the type registry.
+    */
+   public static final String TYPE_REGISTRY = "restdoclet.typeRegistry";
+
+   /**
+    * Option for the source path documentation comments are read from.
+    */
+   public static final String SOURCE_PATH = "restdoclet.sourcepath";
+
+   /**
+    * Option for the maximum number of nested levels of types documented.
+    */
+   public static final String TYPE_DOC_MAX_DEPTH = "restdoclet.typeDocMaxDepth";
+
+   /**
+    * Option for the maximum number of attributes documented per type.
+    */
+   public static final String TYPE_DOC_MAX_ATTRIBUTES =
+      "restdoclet.typeDocMaxAttributes";
+
+   /**
+    * Option for the maximum length, in characters, of the documentation of a
+    * type.
+    */
+   public static final String TYPE_DOC_MAX_LENGTH =
+      "restdoclet.typeDocMaxLength";
+
+   private static final Logger LOG = Logger
+      .getLogger(ControllerProcessor.class);
+
+   /**
+    * The directory documentation files are written to, or <code>null</code>
+    * for the class output directory.
+    */
+   private File outputDirectory;
+
+   /**
+    * The registry of the documentation of parameters' types, or
+    * <code>null</code> if it's inlined.
+    */
+   private TypeDocs typeDocs;
+
+   /**
+    * The builder of controllers' documentation.
+    */
+   private ElementControllerBuilder builder;
+
+   /**
+    * The number of controllers documented.
+    */
+   private int controllers;
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public synchronized void init(final ProcessingEnvironment env) {
+      super.init(env);
+      DocletUtils.initialiseLogging();
+      final String directory = env.getOptions().get(OUTPUT_DIRECTORY);
+      if (directory != null) {
+         outputDirectory = new File(directory);
+      }
+      if (Boolean.parseBoolean(env.getOptions().get(TYPE_REGISTRY))) {
+         typeDocs = new TypeDocs();
+      }
+      final String sourcePath = env.getOptions().get(SOURCE_PATH);
+      builder =
+         new ElementControllerBuilder(new ElementTypeDocs(env, typeDocs,
+            budget(env), sourcePath == null ? null : new SourceComments(
+               sourcePath)));
+   }
+
+   /**
+    * Gets the limits of the documentation of a type set by the options.
+    */
+   private TypeDocBudget budget(final ProcessingEnvironment env) {
+      return new TypeDocBudget(intOption(env, TYPE_DOC_MAX_DEPTH), intOption(
+         env, TYPE_DOC_MAX_ATTRIBUTES), intOption(env, TYPE_DOC_MAX_LENGTH));
+   }
+
+   /**
+    * Gets the value of a numeric option, reporting malformed values.
+    *
+    * @return the value, zero if the option isn't set or is malformed.
+    */
+   private int intOption(final ProcessingEnvironment env, final String name) {
+      final String value = env.getOptions().get(name);
+      if (value != null) {
+         try {
+            return Integer.parseInt(value.trim());
+         } catch (NumberFormatException e) {
+            env.getMessager().printMessage(Diagnostic.Kind.WARNING,
+               "Ignoring option " + name + ", not a number: " + value);
+         }
+      }
+      return 0;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public SourceVersion getSupportedSourceVersion() {
+      return SourceVersion.latestSupported();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public boolean process(final Set<? extends TypeElement> annotations,
+                          final RoundEnvironment roundEnv) {
+      if (roundEnv.processingOver()) {
+         writeTypeDocs();
+      } else {
+         for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv
+               .getElementsAnnotatedWith(annotation)) {
+               if (element.getKind().isClass()) {
+                  document((TypeElement) element);
+               }
+            }
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Writes the documentation of a controller.
+    *
+    * @param type the controller's class.
+    */
+   private void document(final TypeElement type) {
+      LOG.info("Found controller.  Generating javadoc xml for "
+         + type.getQualifiedName() + ".java");
+      try {
+         final Controller controller = builder.build(type);
+         marshal(controller, file(type.getQualifiedName()
+            .toString().replace('.', '/')
+            + Controller.FILE_SUFFIX, type));
+         controllers++;
+      } catch (IOException e) {
+         error(e, type);
+      } catch (JiBXException e) {
+         error(e, type);
+      }
+   }
+
+   /**
+    * Writes the type registry, if enabled.
+    */
+   private void writeTypeDocs() {
+      LOG.info("Documented " + controllers + " controllers");
+      if (typeDocs != null) {
+         try {
+            marshal(typeDocs, file(TypeDocs.FILE));
+            LOG.info("Registered documentation of " + typeDocs.size()
+               + " types");
+         } catch (IOException e) {
+            error(e, null);
+         } catch (JiBXException e) {
+            error(e, null);
+         }
+      }
+   }
+
+   /**
+    * Gets a file in the output directory, creating its parent directories.
+    *
+    * @param name the path of the file, relative to the output directory.
+    * @param originatingElements the elements the file is generated from.
+    * @return the file.
+    * @throws IOException if the file can't be created.
+    */
+   private File file(final String name,
+                     final Element... originatingElements) throws IOException {
+      final File file;
+      if (outputDirectory == null) {
+         file =
+            new File(processingEnv.getFiler().createResource(
+               StandardLocation.CLASS_OUTPUT, "", name, originatingElements)
+               .toUri());
+      } else {
+         file = new File(outputDirectory, name);
+      }
+      file.getParentFile().mkdirs();
+      return file;
+   }
+
+   private void error(final Exception e, final Element element) {
+      LOG.error(e);
+      final String message = "Failed to write RESTdoclet documentation: " + e;
+      if (element == null) {
+         processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+            message);
+      } else {
+         processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+            message, element);
+      }
+   }
+
+}
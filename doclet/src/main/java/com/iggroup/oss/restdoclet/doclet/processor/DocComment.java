@@ -0,0 +1,246 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A documentation comment split into its main text and its block tags, the
+ * way the Java documentation tool splits it.
+ * <p>
+ * The comment is the text returned by
+ * {@link javax.lang.model.util.Elements#getDocComment(javax.lang.model.element.Element)}
+ * : the leading white-space and asterisks of every line already removed. A
+ * block tag starts with <code>@</code> at the start of a line; its text runs
+ * up to the next block tag. Texts are trimmed; in-line tags are left alone.
+ */
+final class DocComment {
+
+   /**
+    * The comment of elements without documentation.
+    */
+   static final DocComment EMPTY = new DocComment("",
+      Collections.<Tag> emptyList());
+
+   private static final String PARAM_TAG = "@param";
+
+   /**
+    * The main text of the comment.
+    */
+   private final String text;
+
+   /**
+    * The block tags, in declaration order.
+    */
+   private final List<Tag> tags;
+
+   private DocComment(final String text, final List<Tag> tags) {
+      this.text = text;
+      this.tags = tags;
+   }
+
+   /**
+    * Parses a documentation comment.
+    *
+    * @param comment the comment or <code>null</code>.
+    * @return the parsed comment.
+    */
+   static DocComment parse(final String comment) {
+      if (comment == null) {
+         return EMPTY;
+      }
+      final List<Tag> tags = new ArrayList<Tag>();
+      String text = null;
+      String tagName = null;
+      boolean inName = false;
+      boolean inGap = true;
+      boolean newLine = true;
+      int tagStart = 0;
+      int textStart = 0;
+      int lastNonWhite = -1;
+      final int length = comment.length();
+      for (int i = 0; i < length; i++) {
+         final char ch = comment.charAt(i);
+         final boolean white = Character.isWhitespace(ch);
+         if (inName) {
+            if (white) {
+               tagName = comment.substring(tagStart, i);
+               inName = false;
+               inGap = true;
+            }
+         } else {
+            if (inGap && !white) {
+               textStart = i;
+               inGap = false;
+            }
+            if (!inGap && newLine && ch == '@') {
+               final String component = component(comment, textStart,
+                  lastNonWhite + 1);
+               if (tagName == null) {
+                  text = component;
+               } else {
+                  tags.add(new Tag(tagName, component));
+               }
+               tagStart = i;
+               inName = true;
+            }
+         }
+         if (ch == '\n') {
+            newLine = true;
+         } else if (!white) {
+            lastNonWhite = i;
+            newLine = false;
+         }
+      }
+      if (inName) {
+         tagName = comment.substring(tagStart, length);
+      }
+      if (inName || inGap) {
+         textStart = length;
+      }
+      final String component = component(comment, textStart, lastNonWhite + 1);
+      if (tagName == null) {
+         text = component;
+      } else {
+         tags.add(new Tag(tagName, component));
+      }
+      return new DocComment(text == null ? "" : text, tags);
+   }
+
+   private static String component(final String comment, final int from,
+                                   final int upto) {
+      return upto <= from ? "" : comment.substring(from, upto);
+   }
+
+   /**
+    * Gets the main text of the comment.
+    *
+    * @return the text, empty if there is none.
+    */
+   String text() {
+      return text;
+   }
+
+   /**
+    * Gets the block tags of the comment.
+    *
+    * @return the tags, in declaration order.
+    */
+   List<Tag> tags() {
+      return tags;
+   }
+
+   /**
+    * Finds the <code>@param</code> tag of a method parameter.
+    *
+    * @param name the name of the parameter.
+    * @return the tags documenting the parameter, in declaration order.
+    */
+   List<Tag> paramTags(final String name) {
+      final List<Tag> result = new ArrayList<Tag>();
+      for (Tag tag : tags) {
+         if (PARAM_TAG.equals(tag.name()) && name.equals(tag.parameterName())) {
+            result.add(tag);
+         }
+      }
+      return result;
+   }
+
+   /**
+    * A block tag.
+    */
+   static final class Tag {
+
+      /**
+       * The name of the tag, including the <code>@</code>.
+       */
+      private final String name;
+
+      /**
+       * The text of the tag.
+       */
+      private final String text;
+
+      private Tag(final String name, final String text) {
+         this.name = name;
+         this.text = text;
+      }
+
+      /**
+       * Gets the name of the tag.
+       *
+       * @return the name, including the <code>@</code>.
+       */
+      String name() {
+         return name;
+      }
+
+      /**
+       * Gets the text of the tag.
+       *
+       * @return the text.
+       */
+      String text() {
+         return text;
+      }
+
+      /**
+       * Gets the parameter a <code>@param</code> tag documents: the first
+       * word of its text.
+       *
+       * @return the parameter's name.
+       */
+      String parameterName() {
+         final int end = firstWhite();
+         return end < 0 ? text : text.substring(0, end);
+      }
+
+      /**
+       * Gets the comment of a <code>@param</code> tag: its text after the
+       * parameter's name.
+       *
+       * @return the comment, empty if there is none.
+       */
+      String parameterComment() {
+         int start = firstWhite();
+         if (start < 0) {
+            return "";
+         }
+         while (start < text.length()
+            && Character.isWhitespace(text.charAt(start))) {
+            start++;
+         }
+         return text.substring(start);
+      }
+
+      private int firstWhite() {
+         for (int i = 0; i < text.length(); i++) {
+            if (Character.isWhitespace(text.charAt(i))) {
+               return i;
+            }
+         }
+         return -1;
+      }
+
+   }
+
+}
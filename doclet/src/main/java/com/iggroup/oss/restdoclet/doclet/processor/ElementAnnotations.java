@@ -0,0 +1,189 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.processor;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * Utility methods for the annotations of language model elements, the
+ * counterpart of <code>AnnotationUtils</code> for the annotation processor.
+ * <p>
+ * Annotations and their values are rendered the way the Java documentation
+ * tool renders them, so that the parsing shared with the doclet (URIs,
+ * <code>params</code>, validation rules) sees the same text.
+ */
+final class ElementAnnotations {
+
+   private static final String VALUE = "value";
+
+   /**
+    * Private constructor to "silence" PMD.
+    */
+   private ElementAnnotations() {
+      super();
+   }
+
+   /**
+    * Determines if an element is annotated with a type of annotation.
+    *
+    * @param element the element.
+    * @param type the type of annotation.
+    * @return <code>true</code> if the element is annotated,
+    *         <code>false</code> otherwise.
+    */
+   static boolean isAnnotated(final Element element, final Class<?> type) {
+      return annotation(element, type) != null;
+   }
+
+   /**
+    * Gets the types of the annotations of an element.
+    *
+    * @param element the element.
+    * @return the qualified names of the types of the annotations.
+    */
+   static Set<String> annotationTypes(final Element element) {
+      final Set<String> types = new HashSet<String>();
+      for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+         types.add(((TypeElement) annotation.getAnnotationType().asElement())
+            .getQualifiedName().toString());
+      }
+      return types;
+   }
+
+   /**
+    * Finds an annotation of an element.
+    *
+    * @param element the element.
+    * @param type the type of annotation.
+    * @return the first annotation of the type or <code>null</code>.
+    */
+   static AnnotationMirror annotation(final Element element,
+                                      final Class<?> type) {
+      for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+         final TypeElement annotationType =
+            (TypeElement) annotation.getAnnotationType().asElement();
+         if (annotationType.getQualifiedName().contentEquals(type.getName())) {
+            return annotation;
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Finds the value of an element of an annotation of an element. Only
+    * values set explicitly are found, not defaults.
+    *
+    * @param element the annotated element.
+    * @param type the type of annotation.
+    * @param elementName the name of the annotation's element.
+    * @return the value or <code>null</code> if the annotation or the value
+    *         isn't found.
+    */
+   static AnnotationValue elementValue(final Element element,
+                                       final Class<?> type,
+                                       final String elementName) {
+      final AnnotationMirror annotation = annotation(element, type);
+      if (annotation != null) {
+         for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> pair : annotation
+            .getElementValues().entrySet()) {
+            if (pair.getKey().getSimpleName().contentEquals(elementName)) {
+               return pair.getValue();
+            }
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Renders an annotation as the Java documentation tool does, e.g.
+    * <code>@javax.validation.constraints.Size(min=1, max=20)</code>.
+    *
+    * @param annotation the annotation.
+    * @return the annotation's text.
+    */
+   static String toString(final AnnotationMirror annotation) {
+      final StringBuilder buffer = new StringBuilder();
+      buffer.append('@').append(
+         ((TypeElement) annotation.getAnnotationType().asElement())
+            .getQualifiedName());
+      final Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+         annotation.getElementValues();
+      if (!values.isEmpty()) {
+         buffer.append('(');
+         boolean first = true;
+         for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> pair : values
+            .entrySet()) {
+            if (!first) {
+               buffer.append(", ");
+            }
+            first = false;
+            final String name = pair.getKey().getSimpleName().toString();
+            if (values.size() > 1 || !VALUE.equals(name)) {
+               buffer.append(name).append('=');
+            }
+            buffer.append(toString(pair.getValue()));
+         }
+         buffer.append(')');
+      }
+      return buffer.toString();
+   }
+
+   /**
+    * Renders the value of an annotation's element as the Java documentation
+    * tool does: strings quoted, enumeration constants qualified, and arrays
+    * in braces unless they hold a single value.
+    *
+    * @param value the value.
+    * @return the value's text.
+    */
+   static String toString(final AnnotationValue value) {
+      final Object object = value.getValue();
+      if (object instanceof List<?>) {
+         final List<?> values = (List<?>) object;
+         final StringBuilder buffer = new StringBuilder();
+         if (values.size() != 1) {
+            buffer.append('{');
+         }
+         for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+               buffer.append(", ");
+            }
+            buffer.append(toString((AnnotationValue) values.get(i)));
+         }
+         if (values.size() != 1) {
+            buffer.append('}');
+         }
+         return buffer.toString();
+      } else if (object instanceof AnnotationMirror) {
+         return toString((AnnotationMirror) object);
+      }
+      return value.toString();
+   }
+
+}
@@ -0,0 +1,324 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.processor;
+
+import static com.iggroup.oss.restdoclet.doclet.processor.ElementAnnotations.annotationTypes;
+import static com.iggroup.oss.restdoclet.doclet.processor.ElementAnnotations.elementValue;
+import static com.iggroup.oss.restdoclet.doclet.processor.ElementAnnotations.isAnnotated;
+import static com.iggroup.oss.restdoclet.doclet.util.UrlUtils.parseUris;
+import static org.apache.commons.lang.StringUtils.trimToNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import com.iggroup.oss.restdoclet.doclet.type.BaseType;
+import com.iggroup.oss.restdoclet.doclet.type.BodyParameter;
+import com.iggroup.oss.restdoclet.doclet.type.Controller;
+import com.iggroup.oss.restdoclet.doclet.type.FieldParameter;
+import com.iggroup.oss.restdoclet.doclet.type.FieldedParameter;
+import com.iggroup.oss.restdoclet.doclet.type.Method;
+import com.iggroup.oss.restdoclet.doclet.type.ModelParameter;
+import com.iggroup.oss.restdoclet.doclet.type.PathParameter;
+import com.iggroup.oss.restdoclet.doclet.type.RequestParameter;
+import com.iggroup.oss.restdoclet.doclet.type.ResponseParameter;
+import com.iggroup.oss.restdoclet.doclet.type.RestParameter;
+import com.iggroup.oss.restdoclet.doclet.util.NameValuePair;
+import com.iggroup.oss.restdoclet.doclet.util.ParameterKind;
+import com.iggroup.oss.restdoclet.doclet.util.RequestMappingParamsParser;
+
+/**
+ * Builds the documentation of a controller from the language model of the
+ * compiler. It does what <code>ControllerBuilder</code>,
+ * <code>MethodBuilder</code> and the parameter builders do with the Java
+ * documentation tool's model, and the documentation built is the same.
+ */
+final class ElementControllerBuilder {
+
+   private static final Logger LOG = Logger
+      .getLogger(ElementControllerBuilder.class);
+
+   private static final String GETTER_PREFIX = "get";
+
+   private static final String VALUE = "value";
+
+   /**
+    * The renderer of the documentation of types.
+    */
+   private final ElementTypeDocs docs;
+
+   /**
+    * Constructs a builder.
+    *
+    * @param docs the renderer of the documentation of types.
+    */
+   ElementControllerBuilder(final ElementTypeDocs docs) {
+      this.docs = docs;
+   }
+
+   /**
+    * Builds the documentation of a controller.
+    *
+    * @param type the controller's class.
+    * @return the controller's documentation.
+    */
+   Controller build(final TypeElement type) {
+      final Controller controller = new Controller();
+      controller.setName(docs.simpleTypeName(type.asType()));
+      controller.setType(type.getQualifiedName().toString());
+      controller.setJavadoc(trimToNull(docs.commentText(type)));
+
+      final ArrayList<Method> methods = new ArrayList<Method>();
+      for (ExecutableElement method : ElementFilter.methodsIn(type
+         .getEnclosedElements())) {
+         if (isAnnotated(method, RequestMapping.class)) {
+            methods.add(build(method));
+         }
+      }
+      controller.setMethods(methods);
+      if (methods.size() == 0) {
+         LOG.warn("No methods found with @RequestMapping tag");
+      }
+      return controller;
+   }
+
+   private Method build(final ExecutableElement methodDoc) {
+      LOG.info("Initialising method: " + methodDoc);
+      final Method method = new Method();
+      method.setName(methodDoc.getSimpleName().toString());
+      initRequestMethod(method, methodDoc);
+      method.setJavadoc(docs.getMethodJavadoc(methodDoc));
+      final Set<String> requestParamNames = initParams(method, methodDoc);
+      initRestParams(method, methodDoc, requestParamNames);
+      initResponseParams(method, methodDoc);
+      return method;
+   }
+
+   private void initRequestMethod(final Method method,
+                                  final ExecutableElement methodDoc) {
+      final AnnotationValue value =
+         elementValue(methodDoc, RequestMapping.class, "method");
+      if (value == null) {
+         method.setRequestMethod(RequestMethod.GET.toString());
+      } else {
+         final String text = ElementAnnotations.toString(value);
+         if (text.contains(".")) {
+            method.setRequestMethod(text.substring(text.lastIndexOf('.') + 1));
+         } else {
+            method.setRequestMethod(text);
+         }
+      }
+   }
+
+   private Set<String> initParams(final Method method,
+                                  final ExecutableElement methodDoc) {
+      final DocComment comment = docs.comment(methodDoc);
+      final ArrayList<RequestParameter> requestParams =
+         new ArrayList<RequestParameter>();
+      final ArrayList<PathParameter> pathParams = new ArrayList<PathParameter>();
+      final ArrayList<ModelParameter> modelParams =
+         new ArrayList<ModelParameter>();
+      final ArrayList<BodyParameter> bodyParams = new ArrayList<BodyParameter>();
+      final Set<String> requestParamNames = new HashSet<String>();
+      for (VariableElement param : methodDoc.getParameters()) {
+         for (ParameterKind kind : ParameterKind.of(annotationTypes(param))) {
+            switch (kind) {
+               case REQUEST:
+                  final RequestParameter requestParam = new RequestParameter();
+                  initParam(requestParam, param, comment);
+                  requestParam.setName(name(param, kind.getAnnotation()));
+                  final AnnotationValue required =
+                     elementValue(param, RequestParam.class, "required");
+                  if (required != null) {
+                     requestParam.setRequired(Boolean.getBoolean(required
+                        .getValue().toString().trim()));
+                  }
+                  final AnnotationValue defaultValue =
+                     elementValue(param, RequestParam.class, "defaultValue");
+                  if (defaultValue != null) {
+                     requestParam.setDefaultValue(defaultValue.getValue()
+                        .toString().trim());
+                  }
+                  requestParam.assertValid();
+                  requestParams.add(requestParam);
+                  requestParamNames.add(requestParam.getName());
+                  break;
+               case PATH:
+                  final PathParameter pathParam = new PathParameter();
+                  initParam(pathParam, param, comment);
+                  pathParam.setName(name(param, kind.getAnnotation()));
+                  pathParam.assertValid();
+                  pathParams.add(pathParam);
+                  break;
+               case MODEL:
+                  final ModelParameter modelParam = new ModelParameter();
+                  initFieldedParam(modelParam, param, comment, kind
+                     .getAnnotation());
+                  modelParam.assertValid();
+                  modelParams.add(modelParam);
+                  break;
+               default:
+                  final BodyParameter bodyParam = new BodyParameter();
+                  initFieldedParam(bodyParam, param, comment, kind
+                     .getAnnotation());
+                  bodyParam.assertValid();
+                  bodyParams.add(bodyParam);
+                  break;
+            }
+         }
+      }
+      method.setRequestParams(requestParams);
+      method.setPathParams(pathParams);
+      method.setModelParams(modelParams);
+      method.setBodyParams(bodyParams);
+      return requestParamNames;
+   }
+
+   private void initParam(final BaseType type, final VariableElement param,
+                          final DocComment comment) {
+      type.setName(docs.parameterName(param));
+      type.setType(docs.getTypeName(param.asType()));
+      for (DocComment.Tag tag : comment.paramTags(docs.parameterName(param))) {
+         if (!docs.initTypeDoc(type, param.asType())) {
+            type.setJavadoc(tag.parameterComment());
+         }
+      }
+   }
+
+   private void initFieldedParam(final FieldedParameter type,
+                                 final VariableElement param,
+                                 final DocComment comment,
+                                 final Class<?> annotation) {
+      initParam(type, param, comment);
+      type.setName(name(param, annotation));
+      type.setFields(getPublicFields(docs.asClass(param.asType())));
+   }
+
+   /**
+    * Gets the name of a parameter: the value of its annotation if there is
+    * one, its declared name otherwise.
+    */
+   private String name(final VariableElement param,
+                       final Class<?> annotation) {
+      final AnnotationValue value = elementValue(param, annotation, VALUE);
+      if (value == null || StringUtils.isBlank(value.getValue().toString())) {
+         return docs.parameterName(param);
+      }
+      return value.getValue().toString().trim();
+   }
+
+   /**
+    * Gets the fields of a class that have a getter.
+    */
+   private Collection<FieldParameter> getPublicFields(final TypeElement type) {
+      final ArrayList<FieldParameter> fields = new ArrayList<FieldParameter>();
+      if (type != null) {
+         final Collection<ExecutableElement> methods =
+            ElementFilter.methodsIn(type.getEnclosedElements());
+         for (VariableElement fieldDoc : ElementFilter.fieldsIn(type
+            .getEnclosedElements())) {
+            for (ExecutableElement method : methods) {
+               if ((method.getModifiers().contains(Modifier.PUBLIC) || method
+                  .getModifiers().contains(Modifier.PROTECTED))
+                  && method.getSimpleName().toString().equalsIgnoreCase(
+                     GETTER_PREFIX + fieldDoc.getSimpleName())) {
+                  final FieldParameter field = new FieldParameter();
+                  field.setName(fieldDoc.getSimpleName().toString());
+                  field.setType(docs.getTypeName(fieldDoc.asType()));
+                  field.assertValid();
+                  fields.add(field);
+                  break;
+               }
+            }
+         }
+      }
+      return fields;
+   }
+
+   private void initRestParams(final Method method,
+                               final ExecutableElement methodDoc,
+                               final Set<String> requestParamNames) {
+      final ArrayList<RestParameter> restParams = new ArrayList<RestParameter>();
+      final AnnotationValue params =
+         elementValue(methodDoc, RequestMapping.class, "params");
+      if (params != null) {
+         final Matcher matcher =
+            RequestMappingParamsParser.PATTERN.matcher(ElementAnnotations
+               .toString(params));
+         while (matcher.find()) {
+            final NameValuePair pair = new NameValuePair(matcher.group(1));
+            if (!requestParamNames.contains(pair.getName())) {
+               restParams.add(new RestParameter(pair));
+            }
+         }
+      }
+      final AnnotationValue urlAnnotation =
+         elementValue(methodDoc, RequestMapping.class, VALUE);
+      if (urlAnnotation != null) {
+         method.getUris().addAll(
+            parseUris(ElementAnnotations.toString(urlAnnotation), docs
+               .getDeprecatedURIs(methodDoc), methodDoc.getSimpleName()
+               .toString()));
+      }
+      method.setRestParams(restParams);
+   }
+
+   private void initResponseParams(final Method method,
+                                   final ExecutableElement methodDoc) {
+      final ArrayList<ResponseParameter> responseParams =
+         new ArrayList<ResponseParameter>();
+      responseParams.add(responseParam(methodDoc.getReturnType(), methodDoc));
+      for (TypeMirror exception : methodDoc.getThrownTypes()) {
+         responseParams.add(responseParam(exception, null));
+      }
+      method.setResponseParams(responseParams);
+   }
+
+   private ResponseParameter responseParam(final TypeMirror type,
+                                           final ExecutableElement methodDoc) {
+      final ResponseParameter param = new ResponseParameter();
+      param.setName(docs.getTypeName(type));
+      param.setType(docs.getTypeName(type));
+      if (methodDoc == null) {
+         docs.initTypeDoc(param, type);
+      } else {
+         docs.initReturnDoc(param, methodDoc);
+      }
+      param.assertValid();
+      return param;
+   }
+
+}
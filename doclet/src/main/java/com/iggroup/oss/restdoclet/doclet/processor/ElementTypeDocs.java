@@ -0,0 +1,445 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.processor;
+
+import static com.iggroup.oss.restdoclet.doclet.util.UrlUtils.parseMultiUri;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+
+import com.iggroup.oss.restdoclet.doclet.type.BaseType;
+import com.iggroup.oss.restdoclet.doclet.type.TypeDocs;
+import com.iggroup.oss.restdoclet.doclet.util.ClassModel;
+import com.iggroup.oss.restdoclet.doclet.util.InheritedJavadocIndex;
+import com.iggroup.oss.restdoclet.doclet.util.TypeDocBudget;
+import com.iggroup.oss.restdoclet.doclet.util.TypeDocRenderer;
+import com.iggroup.oss.restdoclet.doclet.util.UrlUtils;
+
+/**
+ * Renders the documentation of types and methods from the language model of
+ * the compiler, the counterpart of <code>DocTypeUtils</code> for the
+ * annotation processor. The documentation is the same, character for
+ * character, as the doclet's: types are rendered by the same
+ * {@link TypeDocRenderer}, from {@link ElementTypeModel}s.
+ * <p>
+ * Instances hold the documentation rendered so far and aren't thread-safe;
+ * the compiler runs annotation processors on a single thread.
+ */
+final class ElementTypeDocs {
+
+   private static final Logger LOG = Logger.getLogger(ElementTypeDocs.class);
+
+   private static final String RETURN_TAG = "return";
+
+   /**
+    * The names the compiler gives to parameters whose names it doesn't know.
+    */
+   private static final Pattern SYNTHETIC_NAME = Pattern.compile("arg\\d+");
+
+   private final Elements elements;
+
+   private final Types types;
+
+   /**
+    * The comments of the elements only known from class files, or
+    * <code>null</code> if they aren't read.
+    */
+   private final SourceComments sourceComments;
+
+   /**
+    * The comments parsed so far, keyed by element.
+    */
+   private final Map<Element, DocComment> comments =
+      new HashMap<Element, DocComment>();
+
+   /**
+    * The renderer of the documentation of types, holding the documentation
+    * rendered so far.
+    */
+   private final TypeDocRenderer renderer = new TypeDocRenderer();
+
+   /**
+    * The documentation inherited by the methods of the classes seen so far.
+    */
+   private final InheritedJavadocIndex inherited = new InheritedJavadocIndex();
+
+   /**
+    * The models of the classes documented so far.
+    */
+   private final Map<TypeElement, ClassModel> classes =
+      new HashMap<TypeElement, ClassModel>();
+
+   /**
+    * Constructs a renderer.
+    *
+    * @param env the environment of the annotation processor.
+    * @param typeDocs the registry the documentation of parameters' types is
+    *           added to, or <code>null</code> to inline it.
+    * @param budget the limits of the documentation rendered for a type.
+    * @param sourceComments the comments of the elements only known from
+    *           class files, or <code>null</code> to leave them undocumented.
+    */
+   ElementTypeDocs(final ProcessingEnvironment env, final TypeDocs typeDocs,
+                   final TypeDocBudget budget,
+                   final SourceComments sourceComments) {
+      this.elements = env.getElementUtils();
+      this.types = env.getTypeUtils();
+      this.sourceComments = sourceComments;
+      renderer.setTypeDocs(typeDocs);
+      renderer.setBudget(budget);
+   }
+
+   /**
+    * Gets the documentation comment of an element.
+    *
+    * @param element the element.
+    * @return the comment, empty if there is none.
+    */
+   DocComment comment(final Element element) {
+      DocComment comment = comments.get(element);
+      if (comment == null) {
+         String text = elements.getDocComment(element);
+         if (text == null && sourceComments != null) {
+            text = sourceComments.get(element);
+         }
+         comment = DocComment.parse(text);
+         comments.put(element, comment);
+      }
+      return comment;
+   }
+
+   /**
+    * Gets the name of a method's parameter. The compiler names the parameters
+    * of methods read from class files <code>arg0</code>, <code>arg1</code>,
+    * ... when it doesn't know their names, in which case they're read from
+    * the source file, if any.
+    *
+    * @param param the parameter.
+    * @return the name.
+    */
+   String parameterName(final VariableElement param) {
+      final String name = param.getSimpleName().toString();
+      if (sourceComments != null && SYNTHETIC_NAME.matcher(name).matches()) {
+         final String declared = sourceComments.parameterName(param);
+         if (declared != null) {
+            return declared;
+         }
+      }
+      return name;
+   }
+
+   /**
+    * Gets the main text of the documentation comment of an element.
+    *
+    * @param element the element.
+    * @return the text, empty if there is none.
+    */
+   String commentText(final Element element) {
+      return comment(element).text();
+   }
+
+   /**
+    * Gets the deprecated URIs of a method, listed by its
+    * <code>@uriDeprecated</code> tag.
+    *
+    * @param element the method.
+    * @return the deprecated URIs or <code>null</code> if there is no tag.
+    */
+   String[] getDeprecatedURIs(final Element element) {
+      for (DocComment.Tag tag : comment(element).tags()) {
+         if (UrlUtils.isDeprecatedTag(tag.name())) {
+            LOG.debug("deprecated uris" + tag.text());
+            return parseMultiUri(tag.text());
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Gets the documentation of a method, resolving
+    * <code>{@inheritDoc}</code> with the same {@link InheritedJavadocIndex}
+    * as the doclet.
+    *
+    * @param method the method.
+    * @return the method's documentation.
+    */
+   String getMethodJavadoc(final ExecutableElement method) {
+      return inherited.getMethodJavadoc(classModel((TypeElement) method
+         .getEnclosingElement()), ElementTypeModel.ElementClassModel.method(
+         this, method));
+   }
+
+   /**
+    * Documents the return parameter of a method: with the documentation of
+    * the return type if there is any, with the method's <code>@return</code>
+    * comment otherwise.
+    *
+    * @param param the return parameter to document.
+    * @param method the method.
+    */
+   void initReturnDoc(final BaseType param, final ExecutableElement method) {
+      if (!initTypeDoc(param, method.getReturnType())) {
+         String doc = "";
+         for (DocComment.Tag tag : comment(method).tags()) {
+            if (StringUtils.contains(tag.name(), RETURN_TAG)) {
+               doc = tag.text();
+               break;
+            }
+         }
+         param.setJavadoc(doc);
+      }
+   }
+
+   /**
+    * Documents a parameter with the documentation of its type, either inline
+    * or by reference to the registry.
+    *
+    * @param param the parameter to document.
+    * @param type the parameter's type.
+    * @return <code>true</code> if the type is documented, <code>false</code>
+    *         if the parameter is left alone.
+    */
+   boolean initTypeDoc(final BaseType param, final TypeMirror type) {
+      return renderer.initTypeDoc(param, new ElementTypeModel(this, type));
+   }
+
+   /**
+    * Gets the documentation of a type: a table of its attributes, with the
+    * documentation of the attributes' types nested within the budget.
+    *
+    * @param type the type.
+    * @return the documentation, empty if there is none.
+    */
+   String getTypeDoc(final TypeMirror type) {
+      return renderer.getTypeDoc(new ElementTypeModel(this, type));
+   }
+
+   /**
+    * Gets the model of a class, indexing its fields and getters the first
+    * time.
+    *
+    * @param element the class.
+    * @return the model.
+    */
+   ClassModel classModel(final TypeElement element) {
+      ClassModel model = classes.get(element);
+      if (model == null) {
+         model = new ElementTypeModel.ElementClassModel(this, element);
+         classes.put(element, model);
+      }
+      return model;
+   }
+
+   /**
+    * Gets the simple name of a type, followed by the simple names of its type
+    * arguments in brackets if it has any.
+    *
+    * @param type the type.
+    * @return the name.
+    */
+   String getTypeName(final TypeMirror type) {
+      final StringBuilder name = new StringBuilder(simpleTypeName(type));
+      appendTypeArguments(type, name);
+      return name.toString();
+   }
+
+   private void appendTypeArguments(final TypeMirror type,
+                                    final StringBuilder buffer) {
+      final List<? extends TypeMirror> arguments = typeArguments(type);
+      if (!arguments.isEmpty()) {
+         buffer.append('[');
+         for (int i = 0; i < arguments.size(); i++) {
+            buffer.append(simpleTypeName(arguments.get(i)));
+            if (i < arguments.size() - 1) {
+               buffer.append(", ");
+            }
+         }
+         buffer.append(']');
+      }
+   }
+
+   /**
+    * Determines if a type names no type variable, i.e. if its documentation
+    * doesn't depend on where it is used.
+    */
+   static boolean isResolved(final TypeMirror type) {
+      final TypeMirror component = component(type);
+      if (component.getKind() == TypeKind.TYPEVAR
+         || component.getKind() == TypeKind.WILDCARD) {
+         return false;
+      }
+      for (TypeMirror argument : typeArguments(component)) {
+         if (!isResolved(argument)) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Gets the class of a type, as the Java documentation tool does: the
+    * class of the component type of arrays and the class of the erasure of
+    * type variables and wildcards.
+    *
+    * @param type the type.
+    * @return the class or <code>null</code> for primitive types.
+    */
+   TypeElement asClass(final TypeMirror type) {
+      final TypeMirror component = component(type);
+      switch (component.getKind()) {
+         case DECLARED:
+            return (TypeElement) ((DeclaredType) component).asElement();
+         case TYPEVAR:
+         case WILDCARD:
+            return asClass(types.erasure(component));
+         default:
+            return null;
+      }
+   }
+
+   static List<? extends TypeMirror> typeArguments(final TypeMirror type) {
+      final TypeMirror component = component(type);
+      if (component.getKind() == TypeKind.DECLARED) {
+         return ((DeclaredType) component).getTypeArguments();
+      }
+      return Collections.emptyList();
+   }
+
+   /**
+    * Gets the simple name of a type as the Java documentation tool does: its
+    * qualified name without the package, so nested classes are prefixed with
+    * the enclosing classes, and without type arguments or dimension.
+    *
+    * @param type the type.
+    * @return the name.
+    */
+   String simpleTypeName(final TypeMirror type) {
+      final TypeMirror component = component(type);
+      switch (component.getKind()) {
+         case DECLARED:
+            final TypeElement element =
+               (TypeElement) ((DeclaredType) component).asElement();
+            final String name = element.getQualifiedName().toString();
+            final PackageElement pkg = elements.getPackageOf(element);
+            return pkg.isUnnamed() ? name : name.substring(pkg
+               .getQualifiedName().length() + 1);
+         case TYPEVAR:
+            return ((TypeVariable) component).asElement().getSimpleName()
+               .toString();
+         case WILDCARD:
+            return "?";
+         default:
+            return component.toString();
+      }
+   }
+
+   /**
+    * Gets the qualified name of a type as the Java documentation tool does:
+    * without type arguments or dimension, type variables being named by
+    * their simple name.
+    *
+    * @param type the type.
+    * @return the name.
+    */
+   String qualifiedTypeName(final TypeMirror type) {
+      final TypeMirror component = component(type);
+      if (component.getKind() == TypeKind.DECLARED) {
+         return ((TypeElement) ((DeclaredType) component).asElement())
+            .getQualifiedName().toString();
+      }
+      return simpleTypeName(component);
+   }
+
+   /**
+    * Gets the text of a type as the Java documentation tool does: qualified
+    * names, with type arguments separated by a comma and a space.
+    *
+    * @param type the type.
+    * @return the text.
+    */
+   static String typeString(final TypeMirror type) {
+      if (type.getKind() == TypeKind.ARRAY) {
+         return typeString(((ArrayType) type).getComponentType()) + "[]";
+      } else if (type.getKind() == TypeKind.DECLARED) {
+         final StringBuilder buffer = new StringBuilder();
+         buffer.append(((TypeElement) ((DeclaredType) type).asElement())
+            .getQualifiedName());
+         final List<? extends TypeMirror> arguments =
+            ((DeclaredType) type).getTypeArguments();
+         if (!arguments.isEmpty()) {
+            buffer.append('<');
+            for (int i = 0; i < arguments.size(); i++) {
+               if (i > 0) {
+                  buffer.append(", ");
+               }
+               buffer.append(typeString(arguments.get(i)));
+            }
+            buffer.append('>');
+         }
+         return buffer.toString();
+      }
+      return type.toString();
+   }
+
+   /**
+    * Gets the dimension of a type.
+    *
+    * @param type the type.
+    * @return <code>[]</code> per dimension, empty if it isn't an array.
+    */
+   static String dimension(final TypeMirror type) {
+      final StringBuilder dimension = new StringBuilder();
+      TypeMirror component = type;
+      while (component.getKind() == TypeKind.ARRAY) {
+         dimension.append("[]");
+         component = ((ArrayType) component).getComponentType();
+      }
+      return dimension.toString();
+   }
+
+   private static TypeMirror component(final TypeMirror type) {
+      TypeMirror component = type;
+      while (component.getKind() == TypeKind.ARRAY) {
+         component = ((ArrayType) component).getComponentType();
+      }
+      return component;
+   }
+
+}
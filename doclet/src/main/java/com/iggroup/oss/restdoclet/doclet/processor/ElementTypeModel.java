@@ -0,0 +1,410 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.processor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.iggroup.oss.restdoclet.doclet.util.ClassModel;
+import com.iggroup.oss.restdoclet.doclet.util.TypeModel;
+
+/**
+ * A {@link TypeModel} of a type of the language model of the compiler, named
+ * as the Java documentation tool names it (see {@link ElementTypeDocs}).
+ */
+final class ElementTypeModel implements TypeModel {
+
+   private final ElementTypeDocs docs;
+
+   private final TypeMirror type;
+
+   /**
+    * Constructs the model of a type.
+    *
+    * @param docs the renderer the type's class and comments are looked up
+    *           with.
+    * @param type the type.
+    */
+   ElementTypeModel(final ElementTypeDocs docs, final TypeMirror type) {
+      this.docs = docs;
+      this.type = type;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public ClassModel asClass() {
+      final TypeElement element = docs.asClass(type);
+      return element == null ? null : docs.classModel(element);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String qualifiedTypeName() {
+      return docs.qualifiedTypeName(type);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String simpleTypeName() {
+      return docs.simpleTypeName(type);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public List<TypeModel> typeArguments() {
+      final List<TypeModel> arguments = new ArrayList<TypeModel>();
+      for (TypeMirror argument : ElementTypeDocs.typeArguments(type)) {
+         arguments.add(new ElementTypeModel(docs, argument));
+      }
+      return arguments;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String dimension() {
+      return ElementTypeDocs.dimension(type);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public boolean isResolved() {
+      return ElementTypeDocs.isResolved(type);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString() {
+      return ElementTypeDocs.typeString(type);
+   }
+
+   /**
+    * The model of a class, whose fields and getters are indexed once.
+    */
+   static final class ElementClassModel implements ClassModel {
+
+      private static final String IS_PREFIX = "is";
+      private static final String GETTER_PREFIX = "get";
+      private static final String VALIDATION_PREFIX =
+         "@javax.validation.constraints.";
+
+      private final ElementTypeDocs docs;
+
+      private final TypeElement element;
+
+      /**
+       * The enum constants, in declaration order.
+       */
+      private final List<Member> enumConstants = new ArrayList<Member>();
+
+      /**
+       * The public constants, in declaration order.
+       */
+      private final List<Member> constants = new ArrayList<Member>();
+
+      /**
+       * The public getters of fields other than constants, in declaration
+       * order.
+       */
+      private final List<Member> getters = new ArrayList<Member>();
+
+      /**
+       * The fields keyed by lower-case name, the first declared if several
+       * differ by case only.
+       */
+      private final Map<String, Member> fields = new HashMap<String, Member>();
+
+      /**
+       * The methods, in declaration order, or <code>null</code> until they're
+       * needed.
+       */
+      private List<Member> methods;
+
+      /**
+       * Indexes a class.
+       *
+       * @param docs the renderer comments are looked up with.
+       * @param element the class.
+       */
+      ElementClassModel(final ElementTypeDocs docs, final TypeElement element) {
+         this.docs = docs;
+         this.element = element;
+         final Set<String> getterNames = new HashSet<String>();
+         for (Element enclosed : element.getEnclosedElements()) {
+            if (enclosed.getKind() == ElementKind.ENUM_CONSTANT) {
+               enumConstants.add(new Field(docs, (VariableElement) enclosed));
+            }
+         }
+         for (VariableElement field : ElementFilter.fieldsIn(element
+            .getEnclosedElements())) {
+            final Field member = new Field(docs, field);
+            final String name = member.name();
+            if (isPublicConstant(field)) {
+               constants.add(member);
+            } else {
+               final String suffix =
+                  name.substring(0, 1).toUpperCase() + name.substring(1);
+               getterNames.add(GETTER_PREFIX + suffix);
+               getterNames.add(IS_PREFIX + suffix);
+            }
+            final String key = name.toLowerCase(Locale.ENGLISH);
+            if (!fields.containsKey(key)) {
+               fields.put(key, member);
+            }
+         }
+         for (ExecutableElement method : ElementFilter.methodsIn(element
+            .getEnclosedElements())) {
+            if (method.getModifiers().contains(Modifier.PUBLIC)
+               && getterNames.contains(method.getSimpleName().toString())) {
+               getters.add(new Method(docs, method));
+            }
+         }
+      }
+
+      private static boolean isPublicConstant(final VariableElement field) {
+         final String name = field.getSimpleName().toString();
+         return field.getModifiers().contains(Modifier.PUBLIC)
+            && field.getModifiers().contains(Modifier.FINAL)
+            && StringUtils.equals(name, name.toUpperCase());
+      }
+
+      @Override
+      public String qualifiedName() {
+         return element.getQualifiedName().toString();
+      }
+
+      @Override
+      public String commentText() {
+         return docs.commentText(element);
+      }
+
+      @Override
+      public boolean isEnum() {
+         return element.getKind() == ElementKind.ENUM;
+      }
+
+      @Override
+      public TypeModel superclassType() {
+         final TypeMirror superclass = element.getSuperclass();
+         return docs.asClass(superclass) == null ? null : new ElementTypeModel(
+            docs, superclass);
+      }
+
+      @Override
+      public List<TypeModel> interfaceTypes() {
+         final List<TypeModel> interfaces = new ArrayList<TypeModel>();
+         for (TypeMirror iface : element.getInterfaces()) {
+            interfaces.add(new ElementTypeModel(docs, iface));
+         }
+         return interfaces;
+      }
+
+      @Override
+      public List<Member> methods() {
+         if (methods == null) {
+            methods = new ArrayList<Member>();
+            for (ExecutableElement method : ElementFilter.methodsIn(element
+               .getEnclosedElements())) {
+               methods.add(new Method(docs, method));
+            }
+         }
+         return methods;
+      }
+
+      @Override
+      public List<Member> enumConstants() {
+         return enumConstants;
+      }
+
+      @Override
+      public List<Member> constants() {
+         return constants;
+      }
+
+      @Override
+      public List<Member> getters() {
+         return getters;
+      }
+
+      @Override
+      public Member field(final String name) {
+         return fields.get(name.toLowerCase(Locale.ENGLISH));
+      }
+
+      /**
+       * Gets the model of a method.
+       *
+       * @param docs the renderer comments are looked up with.
+       * @param method the method.
+       * @return the model.
+       */
+      static Member method(final ElementTypeDocs docs,
+                           final ExecutableElement method) {
+         return new Method(docs, method);
+      }
+
+      /**
+       * The model of a field or enum constant.
+       */
+      private static final class Field implements Member {
+
+         private final ElementTypeDocs docs;
+
+         private final VariableElement field;
+
+         private String rules;
+
+         private Field(final ElementTypeDocs docs, final VariableElement field) {
+            this.docs = docs;
+            this.field = field;
+         }
+
+         @Override
+         public String name() {
+            return field.getSimpleName().toString();
+         }
+
+         @Override
+         public TypeModel type() {
+            return new ElementTypeModel(docs, field.asType());
+         }
+
+         @Override
+         public String commentText() {
+            return docs.commentText(field);
+         }
+
+         @Override
+         public String rules() {
+            if (rules == null) {
+               final StringBuilder buffer = new StringBuilder();
+               for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+                  final String constraint =
+                     ElementAnnotations.toString(annotation);
+                  if (constraint.contains(VALIDATION_PREFIX)) {
+                     buffer.append("<br>[Rule: ")
+                        .append(constraint.replace(VALIDATION_PREFIX, ""))
+                        .append(']');
+                  }
+               }
+               rules = buffer.toString();
+            }
+            return rules;
+         }
+
+         @Override
+         public String signature() {
+            return "";
+         }
+
+      }
+
+      /**
+       * The model of a method.
+       */
+      private static final class Method implements Member {
+
+         private final ElementTypeDocs docs;
+
+         private final ExecutableElement method;
+
+         private Method(final ElementTypeDocs docs,
+                        final ExecutableElement method) {
+            this.docs = docs;
+            this.method = method;
+         }
+
+         @Override
+         public String name() {
+            return method.getSimpleName().toString();
+         }
+
+         @Override
+         public TypeModel type() {
+            return new ElementTypeModel(docs, method.getReturnType());
+         }
+
+         @Override
+         public String commentText() {
+            return docs.commentText(method);
+         }
+
+         @Override
+         public String rules() {
+            return "";
+         }
+
+         @Override
+         public String signature() {
+            final StringBuilder signature = new StringBuilder("(");
+            final List<? extends VariableElement> params =
+               method.getParameters();
+            for (int i = 0; i < params.size(); i++) {
+               if (i > 0) {
+                  signature.append(", ");
+               }
+               final TypeMirror type = params.get(i).asType();
+               if (method.isVarArgs() && i == params.size() - 1) {
+                  signature.append(
+                     ElementTypeDocs.typeString(((ArrayType) type)
+                        .getComponentType())).append("...");
+               } else {
+                  signature.append(ElementTypeDocs.typeString(type));
+               }
+            }
+            return signature.append(')').toString();
+         }
+
+      }
+
+   }
+
+}
@@ -0,0 +1,775 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.processor;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+
+import org.apache.log4j.Logger;
+
+import com.iggroup.oss.restdoclet.doclet.util.JiBXUtils;
+
+/**
+ * Documentation comments read from source files, for elements the compiler
+ * only knows from class files.
+ * <p>
+ * The source file of a class is looked for in the source path, under the
+ * name of its outermost class, and read the first time one of its elements
+ * is looked up. It isn't parsed: a lexer skips literals, comments and the
+ * bodies of methods and initialisers, and only tracks the declarations of
+ * types, methods, fields and enumeration constants, to attach each
+ * documentation comment to the declaration that follows it. Methods are
+ * told apart by the simple names of their parameters' types. The text of a
+ * comment is stripped of its leading white-space and asterisks the way the
+ * compiler strips it. The names of methods' parameters are kept too, as the
+ * compiler doesn't always read them from class files.
+ * <p>
+ * Instances aren't thread-safe.
+ */
+final class SourceComments {
+
+   private static final Logger LOG = Logger.getLogger(SourceComments.class);
+
+   private static final String JAVA = ".java";
+
+   /**
+    * The roots of the source path.
+    */
+   private final List<File> roots;
+
+   /**
+    * The source files read so far, keyed by qualified name of their outermost
+    * class.
+    */
+   private final Map<String, Lexer> files = new HashMap<String, Lexer>();
+
+   /**
+    * Constructs the comments of a source path.
+    *
+    * @param sourcePath the source path: directories separated by the path
+    *           separator.
+    */
+   SourceComments(final String sourcePath) {
+      roots = new ArrayList<File>();
+      for (String root : sourcePath.split(File.pathSeparator)) {
+         if (root.length() > 0) {
+            roots.add(new File(root));
+         }
+      }
+   }
+
+   /**
+    * Gets the documentation comment of an element.
+    *
+    * @param element the element.
+    * @return the comment or <code>null</code> if the element has none or its
+    *         source file isn't found.
+    */
+   String get(final Element element) {
+      final String key = key(element);
+      if (key == null) {
+         return null;
+      }
+      return source(element).comments.get(key);
+   }
+
+   /**
+    * Gets the declared name of a method's parameter.
+    *
+    * @param param the parameter.
+    * @return the name or <code>null</code> if the source file of the method
+    *         isn't found.
+    */
+   String parameterName(final VariableElement param) {
+      final ExecutableElement method =
+         (ExecutableElement) param.getEnclosingElement();
+      final List<String> names =
+         source(method).parameterNames.get(key(method));
+      if (names == null || names.size() != method.getParameters().size()) {
+         return null;
+      }
+      return names.get(method.getParameters().indexOf(param));
+   }
+
+   /**
+    * Gets the lexed source file of an element, reading it the first time.
+    */
+   private Lexer source(final Element element) {
+      Element outer = element;
+      while (!(outer instanceof TypeElement)
+         || outer.getEnclosingElement() instanceof TypeElement) {
+         outer = outer.getEnclosingElement();
+      }
+      final String name = ((TypeElement) outer).getQualifiedName().toString();
+      Lexer source = files.get(name);
+      if (source == null) {
+         source = read(name);
+         files.put(name, source);
+      }
+      return source;
+   }
+
+   /**
+    * Reads the source file of an outermost class.
+    */
+   private Lexer read(final String name) {
+      final String path = name.replace('.', File.separatorChar) + JAVA;
+      for (File root : roots) {
+         final File file = new File(root, path);
+         if (file.isFile()) {
+            try {
+               final Lexer lexer = new Lexer(read(file));
+               lexer.comments();
+               return lexer;
+            } catch (IOException e) {
+               LOG.warn("Failed to read " + file + ": " + e);
+            }
+         }
+      }
+      LOG.debug("No source file for " + name);
+      return new Lexer("");
+   }
+
+   private static String read(final File file) throws IOException {
+      final StringBuilder source = new StringBuilder((int) file.length());
+      final Reader reader =
+         new InputStreamReader(new FileInputStream(file), JiBXUtils.ENCODING);
+      try {
+         final char[] buffer = new char[8192];
+         int read;
+         while ((read = reader.read(buffer)) != -1) {
+            source.append(buffer, 0, read);
+         }
+      } finally {
+         reader.close();
+      }
+      return source.toString();
+   }
+
+   /**
+    * Gets the key of the declaration of an element, the same as the lexer's.
+    *
+    * @param element the element.
+    * @return the key or <code>null</code> for elements without comments.
+    */
+   private static String key(final Element element) {
+      switch (element.getKind()) {
+         case CLASS:
+         case INTERFACE:
+         case ENUM:
+         case ANNOTATION_TYPE:
+            return path(element);
+         case FIELD:
+         case ENUM_CONSTANT:
+            return path(element.getEnclosingElement()) + '#'
+               + element.getSimpleName();
+         case METHOD:
+         case CONSTRUCTOR:
+            final ExecutableElement method = (ExecutableElement) element;
+            final StringBuilder key = new StringBuilder();
+            key.append(path(element.getEnclosingElement())).append('#');
+            if (element.getKind() == ElementKind.CONSTRUCTOR) {
+               key.append(element.getEnclosingElement().getSimpleName());
+            } else {
+               key.append(element.getSimpleName());
+            }
+            key.append('(');
+            for (int i = 0; i < method.getParameters().size(); i++) {
+               final VariableElement param = method.getParameters().get(i);
+               if (i > 0) {
+                  key.append(',');
+               }
+               key.append(typeName(param.asType()));
+            }
+            return key.append(')').toString();
+         default:
+            return null;
+      }
+   }
+
+   /**
+    * Gets the names of a type and its enclosing types, separated by dots.
+    */
+   private static String path(final Element type) {
+      if (type.getEnclosingElement() instanceof TypeElement) {
+         return path(type.getEnclosingElement()) + '.' + type.getSimpleName();
+      }
+      return type.getSimpleName().toString();
+   }
+
+   /**
+    * Gets the simple name of a parameter's type as written in source, without
+    * type arguments.
+    */
+   private static String typeName(final TypeMirror type) {
+      if (type.getKind() == TypeKind.ARRAY) {
+         return typeName(((ArrayType) type).getComponentType()) + "[]";
+      } else if (type.getKind() == TypeKind.DECLARED) {
+         return ((DeclaredType) type).asElement().getSimpleName().toString();
+      } else if (type.getKind() == TypeKind.TYPEVAR) {
+         return ((TypeVariable) type).asElement().getSimpleName().toString();
+      }
+      return type.toString();
+   }
+
+   /**
+    * Lexer of a source file, collecting the documentation comments of its
+    * declarations and the names of its methods' parameters.
+    */
+   static final class Lexer {
+
+      private static final String DOC = "/**";
+
+      private final String source;
+
+      /**
+       * The position of the next character.
+       */
+      private int position;
+
+      /**
+       * The token read ahead, if any.
+       */
+      private String next;
+
+      /**
+       * The text of the last documentation comment read.
+       */
+      private String doc;
+
+      /**
+       * The comments found, keyed by declaration.
+       */
+      private final Map<String, String> comments =
+         new HashMap<String, String>();
+
+      /**
+       * The names of the parameters of the methods found, keyed by
+       * declaration.
+       */
+      private final Map<String, List<String>> parameterNames =
+         new HashMap<String, List<String>>();
+
+      Lexer(final String source) {
+         this.source = source;
+      }
+
+      /**
+       * Reads the source and collects the comments.
+       *
+       * @return the comments, keyed by declaration.
+       */
+      Map<String, String> comments() {
+         String token;
+         while ((token = token()) != null) {
+            if (token == DOC) {
+               continue;
+            } else if ("package".equals(token) || "import".equals(token)) {
+               skipTo(";");
+               doc = null;
+            } else if ("@".equals(token)) {
+               final String next = annotation();
+               if (next != null && !type("", next)) {
+                  doc = null;
+               }
+            } else if (!type("", token) && !isModifier(token)) {
+               doc = null;
+            }
+         }
+         return comments;
+      }
+
+      /**
+       * Reads a type declaration, if a token starts one.
+       *
+       * @param prefix the path of the enclosing type, empty for outermost
+       *           types.
+       * @param token the token.
+       * @return <code>true</code> if the token started a type declaration.
+       */
+      private boolean type(final String prefix, final String token) {
+         if (!"class".equals(token) && !"interface".equals(token)
+            && !"enum".equals(token)) {
+            return false;
+         }
+         final String name = token();
+         final String path = prefix.length() == 0 ? name : prefix + '.' + name;
+         record(path);
+         String t;
+         while ((t = token()) != null && !"{".equals(t)) {
+            if ("@".equals(t)) {
+               annotation();
+            }
+         }
+         body(path, "enum".equals(token));
+         return true;
+      }
+
+      /**
+       * Reads the body of a type, up to its closing brace.
+       */
+      private void body(final String path, final boolean enumeration) {
+         if (enumeration && !constants(path)) {
+            return;
+         }
+         final List<String> header = new ArrayList<String>();
+         String token;
+         while ((token = token()) != null) {
+            if (token == DOC) {
+               continue;
+            } else if ("}".equals(token)) {
+               return;
+            } else if (";".equals(token)) {
+               doc = null;
+               header.clear();
+            } else if ("{".equals(token)) {
+               skipBlock();
+               doc = null;
+               header.clear();
+            } else if ("@".equals(token)) {
+               final String next = annotation();
+               if (next != null && !type(path, next)) {
+                  header.add(next);
+               }
+            } else if (type(path, token)) {
+               doc = null;
+               header.clear();
+            } else if ("<".equals(token)) {
+               skipTo(">");
+            } else if ("(".equals(token)) {
+               final List<String> names = new ArrayList<String>();
+               final String key =
+                  path + '#' + last(header) + '(' + parameters(names) + ')';
+               record(key);
+               parameterNames.put(key, names);
+               skipMethodBody();
+               doc = null;
+               header.clear();
+            } else if ("=".equals(token) || ",".equals(token)) {
+               record(path + '#' + last(header));
+               declarators(path, token);
+               doc = null;
+               header.clear();
+            } else {
+               if (";".equals(peek())) {
+                  record(path + '#' + token);
+               }
+               header.add(token);
+            }
+         }
+      }
+
+      /**
+       * Reads the constants of an enumeration.
+       *
+       * @return <code>false</code> if the body ended with the constants.
+       */
+      private boolean constants(final String path) {
+         String token;
+         while ((token = token()) != null) {
+            if (token == DOC || ",".equals(token)) {
+               continue;
+            } else if ("}".equals(token)) {
+               return false;
+            } else if (";".equals(token)) {
+               doc = null;
+               return true;
+            } else if ("@".equals(token)) {
+               final String name = annotation();
+               if (name != null) {
+                  constant(path, name);
+               }
+            } else {
+               constant(path, token);
+            }
+         }
+         return false;
+      }
+
+      private void constant(final String path, final String name) {
+         record(path + '#' + name);
+         doc = null;
+         if ("(".equals(peek())) {
+            token();
+            skipTo(")");
+         }
+         if ("{".equals(peek())) {
+            token();
+            skipBlock();
+         }
+      }
+
+      /**
+       * Reads the declarators of a field after the first, skipping
+       * initialisers, up to the closing semi-colon.
+       */
+      private void declarators(final String path, final String first) {
+         String token = first;
+         while (token != null && !";".equals(token)) {
+            if ("=".equals(token)) {
+               token = skipExpression();
+            } else if (",".equals(token)) {
+               final String name = token();
+               token = token();
+               if ("=".equals(token) || ",".equals(token)
+                  || ";".equals(token)) {
+                  record(path + '#' + name);
+               }
+            } else {
+               token = token();
+            }
+         }
+      }
+
+      /**
+       * Skips an initialiser, up to the comma or semi-colon ending it.
+       *
+       * @return the comma or semi-colon.
+       */
+      private String skipExpression() {
+         String token;
+         while ((token = token()) != null) {
+            if ("(".equals(token)) {
+               skipTo(")");
+            } else if ("[".equals(token)) {
+               skipTo("]");
+            } else if ("{".equals(token)) {
+               skipBlock();
+            } else if (",".equals(token) || ";".equals(token)) {
+               return token;
+            }
+         }
+         return null;
+      }
+
+      /**
+       * Reads the parameters of a method, up to the closing parenthesis.
+       *
+       * @param names the list the names of the parameters are added to.
+       * @return the simple names of the parameters' types, separated by
+       *         commas.
+       */
+      private String parameters(final List<String> names) {
+         final StringBuilder types = new StringBuilder();
+         final List<String> parameter = new ArrayList<String>();
+         int dimensions = 0;
+         String token;
+         while ((token = token()) != null) {
+            if (token == DOC) {
+               continue;
+            } else if ("@".equals(token)) {
+               final String next = annotation();
+               if (next != null) {
+                  token = next;
+               } else {
+                  continue;
+               }
+            }
+            if (")".equals(token) || ",".equals(token)) {
+               if (!parameter.isEmpty()) {
+                  if (types.length() > 0) {
+                     types.append(',');
+                  }
+                  types.append(parameter.size() > 1 ? parameter.get(parameter
+                     .size() - 2) : parameter.get(0));
+                  names.add(parameter.get(parameter.size() - 1));
+                  for (int i = 0; i < dimensions; i++) {
+                     types.append("[]");
+                  }
+               }
+               parameter.clear();
+               dimensions = 0;
+               if (")".equals(token)) {
+                  break;
+               }
+            } else if ("<".equals(token)) {
+               skipTo(">");
+            } else if ("[".equals(token) || "...".equals(token)) {
+               dimensions++;
+            } else if (isIdentifier(token) && !"final".equals(token)) {
+               parameter.add(token);
+            }
+         }
+         return types.toString();
+      }
+
+      /**
+       * Skips what follows the parameters of a method: the exceptions, then
+       * the body, the semi-colon of abstract methods, or the default value of
+       * annotation elements.
+       */
+      private void skipMethodBody() {
+         String token;
+         while ((token = token()) != null) {
+            if ("{".equals(token)) {
+               skipBlock();
+               return;
+            } else if (";".equals(token)) {
+               return;
+            } else if ("default".equals(token)) {
+               skipExpression();
+               return;
+            }
+         }
+      }
+
+      /**
+       * Skips an annotation after its <code>@</code>.
+       *
+       * @return the token following the annotation, or <code>null</code> if
+       *         it is consumed.
+       */
+      private String annotation() {
+         String token = token();
+         if ("interface".equals(token)) {
+            return "interface";
+         }
+         while (".".equals(peek())) {
+            token();
+            token();
+         }
+         if ("(".equals(peek())) {
+            token();
+            skipTo(")");
+         }
+         return null;
+      }
+
+      /**
+       * Skips a block after its opening brace.
+       */
+      private void skipBlock() {
+         skipTo("}");
+      }
+
+      /**
+       * Skips tokens up to a closing token, skipping nested pairs.
+       */
+      private void skipTo(final String close) {
+         final String open = opening(close);
+         int depth = 1;
+         String token;
+         while ((token = token()) != null) {
+            if (open != null && open.equals(token)) {
+               depth++;
+            } else if (close.equals(token) && --depth == 0) {
+               return;
+            }
+         }
+      }
+
+      private static String opening(final String close) {
+         if (")".equals(close)) {
+            return "(";
+         } else if ("]".equals(close)) {
+            return "[";
+         } else if ("}".equals(close)) {
+            return "{";
+         } else if (">".equals(close)) {
+            return "<";
+         }
+         return null;
+      }
+
+      private static String last(final List<String> header) {
+         for (int i = header.size() - 1; i >= 0; i--) {
+            if (isIdentifier(header.get(i))) {
+               return header.get(i);
+            }
+         }
+         return "";
+      }
+
+      private static boolean isModifier(final String token) {
+         return "public".equals(token) || "protected".equals(token)
+            || "private".equals(token) || "abstract".equals(token)
+            || "final".equals(token) || "static".equals(token)
+            || "strictfp".equals(token);
+      }
+
+      private static boolean isIdentifier(final String token) {
+         return token.length() > 0
+            && Character.isJavaIdentifierStart(token.charAt(0));
+      }
+
+      /**
+       * Attaches the last documentation comment to a declaration.
+       */
+      private void record(final String key) {
+         if (doc != null) {
+            comments.put(key, doc);
+            doc = null;
+         }
+      }
+
+      private String peek() {
+         if (next == null) {
+            next = read();
+         }
+         return next;
+      }
+
+      /**
+       * Reads the next token. Documentation comments are returned as
+       * {@link #DOC}, their text kept for the next declaration.
+       *
+       * @return the token or <code>null</code> at the end of the source.
+       */
+      private String token() {
+         final String token = peek();
+         next = null;
+         return token;
+      }
+
+      private String read() {
+         final int length = source.length();
+         while (position < length) {
+            final char ch = source.charAt(position);
+            if (Character.isWhitespace(ch)) {
+               position++;
+            } else if (source.startsWith("//", position)) {
+               final int end = source.indexOf('\n', position);
+               position = end < 0 ? length : end + 1;
+            } else if (source.startsWith("/*", position)) {
+               int end = source.indexOf("*/", position + 2);
+               end = end < 0 ? length : end;
+               final boolean isDoc =
+                  source.startsWith(DOC, position) && end > position + 2;
+               if (isDoc) {
+                  doc = strip(source.substring(position + 3, end));
+               }
+               position = Math.min(length, end + 2);
+               if (isDoc) {
+                  return DOC;
+               }
+            } else if (ch == '"' || ch == '\'') {
+               position++;
+               while (position < length && source.charAt(position) != ch) {
+                  if (source.charAt(position) == '\\') {
+                     position++;
+                  }
+                  position++;
+               }
+               position++;
+               return String.valueOf(ch);
+            } else if (Character.isJavaIdentifierPart(ch)) {
+               final int start = position;
+               while (position < length
+                  && Character.isJavaIdentifierPart(source.charAt(position))) {
+                  position++;
+               }
+               return source.substring(start, position);
+            } else if (source.startsWith("...", position)) {
+               position += 3;
+               return "...";
+            } else {
+               position++;
+               return String.valueOf(ch);
+            }
+         }
+         return null;
+      }
+
+      /**
+       * Strips the text of a documentation comment the way the compiler
+       * does: the stars following the opening, then on every line the
+       * leading white-space and stars, unless the line has no star. The
+       * white-space before the closing <code>*&#47;</code> on its own line
+       * goes with its star.
+       *
+       * @param text the text between <code>/**</code> and the closing
+       *           <code>*&#47;</code>.
+       * @return the stripped text.
+       */
+      static String strip(final String text) {
+         final StringBuilder buffer = new StringBuilder(text.length());
+         final int length = text.length();
+         int i = 0;
+         while (i < length && text.charAt(i) == '*') {
+            i++;
+         }
+         boolean firstLine = true;
+         if (i < length && text.charAt(i) == '\n') {
+            i++;
+            firstLine = false;
+         } else if (text.startsWith("\r\n", i)) {
+            i += 2;
+            firstLine = false;
+         }
+         while (i < length) {
+            final int lineStart = i;
+            while (i < length
+               && (text.charAt(i) == ' ' || text.charAt(i) == '\t' || text
+                  .charAt(i) == '\f')) {
+               i++;
+            }
+            if (i < length && text.charAt(i) == '*') {
+               while (i < length && text.charAt(i) == '*') {
+                  i++;
+               }
+            } else if (i == length) {
+               // white-space before the star of the closing */
+               break;
+            } else if (!firstLine) {
+               i = lineStart;
+            }
+            while (i < length) {
+               final char ch = text.charAt(i++);
+               if (ch == '\r') {
+                  if (i < length && text.charAt(i) == '\n') {
+                     i++;
+                  }
+                  buffer.append('\n');
+                  break;
+               } else if (ch == '\n') {
+                  buffer.append('\n');
+                  break;
+               } else if (ch != '\f') {
+                  buffer.append(ch);
+               } else {
+                  break;
+               }
+            }
+            firstLine = false;
+         }
+         return buffer.toString();
+      }
+
+   }
+
+}
@@ -49,6 +49,12 @@ public abstract class BaseType implements Comparable<BaseType> {
     */
    protected String javadoc;
 
+   /**
+    * The identifier of the documentation of this parameter's type in the
+    * application's {@link TypeDocs}, if it isn't inlined in the javadoc.
+    */
+   protected String typeDoc;
+
    /**
     * Default constructor
     */
@@ -149,6 +155,25 @@ public abstract class BaseType implements Comparable<BaseType> {
       this.javadoc = trimToNull(javadoc);
    }
 
+   /**
+    * Gets the identifier of the documentation of this parameter's type.
+    * 
+    * @return the identifier in the application's {@link TypeDocs} or
+    *         <code>null</code> if the type's documentation isn't registered.
+    */
+   public String getTypeDoc() {
+      return typeDoc;
+   }
+
+   /**
+    * Sets the identifier of the documentation of this parameter's type.
+    * 
+    * @param typeDoc the identifier in the application's {@link TypeDocs}.
+    */
+   public void setTypeDoc(final String typeDoc) {
+      this.typeDoc = typeDoc;
+   }
+
    /**
     * Initialises the documentation of this parameter.
     * 
@@ -159,10 +184,9 @@ public abstract class BaseType implements Comparable<BaseType> {
    protected void initJavadoc(final Parameter param, final ParamTag[] tags) {
 
       for (ParamTag tag : tags) {
-         if (param.name().equals(tag.parameterName())) {
-            String comment = DocTypeUtils.getTypeDoc(param.type());
-            setJavadoc(comment == null || comment.isEmpty() ? tag
-               .parameterComment() : comment);
+         if (param.name().equals(tag.parameterName())
+            && !DocTypeUtils.initTypeDoc(this, param.type())) {
+            setJavadoc(tag.parameterComment());
          }
       }
    }
@@ -184,7 +208,7 @@ public abstract class BaseType implements Comparable<BaseType> {
          + this.toString();
       assert name != null && !name.isEmpty() : "Missing name "
          + this.toString();
-      if (!type.equalsIgnoreCase("void")
+      if (!type.equalsIgnoreCase("void") && typeDoc == null
          && (getJavadoc() == null || getJavadoc().isEmpty())) {
          LOG.warn("Missing javadoc " + this.toString());
       }
@@ -238,7 +262,7 @@ public abstract class BaseType implements Comparable<BaseType> {
    public String toString() {
       return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
       .append("name", name).append("type", type).append("javadoc", javadoc)
-      .toString();
+      .append("typeDoc", typeDoc).toString();
    }
 
 }
@@ -0,0 +1,136 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.type;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
+
+/**
+ * This class summarises a method for listing pages: its name, HTTP
+ * request-method and the first sentence of its documentation. Parameters are
+ * not included.
+ *
+ * @see Method
+ * @see ServiceSummary
+ */
+public class MethodSummary {
+
+   /**
+    * The name of the method.
+    */
+   private String name;
+
+   /**
+    * The HTTP request-method of the method.
+    */
+   private String requestMethod;
+
+   /**
+    * The first sentence of the method's documentation.
+    */
+   private String summary;
+
+   /**
+    * No-argument constructor for this class to be used as a bean.
+    */
+   public MethodSummary() {
+      super();
+   }
+
+   /**
+    * Constructs this summary.
+    *
+    * @param name the method's name.
+    * @param requestMethod the method's HTTP request-method.
+    * @param summary the first sentence of the method's documentation.
+    */
+   public MethodSummary(final String name, final String requestMethod,
+                        final String summary) {
+      super();
+      this.name = name;
+      this.requestMethod = requestMethod;
+      this.summary = summary;
+   }
+
+   /**
+    * Gets the name of the method.
+    *
+    * @return the method's name.
+    */
+   public String getName() {
+      return name;
+   }
+
+   /**
+    * Sets the name of the method.
+    *
+    * @param name the method's name.
+    */
+   public void setName(final String name) {
+      this.name = name;
+   }
+
+   /**
+    * Gets the HTTP request-method of the method.
+    *
+    * @return the method's HTTP request-method.
+    */
+   public String getRequestMethod() {
+      return requestMethod;
+   }
+
+   /**
+    * Sets the HTTP request-method of the method.
+    *
+    * @param requestMethod the method's HTTP request-method.
+    */
+   public void setRequestMethod(final String requestMethod) {
+      this.requestMethod = requestMethod;
+   }
+
+   /**
+    * Gets the first sentence of the method's documentation.
+    *
+    * @return the summary or an empty string if the method isn't documented.
+    */
+   public String getSummary() {
+      return summary;
+   }
+
+   /**
+    * Sets the first sentence of the method's documentation.
+    *
+    * @param summary the summary.
+    */
+   public void setSummary(final String summary) {
+      this.summary = summary;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString() {
+      return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+         .append("name", name).append("requestMethod", requestMethod)
+         .append("summary", summary).toString();
+   }
+
+}
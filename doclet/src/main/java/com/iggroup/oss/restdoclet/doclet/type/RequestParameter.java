@@ -90,7 +90,8 @@ public class RequestParameter extends BaseType {
    @Override
    public void assertValid() {
       super.assertValid();
-      if (getJavadoc() == null || getJavadoc().isEmpty()) {
+      if (getTypeDoc() == null
+         && (getJavadoc() == null || getJavadoc().isEmpty())) {
          LOG.warn("Missing javadoc " + this.toString());
       }
    }
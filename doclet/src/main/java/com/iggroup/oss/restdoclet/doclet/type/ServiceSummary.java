@@ -0,0 +1,182 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.type;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.apache.commons.lang.builder.CompareToBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
+
+/**
+ * This class summarises a service for listing and search pages. It holds the
+ * service's URIs and a {@link MethodSummary} for each of its methods, but not
+ * the documentation of parameters.
+ *
+ * @see Service
+ */
+public class ServiceSummary implements Comparable<ServiceSummary> {
+
+   /**
+    * The identifier of the service.
+    */
+   private int identifier;
+
+   /**
+    * The context root of the service.
+    */
+   private String context;
+
+   /**
+    * The URIs of the service.
+    */
+   private Collection<Uri> uris = new ArrayList<Uri>();
+
+   /**
+    * The methods of the service.
+    */
+   private Collection<MethodSummary> methods = new ArrayList<MethodSummary>();
+
+   /**
+    * No-argument constructor for this class to be used as a bean.
+    */
+   public ServiceSummary() {
+      super();
+   }
+
+   /**
+    * Gets the identifier of the service.
+    *
+    * @return the service's identifier.
+    */
+   public int getIdentifier() {
+      return identifier;
+   }
+
+   /**
+    * Sets the identifier of the service.
+    *
+    * @param identifier the service's identifier.
+    */
+   public void setIdentifier(final int identifier) {
+      this.identifier = identifier;
+   }
+
+   /**
+    * Gets the context root of the service.
+    *
+    * @return the service's context root.
+    */
+   public String getContext() {
+      return context;
+   }
+
+   /**
+    * Sets the context root of the service.
+    *
+    * @param context the service's context root.
+    */
+   public void setContext(final String context) {
+      this.context = context;
+   }
+
+   /**
+    * Gets the URIs of the service.
+    *
+    * @return the service's URIs.
+    */
+   public Collection<Uri> getUris() {
+      return uris;
+   }
+
+   /**
+    * Adds a URI to the service.
+    *
+    * @param uri the URI.
+    */
+   public void addUri(final Uri uri) {
+      uris.add(uri);
+   }
+
+   /**
+    * Checks if all the URIs of the service are deprecated.
+    *
+    * @return <code>true</code> if the service has no current URI.
+    */
+   public boolean isDeprecated() {
+      boolean deprecated = true;
+      for (Uri uri : uris) {
+         if (!uri.getDeprecated()) {
+            deprecated = false;
+            break;
+         }
+      }
+      return deprecated;
+   }
+
+   /**
+    * Gets the methods of the service.
+    *
+    * @return the service's methods.
+    */
+   public Collection<MethodSummary> getMethods() {
+      return methods;
+   }
+
+   /**
+    * Adds a method to the service.
+    *
+    * @param method the method.
+    */
+   public void addMethod(final MethodSummary method) {
+      methods.add(method);
+   }
+
+   /**
+    * Orders summaries by their first URI, as {@link Service} does.
+    *
+    * @param summary the summary to compare with.
+    * @return the comparison.
+    */
+   @Override
+   public int compareTo(final ServiceSummary summary) {
+      int result;
+      if (summary == null) {
+         result = 1;
+      } else {
+         result =
+            new CompareToBuilder().append(uris.iterator().next().getUri(),
+               summary.getUris().iterator().next().getUri()).toComparison();
+      }
+      return result;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString() {
+      return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+         .append("identifier", identifier).append("uris", uris)
+         .append("methods", methods).toString();
+   }
+
+}
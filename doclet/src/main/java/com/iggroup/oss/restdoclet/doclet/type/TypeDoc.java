@@ -0,0 +1,133 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.type;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
+
+/**
+ * The rendered documentation of a Java type, shared by all the parameters of
+ * that type.
+ *
+ * @see TypeDocs
+ */
+public class TypeDoc {
+
+   /**
+    * The identifier parameters refer to this documentation by.
+    */
+   private String id;
+
+   /**
+    * The Java type documented.
+    */
+   private String type;
+
+   /**
+    * The documentation of the type.
+    */
+   private String javadoc;
+
+   /**
+    * No-argument constructor for this class to be used as a bean or by JiBX
+    * binding.
+    */
+   public TypeDoc() {
+      super();
+   }
+
+   /**
+    * Constructs the documentation of a type.
+    *
+    * @param id the identifier of the documentation.
+    * @param type the Java type.
+    * @param javadoc the documentation of the type.
+    */
+   public TypeDoc(final String id, final String type, final String javadoc) {
+      super();
+      this.id = id;
+      this.type = type;
+      this.javadoc = javadoc;
+   }
+
+   /**
+    * Gets the identifier of this documentation.
+    *
+    * @return the identifier.
+    */
+   public String getId() {
+      return id;
+   }
+
+   /**
+    * Sets the identifier of this documentation.
+    *
+    * @param id the identifier.
+    */
+   public void setId(final String id) {
+      this.id = id;
+   }
+
+   /**
+    * Gets the Java type documented.
+    *
+    * @return the Java type.
+    */
+   public String getType() {
+      return type;
+   }
+
+   /**
+    * Sets the Java type documented.
+    *
+    * @param type the Java type.
+    */
+   public void setType(final String type) {
+      this.type = type;
+   }
+
+   /**
+    * Gets the documentation of the type.
+    *
+    * @return the documentation.
+    */
+   public String getJavadoc() {
+      return javadoc;
+   }
+
+   /**
+    * Sets the documentation of the type.
+    *
+    * @param javadoc the documentation.
+    */
+   public void setJavadoc(final String javadoc) {
+      this.javadoc = javadoc;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString() {
+      return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+         .append("id", id).append("type", type).toString();
+   }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.type;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
+
+/**
+ * Registry of the documentation of the types of an application's parameters.
+ * <p>
+ * The documentation of a type (the table of its attributes, rendered by
+ * <code>DocTypeUtils</code>) can be large, and the same type is usually used
+ * by many parameters. In a registry, each documentation is stored once and
+ * parameters refer to it by identifier (see {@link BaseType#getTypeDoc()}).
+ * The identifier is derived from the documentation itself, so registries
+ * written by different runs of the doclet, or for different modules, can be
+ * merged without renumbering.
+ */
+public class TypeDocs {
+
+   /**
+    * The name of the file holding a registry, written by the doclet next to
+    * the controllers' documentation and by the plugin next to the services.
+    */
+   public static final String FILE = "restdoc-types.xml";
+
+   /**
+    * The number of hexadecimal digits of the digest used as identifier.
+    */
+   private static final int ID_LENGTH = 16;
+
+   private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+   /**
+    * The documentation of the types, in registration order.
+    */
+   private Collection<TypeDoc> types = new ArrayList<TypeDoc>();
+
+   /**
+    * The documentation of the types keyed by identifier, built on first use.
+    */
+   private transient Map<String, TypeDoc> index;
+
+   /**
+    * Gets the documentation of the types.
+    *
+    * @return the documentation of the types.
+    */
+   public Collection<TypeDoc> getTypes() {
+      return types;
+   }
+
+   /**
+    * Sets the documentation of the types.
+    *
+    * @param types the documentation of the types.
+    */
+   public void setTypes(final Collection<TypeDoc> types) {
+      this.types = types;
+      this.index = null;
+   }
+
+   /**
+    * Gets the documentation with an identifier.
+    *
+    * @param id the identifier.
+    * @return the documentation or <code>null</code> if there is none with the
+    *         identifier.
+    */
+   public TypeDoc get(final String id) {
+      return index().get(id);
+   }
+
+   /**
+    * Gets the number of types documented.
+    *
+    * @return the number of types.
+    */
+   public int size() {
+      return index().size();
+   }
+
+   /**
+    * Registers the documentation of a type, unless it is already registered.
+    *
+    * @param type the Java type.
+    * @param javadoc the documentation of the type.
+    * @return the identifier of the documentation.
+    */
+   public String register(final String type, final String javadoc) {
+      final String id = id(type, javadoc);
+      add(new TypeDoc(id, type, javadoc));
+      return id;
+   }
+
+   /**
+    * Adds documentation to this registry, unless documentation with the same
+    * identifier is already registered.
+    *
+    * @param typeDoc the documentation.
+    */
+   public void add(final TypeDoc typeDoc) {
+      if (!index().containsKey(typeDoc.getId())) {
+         if (types == null) {
+            types = new ArrayList<TypeDoc>();
+         }
+         types.add(typeDoc);
+         index.put(typeDoc.getId(), typeDoc);
+      }
+   }
+
+   /**
+    * Adds all the documentation of another registry to this registry.
+    *
+    * @param typeDocs the other registry.
+    */
+   public void addAll(final TypeDocs typeDocs) {
+      if (typeDocs.getTypes() != null) {
+         for (TypeDoc typeDoc : typeDocs.getTypes()) {
+            add(typeDoc);
+         }
+      }
+   }
+
+   /**
+    * Gets the documentation of the types keyed by identifier.
+    *
+    * @return the index.
+    */
+   private Map<String, TypeDoc> index() {
+      if (index == null) {
+         index = new HashMap<String, TypeDoc>();
+         if (types != null) {
+            for (TypeDoc typeDoc : types) {
+               index.put(typeDoc.getId(), typeDoc);
+            }
+         }
+      }
+      return index;
+   }
+
+   /**
+    * Computes the identifier of the documentation of a type: a digest of the
+    * type and its documentation.
+    *
+    * @param type the Java type.
+    * @param javadoc the documentation.
+    * @return the identifier.
+    */
+   private static String id(final String type, final String javadoc) {
+      final byte[] digest;
+      try {
+         final MessageDigest md = MessageDigest.getInstance("SHA-1");
+         md.update(type.getBytes("UTF-8"));
+         md.update((byte) 0);
+         md.update(javadoc.getBytes("UTF-8"));
+         digest = md.digest();
+      } catch (NoSuchAlgorithmException e) {
+         throw new IllegalStateException(e);
+      } catch (UnsupportedEncodingException e) {
+         throw new IllegalStateException(e);
+      }
+      final char[] chars = new char[ID_LENGTH];
+      for (int i = 0; i < ID_LENGTH; i++) {
+         final int b = digest[i / 2];
+         chars[i] = HEX[(i % 2 == 0 ? b >> 4 : b) & 0xF];
+      }
+      return new String(chars);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString() {
+      return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+         .append("types", types).toString();
+   }
+
+}
@@ -91,10 +91,9 @@ public class BaseTypeBuilder {
                             final ParamTag[] tags) {
 
       for (ParamTag tag : tags) {
-         if (param.name().equals(tag.parameterName())) {
-            String comment = DocTypeUtils.getTypeDoc(param.type());
-            type.setJavadoc(comment == null || comment.isEmpty() ? tag
-               .parameterComment() : comment);
+         if (param.name().equals(tag.parameterName())
+            && !DocTypeUtils.initTypeDoc(type, param.type())) {
+            type.setJavadoc(tag.parameterComment());
          }
       }
    }
@@ -30,6 +30,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import com.iggroup.oss.restdoclet.doclet.type.Controller;
 import com.iggroup.oss.restdoclet.doclet.type.Method;
 import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.MethodDoc;
 
 /**
  * This class populates a Controller class from JavaDoc types.
@@ -83,11 +84,13 @@ public class ControllerBuilder extends BaseTypeBuilder {
    private void initMethods(Controller controller, final ClassDoc classDoc) {
 
       ArrayList<Method> methods = new ArrayList<Method>();
-      for (int i = 0; classDoc.methods(false) != null
-         && i < classDoc.methods(false).length; i++) {
-         if (isAnnotated(classDoc.methods(false)[i], RequestMapping.class)) {
-            methods.add(new MethodBuilder().build(new Method(),
-               classDoc.methods(false)[i]));
+      final MethodDoc[] methodDocs = classDoc.methods(false);
+      if (methodDocs != null) {
+         final MethodBuilder builder = new MethodBuilder();
+         for (MethodDoc methodDoc : methodDocs) {
+            if (isAnnotated(methodDoc, RequestMapping.class)) {
+               methods.add(builder.build(new Method(), methodDoc));
+            }
          }
       }
 
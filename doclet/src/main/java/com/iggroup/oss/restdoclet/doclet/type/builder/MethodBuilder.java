@@ -19,22 +19,17 @@
  */
 package com.iggroup.oss.restdoclet.doclet.type.builder;
 
+import static com.iggroup.oss.restdoclet.doclet.util.AnnotationUtils.annotationTypes;
 import static com.iggroup.oss.restdoclet.doclet.util.AnnotationUtils.elementValue;
-import static com.iggroup.oss.restdoclet.doclet.util.AnnotationUtils.isAnnotated;
-import static com.iggroup.oss.restdoclet.doclet.util.UrlUtils.parseMultiUri;
+import static com.iggroup.oss.restdoclet.doclet.util.UrlUtils.parseUris;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
 
-import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.collections.Predicate;
-import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
-import org.springframework.web.bind.annotation.ModelAttribute;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
-import org.springframework.web.bind.annotation.RequestParam;
 
 import com.iggroup.oss.restdoclet.doclet.type.BodyParameter;
 import com.iggroup.oss.restdoclet.doclet.type.Method;
@@ -43,16 +38,16 @@ import com.iggroup.oss.restdoclet.doclet.type.PathParameter;
 import com.iggroup.oss.restdoclet.doclet.type.RequestParameter;
 import com.iggroup.oss.restdoclet.doclet.type.ResponseParameter;
 import com.iggroup.oss.restdoclet.doclet.type.RestParameter;
-import com.iggroup.oss.restdoclet.doclet.type.Uri;
 import com.iggroup.oss.restdoclet.doclet.util.DocTypeUtils;
 import com.iggroup.oss.restdoclet.doclet.util.NameValuePair;
-import com.iggroup.oss.restdoclet.doclet.util.ParameterNamePredicate;
+import com.iggroup.oss.restdoclet.doclet.util.ParameterKind;
 import com.iggroup.oss.restdoclet.doclet.util.RequestMappingParamsParser;
 import com.sun.javadoc.AnnotationValue;
 import com.sun.javadoc.ClassDoc;
 import com.sun.javadoc.MethodDoc;
 import com.sun.javadoc.ParamTag;
 import com.sun.javadoc.Parameter;
+import com.sun.javadoc.Type;
 
 /**
  * This class populates a Method class from JavaDoc types.
@@ -80,11 +75,9 @@ public class MethodBuilder {
       initName(method, methodDoc);
       initRequestMethod(method, methodDoc);
       initJavadoc(method, methodDoc);
-      initRequestParams(method, methodDoc.parameters(), methodDoc.paramTags());
-      initPathParams(method, methodDoc.parameters(), methodDoc.paramTags());
-      initModelParams(method, methodDoc.parameters(), methodDoc.paramTags());
-      initBodyParams(method, methodDoc.parameters(), methodDoc.paramTags());
-      initRestParams(method, methodDoc);
+      final Set<String> requestParamNames =
+         initParams(method, methodDoc.parameters(), methodDoc.paramTags());
+      initRestParams(method, methodDoc, requestParamNames);
       initResponseParams(method, methodDoc);
 
       return method;
@@ -134,7 +127,8 @@ public class MethodBuilder {
    }
 
    /**
-    * Initialises the documentation of this method.
+    * Initialises the documentation of this method, resolving
+    * <code>{@inheritDoc}</code> across the whole class hierarchy.
     * 
     * @param methodDoc the method's Java documentation object.
     */
@@ -142,121 +136,69 @@ public class MethodBuilder {
 
       LOG.debug(method.getName());
 
-      method.setJavadoc(methodDoc.commentText());
-      LOG.debug(method.getJavadoc());
-      if (method.getJavadoc().contains("@inheritDoc")) {
-         // Look in parent class for javadoc
-         ClassDoc containingClass = methodDoc.containingClass();
-         ClassDoc superClass = containingClass.superclass().asClassDoc();
-         for (MethodDoc md : superClass.methods()) {
-            if (md.name().equalsIgnoreCase(methodDoc.name())
-               && md.signature().equalsIgnoreCase(methodDoc.signature())) {
-               method.setJavadoc(md.commentText());
-               return;
-            }
-         }
-      }
-      LOG.debug(method.getJavadoc());
-      if (method.getJavadoc().contains("@inheritDoc")) {
-         // Look in interfaces for javadoc
-         ClassDoc containingClass = methodDoc.containingClass();
-         for (ClassDoc cd : containingClass.interfaces()) {
-            for (MethodDoc md : cd.methods()) {
-               if (md.name().equalsIgnoreCase(methodDoc.name())
-                  && md.signature().equalsIgnoreCase(methodDoc.signature())) {
-                  method.setJavadoc(md.commentText());
-                  return;
-               }
-            }
-         }
-      }
+      method.setJavadoc(DocTypeUtils.getMethodJavadoc(methodDoc));
       LOG.debug(method.getJavadoc());
    }
 
    /**
-    * Initialises the request-parameters of this method.
+    * Initialises the request, path, model and body parameters of this method
+    * in a single pass over its parameters, classified by
+    * {@link ParameterKind}.
     * 
     * @param params the method's parameters.
     * @param tags the parameters' Java documentation tags.
+    * @return the names of the request-parameters.
     */
-   private void initRequestParams(Method method, final Parameter[] params,
+   private Set<String> initParams(Method method, final Parameter[] params,
                                   final ParamTag[] tags) {
       LOG.debug(method.getName());
       ArrayList<RequestParameter> requestParams =
          new ArrayList<RequestParameter>();
-      for (Parameter param : params) {
-         if (isAnnotated(param, RequestParam.class)
-            || isAnnotated(param, RequestBody.class)) {
-            requestParams.add(new RequestParameterBuilder().build(
-               new RequestParameter(), param, tags));
-         }
-      }
-      method.setRequestParams(requestParams);
-   }
-
-   /**
-    * Initialises the path-parameters of this method.
-    * 
-    * @param params the method's path parameters.
-    * @param tags the parameters' Java documentation tags.
-    */
-   private void initPathParams(Method method, final Parameter[] params,
-                               final ParamTag[] tags) {
-      LOG.debug(method.getName());
       ArrayList<PathParameter> pathParams = new ArrayList<PathParameter>();
-      for (Parameter param : params) {
-         if (isAnnotated(param, PathVariable.class)) {
-            pathParams.add(new PathParameterBuilder().build(
-               new PathParameter(), param, tags));
-         }
-      }
-      method.setPathParams(pathParams);
-   }
-
-   /**
-    * Initialises the model-parameters of this method.
-    * 
-    * @param params the method's parameters.
-    * @param tags the parameters' Java documentation tags.
-    */
-   private void initModelParams(Method method, final Parameter[] params,
-                                final ParamTag[] tags) {
-      LOG.debug(method.getName());
       ArrayList<ModelParameter> modelParams = new ArrayList<ModelParameter>();
-      for (Parameter param : params) {
-         if (isAnnotated(param, ModelAttribute.class)) {
-            modelParams.add(new ModelParameterBuilder().build(
-               new ModelParameter(), param, tags));
-         }
-      }
-      method.setModelParams(modelParams);
-   }
-
-   /**
-    * Initialises the request body parameters of this method.
-    * 
-    * @param params the method's parameters.
-    * @param tags the parameters' Java documentation tags.
-    */
-   private void initBodyParams(Method method, final Parameter[] params,
-                               final ParamTag[] tags) {
-      LOG.debug(method.getName());
       ArrayList<BodyParameter> bodyParams = new ArrayList<BodyParameter>();
+      final Set<String> requestParamNames = new HashSet<String>();
       for (Parameter param : params) {
-         if (isAnnotated(param, RequestBody.class)) {
-            bodyParams.add(new BodyParameterBuilder().build(
-               new BodyParameter(), param, tags));
+         for (ParameterKind kind : ParameterKind.of(annotationTypes(param))) {
+            switch (kind) {
+               case REQUEST:
+                  final RequestParameter requestParam =
+                     new RequestParameterBuilder().build(
+                        new RequestParameter(), param, tags);
+                  requestParams.add(requestParam);
+                  requestParamNames.add(requestParam.getName());
+                  break;
+               case PATH:
+                  pathParams.add(new PathParameterBuilder().build(
+                     new PathParameter(), param, tags));
+                  break;
+               case MODEL:
+                  modelParams.add(new ModelParameterBuilder().build(
+                     new ModelParameter(), param, tags));
+                  break;
+               default:
+                  bodyParams.add(new BodyParameterBuilder().build(
+                     new BodyParameter(), param, tags));
+                  break;
+            }
          }
       }
+      method.setRequestParams(requestParams);
+      method.setPathParams(pathParams);
+      method.setModelParams(modelParams);
       method.setBodyParams(bodyParams);
+      return requestParamNames;
    }
 
    /**
     * Initialises the REST-parameters of this method.
     * 
     * @param methodDoc the method's Java documentation object.
+    * @param requestParamNames the names of the method's request-parameters,
+    *           which aren't REST-parameters too.
     */
-   private void initRestParams(Method method, final MethodDoc methodDoc) {
+   private void initRestParams(Method method, final MethodDoc methodDoc,
+                               final Set<String> requestParamNames) {
 
       LOG.debug(method.getName());
       ArrayList<RestParameter> restParams = new ArrayList<RestParameter>();
@@ -264,10 +206,7 @@ public class MethodBuilder {
       for (NameValuePair pair : new RequestMappingParamsParser(elementValue(
          methodDoc, RequestMapping.class, "params")).parse()) {
 
-         final Predicate predicate =
-            new ParameterNamePredicate(pair.getName());
-
-         if (!CollectionUtils.exists(method.getRequestParams(), predicate)) {
+         if (!requestParamNames.contains(pair.getName())) {
             LOG.debug(pair.getName() + " - " + pair.getValue());
             restParams.add(new RestParameter(pair));
          }
@@ -277,68 +216,52 @@ public class MethodBuilder {
       AnnotationValue urlAnnotation =
          elementValue(methodDoc, RequestMapping.class, "value");
       if (urlAnnotation != null) {
-         Boolean deprecatedMatch = false;
-         String[] methodUris = parseValueAnnotation(urlAnnotation);
-         String[] deprecatedURIs = DocTypeUtils.getDeprecatedURIs(methodDoc);
-
-         for (final String uri : methodUris) {
-            LOG.debug("uri:" + uri);
-            boolean deprecated = false;
-            if (deprecatedURIs != null) {
-               for (final String deprecatedUri : deprecatedURIs) {
-                  LOG.debug("deprecated:" + deprecatedUri);
-                  if (StringUtils.equals(deprecatedUri, uri)) {
-                     LOG.debug("=DEPRECATED");
-                     deprecated = true;
-                     deprecatedMatch = true;
-                     break;
-                  }
-               }
-            }
-            method.getUris().add(new Uri(uri, deprecated));
-         }
-
-         if (deprecatedURIs != null && !deprecatedMatch) {
-            LOG.warn("Deprecated URI tag on method " + methodDoc.name()
-               + " does not match any service URIs.");
-         }
+         method.getUris().addAll(
+            parseUris(urlAnnotation.toString(), DocTypeUtils
+               .getDeprecatedURIs(methodDoc), methodDoc.name()));
       }
 
       method.setRestParams(restParams);
    }
 
-   /**
-    * Parse @RequestMapping value annotation
-    * 
-    * @param av value of form "xxx" or {"xx","yy",...}
-    * @return String array of URIs
-    */
-   private String[] parseValueAnnotation(final AnnotationValue av) {
-
-      return parseMultiUri(av.toString().trim());
-
-   }
-
    private void initResponseParams(Method method, final MethodDoc methodDoc) {
 
       ArrayList<ResponseParameter> responseParams =
          new ArrayList<ResponseParameter>();
       // Add return type
       if (methodDoc.returnType() != null) {
-         responseParams.add(new ResponseParameter(DocTypeUtils
-            .getTypeName(methodDoc.returnType()), DocTypeUtils
-            .getTypeName(methodDoc.returnType()), DocTypeUtils
-            .getReturnDoc(methodDoc)));
+         responseParams.add(responseParam(methodDoc.returnType(), methodDoc));
       }
       // Add any checked exceptions
       for (ClassDoc exceptionDoc : methodDoc.thrownExceptions()) {
-         responseParams.add(new ResponseParameter(DocTypeUtils
-            .getTypeName(exceptionDoc),
-            DocTypeUtils.getTypeName(exceptionDoc), DocTypeUtils
-            .getTypeDoc(exceptionDoc)));
+         responseParams.add(responseParam(exceptionDoc, null));
       }
       method.setResponseParams(responseParams);
 
    }
 
+   /**
+    * Creates a response parameter documented with the documentation of its
+    * type.
+    * 
+    * @param type the type of the response.
+    * @param methodDoc the method whose <code>@return</code> comment documents
+    *           the response if its type isn't documented, or
+    *           <code>null</code> for an exception.
+    * @return the response parameter.
+    */
+   private ResponseParameter responseParam(final Type type,
+                                           final MethodDoc methodDoc) {
+      final ResponseParameter param = new ResponseParameter();
+      param.setName(DocTypeUtils.getTypeName(type));
+      param.setType(DocTypeUtils.getTypeName(type));
+      if (methodDoc == null) {
+         DocTypeUtils.initTypeDoc(param, type);
+      } else {
+         DocTypeUtils.initReturnDoc(param, methodDoc);
+      }
+      param.assertValid();
+      return param;
+   }
+
 }
@@ -0,0 +1,247 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.sun.javadoc.AnnotationDesc;
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.FieldDoc;
+import com.sun.javadoc.MethodDoc;
+
+/**
+ * Per-run index of the fields and accessors of classes, used to document
+ * their attributes.
+ * <p>
+ * The index of a class is built once, in time linear in the number of its
+ * fields and methods, instead of matching every field against every method
+ * each time the class is documented. Fields and getters match by name as
+ * they do in {@link DocTypeUtils} and {@link DocletUtils}: exactly for the
+ * attributes of a type's documentation, ignoring case for the fields of a
+ * parameter.
+ * <p>
+ * Instances are not thread-safe; the doclet model is walked by a single
+ * thread.
+ */
+final class AccessorIndex {
+
+   private static final String IS_PREFIX = "is";
+   private static final String GETTER_PREFIX = "get";
+   private static final String VALIDATION_PREFIX =
+      "@javax.validation.constraints.";
+
+   /**
+    * The accessors of the classes indexed so far, keyed by qualified class
+    * name.
+    */
+   private final Map<String, Accessors> indexes =
+      new HashMap<String, Accessors>();
+
+   /**
+    * Gets the accessors of a class, indexing it if needed.
+    *
+    * @param classDoc the class.
+    * @return the accessors.
+    */
+   Accessors accessors(final ClassDoc classDoc) {
+      final String name = classDoc.qualifiedName();
+      Accessors accessors = indexes.get(name);
+      if (accessors == null) {
+         accessors = new Accessors(classDoc);
+         indexes.put(name, accessors);
+      }
+      return accessors;
+   }
+
+   /**
+    * Removes all the classes from this index.
+    */
+   void clear() {
+      indexes.clear();
+   }
+
+   /**
+    * Gets the number of classes indexed.
+    *
+    * @return the number of classes.
+    */
+   int size() {
+      return indexes.size();
+   }
+
+   /**
+    * Checks if a field is a public constant: public, final and named in
+    * upper case.
+    *
+    * @param field the field.
+    * @return <code>true</code> if the field is a public constant.
+    */
+   private static boolean isPublicConstant(final FieldDoc field) {
+      return field.isPublic() && field.isFinal()
+         && StringUtils.equals(field.name(), field.name().toUpperCase());
+   }
+
+   private static String capitalise(final String name) {
+      return name.substring(0, 1).toUpperCase() + name.substring(1);
+   }
+
+   /**
+    * The fields and accessors of a class.
+    */
+   static final class Accessors {
+
+      /**
+       * The public constants, in declaration order.
+       */
+      private final List<FieldDoc> constants = new ArrayList<FieldDoc>();
+
+      /**
+       * The public getters of fields other than constants, in the order of
+       * {@link ClassDoc#methods()}.
+       */
+      private final List<MethodDoc> getters = new ArrayList<MethodDoc>();
+
+      /**
+       * The fields that have a getter, ignoring case, in declaration order.
+       */
+      private final List<FieldDoc> fieldsWithGetters =
+         new ArrayList<FieldDoc>();
+
+      /**
+       * The fields keyed by lower-case name, the first declared if several
+       * differ by case only.
+       */
+      private final Map<String, FieldDoc> fields =
+         new HashMap<String, FieldDoc>();
+
+      /**
+       * The validation rules of the fields looked up so far, keyed by name.
+       */
+      private final Map<String, String> rules = new HashMap<String, String>();
+
+      /**
+       * Indexes a class.
+       *
+       * @param classDoc the class.
+       */
+      private Accessors(final ClassDoc classDoc) {
+         final MethodDoc[] methods = classDoc.methods();
+         final Set<String> methodNames = new HashSet<String>();
+         for (MethodDoc method : methods) {
+            methodNames.add(method.name().toLowerCase(Locale.ENGLISH));
+         }
+         final Set<String> getterNames = new HashSet<String>();
+         for (FieldDoc field : classDoc.fields(false)) {
+            if (isPublicConstant(field)) {
+               constants.add(field);
+            } else {
+               getterNames.add(GETTER_PREFIX + capitalise(field.name()));
+               getterNames.add(IS_PREFIX + capitalise(field.name()));
+            }
+            if (methodNames.contains((GETTER_PREFIX + field.name())
+               .toLowerCase(Locale.ENGLISH))) {
+               fieldsWithGetters.add(field);
+            }
+            final String key = field.name().toLowerCase(Locale.ENGLISH);
+            if (!fields.containsKey(key)) {
+               fields.put(key, field);
+            }
+         }
+         for (MethodDoc method : methods) {
+            if (method.isPublic() && getterNames.contains(method.name())) {
+               getters.add(method);
+            }
+         }
+      }
+
+      /**
+       * Gets the public constants: public, final fields named in upper case.
+       *
+       * @return the constants, in declaration order.
+       */
+      List<FieldDoc> constants() {
+         return Collections.unmodifiableList(constants);
+      }
+
+      /**
+       * Gets the public getters, <code>get</code> or <code>is</code>
+       * methods, of the fields that aren't constants.
+       *
+       * @return the getters, in the order of {@link ClassDoc#methods()}.
+       */
+      List<MethodDoc> getters() {
+         return Collections.unmodifiableList(getters);
+      }
+
+      /**
+       * Gets the fields that have a <code>get</code> method, ignoring case.
+       *
+       * @return the fields, in declaration order.
+       */
+      List<FieldDoc> fieldsWithGetters() {
+         return Collections.unmodifiableList(fieldsWithGetters);
+      }
+
+      /**
+       * Gets a field by name, ignoring case.
+       *
+       * @param name the name.
+       * @return the field or <code>null</code> if there is none.
+       */
+      FieldDoc field(final String name) {
+         return fields.get(name.toLowerCase(Locale.ENGLISH));
+      }
+
+      /**
+       * Gets the validation constraints of a field, formatted as rules.
+       *
+       * @param field the field.
+       * @return the rules, empty if there are none.
+       */
+      String rules(final FieldDoc field) {
+         String fieldRules = rules.get(field.name());
+         if (fieldRules == null) {
+            final StringBuilder buffer = new StringBuilder();
+            for (AnnotationDesc annotation : field.annotations()) {
+               final String constraint = annotation.toString();
+               if (constraint.contains(VALIDATION_PREFIX)) {
+                  buffer.append("<br>[Rule: ")
+                     .append(constraint.replace(VALIDATION_PREFIX, ""))
+                     .append(']');
+               }
+            }
+            fieldRules = buffer.toString();
+            rules.put(field.name(), fieldRules);
+         }
+         return fieldRules;
+      }
+
+   }
+
+}
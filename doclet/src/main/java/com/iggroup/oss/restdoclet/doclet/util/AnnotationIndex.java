@@ -0,0 +1,232 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.sun.javadoc.AnnotationDesc;
+import com.sun.javadoc.AnnotationDesc.ElementValuePair;
+import com.sun.javadoc.AnnotationValue;
+import com.sun.javadoc.Parameter;
+import com.sun.javadoc.ProgramElementDoc;
+
+/**
+ * Per-run index of the annotations of program elements and parameters, used
+ * by {@link AnnotationUtils}.
+ * <p>
+ * The annotations of an element are read once, the first time the element is
+ * looked up, and indexed by the qualified name of their type; the
+ * element-values of an annotation are indexed by element name the first time
+ * one is asked for. Program elements are keyed by identity, as the Java
+ * documentation tool returns the same object for a class, method or field
+ * every time. It returns a new object for a parameter every time the
+ * parameters of a method are asked for, so parameters aren't indexed: only
+ * the last parameter looked up is remembered, which serves the successive
+ * lookups of a caller holding on to it.
+ * <p>
+ * Instances are not thread-safe; the doclet model is walked by a single
+ * thread.
+ */
+final class AnnotationIndex {
+
+   private static final AnnotationDesc[] NO_ANNOTATIONS = new AnnotationDesc[0];
+
+   private static final ElementValuePair[] NO_VALUES = new ElementValuePair[0];
+
+   /**
+    * The indexed annotations, keyed by element.
+    */
+   private final Map<ProgramElementDoc, Annotations> entries =
+      new IdentityHashMap<ProgramElementDoc, Annotations>();
+
+   /**
+    * The last parameter looked up, or <code>null</code>.
+    */
+   private Parameter lastParam;
+
+   /**
+    * The annotations of the last parameter looked up.
+    */
+   private Annotations lastParamAnnotations;
+
+   /**
+    * Gets the indexed annotations of a program element, reading them if the
+    * element hasn't been looked up yet.
+    *
+    * @param element the element.
+    * @return the indexed annotations.
+    */
+   Annotations get(final ProgramElementDoc element) {
+      Annotations result = entries.get(element);
+      if (result == null) {
+         result = new Annotations(element.annotations());
+         entries.put(element, result);
+      }
+      return result;
+   }
+
+   /**
+    * Gets the annotations of a parameter, reading them unless the parameter
+    * is the last one looked up.
+    *
+    * @param param the parameter.
+    * @return the annotations.
+    */
+   Annotations get(final Parameter param) {
+      if (param != lastParam) {
+         lastParamAnnotations = new Annotations(param.annotations());
+         lastParam = param;
+      }
+      return lastParamAnnotations;
+   }
+
+   /**
+    * Removes all the elements from this index.
+    */
+   void clear() {
+      entries.clear();
+      lastParam = null;
+      lastParamAnnotations = null;
+   }
+
+   /**
+    * Gets the number of program elements indexed.
+    *
+    * @return the number of elements.
+    */
+   int size() {
+      return entries.size();
+   }
+
+   /**
+    * The annotations of an element, by type.
+    */
+   static final class Annotations {
+
+      /**
+       * The annotations, in declaration order.
+       */
+      private final AnnotationDesc[] all;
+
+      /**
+       * The first annotation of each type, keyed by qualified name.
+       */
+      private final Map<String, AnnotationDesc> byType;
+
+      /**
+       * The first value of each element of each annotation looked up, keyed
+       * by qualified name of the annotation and by element name.
+       */
+      private Map<String, Map<String, AnnotationValue>> values;
+
+      /**
+       * Indexes annotations.
+       *
+       * @param annotations the annotations or <code>null</code>.
+       */
+      private Annotations(final AnnotationDesc[] annotations) {
+         all = annotations == null ? NO_ANNOTATIONS : annotations;
+         byType = new HashMap<String, AnnotationDesc>(all.length * 2);
+         for (AnnotationDesc annotation : all) {
+            final String name = annotation.annotationType().qualifiedName();
+            if (!byType.containsKey(name)) {
+               byType.put(name, annotation);
+            }
+         }
+      }
+
+      /**
+       * Gets all the annotations.
+       *
+       * @return the annotations, in declaration order. The array is shared
+       *         and mustn't be modified.
+       */
+      AnnotationDesc[] all() {
+         return all;
+      }
+
+      /**
+       * Gets the types of the annotations.
+       *
+       * @return the qualified names of the types, unmodifiable.
+       */
+      Set<String> types() {
+         return Collections.unmodifiableSet(byType.keySet());
+      }
+
+      /**
+       * Finds an annotation.
+       *
+       * @param type the qualified name of the annotation's type.
+       * @return the first annotation of the type or <code>null</code>.
+       */
+      AnnotationDesc annotation(final String type) {
+         return byType.get(type);
+      }
+
+      /**
+       * Gets the element-value pairs of an annotation.
+       *
+       * @param type the qualified name of the annotation's type.
+       * @return the element-value pairs or an empty array if the annotation
+       *         isn't found.
+       */
+      ElementValuePair[] elementValues(final String type) {
+         final AnnotationDesc annotation = byType.get(type);
+         ElementValuePair[] result = null;
+         if (annotation != null) {
+            result = annotation.elementValues();
+         }
+         return result == null ? NO_VALUES : result;
+      }
+
+      /**
+       * Finds the value of an element of an annotation.
+       *
+       * @param type the qualified name of the annotation's type.
+       * @param elementName the name of the element.
+       * @return the value or <code>null</code> if the annotation or the
+       *         element isn't found.
+       */
+      AnnotationValue elementValue(final String type, final String elementName) {
+         if (values == null) {
+            values = new HashMap<String, Map<String, AnnotationValue>>();
+         }
+         Map<String, AnnotationValue> elements = values.get(type);
+         if (elements == null) {
+            elements = new HashMap<String, AnnotationValue>();
+            for (ElementValuePair pair : elementValues(type)) {
+               final String name = pair.element().name();
+               if (!elements.containsKey(name)) {
+                  elements.put(name, pair.value());
+               }
+            }
+            values.put(type, elements);
+         }
+         return elements.get(elementName);
+      }
+
+   }
+
+}
@@ -19,7 +19,7 @@
  */
 package com.iggroup.oss.restdoclet.doclet.util;
 
-import org.apache.commons.lang.StringUtils;
+import java.util.Set;
 
 import com.sun.javadoc.AnnotationDesc;
 import com.sun.javadoc.AnnotationDesc.ElementValuePair;
@@ -28,10 +28,17 @@ import com.sun.javadoc.Parameter;
 import com.sun.javadoc.ProgramElementDoc;
 
 /**
- * This is an utility class for processing annotations.
+ * This is an utility class for processing annotations. The annotations of an
+ * element are indexed the first time the element is looked up, so that
+ * further look-ups on the same element don't scan its annotations again.
  */
 public final class AnnotationUtils {
 
+   /**
+    * The annotations of the elements looked up so far.
+    */
+   private static final AnnotationIndex INDEX = new AnnotationIndex();
+
    /**
     * Private constructor to "silence" PMD.
     */
@@ -47,11 +54,18 @@ public final class AnnotationUtils {
     *         if the argument is not annotated.
     */
    public static AnnotationDesc[] annotations(final Parameter param) {
-      AnnotationDesc[] annotations = param.annotations();
-      if (annotations == null) {
-         annotations = new AnnotationDesc[0];
-      }
-      return annotations;
+      return INDEX.get(param).all().clone();
+   }
+
+   /**
+    * Gets the types of the annotations an argument of a method is annotated
+    * with.
+    * 
+    * @param param the method's argument to look for annotations.
+    * @return the qualified names of the types of the annotations.
+    */
+   public static Set<String> annotationTypes(final Parameter param) {
+      return INDEX.get(param).types();
    }
 
    /**
@@ -63,15 +77,7 @@ public final class AnnotationUtils {
     *         <code>false</code> otherwise.
     */
    public static boolean isAnnotated(final Parameter param, final Class<?> type) {
-      boolean result = false;
-      for (final AnnotationDesc annotation : annotations(param)) {
-         final String name = annotation.annotationType().qualifiedName();
-         if (StringUtils.equals(type.getName(), name)) {
-            result = true;
-            break;
-         }
-      }
-      return result;
+      return annotation(param, type) != null;
    }
 
    /**
@@ -84,15 +90,7 @@ public final class AnnotationUtils {
     */
    public static AnnotationDesc annotation(final Parameter param,
                                            final Class<?> type) {
-      AnnotationDesc result = null;
-      for (final AnnotationDesc annotation : annotations(param)) {
-         final String name = annotation.annotationType().qualifiedName();
-         if (StringUtils.equals(type.getName(), name)) {
-            result = annotation;
-            break;
-         }
-      }
-      return result;
+      return INDEX.get(param).annotation(type.getName());
    }
 
    /**
@@ -106,31 +104,7 @@ public final class AnnotationUtils {
     */
    public static ElementValuePair[] elementValues(final Parameter param,
                                                   final Class<?> type) {
-      return elementValues(annotation(param, type));
-   }
-
-   /**
-    * Gets the element-value pairs of an annotation an argument of a method is
-    * annotated with.
-    * 
-    * @param annotation annotations
-    * @return the element-value pairs of the annotation or an empty array if
-    *         the annotation is not found.
-    */
-   private static ElementValuePair[] elementValues(final AnnotationDesc annotation) {
-
-      ElementValuePair[] result;
-      if (annotation == null) {
-         result = new ElementValuePair[0];
-      } else {
-         if (annotation.elementValues() == null) {
-            result = new ElementValuePair[0];
-         } else {
-            result = annotation.elementValues();
-         }
-      }
-      return result;
-
+      return INDEX.get(param).elementValues(type.getName());
    }
 
    /**
@@ -147,15 +121,7 @@ public final class AnnotationUtils {
    public static AnnotationValue elementValue(final Parameter param,
                                               final Class<?> type,
                                               final String elementName) {
-      AnnotationValue value = null;
-      final ElementValuePair[] pairs = elementValues(param, type);
-      for (final ElementValuePair pair : pairs) {
-         if (StringUtils.equals(elementName, pair.element().name())) {
-            value = pair.value();
-            break;
-         }
-      }
-      return value;
+      return INDEX.get(param).elementValue(type.getName(), elementName);
    }
 
    /**
@@ -166,11 +132,7 @@ public final class AnnotationUtils {
     *         if the element is not annotated.
     */
    public static AnnotationDesc[] annotations(final ProgramElementDoc element) {
-      AnnotationDesc[] annotations = element.annotations();
-      if (annotations == null) {
-         annotations = new AnnotationDesc[0];
-      }
-      return annotations;
+      return INDEX.get(element).all().clone();
    }
 
    /**
@@ -183,18 +145,9 @@ public final class AnnotationUtils {
     */
    public static boolean isAnnotated(final ProgramElementDoc element,
                                      final Class<?> type) {
-      boolean result = false;
-      for (final AnnotationDesc annotation : annotations(element)) {
-         final String name = annotation.annotationType().qualifiedName();
-         if (StringUtils.equals(type.getName(), name)) {
-            result = true;
-            break;
-         }
-      }
-      return result;
+      return annotation(element, type) != null;
    }
 
-
    /**
     * Finds the annotation an element (class or method) is annotated with.
     * 
@@ -205,15 +158,7 @@ public final class AnnotationUtils {
     */
    public static AnnotationDesc annotation(final ProgramElementDoc element,
                                            final Class<?> type) {
-      AnnotationDesc result = null;
-      for (final AnnotationDesc annotation : annotations(element)) {
-         final String name = annotation.annotationType().qualifiedName();
-         if (StringUtils.equals(type.getName(), name)) {
-            result = annotation;
-            break;
-         }
-      }
-      return result;
+      return INDEX.get(element).annotation(type.getName());
    }
 
    /**
@@ -227,7 +172,7 @@ public final class AnnotationUtils {
     */
    public static ElementValuePair[] elementValues(final ProgramElementDoc element,
                                                   final Class<?> type) {
-      return elementValues(annotation(element, type));
+      return INDEX.get(element).elementValues(type.getName());
    }
 
    /**
@@ -244,15 +189,16 @@ public final class AnnotationUtils {
    public static AnnotationValue elementValue(final ProgramElementDoc element,
                                               final Class<?> type,
                                               final String elementName) {
-      AnnotationValue value = null;
-      final ElementValuePair[] pairs = elementValues(element, type);
-      for (ElementValuePair pair : pairs) {
-         if (StringUtils.equals(elementName, pair.element().name())) {
-            value = pair.value();
-            break;
-         }
-      }
-      return value;
+      return INDEX.get(element).elementValue(type.getName(), elementName);
+   }
+
+   /**
+    * Forgets the annotations of the elements looked up so far. Invoked at the
+    * start of every run of the doclet, so that the index doesn't hold on to
+    * the documentation objects of a previous run.
+    */
+   public static void clearAnnotationIndex() {
+      INDEX.clear();
    }
 
 }
@@ -0,0 +1,1066 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.iggroup.oss.restdoclet.doclet.type.BaseType;
+import com.iggroup.oss.restdoclet.doclet.type.BodyParameter;
+import com.iggroup.oss.restdoclet.doclet.type.Controller;
+import com.iggroup.oss.restdoclet.doclet.type.ControllerSummary;
+import com.iggroup.oss.restdoclet.doclet.type.FieldParameter;
+import com.iggroup.oss.restdoclet.doclet.type.FieldedParameter;
+import com.iggroup.oss.restdoclet.doclet.type.Method;
+import com.iggroup.oss.restdoclet.doclet.type.MethodSummary;
+import com.iggroup.oss.restdoclet.doclet.type.ModelParameter;
+import com.iggroup.oss.restdoclet.doclet.type.PathParameter;
+import com.iggroup.oss.restdoclet.doclet.type.RequestParameter;
+import com.iggroup.oss.restdoclet.doclet.type.ResponseParameter;
+import com.iggroup.oss.restdoclet.doclet.type.RestParameter;
+import com.iggroup.oss.restdoclet.doclet.type.Service;
+import com.iggroup.oss.restdoclet.doclet.type.ServiceSummary;
+import com.iggroup.oss.restdoclet.doclet.type.Services;
+import com.iggroup.oss.restdoclet.doclet.type.Uri;
+
+/**
+ * Compact binary form of the services written by the plugin, an alternative
+ * to the XML written by {@link JiBXUtils}.
+ * <p>
+ * A file starts with a magic number, a format version and a kind (a listing
+ * of services or a single service). A table of the distinct strings in the
+ * file follows, each string stored once as a length-prefixed UTF-8 sequence,
+ * and then the model itself, in the order of the JiBX binding, with strings
+ * as indices into the table. Numbers are variable-length encoded; strings and
+ * collections use <code>0</code> for <code>null</code>. The parameters of a
+ * method are prefixed with their length, so readers that only need a summary
+ * of the method can skip them.
+ * <p>
+ * A catalogue packs all the services of an application into one file: after
+ * the header comes the number of services and a table of fixed-width entries
+ * (identifier, offset and length, in ascending order of identifier), followed
+ * by each service encoded as in a file of its own. A single service can
+ * therefore be looked up and decoded without reading the others: the header
+ * and the entries are read once with {@link #readEntries(FileChannel)} and
+ * each service is read from its offset on demand.
+ */
+public final class CatalogueCodec {
+
+   /**
+    * The suffix of binary files, used instead of <code>.xml</code>.
+    */
+   public static final String SUFFIX = ".bin";
+
+   /**
+    * The name of the file holding the catalogue of an application.
+    */
+   public static final String CATALOGUE_FILE = "restdoc-catalogue" + SUFFIX;
+
+   /**
+    * The magic number: <code>RDOC</code>.
+    */
+   private static final int MAGIC = 0x52444F43;
+
+   /**
+    * The version of the format.
+    */
+   private static final int VERSION = 2;
+
+   private static final int KIND_SERVICES = 1;
+
+   private static final int KIND_SERVICE = 2;
+
+   private static final int KIND_CATALOGUE = 3;
+
+   /**
+    * The size of the header: magic number, version and kind.
+    */
+   private static final int HEADER_SIZE = 6;
+
+   /**
+    * The size of an entry in the table of a catalogue: identifier, offset and
+    * length.
+    */
+   private static final int ENTRY_SIZE = 12;
+
+   /**
+    * Private constructor to "silence" PMD.
+    */
+   private CatalogueCodec() {
+      super();
+   }
+
+   /**
+    * Writes a service.
+    *
+    * @param service the service.
+    * @param file the file the service is written to.
+    * @throws IOException if the file can't be written.
+    */
+   public static void writeService(final Service service, final File file)
+      throws IOException {
+      final Encoder encoder = new Encoder();
+      encoder.service(service);
+      final OutputStream output =
+         new BufferedOutputStream(new FileOutputStream(file));
+      try {
+         encoder.writeTo(KIND_SERVICE, output);
+      } finally {
+         output.close();
+      }
+   }
+
+   /**
+    * Writes the catalogue of an application's services.
+    *
+    * @param services the services, with distinct identifiers.
+    * @param file the file the catalogue is written to.
+    * @throws IOException if the file can't be written.
+    */
+   public static void writeCatalogue(final Collection<Service> services,
+                                     final File file) throws IOException {
+      final Map<Integer, byte[]> records = new TreeMap<Integer, byte[]>();
+      for (Service service : services) {
+         final Encoder encoder = new Encoder();
+         encoder.service(service);
+         final ByteArrayOutputStream record = new ByteArrayOutputStream();
+         encoder.writeTo(KIND_SERVICE, record);
+         if (records.put(service.getIdentifier(), record.toByteArray()) != null) {
+            throw new IllegalArgumentException("Duplicate service identifier "
+               + service.getIdentifier());
+         }
+      }
+
+      final DataOutputStream output =
+         new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+            file)));
+      try {
+         output.writeInt(MAGIC);
+         output.writeByte(VERSION);
+         output.writeByte(KIND_CATALOGUE);
+         output.writeInt(records.size());
+         int offset = HEADER_SIZE + 4 + records.size() * ENTRY_SIZE;
+         for (Map.Entry<Integer, byte[]> record : records.entrySet()) {
+            output.writeInt(record.getKey());
+            output.writeInt(offset);
+            output.writeInt(record.getValue().length);
+            offset += record.getValue().length;
+         }
+         for (byte[] record : records.values()) {
+            output.write(record);
+         }
+      } finally {
+         output.close();
+      }
+   }
+
+   /**
+    * Reads a service from a catalogue, decoding only that service.
+    *
+    * @param catalogue the contents of the catalogue, e.g. a file read into a
+    *           buffer. Its position and limit are left untouched, so it can be
+    *           shared by concurrent readers.
+    * @param identifier the identifier of the service.
+    * @return the service or <code>null</code> if the catalogue doesn't contain
+    *         it.
+    * @throws IOException if the buffer isn't a catalogue or can't be decoded.
+    */
+   public static Service readService(final ByteBuffer catalogue,
+                                     final int identifier) throws IOException {
+      final int entry = findEntry(catalogue, identifier);
+      if (entry < 0) {
+         return null;
+      }
+      final int offset = catalogue.getInt(entry + 4);
+      final int length = catalogue.getInt(entry + 8);
+      if (offset < 0 || length < 0 || offset > catalogue.limit() - length) {
+         throw new IOException("Truncated catalogue");
+      }
+      final ByteBuffer record = catalogue.duplicate();
+      record.limit(offset + length);
+      record.position(offset);
+      return decodeService(record);
+   }
+
+   /**
+    * Reads the header and the table of entries of a catalogue, but none of its
+    * services.
+    *
+    * @param channel the channel the catalogue is read from, with positional
+    *           reads: the position of the channel is left untouched.
+    * @return the header and the entries, to look services up in with
+    *         {@link #readService(FileChannel, ByteBuffer, int)}.
+    * @throws IOException if the channel can't be read or isn't a catalogue.
+    */
+   public static ByteBuffer readEntries(final FileChannel channel)
+      throws IOException {
+      final ByteBuffer header = read(channel, 0, HEADER_SIZE + 4);
+      checkHeader(header);
+      final int size = header.getInt(HEADER_SIZE);
+      if (size < 0 || (channel.size() - HEADER_SIZE - 4) / ENTRY_SIZE < size) {
+         throw new IOException("Truncated catalogue");
+      }
+      final ByteBuffer entries =
+         ByteBuffer.allocate(HEADER_SIZE + 4 + size * ENTRY_SIZE);
+      entries.put(header);
+      entries.put(read(channel, HEADER_SIZE + 4, size * ENTRY_SIZE));
+      entries.flip();
+      return entries;
+   }
+
+   /**
+    * Reads a service from a catalogue, reading and decoding only that
+    * service.
+    *
+    * @param channel the channel the catalogue is read from, with positional
+    *           reads: the position of the channel is left untouched, so it can
+    *           be shared by concurrent readers.
+    * @param entries the header and the entries of the catalogue, as read by
+    *           {@link #readEntries(FileChannel)}.
+    * @param identifier the identifier of the service.
+    * @return the service or <code>null</code> if the catalogue doesn't contain
+    *         it.
+    * @throws IOException if the channel can't be read, the entries aren't
+    *            those of a catalogue or the service can't be decoded.
+    */
+   public static Service readService(final FileChannel channel,
+                                     final ByteBuffer entries,
+                                     final int identifier) throws IOException {
+      final int entry = findEntry(entries, identifier);
+      if (entry < 0) {
+         return null;
+      }
+      final int offset = entries.getInt(entry + 4);
+      final int length = entries.getInt(entry + 8);
+      if (offset < 0 || length < 0 || offset > channel.size() - length) {
+         throw new IOException("Truncated catalogue");
+      }
+      return decodeService(read(channel, offset, length));
+   }
+
+   /**
+    * Checks the header of a catalogue.
+    *
+    * @param catalogue the catalogue, starting with its header.
+    * @throws IOException if the buffer isn't a catalogue.
+    */
+   private static void checkHeader(final ByteBuffer catalogue)
+      throws IOException {
+      if (catalogue.limit() < HEADER_SIZE + 4
+         || catalogue.getInt(0) != MAGIC) {
+         throw new IOException("Not a RESTdoclet catalogue");
+      }
+      if (catalogue.get(4) != VERSION) {
+         throw new IOException("Unsupported catalogue version "
+            + catalogue.get(4));
+      }
+      if (catalogue.get(5) != KIND_CATALOGUE) {
+         throw new IOException("Unexpected catalogue kind " + catalogue.get(5));
+      }
+   }
+
+   /**
+    * Looks a service up in the table of entries of a catalogue.
+    *
+    * @param catalogue the catalogue, starting with its header and entries.
+    * @param identifier the identifier of the service.
+    * @return the position of the service's entry in the buffer or
+    *         <code>-1</code> if the catalogue doesn't contain it.
+    * @throws IOException if the buffer isn't a catalogue.
+    */
+   private static int findEntry(final ByteBuffer catalogue,
+                                final int identifier) throws IOException {
+      checkHeader(catalogue);
+      final int size = catalogue.getInt(HEADER_SIZE);
+      if (size < 0
+         || (catalogue.limit() - HEADER_SIZE - 4) / ENTRY_SIZE < size) {
+         throw new IOException("Truncated catalogue");
+      }
+
+      int low = 0;
+      int high = size - 1;
+      while (low <= high) {
+         final int middle = (low + high) >>> 1;
+         final int entry = HEADER_SIZE + 4 + middle * ENTRY_SIZE;
+         final int id = catalogue.getInt(entry);
+         if (id < identifier) {
+            low = middle + 1;
+         } else if (id > identifier) {
+            high = middle - 1;
+         } else {
+            return entry;
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * Decodes a service encoded as in a file of its own.
+    *
+    * @param record the service, between the position and the limit of the
+    *           buffer.
+    * @return the service.
+    * @throws IOException if the record can't be decoded.
+    */
+   private static Service decodeService(final ByteBuffer record)
+      throws IOException {
+      return new Decoder(new DataInputStream(new ByteBufferInputStream(record)),
+         KIND_SERVICE).service();
+   }
+
+   /**
+    * Reads a part of a channel into a heap buffer, with positional reads.
+    *
+    * @param channel the channel.
+    * @param position the position of the part in the channel.
+    * @param length the length of the part.
+    * @return the part, flipped; shorter than <code>length</code> if the
+    *         channel ends before.
+    * @throws IOException if the channel can't be read.
+    */
+   private static ByteBuffer read(final FileChannel channel,
+                                  final long position, final int length)
+      throws IOException {
+      final ByteBuffer buffer = ByteBuffer.allocate(length);
+      while (buffer.hasRemaining()) {
+         if (channel.read(buffer, position + buffer.position()) < 0) {
+            break;
+         }
+      }
+      buffer.flip();
+      return buffer;
+   }
+
+   /**
+    * Writes a listing of services.
+    *
+    * @param services the services.
+    * @param file the file the services are written to.
+    * @throws IOException if the file can't be written.
+    */
+   public static void writeServices(final Services services, final File file)
+      throws IOException {
+      final Encoder encoder = new Encoder();
+      encoder.collectionSize(services.getControllers());
+      if (services.getControllers() != null) {
+         for (ControllerSummary controller : services.getControllers()) {
+            encoder.baseType(controller);
+            encoder.collectionSize(controller.getServices());
+            if (controller.getServices() != null) {
+               for (Service service : controller.getServices()) {
+                  encoder.service(service);
+               }
+            }
+         }
+      }
+      final OutputStream output =
+         new BufferedOutputStream(new FileOutputStream(file));
+      try {
+         encoder.writeTo(KIND_SERVICES, output);
+      } finally {
+         output.close();
+      }
+   }
+
+   /**
+    * Reads a service.
+    *
+    * @param input the input-stream the service is read from.
+    * @return the service.
+    * @throws IOException if the stream can't be read or isn't a service.
+    */
+   public static Service readService(final InputStream input)
+      throws IOException {
+      return new Decoder(new DataInputStream(new BufferedInputStream(input)),
+         KIND_SERVICE).service();
+   }
+
+   /**
+    * Reads a listing of services.
+    *
+    * @param input the input-stream the services are read from.
+    * @return the services.
+    * @throws IOException if the stream can't be read or isn't a listing.
+    */
+   public static Services readServices(final InputStream input)
+      throws IOException {
+      final Decoder decoder =
+         new Decoder(new DataInputStream(new BufferedInputStream(input)),
+            KIND_SERVICES);
+      final Services services = new Services();
+      final int size = decoder.collectionSize();
+      if (size >= 0) {
+         services.setControllers(new ArrayList<ControllerSummary>(size));
+         for (int i = 0; i < size; i++) {
+            final ControllerSummary controller = new ControllerSummary();
+            decoder.baseType(controller);
+            final int count = decoder.collectionSize();
+            if (count >= 0) {
+               controller.setServices(new ArrayList<Service>(count));
+               for (int j = 0; j < count; j++) {
+                  controller.getServices().add(decoder.service());
+               }
+            }
+            services.getControllers().add(controller);
+         }
+      }
+      return services;
+   }
+
+   /**
+    * Reads the summaries of the services in a listing of services, skipping
+    * the parameters of methods.
+    *
+    * @param input the input-stream the services are read from.
+    * @return the summaries, sorted as {@link Services#getServices()} sorts
+    *         services.
+    * @throws IOException if the stream can't be read or isn't a listing.
+    * @see ServiceSummaryReader
+    */
+   public static List<ServiceSummary> readServiceSummaries(final InputStream input)
+      throws IOException {
+      final Decoder decoder =
+         new Decoder(new DataInputStream(new BufferedInputStream(input)),
+            KIND_SERVICES);
+      final List<ServiceSummary> summaries = new ArrayList<ServiceSummary>();
+      final int size = decoder.collectionSize();
+      for (int i = 0; i < size; i++) {
+         decoder.string();
+         decoder.string();
+         decoder.string();
+         decoder.string();
+         final int count = decoder.collectionSize();
+         for (int j = 0; j < count; j++) {
+            summaries.add(decoder.serviceSummary());
+         }
+      }
+      Collections.sort(summaries);
+      return summaries;
+   }
+
+   /**
+    * Encodes the model into a body and a table of strings.
+    */
+   private static final class Encoder {
+
+      /**
+       * The strings encoded so far, with their indices.
+       */
+      private final Map<String, Integer> strings =
+         new LinkedHashMap<String, Integer>();
+
+      /**
+       * The encoded body.
+       */
+      private ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+      /**
+       * Writes the header, string table and body to a stream.
+       *
+       * @param kind the kind of file.
+       * @param stream the stream, which is left open.
+       * @throws IOException if the stream can't be written.
+       */
+      private void writeTo(final int kind, final OutputStream stream)
+         throws IOException {
+         final DataOutputStream output = new DataOutputStream(stream);
+         output.writeInt(MAGIC);
+         output.writeByte(VERSION);
+         output.writeByte(kind);
+         writeVarInt(output, strings.size());
+         for (String string : strings.keySet()) {
+            final byte[] bytes = string.getBytes(JiBXUtils.ENCODING);
+            writeVarInt(output, bytes.length);
+            output.write(bytes);
+         }
+         body.writeTo(output);
+         output.flush();
+      }
+
+      /**
+       * Encodes a service.
+       *
+       * @param service the service.
+       * @throws IOException never.
+       */
+      private void service(final Service service) throws IOException {
+         number(service.getIdentifier());
+         uris(service.getUris());
+         final Controller controller = service.getController();
+         bool(controller != null);
+         if (controller != null) {
+            string(controller.getType());
+            string(controller.getJavadoc());
+            collectionSize(controller.getMethods());
+            if (controller.getMethods() != null) {
+               for (Method method : controller.getMethods()) {
+                  method(method);
+               }
+            }
+         }
+      }
+
+      /**
+       * Encodes a method, its parameters prefixed by their length.
+       *
+       * @param method the method.
+       * @throws IOException never.
+       */
+      private void method(final Method method) throws IOException {
+         string(method.getName());
+         string(method.getRequestMethod());
+         string(method.getJavadoc());
+
+         final ByteArrayOutputStream enclosing = body;
+         body = new ByteArrayOutputStream();
+         uris(method.getUris());
+         collectionSize(method.getResponseParams());
+         if (method.getResponseParams() != null) {
+            for (ResponseParameter param : method.getResponseParams()) {
+               baseType(param);
+            }
+         }
+         collectionSize(method.getRestParams());
+         if (method.getRestParams() != null) {
+            for (RestParameter param : method.getRestParams()) {
+               baseType(param);
+               string(param.getValue());
+            }
+         }
+         collectionSize(method.getRequestParams());
+         if (method.getRequestParams() != null) {
+            for (RequestParameter param : method.getRequestParams()) {
+               baseType(param);
+               bool(param.isRequired());
+               string(param.getDefaultValue());
+            }
+         }
+         collectionSize(method.getPathParams());
+         if (method.getPathParams() != null) {
+            for (PathParameter param : method.getPathParams()) {
+               baseType(param);
+            }
+         }
+         fieldedParams(method.getModelParams());
+         fieldedParams(method.getBodyParams());
+         final ByteArrayOutputStream params = body;
+         body = enclosing;
+
+         number(params.size());
+         params.writeTo(body);
+      }
+
+      /**
+       * Encodes parameters with fields.
+       *
+       * @param params the parameters.
+       * @throws IOException never.
+       */
+      private void fieldedParams(final Collection<? extends FieldedParameter> params)
+         throws IOException {
+         collectionSize(params);
+         if (params != null) {
+            for (FieldedParameter param : params) {
+               baseType(param);
+               collectionSize(param.getFields());
+               if (param.getFields() != null) {
+                  for (FieldParameter field : param.getFields()) {
+                     baseType(field);
+                  }
+               }
+            }
+         }
+      }
+
+      /**
+       * Encodes URIs.
+       *
+       * @param uris the URIs.
+       * @throws IOException never.
+       */
+      private void uris(final Collection<Uri> uris) throws IOException {
+         collectionSize(uris);
+         if (uris != null) {
+            for (Uri uri : uris) {
+               string(uri.getUri());
+               bool(uri.getDeprecated());
+               string(uri.getType());
+            }
+         }
+      }
+
+      /**
+       * Encodes the name, Java type and documentation of a type, and the
+       * identifier of the documentation of its type.
+       *
+       * @param type the type.
+       * @throws IOException never.
+       */
+      private void baseType(final BaseType type) throws IOException {
+         string(type.getName());
+         string(type.getType());
+         string(type.getJavadoc());
+         string(type.getTypeDoc());
+      }
+
+      /**
+       * Encodes the size of a collection.
+       *
+       * @param collection the collection or <code>null</code>.
+       * @throws IOException never.
+       */
+      private void collectionSize(final Collection<?> collection)
+         throws IOException {
+         writeVarInt(body, collection == null ? 0 : collection.size() + 1);
+      }
+
+      /**
+       * Encodes a string as its index in the string table.
+       *
+       * @param string the string or <code>null</code>.
+       * @throws IOException never.
+       */
+      private void string(final String string) throws IOException {
+         int index = 0;
+         if (string != null) {
+            Integer existing = strings.get(string);
+            if (existing == null) {
+               existing = strings.size() + 1;
+               strings.put(string, existing);
+            }
+            index = existing;
+         }
+         writeVarInt(body, index);
+      }
+
+      /**
+       * Encodes a non-negative number.
+       *
+       * @param number the number.
+       * @throws IOException never.
+       */
+      private void number(final int number) throws IOException {
+         writeVarInt(body, number);
+      }
+
+      /**
+       * Encodes a boolean.
+       *
+       * @param bool the boolean.
+       */
+      private void bool(final boolean bool) {
+         body.write(bool ? 1 : 0);
+      }
+
+   }
+
+   /**
+    * Decodes the model from a stream.
+    */
+   private static final class Decoder {
+
+      private final DataInputStream input;
+
+      /**
+       * The string table; index 0 is <code>null</code>.
+       */
+      private final String[] strings;
+
+      /**
+       * Reads the header and string table of a stream.
+       *
+       * @param stream the stream.
+       * @param kind the kind of file expected.
+       * @throws IOException if the stream can't be read or isn't of the
+       *            expected kind.
+       */
+      private Decoder(final DataInputStream stream, final int kind)
+         throws IOException {
+         input = stream;
+         if (input.readInt() != MAGIC) {
+            throw new IOException("Not a RESTdoclet catalogue");
+         }
+         final int version = input.readUnsignedByte();
+         if (version != VERSION) {
+            throw new IOException("Unsupported catalogue version " + version);
+         }
+         final int actual = input.readUnsignedByte();
+         if (actual != kind) {
+            throw new IOException("Unexpected catalogue kind " + actual);
+         }
+         strings = new String[readVarInt(input) + 1];
+         byte[] bytes = new byte[0];
+         for (int i = 1; i < strings.length; i++) {
+            final int length = readVarInt(input);
+            if (bytes.length < length) {
+               bytes = new byte[length];
+            }
+            input.readFully(bytes, 0, length);
+            strings[i] = new String(bytes, 0, length, JiBXUtils.ENCODING);
+         }
+      }
+
+      /**
+       * Decodes a service.
+       *
+       * @return the service.
+       * @throws IOException if the stream can't be read.
+       */
+      private Service service() throws IOException {
+         final Service service = new Service();
+         service.setIdentifier(readVarInt(input));
+         service.setUri(uris());
+         if (input.readBoolean()) {
+            final Controller controller = new Controller();
+            controller.setType(string());
+            controller.setJavadoc(string());
+            final int size = collectionSize();
+            if (size >= 0) {
+               controller.setMethods(new ArrayList<Method>(size));
+               for (int i = 0; i < size; i++) {
+                  controller.getMethods().add(method());
+               }
+            }
+            service.setController(controller);
+         }
+         return service;
+      }
+
+      /**
+       * Decodes the summary of a service, skipping method parameters.
+       *
+       * @return the summary.
+       * @throws IOException if the stream can't be read.
+       */
+      private ServiceSummary serviceSummary() throws IOException {
+         final ServiceSummary service = new ServiceSummary();
+         service.setIdentifier(readVarInt(input));
+         final Collection<Uri> uris = uris();
+         if (uris != null) {
+            for (Uri uri : uris) {
+               service.addUri(uri);
+            }
+         }
+         if (input.readBoolean()) {
+            string();
+            string();
+            final int size = collectionSize();
+            for (int i = 0; i < size; i++) {
+               final String name = string();
+               final String requestMethod = string();
+               final String javadoc = string();
+               skip(readVarInt(input));
+               service.addMethod(new MethodSummary(name, requestMethod,
+                  javadoc == null ? "" : ServiceSummaryReader.summary(javadoc)));
+            }
+         }
+         return service;
+      }
+
+      /**
+       * Decodes a method.
+       *
+       * @return the method.
+       * @throws IOException if the stream can't be read.
+       */
+      private Method method() throws IOException {
+         final Method method = new Method();
+         method.setName(string());
+         method.setRequestMethod(string());
+         method.setJavadoc(string());
+         readVarInt(input);
+         method.setUris(uris());
+
+         int size = collectionSize();
+         if (size >= 0) {
+            method.setResponseParams(new ArrayList<ResponseParameter>(size));
+            for (int i = 0; i < size; i++) {
+               method.getResponseParams().add(
+                  baseType(new ResponseParameter()));
+            }
+         }
+         size = collectionSize();
+         if (size >= 0) {
+            method.setRestParams(new ArrayList<RestParameter>(size));
+            for (int i = 0; i < size; i++) {
+               final RestParameter param = baseType(new RestParameter());
+               param.setValue(string());
+               method.getRestParams().add(param);
+            }
+         }
+         size = collectionSize();
+         if (size >= 0) {
+            method.setRequestParams(new ArrayList<RequestParameter>(size));
+            for (int i = 0; i < size; i++) {
+               final RequestParameter param =
+                  baseType(new RequestParameter());
+               param.setRequired(input.readBoolean());
+               param.setDefaultValue(string());
+               method.getRequestParams().add(param);
+            }
+         }
+         size = collectionSize();
+         if (size >= 0) {
+            method.setPathParams(new ArrayList<PathParameter>(size));
+            for (int i = 0; i < size; i++) {
+               method.getPathParams().add(baseType(new PathParameter()));
+            }
+         }
+         size = collectionSize();
+         if (size >= 0) {
+            method.setModelParams(new ArrayList<ModelParameter>(size));
+            for (int i = 0; i < size; i++) {
+               method.getModelParams().add(fields(new ModelParameter()));
+            }
+         }
+         size = collectionSize();
+         if (size >= 0) {
+            method.setBodyParams(new ArrayList<BodyParameter>(size));
+            for (int i = 0; i < size; i++) {
+               method.getBodyParams().add(fields(new BodyParameter()));
+            }
+         }
+         return method;
+      }
+
+      /**
+       * Decodes a parameter with fields.
+       *
+       * @param param the parameter to populate.
+       * @param <T> the type of parameter.
+       * @return the parameter.
+       * @throws IOException if the stream can't be read.
+       */
+      private <T extends FieldedParameter> T fields(final T param)
+         throws IOException {
+         baseType(param);
+         final int size = collectionSize();
+         if (size >= 0) {
+            param.setFields(new ArrayList<FieldParameter>(size));
+            for (int i = 0; i < size; i++) {
+               param.getFields().add(baseType(new FieldParameter()));
+            }
+         }
+         return param;
+      }
+
+      /**
+       * Decodes URIs.
+       *
+       * @return the URIs or <code>null</code>.
+       * @throws IOException if the stream can't be read.
+       */
+      private Collection<Uri> uris() throws IOException {
+         Collection<Uri> uris = null;
+         final int size = collectionSize();
+         if (size >= 0) {
+            uris = new ArrayList<Uri>(size);
+            for (int i = 0; i < size; i++) {
+               final Uri uri = new Uri();
+               uri.setUri(string());
+               uri.setDeprecated(input.readBoolean());
+               uri.setType(string());
+               uris.add(uri);
+            }
+         }
+         return uris;
+      }
+
+      /**
+       * Decodes the name, Java type and documentation of a type, and the
+       * identifier of the documentation of its type.
+       *
+       * @param type the type to populate.
+       * @param <T> the type.
+       * @return the type.
+       * @throws IOException if the stream can't be read.
+       */
+      private <T extends BaseType> T baseType(final T type) throws IOException {
+         type.setName(string());
+         type.setType(string());
+         type.setJavadoc(string());
+         type.setTypeDoc(string());
+         return type;
+      }
+
+      /**
+       * Decodes the size of a collection.
+       *
+       * @return the size or <code>-1</code> for <code>null</code>.
+       * @throws IOException if the stream can't be read.
+       */
+      private int collectionSize() throws IOException {
+         return readVarInt(input) - 1;
+      }
+
+      /**
+       * Decodes a string.
+       *
+       * @return the string or <code>null</code>.
+       * @throws IOException if the stream can't be read or the index is out of
+       *            range.
+       */
+      private String string() throws IOException {
+         final int index = readVarInt(input);
+         if (index >= strings.length) {
+            throw new IOException("String index " + index + " out of range");
+         }
+         return strings[index];
+      }
+
+      /**
+       * Skips bytes.
+       *
+       * @param length the number of bytes to skip.
+       * @throws IOException if the stream ends first.
+       */
+      private void skip(final int length) throws IOException {
+         int remaining = length;
+         while (remaining > 0) {
+            final int skipped = input.skipBytes(remaining);
+            if (skipped <= 0) {
+               throw new EOFException();
+            }
+            remaining -= skipped;
+         }
+      }
+
+   }
+
+   /**
+    * Input-stream reading a buffer in place.
+    */
+   private static final class ByteBufferInputStream extends InputStream {
+
+      private final ByteBuffer buffer;
+
+      /**
+       * Constructs a stream over the remaining bytes of a buffer.
+       *
+       * @param buffer the buffer, whose position is advanced as it is read.
+       */
+      private ByteBufferInputStream(final ByteBuffer buffer) {
+         super();
+         this.buffer = buffer;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public int read() {
+         return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public int read(final byte[] bytes, final int offset, final int length) {
+         int result = -1;
+         if (length == 0) {
+            result = 0;
+         } else if (buffer.hasRemaining()) {
+            result = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, result);
+         }
+         return result;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public long skip(final long count) {
+         final int skipped =
+            (int) Math.max(0, Math.min(count, buffer.remaining()));
+         buffer.position(buffer.position() + skipped);
+         return skipped;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public int available() {
+         return buffer.remaining();
+      }
+
+   }
+
+   /**
+    * Writes a non-negative number, seven bits per byte.
+    *
+    * @param output the stream.
+    * @param number the number.
+    * @throws IOException if the stream can't be written.
+    */
+   private static void writeVarInt(final OutputStream output, final int number)
+      throws IOException {
+      int remaining = number;
+      while ((remaining & ~0x7F) != 0) {
+         output.write((remaining & 0x7F) | 0x80);
+         remaining >>>= 7;
+      }
+      output.write(remaining);
+   }
+
+   /**
+    * Reads a number written by {@link #writeVarInt(OutputStream, int)}.
+    *
+    * @param input the stream.
+    * @return the number.
+    * @throws IOException if the stream can't be read.
+    */
+   private static int readVarInt(final DataInputStream input)
+      throws IOException {
+      int number = 0;
+      int shift = 0;
+      int b;
+      do {
+         if (shift > 28) {
+            throw new IOException("Malformed number");
+         }
+         b = input.readUnsignedByte();
+         number |= (b & 0x7F) << shift;
+         shift += 7;
+      } while ((b & 0x80) != 0);
+      return number;
+   }
+
+}
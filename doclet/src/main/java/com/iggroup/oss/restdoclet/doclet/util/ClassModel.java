@@ -0,0 +1,150 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util;
+
+import java.util.List;
+
+/**
+ * The class of a {@link TypeModel}, with the members its documentation is
+ * made of. Fields and getters match as they do in {@link AccessorIndex}. The
+ * super-class, interfaces and methods are those
+ * {@link InheritedJavadocIndex} looks up inherited documentation in.
+ */
+public interface ClassModel {
+
+   /**
+    * Gets the qualified name of this class.
+    *
+    * @return the name.
+    */
+   String qualifiedName();
+
+   /**
+    * Gets the main text of the documentation comment of this class.
+    *
+    * @return the text, empty if there is none.
+    */
+   String commentText();
+
+   /**
+    * Checks if this class is an enum.
+    *
+    * @return <code>true</code> if it's an enum.
+    */
+   boolean isEnum();
+
+   /**
+    * Gets the super-class type of this class.
+    *
+    * @return the type or <code>null</code> if the class has no super-class.
+    */
+   TypeModel superclassType();
+
+   /**
+    * Gets the interface types this class implements directly.
+    *
+    * @return the types, in declaration order.
+    */
+   List<? extends TypeModel> interfaceTypes();
+
+   /**
+    * Gets the methods declared by this class, but not the constructors.
+    *
+    * @return the methods, in declaration order.
+    */
+   List<? extends Member> methods();
+
+   /**
+    * Gets the constants of this enum.
+    *
+    * @return the constants, in declaration order, empty if the class isn't an
+    *         enum.
+    */
+   List<? extends Member> enumConstants();
+
+   /**
+    * Gets the public constants: public, final fields named in upper case.
+    *
+    * @return the constants, in declaration order.
+    */
+   List<? extends Member> constants();
+
+   /**
+    * Gets the public getters, <code>get</code> or <code>is</code> methods,
+    * of the fields that aren't constants.
+    *
+    * @return the getters, in declaration order.
+    */
+   List<? extends Member> getters();
+
+   /**
+    * Gets a field by name, ignoring case.
+    *
+    * @param name the name.
+    * @return the field or <code>null</code> if there is none.
+    */
+   Member field(String name);
+
+   /**
+    * A field, enum constant or method.
+    */
+   interface Member {
+
+      /**
+       * Gets the name of this member.
+       *
+       * @return the name.
+       */
+      String name();
+
+      /**
+       * Gets the type of this field or constant, or the return type of this
+       * method.
+       *
+       * @return the type.
+       */
+      TypeModel type();
+
+      /**
+       * Gets the main text of the documentation comment of this member.
+       *
+       * @return the text, empty if there is none.
+       */
+      String commentText();
+
+      /**
+       * Gets the validation constraints of this field, formatted as rules.
+       *
+       * @return the rules, empty if there are none.
+       */
+      String rules();
+
+      /**
+       * Gets the signature of this method: the qualified types of its
+       * parameters, separated by a comma and a space, in brackets, as the
+       * Java documentation tool writes it.
+       *
+       * @return the signature, empty for a field or constant.
+       */
+      String signature();
+
+   }
+
+}
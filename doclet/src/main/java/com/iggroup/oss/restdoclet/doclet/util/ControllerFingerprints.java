@@ -0,0 +1,401 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.log4j.Logger;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.FieldDoc;
+import com.sun.javadoc.MethodDoc;
+import com.sun.javadoc.Parameter;
+import com.sun.javadoc.ParameterizedType;
+import com.sun.javadoc.SourcePosition;
+import com.sun.javadoc.Type;
+import com.sun.javadoc.TypeVariable;
+import com.sun.javadoc.WildcardType;
+
+/**
+ * Manifest of the fingerprints of the controllers documented by the last run
+ * of the doclet, used to skip controllers that haven't changed since.
+ * <p>
+ * The fingerprint of a controller is a digest of the version of the doclet
+ * and of the source files of the controller and of every type it refers to,
+ * directly or not: super-classes, interfaces, the types of fields, and the
+ * return, parameter and exception types of methods, including type
+ * arguments and bounds. Types only known from class files (libraries, other
+ * modules) are identified by name only, so a change to one of them isn't
+ * noticed.
+ * <p>
+ * The manifest also records the options the documentation was generated
+ * with, e.g. whether types were registered or inlined. If they differ from
+ * the options of this run, the fingerprints of the last run are discarded and
+ * every controller is documented again.
+ * <p>
+ * Instances are not thread-safe; the doclet model is walked by a single
+ * thread.
+ */
+public final class ControllerFingerprints {
+
+   /**
+    * The name of the manifest, written in the directory documentation files
+    * are written to.
+    */
+   public static final String MANIFEST_FILE = "restdoc-fingerprints.properties";
+
+   private static final Logger LOG = Logger
+      .getLogger(ControllerFingerprints.class);
+
+   private static final String ALGORITHM = "SHA-1";
+
+   /**
+    * The prefix of the keys of options in the manifest, which no qualified
+    * class name starts with.
+    */
+   private static final String OPTION_PREFIX = "@";
+
+   private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+   /**
+    * The manifest file.
+    */
+   private final File manifest;
+
+   /**
+    * The fingerprints recorded by the last run, keyed by controller.
+    */
+   private final Properties previous = new Properties();
+
+   /**
+    * The fingerprints of this run, keyed by controller.
+    */
+   private final Map<String, String> current = new TreeMap<String, String>();
+
+   /**
+    * The digests of the source files read so far, keyed by path.
+    */
+   private final Map<String, String> sources = new HashMap<String, String>();
+
+   /**
+    * The options of this run, keyed by name.
+    */
+   private final Map<String, String> options;
+
+   /**
+    * <code>true</code> if the last run had the options of this run.
+    */
+   private final boolean compatible;
+
+   /**
+    * The version of the doclet, part of every fingerprint.
+    */
+   private final String version;
+
+   /**
+    * Loads the manifest written by the last run, if any, keeping its
+    * fingerprints only if it was written with the same options.
+    *
+    * @param manifest the manifest file.
+    * @param options the values of the options changing the documentation of
+    *           controllers, keyed by name.
+    * @throws IOException if the manifest or the doclet's properties can't be
+    *            read.
+    */
+   public ControllerFingerprints(final File manifest,
+                                 final Map<String, String> options)
+      throws IOException {
+      super();
+      this.manifest = manifest;
+      this.options = new TreeMap<String, String>(options);
+      this.version =
+         DocletUtils.getInstance().getProperties()
+            .getProperty("project.version");
+      if (manifest.isFile()) {
+         final InputStream input = new FileInputStream(manifest);
+         try {
+            previous.load(input);
+         } finally {
+            input.close();
+         }
+      }
+      compatible = this.options.equals(options(previous));
+      if (!compatible) {
+         if (!previous.isEmpty()) {
+            LOG.info("Options changed since the last run, documenting all"
+               + " controllers");
+         }
+         previous.clear();
+      }
+   }
+
+   /**
+    * Gets the options recorded in a manifest.
+    *
+    * @param properties the manifest.
+    * @return the options, keyed by name.
+    */
+   private static Map<String, String> options(final Properties properties) {
+      final Map<String, String> options = new TreeMap<String, String>();
+      for (String key : properties.stringPropertyNames()) {
+         if (key.startsWith(OPTION_PREFIX)) {
+            options.put(key.substring(OPTION_PREFIX.length()), properties
+               .getProperty(key));
+         }
+      }
+      return options;
+   }
+
+   /**
+    * Determines if the last run had the options of this run, in which case
+    * the documentation it wrote, including what unchanged controllers refer
+    * to, can be kept.
+    *
+    * @return <code>true</code> if the manifest of the last run was written
+    *         with the same options.
+    */
+   public boolean isCompatible() {
+      return compatible;
+   }
+
+   /**
+    * Computes the fingerprint of a controller and records it for this run.
+    *
+    * @param controller the Java documentation object of the controller.
+    * @return <code>true</code> if the fingerprint is the one recorded by the
+    *         last run and the controller's documentation file still exists.
+    * @throws IOException if a source file can't be read.
+    */
+   public boolean isUnchanged(final ClassDoc controller) throws IOException {
+      return isUnchanged(controller, DocletUtils.documentationFile(controller));
+   }
+
+   /**
+    * Computes the fingerprint of a controller and records it for this run.
+    *
+    * @param controller the Java documentation object of the controller.
+    * @param documentation the controller's documentation file.
+    * @return <code>true</code> if the fingerprint is the one recorded by the
+    *         last run and the documentation file exists.
+    * @throws IOException if a source file can't be read.
+    */
+   boolean isUnchanged(final ClassDoc controller, final File documentation)
+      throws IOException {
+      final String name = controller.qualifiedName();
+      final String fingerprint = fingerprint(controller);
+      current.put(name, fingerprint);
+      final boolean unchanged =
+         fingerprint.equals(previous.getProperty(name))
+            && documentation.isFile();
+      LOG.debug(name + (unchanged ? " unchanged " : " changed ") + fingerprint);
+      return unchanged;
+   }
+
+   /**
+    * Writes the fingerprints of the controllers of this run to the manifest.
+    * Controllers no longer documented are dropped.
+    *
+    * @throws IOException if the manifest can't be written.
+    */
+   public void store() throws IOException {
+      final Properties properties = new Properties();
+      properties.putAll(current);
+      for (Map.Entry<String, String> option : options.entrySet()) {
+         properties.setProperty(OPTION_PREFIX + option.getKey(), option
+            .getValue());
+      }
+      final OutputStream output = new FileOutputStream(manifest);
+      try {
+         properties.store(output, "RESTdoclet controller fingerprints");
+      } finally {
+         output.close();
+      }
+   }
+
+   /**
+    * Computes the fingerprint of a controller.
+    *
+    * @param controller the Java documentation object of the controller.
+    * @return the fingerprint.
+    * @throws IOException if a source file can't be read.
+    */
+   private String fingerprint(final ClassDoc controller) throws IOException {
+      final Map<String, String> types = new TreeMap<String, String>();
+      collect(controller, types, new HashSet<String>());
+
+      final MessageDigest digest = newDigest();
+      update(digest, version);
+      for (Map.Entry<String, String> type : types.entrySet()) {
+         update(digest, type.getKey());
+         update(digest, type.getValue());
+      }
+      return hex(digest.digest());
+   }
+
+   /**
+    * Collects a class and the types it refers to, with the digests of their
+    * source files.
+    *
+    * @param classDoc the class or <code>null</code>.
+    * @param types the types collected so far, with their digests.
+    * @param visited the classes visited so far.
+    * @throws IOException if a source file can't be read.
+    */
+   private void collect(final ClassDoc classDoc,
+                        final Map<String, String> types,
+                        final Set<String> visited) throws IOException {
+      if (classDoc != null && visited.add(classDoc.qualifiedName())) {
+         final SourcePosition position = classDoc.position();
+         if (position == null || position.file() == null
+            || !position.file().isFile()) {
+            types.put(classDoc.qualifiedName(), "");
+         } else {
+            types.put(classDoc.qualifiedName(), source(position.file()));
+
+            collect(classDoc.superclassType(), types, visited);
+            for (Type type : classDoc.interfaceTypes()) {
+               collect(type, types, visited);
+            }
+            for (FieldDoc field : classDoc.fields(false)) {
+               collect(field.type(), types, visited);
+            }
+            for (MethodDoc method : classDoc.methods(false)) {
+               collect(method.returnType(), types, visited);
+               for (Parameter parameter : method.parameters()) {
+                  collect(parameter.type(), types, visited);
+               }
+               for (Type type : method.thrownExceptionTypes()) {
+                  collect(type, types, visited);
+               }
+            }
+            for (ClassDoc inner : classDoc.innerClasses(false)) {
+               collect(inner, types, visited);
+            }
+         }
+      }
+   }
+
+   /**
+    * Collects the classes named by a type: the type itself, its type
+    * arguments and its bounds.
+    *
+    * @param type the type or <code>null</code>.
+    * @param types the types collected so far, with their digests.
+    * @param visited the classes visited so far.
+    * @throws IOException if a source file can't be read.
+    */
+   private void collect(final Type type, final Map<String, String> types,
+                        final Set<String> visited) throws IOException {
+      if (type != null && !type.isPrimitive()) {
+         final ParameterizedType parameterized = type.asParameterizedType();
+         final WildcardType wildcard = type.asWildcardType();
+         final TypeVariable variable = type.asTypeVariable();
+         if (wildcard != null) {
+            for (Type bound : wildcard.extendsBounds()) {
+               collect(bound, types, visited);
+            }
+            for (Type bound : wildcard.superBounds()) {
+               collect(bound, types, visited);
+            }
+         } else if (variable != null) {
+            if (visited.add(variable.owner().qualifiedName() + "<"
+               + variable.typeName() + ">")) {
+               for (Type bound : variable.bounds()) {
+                  collect(bound, types, visited);
+               }
+            }
+         } else {
+            if (parameterized != null) {
+               for (Type argument : parameterized.typeArguments()) {
+                  collect(argument, types, visited);
+               }
+            }
+            collect(type.asClassDoc(), types, visited);
+         }
+      }
+   }
+
+   /**
+    * Gets the digest of a source file.
+    *
+    * @param file the file.
+    * @return the digest.
+    * @throws IOException if the file can't be read.
+    */
+   private String source(final File file) throws IOException {
+      final String path = file.getAbsolutePath();
+      String hash = sources.get(path);
+      if (hash == null) {
+         final MessageDigest digest = newDigest();
+         final InputStream input =
+            new BufferedInputStream(new FileInputStream(file));
+         try {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+               digest.update(buffer, 0, read);
+            }
+         } finally {
+            input.close();
+         }
+         hash = hex(digest.digest());
+         sources.put(path, hash);
+      }
+      return hash;
+   }
+
+   private static MessageDigest newDigest() {
+      try {
+         return MessageDigest.getInstance(ALGORITHM);
+      } catch (NoSuchAlgorithmException e) {
+         throw new IllegalStateException(ALGORITHM + " not available", e);
+      }
+   }
+
+   private static void update(final MessageDigest digest, final String text)
+      throws IOException {
+      digest.update(String.valueOf(text).getBytes(JiBXUtils.ENCODING));
+      digest.update((byte) 0);
+   }
+
+   private static String hex(final byte[] bytes) {
+      final char[] chars = new char[bytes.length * 2];
+      for (int i = 0; i < bytes.length; i++) {
+         chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+         chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+      }
+      return new String(chars);
+   }
+
+}
@@ -0,0 +1,469 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Finds the source files the doclet needs in a source path: those of the
+ * controllers, and of the types they refer to, directly or not, so the Java
+ * documentation tool doesn't parse the rest.
+ * <p>
+ * Source files aren't parsed. A lexer skips comments, literals and the
+ * bodies of methods, initialisers and anonymous classes, and collects the
+ * names found in the rest of the file: declarations of types, fields and
+ * methods, and annotations. A file is a controller's if Spring's
+ * <code>@Controller</code> is among its annotations. Names are resolved to
+ * source files in the source path the way the compiler resolves them: by
+ * single-type imports, then in the file's package, then by on-demand
+ * imports, or as qualified names. Names that aren't resolved, such as those
+ * of library types, are ignored: the Java documentation tool still finds
+ * them in the source path or the class-path.
+ * <p>
+ * The files found are a superset of those the doclet reads, since names are
+ * resolved without knowing what they refer to, and the files of types only
+ * used in method bodies are left out.
+ */
+public final class ControllerSources {
+
+   private static final Logger LOG = Logger.getLogger(ControllerSources.class);
+
+   private static final String JAVA = ".java";
+
+   private static final String CONTROLLER =
+      org.springframework.stereotype.Controller.class.getName();
+
+   /**
+    * The roots of the source path.
+    */
+   private final List<File> roots = new ArrayList<File>();
+
+   /**
+    * The source files of the types looked up so far, keyed by qualified
+    * name, <code>null</code> if there's none.
+    */
+   private final Map<String, File> files = new HashMap<String, File>();
+
+   /**
+    * Constructs the sources of a source path.
+    *
+    * @param sourcePath the source path: directories separated by the path
+    *           separator.
+    */
+   public ControllerSources(final String sourcePath) {
+      super();
+      for (String root : sourcePath.split(File.pathSeparator)) {
+         if (root.length() > 0) {
+            roots.add(new File(root));
+         }
+      }
+   }
+
+   /**
+    * Finds the source files of the controllers.
+    *
+    * @return the source files, sorted by path, empty if there are no
+    *         controllers.
+    * @throws IOException if a source file can't be read.
+    */
+   public List<File> findControllers() throws IOException {
+      final Set<File> controllers = new TreeSet<File>();
+      int all = 0;
+      for (File root : roots) {
+         final List<File> sources = new ArrayList<File>();
+         list(root, sources);
+         all += sources.size();
+         for (File source : sources) {
+            if (new Unit(read(source)).isController()) {
+               LOG.debug("Controller source " + source);
+               controllers.add(source);
+            }
+         }
+      }
+      LOG.info("Found " + controllers.size() + " controller sources out of "
+         + all);
+      return new ArrayList<File>(controllers);
+   }
+
+   /**
+    * Finds the source files of the types controllers refer to, directly or
+    * not.
+    *
+    * @param controllers the source files of the controllers.
+    * @return the source files of the controllers and of the types they refer
+    *         to, sorted by path.
+    * @throws IOException if a source file can't be read.
+    */
+   public Set<File> closure(final Collection<File> controllers)
+      throws IOException {
+      final Set<File> found = new TreeSet<File>();
+      final LinkedList<File> pending = new LinkedList<File>(controllers);
+      while (!pending.isEmpty()) {
+         final File source = pending.removeFirst();
+         if (found.add(source)) {
+            pending.addAll(new Unit(read(source)).references());
+         }
+      }
+      LOG.info("Found " + (found.size() - controllers.size())
+         + " sources referred to by " + controllers.size() + " controllers");
+      return found;
+   }
+
+   private static void list(final File directory, final List<File> sources) {
+      final File[] children = directory.listFiles();
+      if (children != null) {
+         for (File child : children) {
+            if (child.isDirectory()) {
+               list(child, sources);
+            } else if (child.getName().endsWith(JAVA)) {
+               sources.add(child);
+            }
+         }
+      }
+   }
+
+   private static String read(final File file) throws IOException {
+      final StringBuilder source = new StringBuilder((int) file.length());
+      final Reader reader =
+         new InputStreamReader(new FileInputStream(file), JiBXUtils.ENCODING);
+      try {
+         final char[] buffer = new char[8192];
+         int read;
+         while ((read = reader.read(buffer)) != -1) {
+            source.append(buffer, 0, read);
+         }
+      } finally {
+         reader.close();
+      }
+      return source.toString();
+   }
+
+   /**
+    * Gets the source file of a type.
+    *
+    * @param name the qualified name of the type, or of the package of a
+    *           nested type followed by the names of its enclosing types.
+    * @return the source file of the outermost type, or <code>null</code> if
+    *         it isn't in the source path.
+    */
+   private File file(final String name) {
+      if (files.containsKey(name)) {
+         return files.get(name);
+      }
+      File file = null;
+      final String path = name.replace('.', File.separatorChar) + JAVA;
+      for (int i = 0; file == null && i < roots.size(); i++) {
+         final File candidate = new File(roots.get(i), path);
+         if (candidate.isFile()) {
+            file = candidate;
+         }
+      }
+      files.put(name, file);
+      return file;
+   }
+
+   /**
+    * The declarations of a source file: its package, imports, and the names
+    * found outside bodies.
+    */
+   private final class Unit {
+
+      private final String source;
+
+      /**
+       * The position of the next character.
+       */
+      private int position;
+
+      private String pkg = "";
+
+      /**
+       * The qualified names of single-type imports, keyed by simple name.
+       */
+      private final Map<String, String> imports =
+         new HashMap<String, String>();
+
+      /**
+       * The packages, or types, of on-demand imports.
+       */
+      private final List<String> onDemand = new ArrayList<String>();
+
+      /**
+       * The names found, simple or qualified.
+       */
+      private final Set<String> names = new HashSet<String>();
+
+      /**
+       * The annotations found, simple or qualified.
+       */
+      private final Set<String> annotations = new HashSet<String>();
+
+      Unit(final String source) {
+         this.source = source;
+         lex();
+      }
+
+      /**
+       * Determines if the file declares a controller.
+       */
+      boolean isController() {
+         for (String annotation : annotations) {
+            if (CONTROLLER.equals(annotation)
+               || CONTROLLER.equals(resolve(annotation))) {
+               return true;
+            }
+         }
+         return false;
+      }
+
+      /**
+       * Gets the source files of the types the file refers to.
+       */
+      List<File> references() {
+         final List<File> references = new ArrayList<File>();
+         for (String name : names) {
+            final File file = file(name.split("\\."));
+            if (file != null) {
+               references.add(file);
+            }
+         }
+         return references;
+      }
+
+      /**
+       * Gets the source file of a name, simple or qualified.
+       */
+      private File file(final String[] segments) {
+         if (!Character.isUpperCase(segments[0].charAt(0))) {
+            // a qualified name: its outermost type is the first capitalised
+            final StringBuilder name = new StringBuilder(segments[0]);
+            for (int i = 1; i < segments.length; i++) {
+               name.append('.').append(segments[i]);
+               if (Character.isUpperCase(segments[i].charAt(0))) {
+                  return ControllerSources.this.file(name.toString());
+               }
+            }
+            return null;
+         }
+         final String simple = segments[0];
+         if (imports.containsKey(simple)) {
+            return ControllerSources.this.file(outermost(imports.get(simple)));
+         }
+         File file =
+            ControllerSources.this.file(pkg.length() == 0 ? simple : pkg + '.'
+               + simple);
+         for (int i = 0; file == null && i < onDemand.size(); i++) {
+            file =
+               ControllerSources.this.file(outermost(onDemand.get(i) + '.'
+                  + simple));
+         }
+         return file;
+      }
+
+      /**
+       * Resolves a simple annotation name to a qualified name, by imports
+       * only, as <code>@Controller</code> isn't in the source path.
+       */
+      private String resolve(final String name) {
+         if (imports.containsKey(name)) {
+            return imports.get(name);
+         }
+         for (String prefix : onDemand) {
+            if (CONTROLLER.equals(prefix + '.' + name)) {
+               return CONTROLLER;
+            }
+         }
+         return name;
+      }
+
+      /**
+       * Gets the name of the outermost type of a qualified name: the part up
+       * to the first capitalised segment.
+       */
+      private String outermost(final String name) {
+         final String[] segments = name.split("\\.");
+         final StringBuilder outer = new StringBuilder(segments[0]);
+         for (int i = 1; i < segments.length
+            && !Character.isUpperCase(segments[i - 1].charAt(0)); i++) {
+            outer.append('.').append(segments[i]);
+         }
+         return outer.toString();
+      }
+
+      private void lex() {
+         // whether the tokens since the last brace or semi-colon declare a
+         // type, whose body is read
+         boolean type = false;
+         int parentheses = 0;
+         String previous = null;
+         String token;
+         while ((token = token()) != null) {
+            if ("package".equals(token) && previous == null) {
+               pkg = name(token());
+            } else if ("import".equals(token)) {
+               importDeclaration();
+            } else if ("@".equals(token)) {
+               final String annotation = token();
+               if ("interface".equals(annotation)) {
+                  type = true;
+               } else if (annotation != null) {
+                  final String name = name(annotation);
+                  annotations.add(name);
+                  names.add(name);
+               }
+            } else if ("(".equals(token)) {
+               parentheses++;
+            } else if (")".equals(token)) {
+               parentheses--;
+            } else if ("{".equals(token) && parentheses == 0) {
+               if (!type) {
+                  skipBlock();
+               }
+               type = false;
+            } else if (("}".equals(token) || ";".equals(token))
+               && parentheses == 0) {
+               type = false;
+            } else if (("class".equals(token) || "interface".equals(token) || "enum"
+               .equals(token)) && !".".equals(previous)) {
+               type = true;
+            } else if (Character.isJavaIdentifierStart(token.charAt(0))) {
+               names.add(name(token));
+            }
+            previous = token;
+         }
+      }
+
+      private void importDeclaration() {
+         String token = token();
+         if ("static".equals(token)) {
+            token = token();
+         }
+         final StringBuilder name = new StringBuilder(token);
+         while ((token = token()) != null && !";".equals(token)) {
+            if (!"*".equals(token)) {
+               name.append(token);
+            }
+         }
+         final String imported = name.toString();
+         if (imported.endsWith(".")) {
+            onDemand.add(imported.substring(0, imported.length() - 1));
+         } else {
+            imports.put(imported.substring(imported.lastIndexOf('.') + 1),
+               imported);
+         }
+      }
+
+      /**
+       * Reads a dotted name after its first identifier.
+       */
+      private String name(final String first) {
+         final StringBuilder name = new StringBuilder(first);
+         while (true) {
+            final int mark = position;
+            final String dot = token();
+            if (".".equals(dot)) {
+               final String next = token();
+               if (next != null
+                  && Character.isJavaIdentifierStart(next.charAt(0))) {
+                  name.append('.').append(next);
+                  continue;
+               }
+            }
+            position = mark;
+            return name.toString();
+         }
+      }
+
+      /**
+       * Skips a block after its opening brace.
+       */
+      private void skipBlock() {
+         int depth = 1;
+         String token;
+         while (depth > 0 && (token = token()) != null) {
+            if ("{".equals(token)) {
+               depth++;
+            } else if ("}".equals(token)) {
+               depth--;
+            }
+         }
+      }
+
+      /**
+       * Reads the next token, skipping white-space and comments. Literals
+       * are read as their opening quote.
+       *
+       * @return the token or <code>null</code> at the end of the source.
+       */
+      private String token() {
+         final int length = source.length();
+         while (position < length) {
+            final char ch = source.charAt(position);
+            if (Character.isWhitespace(ch)) {
+               position++;
+            } else if (source.startsWith("//", position)) {
+               final int end = source.indexOf('\n', position);
+               position = end < 0 ? length : end + 1;
+            } else if (source.startsWith("/*", position)) {
+               final int end = source.indexOf("*/", position + 2);
+               position = end < 0 ? length : end + 2;
+            } else if (ch == '"' || ch == '\'') {
+               position++;
+               while (position < length && source.charAt(position) != ch) {
+                  if (source.charAt(position) == '\\') {
+                     position++;
+                  }
+                  position++;
+               }
+               position++;
+               return String.valueOf(ch);
+            } else if (Character.isJavaIdentifierPart(ch)) {
+               final int start = position;
+               while (position < length
+                  && Character.isJavaIdentifierPart(source.charAt(position))) {
+                  position++;
+               }
+               return source.substring(start, position);
+            } else {
+               position++;
+               return String.valueOf(ch);
+            }
+         }
+         return null;
+      }
+
+   }
+
+}
@@ -12,15 +12,12 @@ package com.iggroup.oss.restdoclet.doclet.util;
 
 import static com.iggroup.oss.restdoclet.doclet.util.UrlUtils.parseMultiUri;
 
-import java.util.ArrayList;
-import java.util.Collection;
-
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 
-import com.sun.javadoc.AnnotationDesc;
+import com.iggroup.oss.restdoclet.doclet.type.BaseType;
+import com.iggroup.oss.restdoclet.doclet.type.TypeDocs;
 import com.sun.javadoc.ClassDoc;
-import com.sun.javadoc.FieldDoc;
 import com.sun.javadoc.MethodDoc;
 import com.sun.javadoc.ParameterizedType;
 import com.sun.javadoc.ProgramElementDoc;
@@ -34,10 +31,23 @@ public final class DocTypeUtils {
 
    private static final Logger LOG = Logger.getLogger(DocTypeUtils.class);
 
-   private static final String DEPRECATED_TAG = "uriDeprecated";
    private static final String RETURN_TAG = "return";
-   private static final String IS_PREFIX = "is";
-   private static final String GETTER_PREFIX = "get";
+
+   /**
+    * Documentation already rendered during this run, and how it's rendered.
+    */
+   private static final TypeDocRenderer RENDERER = new TypeDocRenderer();
+
+   /**
+    * The documentation inherited by the methods of the classes seen so far.
+    */
+   private static final InheritedJavadocIndex INHERITED =
+      new InheritedJavadocIndex();
+
+   /**
+    * The fields and accessors of the classes seen so far.
+    */
+   private static final AccessorIndex ACCESSORS = new AccessorIndex();
 
    /**
     * Private constructor to "silence" PMD.
@@ -48,7 +58,7 @@ public final class DocTypeUtils {
 
    /**
     * Return a string array of deprecated URIs for this element, searching for
-    * DEPRECATED_TAG in the method comment
+    * {@link UrlUtils#DEPRECATED_TAG} in the method comment
     * 
     * @param element javadoc element
     * @return a string array of deprecated URIs for this element
@@ -59,8 +69,7 @@ public final class DocTypeUtils {
       Tag[] tags = element.tags();
 
       for (final Tag tag : tags) {
-         final String name = tag.name();
-         if (StringUtils.contains(name, DEPRECATED_TAG)) {
+         if (UrlUtils.isDeprecatedTag(tag.name())) {
             uris = parseMultiUri(tag.text());
             LOG.debug("deprecated uris" + tag.text());
             break;
@@ -84,358 +93,151 @@ public final class DocTypeUtils {
       LOG.info("Get return type documentation for method: "
          + element.toString());
       String doc = "";
-      Tag[] tags = element.tags();
 
       doc = getTypeDoc(element.returnType());
       if (doc.isEmpty()) { // no class doc found, revert to @return comment
-
-         for (final Tag tag : tags) {
-            final String name = tag.name();
-            if (StringUtils.contains(name, RETURN_TAG)) {
-               doc = tag.text();
-               break;
-            }
-         }
+         doc = getReturnTagDoc(element);
       }
       return doc;
 
    }
 
    /**
-    * Get the documentation of a parameterised type
+    * Documents the return parameter of a method, like
+    * {@link #getReturnDoc(MethodDoc)}: with the documentation of the return
+    * type if there is any (see {@link #initTypeDoc(BaseType, Type)}), with the
+    * method's <code>@return</code> comment otherwise.
     * 
-    * @param type
-    * @return
+    * @param param the return parameter to document.
+    * @param element method doc
     */
-   private static String getParameterisedTypeDoc(final Type type) {
+   public static void initReturnDoc(final BaseType param,
+                                    final MethodDoc element) {
 
-      String typeInfo = "";
-
-      if (type.asClassDoc() != null) {
-         LOG.debug(type.qualifiedTypeName());
-         typeInfo =
-            getTypeDoc(type.asParameterizedType().typeArguments()[type
-                                                                  .asParameterizedType().typeArguments().length - 1]);
+      LOG.info("Get return type documentation for method: "
+         + element.toString());
+      if (!initTypeDoc(param, element.returnType())) {
+         param.setJavadoc(getReturnTagDoc(element));
       }
-
-      return typeInfo;
    }
 
    /**
-    * Return true if this is not a java type
+    * Gets the <code>@return</code> comment of a method.
     * 
-    * @param type
-    * @return
+    * @param element method doc
+    * @return the comment or an empty string if there is none
     */
-   private static Boolean isRelevantType(final Type type) {
-
-      assert type.asClassDoc() != null;
-
-      return type != null && type.asClassDoc() != null
-         && type.asClassDoc().qualifiedTypeName().indexOf("java") != 0
-         || isParameterisedType(type);
+   private static String getReturnTagDoc(final MethodDoc element) {
+      String doc = "";
+      for (final Tag tag : element.tags()) {
+         final String name = tag.name();
+         if (StringUtils.contains(name, RETURN_TAG)) {
+            doc = tag.text();
+            break;
+         }
+      }
+      return doc;
    }
 
    /**
-    * Return true if this this a parameterised type
+    * Documents a parameter with the documentation of its type, as returned by
+    * {@link #getTypeDoc(Type)}. If a registry is set (see
+    * {@link #setTypeDocs(TypeDocs)}), the documentation is registered once and
+    * the parameter refers to it; otherwise it becomes the parameter's
+    * documentation.
     * 
-    * @param type
-    * @return
+    * @param param the parameter to document.
+    * @param type the parameter's type.
+    * @return <code>true</code> if the type is documented, <code>false</code>
+    *         if the parameter is left alone.
     */
-   private static Boolean isParameterisedType(final Type type) {
-
-      return type.asParameterizedType() != null
-         && type.asParameterizedType().typeArguments().length > 0;
+   public static boolean initTypeDoc(final BaseType param, final Type type) {
+      return RENDERER.initTypeDoc(param, JavadocTypeModel.of(type));
    }
 
    /**
-    * Log the type information
+    * Sets the registry the documentation of parameters' types is added to.
     * 
-    * @param type
+    * @param registry the registry or <code>null</code> to inline the
+    *           documentation of types in the parameters' documentation.
     */
-   private static void logType(final Type type) {
-
-      if (LOG.isDebugEnabled() && type.asClassDoc() != null) {
-         LOG.debug(type.asClassDoc().qualifiedTypeName());
-         LOG.debug(" - " + type.asClassDoc().commentText());
-         for (AnnotationDesc ad : type.asClassDoc().annotations()) {
-            LOG.debug(" - " + ad.toString());
-         }
-      }
-
+   public static void setTypeDocs(final TypeDocs registry) {
+      RENDERER.setTypeDocs(registry);
    }
 
    /**
-    * Return the documentation for an enum type
+    * Sets the limits of the documentation rendered for a type.
     * 
-    * @param type
-    * @return
+    * @param limits the limits, {@link TypeDocBudget#UNLIMITED} for none.
     */
-   private static String getEnumDoc(final Type type) {
-
-      String typeInfo = "";
-
-      if (type.asClassDoc() != null) {
-         FieldDoc[] enumConstants = type.asClassDoc().enumConstants();
-         for (FieldDoc constant : enumConstants) {
-            typeInfo += "<TR>";
-            typeInfo += "<TD>" + constant.name() + "</TD>";
-            typeInfo += "<TD>" + constant.commentText() + "</TD>";
-            typeInfo += "</TR>";
-         }
-      }
-
-      return typeInfo;
-
+   public static void setBudget(final TypeDocBudget limits) {
+      RENDERER.setBudget(limits);
    }
 
    /**
-    * Return the documentation for a public constant
+    * Gets the fields and accessors of a class, indexed once per run.
     * 
-    * @param type
-    * @return
+    * @param classDoc the class.
+    * @return the fields and accessors.
     */
-   private static String getPublicConstantDoc(final Type type) {
-
-      String typeInfo = "";
-
-      FieldDoc[] fields = type.asClassDoc().fields(false);
-      for (FieldDoc field : fields) {
-         if (field.isPublic() && field.isFinal()
-            && StringUtils.equals(field.name(), field.name().toUpperCase())) {
-
-            typeInfo +=
-               "<tr><td>" + field.type().simpleTypeName() + " " + field.name()
-               + "</td><td>" + field.commentText() + "</td></tr>";
-
-         }
-      }
-
-      return typeInfo;
+   static AccessorIndex.Accessors accessors(final ClassDoc classDoc) {
+      return ACCESSORS.accessors(classDoc);
    }
 
    /**
-    * Return the documentation for a field
+    * Returns as a string a list of attributes plus comments for the given
+    * type, separated by <br>
+    * This method will recurse if attributes are non java types, within the
+    * budget (see {@link #setBudget(TypeDocBudget)})
     * 
-    * @param type
-    * @param attributeName
-    * @return
+    * @param type type info
+    * @return attribute data for the given type
     */
-   private static String getFieldDoc(final Type type,
-                                     final String attributeName,
-                                     final String methodComment) {
-
-      LOG.debug("getFieldDoc " + type.simpleTypeName() + " - " + attributeName
-         + " - " + methodComment);
-      String fieldComment = "";
-
-      if (type.asClassDoc() != null) {
-         for (FieldDoc field : type.asClassDoc().fields(false)) {
-            if (field.name().equalsIgnoreCase(attributeName)) {
-               fieldComment = field.commentText();
-               if (methodComment.length() > fieldComment.length()) {
-                  fieldComment = methodComment;
-               }
-               // see if there are any validation
-               // constraints
-               AnnotationDesc[] annotations = field.annotations();
-               for (AnnotationDesc annotation : annotations) {
-                  if (annotation.toString().contains(
-                     "@javax.validation.constraints.")) {
-                     String constraint =
-                        annotation.toString().replace(
-                           "@javax.validation.constraints.", "");
-                     fieldComment += "<br>[Rule: " + constraint + "]";
-                  }
-               }
-               break;
-            }
-         }
-      }
-
-      return fieldComment;
-
+   public static String getTypeDoc(final Type type) {
+      return RENDERER.getTypeDoc(JavadocTypeModel.of(type));
    }
 
    /**
-    * Return a list of getter names
-    * 
-    * @param type
-    * @return
+    * Clears the documentation rendered so far. Called at the start of each
+    * run.
     */
-   private static Collection<String> getGetterNames(final Type type) {
-
-      FieldDoc[] fields = type.asClassDoc().fields(false);
-      ArrayList<String> getterNames = new ArrayList<String>();
-      for (FieldDoc field : fields) {
-         if (!(field.isPublic() && field.isFinal() && StringUtils.equals(
-            field.name(), field.name().toUpperCase()))) {
-            getterNames.add(GETTER_PREFIX
-               + field.name().substring(0, 1).toUpperCase()
-               + field.name().substring(1));
-            getterNames.add(IS_PREFIX
-               + field.name().substring(0, 1).toUpperCase()
-               + field.name().substring(1));
-         }
-      }
-
-      return getterNames;
+   public static void clearTypeDocCache() {
+      RENDERER.clear();
+      INHERITED.clear();
+      ACCESSORS.clear();
+   }
 
+   /**
+    * Clears what was indexed from the Java documentation objects of the last
+    * run, keeping the documentation rendered so far. Called at the start of
+    * each batch of a run in batches, which render the same sources.
+    */
+   public static void clearModelIndexes() {
+      INHERITED.clear();
+      ACCESSORS.clear();
    }
 
    /**
-    * Returns as a string a list of attributes plus comments for the given
-    * iggroup complex type (or empty string if not iggroup), formatted in an
-    * HTML table. This method will recurse if attributes are iggroup complex
-    * types
+    * Gets the documentation of a method. If the documentation asks for the
+    * inherited documentation with <code>{@inheritDoc}</code>, it is replaced
+    * with the documentation of the nearest overridden method in the
+    * super-classes and interfaces of the method's class, if any.
     * 
-    * @param type
-    * @param processedTypes
-    * @param leafType
-    * @return
+    * @param methodDoc the method's Java documentation object.
+    * @return the method's documentation.
     */
-   private static String getTypeDoc(final Type type,
-                                    ArrayList<String> processedTypes,
-                                    Boolean leafType) {
-
-      LOG.debug("getTypeDoc " + type + " leafType=" + leafType);
-
-      ClassDoc typeDoc = type.asClassDoc();
-      String typeInfo = "";
-
-      if (typeDoc != null) {
-
-         // if this is a generic type then recurse with the first type argument
-         if (isParameterisedType(type)) {
-
-            typeInfo = getParameterisedTypeDoc(type);
-
-         } else if (isRelevantType(type)) {
-
-            logType(type);
-
-            processedTypes.add(type.typeName());
-
-            if (leafType && !typeDoc.commentText().isEmpty()) {
-               typeInfo += typeDoc.commentText();
-            }
-
-            if (typeDoc.isEnum()) {
-
-               typeInfo += getEnumDoc(type);
-
-            } else { // class
-
-               LOG.debug("class type");
-
-               // first do base class
-               if (typeDoc.superclass() != null) {
-
-                  LOG.debug("base type = "
-                     + typeDoc.superclass().qualifiedName());
-
-                  String baseTypeDoc =
-                     getTypeDoc(type.asClassDoc().superclassType(),
-                        processedTypes, false);
-                  if (!baseTypeDoc.isEmpty()) {
-                     typeInfo += "<tr><td>" + baseTypeDoc + "</td></tr>";
-                  }
-               }
-
-               typeInfo += getPublicConstantDoc(type);
-
-               Collection<String> getterNames = getGetterNames(type);
-
-               for (MethodDoc method : typeDoc.methods()) {
-
-                  if (method.isPublic() && getterNames.contains(method.name())) {
-
-                     String attributeInfo = "";
-                     String attributeType =
-                        method.returnType().simpleTypeName();
-
-                     // check if is this a parameterised type
-                     ParameterizedType pt =
-                        method.returnType().asParameterizedType();
-                     Type nestedType = null;
-                     if (pt != null && pt.typeArguments().length > 0) {
-
-                        attributeType += "[";
-                        for (int i = 0; i < pt.typeArguments().length; i++) {
-                           attributeType +=
-                              pt.typeArguments()[i].simpleTypeName();
-                           if (i < pt.typeArguments().length - 1) {
-                              attributeType += ", ";
-                           }
-                        }
-                        attributeType += "]";
-
-                     }
-
-                     // Check if this is an array
-                     attributeType += method.returnType().dimension();
-
-                     final String attributeName =
-                        getAttributeNameFromMethod(method.name());
-
-                     attributeInfo +=
-                        "<td>" + attributeType + " " + attributeName + "</td>";
-
-                     // If type or parameterised type then recurse
-                     if (!processedTypes.contains(method.returnType()
-                        .qualifiedTypeName())
-                        && isRelevantType(method.returnType())) {
-                        attributeInfo +=
-                           "<td>"
-                              + getTypeDoc(
-                                 nestedType == null ? method.returnType()
-                                    : nestedType, processedTypes, true)
-                                    + "</td>";
-
-                     } else {
-
-                        attributeInfo +=
-                           "<td>"
-                              + getFieldDoc(type, attributeName,
-                                 method.commentText()) + "</td>";
-
-                     }
-
-                     if (!attributeInfo.isEmpty()) {
-                        typeInfo += "<tr>" + attributeInfo + "</tr>";
-                     }
-
-                  }
-               }
-            }
-
-            // Wrap in a table tag if this is concrete type
-            if (leafType && !typeInfo.isEmpty()) {
-               typeInfo = "<table>" + typeInfo + "</table>";
-            }
-         }
-
-      }
-
-      return typeInfo;
-
+   public static String getMethodJavadoc(final MethodDoc methodDoc) {
+      return INHERITED.getMethodJavadoc(JavadocTypeModel.classModel(methodDoc
+         .containingClass()), JavadocTypeModel.method(methodDoc));
    }
 
    /**
-    * Returns as a string a list of attributes plus comments for the given
-    * type, separated by <br>
-    * This method will recurse if attributes are non java types
-    * 
-    * @param type type info
-    * @return attribute data for the given type
+    * Logs how often rendered documentation was reused during this run.
     */
-   public static String getTypeDoc(final Type type) {
-      ArrayList<String> documentedTypes = new ArrayList<String>();
-      String typeDoc = getTypeDoc(type, documentedTypes, true);
-      if (typeDoc != null && !typeDoc.trim().isEmpty()) {
-         LOG.info("Got documentation for type " + type + " : " + typeDoc);
-      }
-      return typeDoc;
+   public static void logTypeDocCacheStatistics() {
+      LOG.info("Type documentation cache: " + RENDERER + "; "
+         + INHERITED.size() + " classes indexed for inherited javadoc, "
+         + ACCESSORS.size() + " for accessors");
    }
 
    /**
@@ -466,28 +268,4 @@ public final class DocTypeUtils {
 
    }
 
-   /**
-    * Derive an attribute name from a getter/setter
-    * 
-    * @param methodName
-    * @return the methodName without the leading is/get/set
-    */
-   private static String getAttributeNameFromMethod(String methodName) {
-
-      String attributeName;
-      if (methodName.startsWith(IS_PREFIX)) {
-         attributeName = methodName.substring(IS_PREFIX.length());
-      } else {
-         attributeName = methodName.substring(GETTER_PREFIX.length());
-      }
-
-      if (attributeName != null && !attributeName.isEmpty()) {
-         attributeName =
-            attributeName.substring(0, 1).toLowerCase()
-            + attributeName.substring(1);
-      }
-
-      return attributeName;
-   }
-
 }
@@ -35,7 +35,6 @@ import com.iggroup.oss.restdoclet.doclet.type.FieldParameter;
 import com.iggroup.oss.restdoclet.doclet.type.builder.FieldParameterBuilder;
 import com.sun.javadoc.ClassDoc;
 import com.sun.javadoc.FieldDoc;
-import com.sun.javadoc.MethodDoc;
 
 /**
  * Manages properties of <code>doclet</code> module. This class also contains
@@ -49,8 +48,6 @@ public final class DocletUtils {
     */
    public static final String PROPERTIES_FILE = "oss-restdoclet-doclet.properties";
 
-   private static final String GETTER_PREFIX = "get";
-
    /**
     * Environment variable to control restdoc logging
     */
@@ -170,21 +167,10 @@ public final class DocletUtils {
 
       ArrayList<FieldParameter> fields = new ArrayList<FieldParameter>();
 
-      MethodDoc[] methods = classDoc.methods();
-
-      for (FieldDoc fieldDoc : classDoc.fields(false)) {
-
-         boolean found = false;
-         for (MethodDoc md : methods) {
-            if (md.name().equalsIgnoreCase(GETTER_PREFIX + fieldDoc.name())) {
-               found = true;
-            }
-         }
-
-         if (found) {
-            fields.add(new FieldParameterBuilder().build(new FieldParameter(),
-               fieldDoc));
-         }
+      for (FieldDoc fieldDoc : DocTypeUtils.accessors(classDoc)
+         .fieldsWithGetters()) {
+         fields.add(new FieldParameterBuilder().build(new FieldParameter(),
+            fieldDoc));
       }
 
       return fields;
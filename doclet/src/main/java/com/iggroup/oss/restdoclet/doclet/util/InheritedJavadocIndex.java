@@ -0,0 +1,227 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Per-run index of the documentation methods inherit, used to resolve
+ * <code>{@inheritDoc}</code>. Classes are walked through their
+ * {@link ClassModel}, so the doclet and the annotation processor resolve it
+ * the same way.
+ * <p>
+ * The index of a class maps the signature of every method declared in the
+ * class or in any of its super-classes and interfaces to the documentation
+ * of the nearest declaration that has any. The class's own declarations come
+ * first, then those of its super-class and its ancestors, then those of its
+ * interfaces in declaration order. A declaration whose documentation is
+ * <code>{@inheritDoc}</code> gets the documentation of the method it
+ * overrides. Methods match by name and signature, ignoring case. The index
+ * of a class is built once, from the indexes of its super-class and
+ * interfaces, and shared by all its sub-classes.
+ * <p>
+ * Instances are not thread-safe; the doclet model and the language model
+ * of the compiler are walked by a single thread.
+ */
+public final class InheritedJavadocIndex {
+
+   /**
+    * The tag asking for inherited documentation.
+    */
+   public static final String INHERIT_DOC = "@inheritDoc";
+
+   /**
+    * The indexes built so far, keyed by qualified class name.
+    */
+   private final Map<String, Map<String, String>> indexes =
+      new HashMap<String, Map<String, String>>();
+
+   /**
+    * The classes whose index is being built, to stop on cyclic hierarchies.
+    */
+   private final Set<String> building = new HashSet<String>();
+
+   /**
+    * Gets the documentation of a method. If the documentation asks for the
+    * inherited documentation with <code>{@inheritDoc}</code>, it is replaced
+    * with the documentation of the nearest overridden method that has any.
+    *
+    * @param owner the class declaring the method.
+    * @param method the method.
+    * @return the method's documentation.
+    */
+   public String getMethodJavadoc(final ClassModel owner,
+                                  final ClassModel.Member method) {
+      final String javadoc = method.commentText();
+      if (javadoc.contains(INHERIT_DOC)) {
+         final String inherited = inherited(owner, method);
+         if (inherited != null) {
+            return inherited;
+         }
+      }
+      return javadoc;
+   }
+
+   /**
+    * Finds the documentation a method inherits from the super-classes and
+    * interfaces of its class.
+    *
+    * @param owner the class declaring the method.
+    * @param method the method.
+    * @return the documentation of the nearest overridden method that has any
+    *         or <code>null</code> if there is none.
+    */
+   String inherited(final ClassModel owner, final ClassModel.Member method) {
+      return inherited(owner, key(method));
+   }
+
+   /**
+    * Removes all the classes from this index.
+    */
+   void clear() {
+      indexes.clear();
+      building.clear();
+   }
+
+   /**
+    * Gets the number of classes indexed.
+    *
+    * @return the number of classes.
+    */
+   int size() {
+      return indexes.size();
+   }
+
+   /**
+    * Finds the documentation of a method in the ancestors of a class.
+    *
+    * @param model the class.
+    * @param key the method's key.
+    * @return the documentation or <code>null</code> if there is none.
+    */
+   private String inherited(final ClassModel model, final String key) {
+      String comment = null;
+      final ClassModel superclass = superclass(model);
+      if (superclass != null) {
+         comment = index(superclass).get(key);
+      }
+      if (comment == null) {
+         for (TypeModel iface : model.interfaceTypes()) {
+            comment = index(iface.asClass()).get(key);
+            if (comment != null) {
+               break;
+            }
+         }
+      }
+      return comment;
+   }
+
+   /**
+    * Gets the super-class of a class.
+    *
+    * @param model the class.
+    * @return the super-class or <code>null</code> if there is none.
+    */
+   private static ClassModel superclass(final ClassModel model) {
+      final TypeModel superclass = model.superclassType();
+      return superclass == null ? null : superclass.asClass();
+   }
+
+   /**
+    * Gets the index of a class, building it if needed.
+    *
+    * @param model the class or <code>null</code> if it isn't known.
+    * @return the documentation of the methods of the class and its ancestors,
+    *         keyed by method.
+    */
+   private Map<String, String> index(final ClassModel model) {
+      if (model == null) {
+         return Collections.emptyMap();
+      }
+      final String name = model.qualifiedName();
+      Map<String, String> index = indexes.get(name);
+      if (index == null) {
+         if (!building.add(name)) {
+            return Collections.emptyMap();
+         }
+         try {
+            index = new HashMap<String, String>();
+            for (ClassModel.Member method : model.methods()) {
+               final String key = key(method);
+               String comment = method.commentText();
+               if (comment.contains(INHERIT_DOC)) {
+                  final String inherited = inherited(model, key);
+                  if (inherited != null) {
+                     comment = inherited;
+                  }
+               }
+               if (StringUtils.isNotBlank(comment)
+                  && !index.containsKey(key)) {
+                  index.put(key, comment);
+               }
+            }
+            final ClassModel superclass = superclass(model);
+            if (superclass != null) {
+               putAbsent(index, index(superclass));
+            }
+            for (TypeModel iface : model.interfaceTypes()) {
+               putAbsent(index, index(iface.asClass()));
+            }
+            indexes.put(name, index);
+         } finally {
+            building.remove(name);
+         }
+      }
+      return index;
+   }
+
+   /**
+    * Adds the methods of an ancestor's index that aren't in an index yet.
+    *
+    * @param index the index.
+    * @param ancestor the ancestor's index.
+    */
+   private static void putAbsent(final Map<String, String> index,
+                                 final Map<String, String> ancestor) {
+      for (Map.Entry<String, String> entry : ancestor.entrySet()) {
+         if (!index.containsKey(entry.getKey())) {
+            index.put(entry.getKey(), entry.getValue());
+         }
+      }
+   }
+
+   /**
+    * Gets the key of a method: its name and signature, ignoring case.
+    *
+    * @param method the method.
+    * @return the key.
+    */
+   private static String key(final ClassModel.Member method) {
+      return (method.name() + method.signature()).toLowerCase(Locale.ENGLISH);
+   }
+
+}
@@ -0,0 +1,329 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.FieldDoc;
+import com.sun.javadoc.MethodDoc;
+import com.sun.javadoc.ParameterizedType;
+import com.sun.javadoc.Type;
+
+/**
+ * A {@link TypeModel} of a Java documentation type, whose class members are
+ * looked up in the {@link AccessorIndex} of {@link DocTypeUtils}.
+ */
+final class JavadocTypeModel implements TypeModel {
+
+   private final Type type;
+
+   private JavadocTypeModel(final Type type) {
+      this.type = type;
+   }
+
+   /**
+    * Gets the model of a type.
+    *
+    * @param type the type.
+    * @return the model.
+    */
+   static TypeModel of(final Type type) {
+      return new JavadocTypeModel(type);
+   }
+
+   /**
+    * Gets the model of a class.
+    *
+    * @param classDoc the class.
+    * @return the model.
+    */
+   static ClassModel classModel(final ClassDoc classDoc) {
+      return new JavadocClassModel(classDoc);
+   }
+
+   /**
+    * Gets the model of a method.
+    *
+    * @param methodDoc the method.
+    * @return the model.
+    */
+   static ClassModel.Member method(final MethodDoc methodDoc) {
+      return new Method(methodDoc);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public ClassModel asClass() {
+      final ClassDoc classDoc = type.asClassDoc();
+      return classDoc == null ? null : classModel(classDoc);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String qualifiedTypeName() {
+      return type.qualifiedTypeName();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String simpleTypeName() {
+      return type.simpleTypeName();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public List<TypeModel> typeArguments() {
+      final ParameterizedType pt = type.asParameterizedType();
+      if (pt == null) {
+         return Collections.emptyList();
+      }
+      final List<TypeModel> arguments = new ArrayList<TypeModel>();
+      for (Type argument : pt.typeArguments()) {
+         arguments.add(of(argument));
+      }
+      return arguments;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String dimension() {
+      return type.dimension();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public boolean isResolved() {
+      return isResolved(type);
+   }
+
+   private static boolean isResolved(final Type type) {
+      boolean resolved =
+         type.asTypeVariable() == null && type.asWildcardType() == null;
+      final ParameterizedType pt = type.asParameterizedType();
+      if (resolved && pt != null) {
+         for (Type argument : pt.typeArguments()) {
+            if (!isResolved(argument)) {
+               resolved = false;
+               break;
+            }
+         }
+      }
+      return resolved;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString() {
+      return type.toString();
+   }
+
+   /**
+    * The model of a class, whose fields and getters are looked up the first
+    * time they're needed.
+    */
+   private static final class JavadocClassModel implements ClassModel {
+
+      private final ClassDoc classDoc;
+
+      private AccessorIndex.Accessors accessors;
+
+      private JavadocClassModel(final ClassDoc classDoc) {
+         this.classDoc = classDoc;
+      }
+
+      private AccessorIndex.Accessors accessors() {
+         if (accessors == null) {
+            accessors = DocTypeUtils.accessors(classDoc);
+         }
+         return accessors;
+      }
+
+      @Override
+      public String qualifiedName() {
+         return classDoc.qualifiedName();
+      }
+
+      @Override
+      public String commentText() {
+         return classDoc.commentText();
+      }
+
+      @Override
+      public boolean isEnum() {
+         return classDoc.isEnum();
+      }
+
+      @Override
+      public TypeModel superclassType() {
+         return classDoc.superclass() == null ? null : of(classDoc
+            .superclassType());
+      }
+
+      @Override
+      public List<TypeModel> interfaceTypes() {
+         final List<TypeModel> interfaces = new ArrayList<TypeModel>();
+         for (Type iface : classDoc.interfaceTypes()) {
+            interfaces.add(of(iface));
+         }
+         return interfaces;
+      }
+
+      @Override
+      public List<Member> methods() {
+         final List<Member> methods = new ArrayList<Member>();
+         for (MethodDoc method : classDoc.methods(false)) {
+            methods.add(new Method(method));
+         }
+         return methods;
+      }
+
+      @Override
+      public List<Member> enumConstants() {
+         return fields(classDoc.enumConstants());
+      }
+
+      @Override
+      public List<Member> constants() {
+         return fields(accessors().constants().toArray(new FieldDoc[0]));
+      }
+
+      @Override
+      public List<Member> getters() {
+         final List<Member> getters = new ArrayList<Member>();
+         for (MethodDoc method : accessors().getters()) {
+            getters.add(new Method(method));
+         }
+         return getters;
+      }
+
+      @Override
+      public Member field(final String name) {
+         final FieldDoc field = accessors().field(name);
+         return field == null ? null : new Field(field, accessors());
+      }
+
+      private List<Member> fields(final FieldDoc[] fieldDocs) {
+         final List<Member> fields = new ArrayList<Member>();
+         for (FieldDoc field : fieldDocs) {
+            fields.add(new Field(field, accessors()));
+         }
+         return fields;
+      }
+
+   }
+
+   /**
+    * The model of a field or enum constant.
+    */
+   private static final class Field implements ClassModel.Member {
+
+      private final FieldDoc field;
+
+      private final AccessorIndex.Accessors accessors;
+
+      private Field(final FieldDoc field,
+                    final AccessorIndex.Accessors accessors) {
+         this.field = field;
+         this.accessors = accessors;
+      }
+
+      @Override
+      public String name() {
+         return field.name();
+      }
+
+      @Override
+      public TypeModel type() {
+         return of(field.type());
+      }
+
+      @Override
+      public String commentText() {
+         return field.commentText();
+      }
+
+      @Override
+      public String rules() {
+         return accessors.rules(field);
+      }
+
+      @Override
+      public String signature() {
+         return "";
+      }
+
+   }
+
+   /**
+    * The model of a method.
+    */
+   private static final class Method implements ClassModel.Member {
+
+      private final MethodDoc method;
+
+      private Method(final MethodDoc method) {
+         this.method = method;
+      }
+
+      @Override
+      public String name() {
+         return method.name();
+      }
+
+      @Override
+      public TypeModel type() {
+         return of(method.returnType());
+      }
+
+      @Override
+      public String commentText() {
+         return method.commentText();
+      }
+
+      @Override
+      public String rules() {
+         return "";
+      }
+
+      @Override
+      public String signature() {
+         return method.signature();
+      }
+
+   }
+
+}
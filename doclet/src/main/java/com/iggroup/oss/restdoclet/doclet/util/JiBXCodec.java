@@ -0,0 +1,238 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util;
+
+import static com.iggroup.oss.restdoclet.doclet.util.JiBXUtils.ENCODING;
+import static com.iggroup.oss.restdoclet.doclet.util.JiBXUtils.INDENT;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jibx.runtime.BindingDirectory;
+import org.jibx.runtime.IBindingFactory;
+import org.jibx.runtime.IMarshallingContext;
+import org.jibx.runtime.IUnmarshallingContext;
+import org.jibx.runtime.JiBXException;
+
+/**
+ * Thread-safe facade marshalling and unmarshalling the documents bound by
+ * JiBX: controllers, services, lists of services and type registries.
+ * <p>
+ * The binding factory of a class is looked up once. Its marshalling and
+ * unmarshalling contexts are borrowed from a small pool per class, created
+ * when the pool is empty and returned to it once reset after a document. The
+ * pool is bounded and isn't tied to threads, so a web application doesn't
+ * leave contexts behind in the threads of its container when it is
+ * undeployed: the pools go with the class. Files
+ * are read and written through buffered streams that are closed before
+ * returning, whether or not the document could be (un)marshalled; streams
+ * passed by callers are left open.
+ */
+public final class JiBXCodec {
+
+   /**
+    * The size of the buffer of a file, in bytes.
+    */
+   private static final int BUFFER_SIZE = 8192;
+
+   /**
+    * The maximum number of idle contexts of each kind kept per class: the
+    * number of processors, the default number of threads the plugin writes
+    * services on. Documents marshalled on more threads at once use contexts
+    * that are dropped afterwards.
+    */
+   private static final int POOL_SIZE =
+      Runtime.getRuntime().availableProcessors();
+
+   /**
+    * The binding factories and idle contexts, keyed by bound class.
+    */
+   private static final ConcurrentMap<Class<?>, Pool> POOLS =
+      new ConcurrentHashMap<Class<?>, Pool>();
+
+   /**
+    * Constructor to "silence" PMD warning.
+    */
+   private JiBXCodec() {
+      super();
+   }
+
+   /**
+    * Marshals a document to a file.
+    *
+    * @param document the document: a controller, a service, a list of
+    *           services or a type registry.
+    * @param file the file the document is written to.
+    * @throws JiBXException if JiBX fails.
+    * @throws IOException if the file can't be written.
+    */
+   public static void marshal(final Object document, final File file)
+      throws JiBXException, IOException {
+      final OutputStream output =
+         new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+      try {
+         marshal(document, output);
+      } finally {
+         output.close();
+      }
+   }
+
+   /**
+    * Marshals a document to an output-stream, which is flushed but not
+    * closed.
+    *
+    * @param document the document: a controller, a service, a list of
+    *           services or a type registry.
+    * @param output the output-stream the document is written to.
+    * @throws JiBXException if JiBX fails.
+    */
+   public static void marshal(final Object document, final OutputStream output)
+      throws JiBXException {
+      final Pool pool = pool(document.getClass());
+      final IMarshallingContext context = pool.marshaller();
+      try {
+         context.setIndent(INDENT);
+         context.marshalDocument(document, ENCODING, null, output);
+      } finally {
+         context.reset();
+      }
+      pool.release(context);
+   }
+
+   /**
+    * Unmarshals a document from a file.
+    *
+    * @param <T> the type of the document.
+    * @param type the class of the document.
+    * @param file the file the document is read from.
+    * @return the document.
+    * @throws JiBXException if JiBX fails.
+    * @throws IOException if the file can't be read.
+    */
+   public static <T> T unmarshal(final Class<T> type, final File file)
+      throws JiBXException, IOException {
+      final InputStream input =
+         new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+      try {
+         return unmarshal(type, input);
+      } finally {
+         input.close();
+      }
+   }
+
+   /**
+    * Unmarshals a document from an input-stream, which isn't closed.
+    *
+    * @param <T> the type of the document.
+    * @param type the class of the document.
+    * @param input the input-stream the document is read from.
+    * @return the document.
+    * @throws JiBXException if JiBX fails.
+    */
+   public static <T> T unmarshal(final Class<T> type, final InputStream input)
+      throws JiBXException {
+      final Pool pool = pool(type);
+      final IUnmarshallingContext context = pool.unmarshaller();
+      final T document;
+      try {
+         document = type.cast(context.unmarshalDocument(input, ENCODING));
+      } finally {
+         context.reset();
+      }
+      pool.release(context);
+      return document;
+   }
+
+   /**
+    * Gets the pool of contexts of a class.
+    */
+   private static Pool pool(final Class<?> type) throws JiBXException {
+      Pool pool = POOLS.get(type);
+      if (pool == null) {
+         final Pool created = new Pool(BindingDirectory.getFactory(type));
+         pool = POOLS.putIfAbsent(type, created);
+         if (pool == null) {
+            pool = created;
+         }
+      }
+      return pool;
+   }
+
+   /**
+    * The binding factory of a class and its idle contexts.
+    */
+   private static final class Pool {
+
+      private final IBindingFactory factory;
+
+      private final BlockingQueue<IMarshallingContext> marshallers =
+         new ArrayBlockingQueue<IMarshallingContext>(POOL_SIZE);
+
+      private final BlockingQueue<IUnmarshallingContext> unmarshallers =
+         new ArrayBlockingQueue<IUnmarshallingContext>(POOL_SIZE);
+
+      private Pool(final IBindingFactory factory) {
+         this.factory = factory;
+      }
+
+      /**
+       * Takes an idle marshalling context or creates one if there is none.
+       */
+      private IMarshallingContext marshaller() throws JiBXException {
+         final IMarshallingContext context = marshallers.poll();
+         return context == null ? factory.createMarshallingContext() : context;
+      }
+
+      /**
+       * Takes an idle unmarshalling context or creates one if there is none.
+       */
+      private IUnmarshallingContext unmarshaller() throws JiBXException {
+         final IUnmarshallingContext context = unmarshallers.poll();
+         return context == null ? factory.createUnmarshallingContext()
+            : context;
+      }
+
+      /**
+       * Returns a reset marshalling context, dropped if the pool is full.
+       */
+      private void release(final IMarshallingContext context) {
+         marshallers.offer(context);
+      }
+
+      /**
+       * Returns a reset unmarshalling context, dropped if the pool is full.
+       */
+      private void release(final IUnmarshallingContext context) {
+         unmarshallers.offer(context);
+      }
+
+   }
+
+}
@@ -20,25 +20,20 @@
 package com.iggroup.oss.restdoclet.doclet.util;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.Writer;
 
-import org.jibx.runtime.BindingDirectory;
-import org.jibx.runtime.IBindingFactory;
-import org.jibx.runtime.IMarshallingContext;
-import org.jibx.runtime.IUnmarshallingContext;
 import org.jibx.runtime.JiBXException;
 
 import com.iggroup.oss.restdoclet.doclet.type.Controller;
 import com.iggroup.oss.restdoclet.doclet.type.Service;
 import com.iggroup.oss.restdoclet.doclet.type.Services;
+import com.iggroup.oss.restdoclet.doclet.type.TypeDocs;
 
 /**
- * Utility class for marshalling and unmarshalling using JiBX.
+ * Utility class for marshalling and unmarshalling using JiBX. The methods
+ * delegate to {@link JiBXCodec}, which callers should use directly.
  */
 public final class JiBXUtils {
 
@@ -70,13 +65,7 @@ public final class JiBXUtils {
    public static void marshallController(final Controller controller,
                                          final File file)
       throws JiBXException, IOException {
-      final Writer writer = new FileWriter(file);
-      final IBindingFactory factory =
-         BindingDirectory.getFactory(Controller.class);
-      final IMarshallingContext context = factory.createMarshallingContext();
-      context.setIndent(INDENT);
-      context.setOutput(writer);
-      context.marshalDocument(controller, ENCODING, null);
+      JiBXCodec.marshal(controller, file);
    }
 
    /**
@@ -85,16 +74,11 @@ public final class JiBXUtils {
     * @param file the file the controller has to be unmarshalled from.
     * @return the unmarshalled controller.
     * @throws JiBXException if JiBX fails.
-    * @throws FileNotFoundException if the input file can't be found.
+    * @throws IOException if the input file can't be read.
     */
    public static Controller unmarshallController(final File file)
-      throws JiBXException, FileNotFoundException {
-      final IBindingFactory factory =
-         BindingDirectory.getFactory(Controller.class);
-      final IUnmarshallingContext context =
-         factory.createUnmarshallingContext();
-      final InputStream stream = new FileInputStream(file);
-      return (Controller) context.unmarshalDocument(stream, ENCODING);
+      throws JiBXException, IOException {
+      return JiBXCodec.unmarshal(Controller.class, file);
    }
 
    /**
@@ -107,13 +91,7 @@ public final class JiBXUtils {
     */
    public static void marshallService(final Service service, final File file)
       throws JiBXException, IOException {
-      final Writer writer = new FileWriter(file);
-      final IBindingFactory factory =
-         BindingDirectory.getFactory(Service.class);
-      final IMarshallingContext context = factory.createMarshallingContext();
-      context.setIndent(INDENT);
-      context.setOutput(writer);
-      context.marshalDocument(service, ENCODING, null);
+      JiBXCodec.marshal(service, file);
    }
 
    /**
@@ -125,11 +103,7 @@ public final class JiBXUtils {
     */
    public static Service unmarshallService(final InputStream input)
       throws JiBXException {
-      final IBindingFactory factory =
-         BindingDirectory.getFactory(Service.class);
-      final IUnmarshallingContext context =
-         factory.createUnmarshallingContext();
-      return (Service) context.unmarshalDocument(input, ENCODING);
+      return JiBXCodec.unmarshal(Service.class, input);
    }
 
    /**
@@ -142,13 +116,7 @@ public final class JiBXUtils {
     */
    public static void marshallServices(final Services services, final File file)
       throws JiBXException, IOException {
-      final Writer writer = new FileWriter(file);
-      final IBindingFactory factory =
-         BindingDirectory.getFactory(Services.class);
-      final IMarshallingContext context = factory.createMarshallingContext();
-      context.setIndent(INDENT);
-      context.setOutput(writer);
-      context.marshalDocument(services, ENCODING, null);
+      JiBXCodec.marshal(services, file);
    }
 
    /**
@@ -161,11 +129,32 @@ public final class JiBXUtils {
     */
    public static Services unmarshallServices(final InputStream input)
       throws JiBXException, FileNotFoundException {
-      final IBindingFactory factory =
-         BindingDirectory.getFactory(Services.class);
-      final IUnmarshallingContext context =
-         factory.createUnmarshallingContext();
-      return (Services) context.unmarshalDocument(input, ENCODING);
+      return JiBXCodec.unmarshal(Services.class, input);
+   }
+
+   /**
+    * Static method for marshalling a type registry.
+    * 
+    * @param typeDocs the registry to be marshalled.
+    * @param file the file the registry has to be marshalled to.
+    * @throws JiBXException if JiBX fails.
+    * @throws IOException if an input- or output-exception occurs.
+    */
+   public static void marshallTypeDocs(final TypeDocs typeDocs, final File file)
+      throws JiBXException, IOException {
+      JiBXCodec.marshal(typeDocs, file);
+   }
+
+   /**
+    * Static method for unmarshalling a type registry.
+    * 
+    * @param input the input-stream the registry has to be unmarshalled from.
+    * @return the unmarshalled registry.
+    * @throws JiBXException if JiBX fails.
+    */
+   public static TypeDocs unmarshallTypeDocs(final InputStream input)
+      throws JiBXException {
+      return JiBXCodec.unmarshal(TypeDocs.class, input);
    }
 
 }
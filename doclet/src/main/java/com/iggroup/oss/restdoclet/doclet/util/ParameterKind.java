@@ -0,0 +1,109 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * The kinds of parameters the documentation of a controller's method lists,
+ * by the Spring annotations of the method's arguments. Both the doclet and
+ * the annotation processor classify arguments with {@link #of(Collection)},
+ * so they document the same parameters.
+ */
+public enum ParameterKind {
+
+   /**
+    * A request-parameter: an argument annotated with
+    * <code>@RequestParam</code> or <code>@RequestBody</code>.
+    */
+   REQUEST(RequestParam.class, RequestParam.class, RequestBody.class),
+
+   /**
+    * A path-parameter: an argument annotated with <code>@PathVariable</code>.
+    */
+   PATH(PathVariable.class, PathVariable.class),
+
+   /**
+    * A model-parameter: an argument annotated with
+    * <code>@ModelAttribute</code>.
+    */
+   MODEL(ModelAttribute.class, ModelAttribute.class),
+
+   /**
+    * A body-parameter: an argument annotated with <code>@RequestBody</code>,
+    * which is a request-parameter too.
+    */
+   BODY(RequestBody.class, RequestBody.class);
+
+   /**
+    * The annotation whose value names parameters of this kind.
+    */
+   private final Class<?> annotation;
+
+   /**
+    * The annotations making an argument a parameter of this kind.
+    */
+   private final Class<?>[] annotations;
+
+   private ParameterKind(final Class<?> annotation,
+                         final Class<?>... annotations) {
+      this.annotation = annotation;
+      this.annotations = annotations;
+   }
+
+   /**
+    * Gets the annotation whose <code>value</code> names parameters of this
+    * kind; unnamed parameters are named after the argument.
+    *
+    * @return the type of annotation.
+    */
+   public Class<?> getAnnotation() {
+      return annotation;
+   }
+
+   /**
+    * Classifies an argument of a method.
+    *
+    * @param annotationNames the qualified names of the types of the
+    *           argument's annotations.
+    * @return the kinds of parameters the argument is, empty if it isn't
+    *         documented.
+    */
+   public static Set<ParameterKind> of(final Collection<String> annotationNames) {
+      final Set<ParameterKind> kinds = EnumSet.noneOf(ParameterKind.class);
+      for (ParameterKind kind : values()) {
+         for (Class<?> type : kind.annotations) {
+            if (annotationNames.contains(type.getName())) {
+               kinds.add(kind);
+               break;
+            }
+         }
+      }
+      return kinds;
+   }
+
+}
@@ -0,0 +1,251 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.iggroup.oss.restdoclet.doclet.type.MethodSummary;
+import com.iggroup.oss.restdoclet.doclet.type.ServiceSummary;
+import com.iggroup.oss.restdoclet.doclet.type.Uri;
+
+/**
+ * Streams the listing of services (<code>restdoc-services.xml</code>) into
+ * {@link ServiceSummary} objects. Unlike
+ * {@link JiBXUtils#unmarshallServices(InputStream)}, the documentation of
+ * parameters is skipped over without being materialised and only the first
+ * sentence of each method's documentation is kept.
+ */
+public final class ServiceSummaryReader {
+
+   private static final String SERVICE = "service";
+
+   private static final String IDENTIFIER = "identifier";
+
+   private static final String URI = "uri";
+
+   private static final String DEPRECATED = "deprecated";
+
+   private static final String TYPE = "type";
+
+   private static final String CONTROLLER = "controller";
+
+   private static final String METHOD = "method";
+
+   private static final String NAME = "name";
+
+   private static final String REQUEST_METHOD = "request-method";
+
+   private static final String JAVADOC = "javadoc";
+
+   /**
+    * The end of the first sentence of documentation: a period followed by
+    * white space or a block-level HTML tag, as the Java documentation tool
+    * decides without a break-iterator.
+    */
+   private static final Pattern SENTENCE_END = Pattern.compile(
+      "\\.(?=\\s|$)|(?=<(?i:p|pre|table|ul|ol|dl|hr|h[1-6]|blockquote)[\\s/>])");
+
+   private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+   /**
+    * The factory of stream readers, which is thread-safe once configured.
+    */
+   private static final XMLInputFactory FACTORY = XMLInputFactory
+      .newInstance();
+
+   /**
+    * Private constructor to "silence" PMD.
+    */
+   private ServiceSummaryReader() {
+      super();
+   }
+
+   /**
+    * Reads the summaries of the services in a listing of services.
+    *
+    * @param input the input-stream of the listing.
+    * @return the summaries, sorted as {@link
+    *         com.iggroup.oss.restdoclet.doclet.type.Services#getServices()}
+    *         sorts services.
+    * @throws XMLStreamException if the listing can't be parsed.
+    */
+   public static List<ServiceSummary> readServices(final InputStream input)
+      throws XMLStreamException {
+      final List<ServiceSummary> services = new ArrayList<ServiceSummary>();
+      final XMLStreamReader reader =
+         FACTORY.createXMLStreamReader(input, JiBXUtils.ENCODING);
+      try {
+         while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT
+               && SERVICE.equals(reader.getLocalName())) {
+               services.add(readService(reader));
+            }
+         }
+      } finally {
+         reader.close();
+      }
+      Collections.sort(services);
+      return services;
+   }
+
+   /**
+    * Reads a service, from its start element to its end element.
+    *
+    * @param reader the reader positioned on the service's start element.
+    * @return the service's summary.
+    * @throws XMLStreamException if the service can't be parsed.
+    */
+   private static ServiceSummary readService(final XMLStreamReader reader)
+      throws XMLStreamException {
+      final ServiceSummary service = new ServiceSummary();
+      while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+         final String name = reader.getLocalName();
+         if (IDENTIFIER.equals(name)) {
+            service.setIdentifier(Integer.parseInt(reader.getElementText()
+               .trim()));
+         } else if (URI.equals(name)) {
+            service.addUri(readUri(reader));
+         } else if (CONTROLLER.equals(name)) {
+            readController(reader, service);
+         } else {
+            skipElement(reader);
+         }
+      }
+      return service;
+   }
+
+   /**
+    * Reads a URI, from its start element to its end element.
+    *
+    * @param reader the reader positioned on the URI's start element.
+    * @return the URI.
+    * @throws XMLStreamException if the URI can't be parsed.
+    */
+   private static Uri readUri(final XMLStreamReader reader)
+      throws XMLStreamException {
+      final Uri uri = new Uri();
+      while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+         final String name = reader.getLocalName();
+         if (URI.equals(name)) {
+            uri.setUri(reader.getElementText());
+         } else if (DEPRECATED.equals(name)) {
+            uri.setDeprecated(Boolean.parseBoolean(reader.getElementText()
+               .trim()));
+         } else if (TYPE.equals(name)) {
+            uri.setType(reader.getElementText());
+         } else {
+            skipElement(reader);
+         }
+      }
+      return uri;
+   }
+
+   /**
+    * Reads the methods of a service's controller, from its start element to
+    * its end element.
+    *
+    * @param reader the reader positioned on the controller's start element.
+    * @param service the service the methods are added to.
+    * @throws XMLStreamException if the controller can't be parsed.
+    */
+   private static void readController(final XMLStreamReader reader,
+                                      final ServiceSummary service)
+      throws XMLStreamException {
+      while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+         if (METHOD.equals(reader.getLocalName())) {
+            service.addMethod(readMethod(reader));
+         } else {
+            skipElement(reader);
+         }
+      }
+   }
+
+   /**
+    * Reads a method, from its start element to its end element. The method's
+    * URIs and parameters are skipped.
+    *
+    * @param reader the reader positioned on the method's start element.
+    * @return the method's summary.
+    * @throws XMLStreamException if the method can't be parsed.
+    */
+   private static MethodSummary readMethod(final XMLStreamReader reader)
+      throws XMLStreamException {
+      final MethodSummary method = new MethodSummary();
+      method.setSummary("");
+      while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+         final String name = reader.getLocalName();
+         if (NAME.equals(name)) {
+            method.setName(reader.getElementText());
+         } else if (REQUEST_METHOD.equals(name)) {
+            method.setRequestMethod(reader.getElementText());
+         } else if (JAVADOC.equals(name)) {
+            method.setSummary(summary(reader.getElementText()));
+         } else {
+            skipElement(reader);
+         }
+      }
+      return method;
+   }
+
+   /**
+    * Skips an element and all its content.
+    *
+    * @param reader the reader positioned on the element's start element.
+    * @throws XMLStreamException if the element can't be parsed.
+    */
+   private static void skipElement(final XMLStreamReader reader)
+      throws XMLStreamException {
+      int depth = 1;
+      while (depth > 0) {
+         final int event = reader.next();
+         if (event == XMLStreamConstants.START_ELEMENT) {
+            depth++;
+         } else if (event == XMLStreamConstants.END_ELEMENT) {
+            depth--;
+         }
+      }
+   }
+
+   /**
+    * Gets the first sentence of documentation, on a single line.
+    *
+    * @param javadoc the documentation.
+    * @return the first sentence.
+    */
+   public static String summary(final String javadoc) {
+      String summary = javadoc.trim();
+      final Matcher matcher = SENTENCE_END.matcher(summary);
+      if (matcher.find()) {
+         summary = summary.substring(0, matcher.end()).trim();
+      }
+      return WHITESPACE.matcher(summary).replaceAll(" ");
+   }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util;
+
+/**
+ * Limits of the documentation {@link TypeDocRenderer} renders for the type of
+ * a parameter, which otherwise nests the documentation of every type reachable
+ * through getters. A limit of zero or less means no limit.
+ * <p>
+ * Beyond a limit, the documentation of a type isn't nested: its attribute is
+ * documented by its own comment and refers to the type by name instead.
+ */
+public final class TypeDocBudget {
+
+   /**
+    * No limits.
+    */
+   public static final TypeDocBudget UNLIMITED = new TypeDocBudget(0, 0, 0);
+
+   /**
+    * The maximum number of nested levels of types.
+    */
+   private final int maxDepth;
+
+   /**
+    * The maximum number of attributes documented per type.
+    */
+   private final int maxAttributes;
+
+   /**
+    * The maximum length of the documentation, in characters.
+    */
+   private final int maxLength;
+
+   /**
+    * Constructs a budget.
+    *
+    * @param maxDepth the maximum number of nested levels of types: the
+    *           documentation of the attributes of a type at this level
+    *           doesn't nest that of their types.
+    * @param maxAttributes the maximum number of attributes documented per
+    *           type; the others are counted in a last row.
+    * @param maxLength the maximum length of the documentation, in characters:
+    *           once reached, the documentation of types isn't nested
+    *           anymore.
+    */
+   public TypeDocBudget(final int maxDepth, final int maxAttributes,
+                        final int maxLength) {
+      super();
+      this.maxDepth = maxDepth;
+      this.maxAttributes = maxAttributes;
+      this.maxLength = maxLength;
+   }
+
+   /**
+    * Gets the maximum number of nested levels of types.
+    *
+    * @return the maximum, zero or less for no limit.
+    */
+   public int getMaxDepth() {
+      return maxDepth;
+   }
+
+   /**
+    * Gets the maximum number of attributes documented per type.
+    *
+    * @return the maximum, zero or less for no limit.
+    */
+   public int getMaxAttributes() {
+      return maxAttributes;
+   }
+
+   /**
+    * Gets the maximum length of the documentation.
+    *
+    * @return the maximum, in characters, zero or less for no limit.
+    */
+   public int getMaxLength() {
+      return maxLength;
+   }
+
+   /**
+    * Checks if types may be nested at a level.
+    *
+    * @param depth the level, zero for the parameter's type.
+    * @return <code>true</code> if within the budget.
+    */
+   boolean allowsDepth(final int depth) {
+      return maxDepth <= 0 || depth <= maxDepth;
+   }
+
+   /**
+    * Checks if an attribute may be documented.
+    *
+    * @param attributes the number of attributes of the type documented so
+    *           far.
+    * @return <code>true</code> if within the budget.
+    */
+   boolean allowsAttribute(final int attributes) {
+      return maxAttributes <= 0 || attributes < maxAttributes;
+   }
+
+   /**
+    * Checks if documentation may be nested.
+    *
+    * @param length the length of the documentation so far.
+    * @return <code>true</code> if within the budget.
+    */
+   boolean allowsLength(final int length) {
+      return maxLength <= 0 || length < maxLength;
+   }
+
+   /**
+    * Gets the length documentation may grow to.
+    *
+    * @return the maximum length, {@link Integer#MAX_VALUE} for no limit.
+    */
+   int lengthLimit() {
+      return maxLength <= 0 ? Integer.MAX_VALUE : maxLength;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString() {
+      return "depth " + maxDepth + ", attributes " + maxAttributes
+         + ", length " + maxLength;
+   }
+
+}
@@ -0,0 +1,309 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-run cache of the documentation rendered by {@link TypeDocRenderer} for
+ * a type.
+ * <p>
+ * The documentation of a type depends on the types already processed by the
+ * enclosing rendering, which guard against recursion. An entry therefore
+ * remembers every processed-type lookup made while it was rendered (and the
+ * answer it got) together with the types it added. It is only reused while
+ * the same lookups would get the same answers, and reusing it adds the same
+ * types, so cycle handling is exactly that of a fresh rendering.
+ * <p>
+ * Instances are not thread-safe, as their renderers aren't.
+ */
+final class TypeDocCache {
+
+   /**
+    * The cached entries keyed by type and leaf flag.
+    */
+   private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+   /**
+    * The renderings in progress, innermost first.
+    */
+   private final LinkedList<Recorder> recorders = new LinkedList<Recorder>();
+
+   private long hits;
+
+   private long misses;
+
+   /**
+    * Gets the cache key of a type.
+    *
+    * @param type the type.
+    * @param leafType <code>true</code> if the type is rendered as a leaf.
+    * @return the key or <code>null</code> if the type involves type variables
+    *         or wildcards, whose names don't identify them.
+    */
+   static String key(final TypeModel type, final boolean leafType) {
+      String key = null;
+      if (type.isResolved()) {
+         key = type.toString() + (leafType ? "#leaf" : "#base");
+      }
+      return key;
+   }
+
+   /**
+    * Gets the cached documentation of a type, if it is valid for the types
+    * processed so far. On a hit, the types the cached rendering processed are
+    * added to <code>processedTypes</code>.
+    *
+    * @param key the type's key.
+    * @param processedTypes the types processed so far.
+    * @param maxLength the length the documentation may have, beyond which it
+    *           has to be rendered within the budget.
+    * @return the documentation or <code>null</code> if it has to be rendered.
+    */
+   String get(final String key, final List<String> processedTypes,
+              final int maxLength) {
+      String doc = null;
+      final Entry entry = entries.get(key);
+      if (entry != null && entry.doc.length() <= maxLength
+         && entry.isValid(processedTypes)) {
+         for (Map.Entry<String, Boolean> probe : entry.probes.entrySet()) {
+            record(processedTypes, probe.getKey(), probe.getValue());
+         }
+         processedTypes.addAll(entry.added);
+         doc = entry.doc;
+         hits++;
+      } else {
+         misses++;
+      }
+      return doc;
+   }
+
+   /**
+    * Starts recording a rendering.
+    *
+    * @param processedTypes the types processed so far.
+    * @return the recorder of the rendering.
+    */
+   Recorder begin(final List<String> processedTypes) {
+      final Recorder recorder =
+         new Recorder(processedTypes, processedTypes.size());
+      recorders.addFirst(recorder);
+      return recorder;
+   }
+
+   /**
+    * Stops recording a rendering.
+    *
+    * @param recorder the recorder returned by {@link #begin(List)}.
+    */
+   void end(final Recorder recorder) {
+      recorders.remove(recorder);
+   }
+
+   /**
+    * Caches a rendering.
+    *
+    * @param key the type's key.
+    * @param recorder the recorder of the rendering.
+    * @param doc the rendered documentation.
+    * @param processedTypes the types processed, including those added by the
+    *           rendering.
+    */
+   void put(final String key, final Recorder recorder, final String doc,
+            final List<String> processedTypes) {
+      if (!recorder.truncated) {
+         entries.put(key, new Entry(doc, new ArrayList<String>(processedTypes
+            .subList(recorder.start, processedTypes.size())), recorder.probes));
+      }
+   }
+
+   /**
+    * Marks the renderings in progress as cut short by the budget, so they're
+    * not cached: they depend on where they're nested, and their budget hits
+    * are reported every time they're rendered.
+    */
+   void truncated() {
+      for (Recorder recorder : recorders) {
+         recorder.truncated = true;
+      }
+   }
+
+   /**
+    * Checks if a type has been processed, recording the lookup in the
+    * renderings in progress.
+    *
+    * @param processedTypes the types processed so far.
+    * @param name the name of the type.
+    * @return <code>true</code> if the type has been processed.
+    */
+   boolean contains(final List<String> processedTypes, final String name) {
+      final boolean result = processedTypes.contains(name);
+      record(processedTypes, name, result);
+      return result;
+   }
+
+   /**
+    * Records a lookup in the renderings for which its answer depends on what
+    * was processed before they started. Renderings of the same type list are
+    * affected only; a nested rendering started with a fresh list (as for the
+    * type argument of a parameterised type) is independent of its caller.
+    *
+    * @param processedTypes the types processed so far.
+    * @param name the name of the type looked up.
+    * @param result the answer to the lookup.
+    */
+   private void record(final List<String> processedTypes, final String name,
+                       final boolean result) {
+      for (Recorder recorder : recorders) {
+         if (recorder.processedTypes == processedTypes
+            && !recorder.probes.containsKey(name)
+            && !processedTypes.subList(recorder.start, processedTypes.size())
+               .contains(name)) {
+            recorder.probes.put(name, result);
+         }
+      }
+   }
+
+   /**
+    * Removes all entries and resets the statistics.
+    */
+   void clear() {
+      entries.clear();
+      recorders.clear();
+      hits = 0;
+      misses = 0;
+   }
+
+   /**
+    * Gets the number of cached entries.
+    *
+    * @return the number of entries.
+    */
+   int size() {
+      return entries.size();
+   }
+
+   /**
+    * Gets the number of lookups answered from this cache.
+    *
+    * @return the number of hits.
+    */
+   long getHits() {
+      return hits;
+   }
+
+   /**
+    * Gets the number of lookups that had to render documentation.
+    *
+    * @return the number of misses.
+    */
+   long getMisses() {
+      return misses;
+   }
+
+   /**
+    * A rendering in progress.
+    */
+   static final class Recorder {
+
+      /**
+       * The types processed by the rendering and its callers.
+       */
+      private final List<String> processedTypes;
+
+      /**
+       * The number of types processed when the rendering started.
+       */
+      private final int start;
+
+      /**
+       * The lookups of types processed before the rendering started.
+       */
+      private final Map<String, Boolean> probes =
+         new LinkedHashMap<String, Boolean>();
+
+      /**
+       * Whether the rendering was cut short by the budget.
+       */
+      private boolean truncated;
+
+      /**
+       * Constructs a recorder.
+       *
+       * @param processedTypes the types processed so far.
+       * @param start the number of types processed so far.
+       */
+      private Recorder(final List<String> processedTypes, final int start) {
+         this.processedTypes = processedTypes;
+         this.start = start;
+      }
+
+   }
+
+   /**
+    * A cached rendering.
+    */
+   private static final class Entry {
+
+      private final String doc;
+
+      private final List<String> added;
+
+      private final Map<String, Boolean> probes;
+
+      /**
+       * Constructs an entry.
+       *
+       * @param doc the rendered documentation.
+       * @param added the types processed by the rendering.
+       * @param probes the lookups of types processed before the rendering.
+       */
+      private Entry(final String doc, final List<String> added,
+                    final Map<String, Boolean> probes) {
+         this.doc = doc;
+         this.added = added;
+         this.probes = probes;
+      }
+
+      /**
+       * Checks if the lookups made by the rendering get the same answers.
+       *
+       * @param processedTypes the types processed so far.
+       * @return <code>true</code> if the rendering can be reused.
+       */
+      private boolean isValid(final List<String> processedTypes) {
+         boolean valid = true;
+         for (Map.Entry<String, Boolean> probe : probes.entrySet()) {
+            if (processedTypes.contains(probe.getKey()) != probe.getValue()) {
+               valid = false;
+               break;
+            }
+         }
+         return valid;
+      }
+
+   }
+
+}
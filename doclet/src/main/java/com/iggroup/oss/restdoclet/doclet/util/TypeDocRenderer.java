@@ -0,0 +1,552 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+import com.iggroup.oss.restdoclet.doclet.type.BaseType;
+import com.iggroup.oss.restdoclet.doclet.type.TypeDocs;
+
+/**
+ * Renders the documentation of types: a table of their attributes, with the
+ * documentation of the attributes' types nested within a
+ * {@link TypeDocBudget}. The doclet and the annotation processor both render
+ * through it, from their own {@link TypeModel}s, so their documentation is
+ * the same.
+ * <p>
+ * Instances hold the documentation rendered so far (see
+ * {@link TypeDocCache}) and aren't thread-safe; the doclet model is walked,
+ * and annotation processors are run, by a single thread.
+ */
+public final class TypeDocRenderer {
+
+   private static final Logger LOG = Logger.getLogger(TypeDocRenderer.class);
+
+   private static final String IS_PREFIX = "is";
+   private static final String GETTER_PREFIX = "get";
+   private static final String TABLE_START = "<table>";
+   private static final String TABLE_END = "</table>";
+
+   /**
+    * Documentation already rendered.
+    */
+   private final TypeDocCache cache = new TypeDocCache();
+
+   /**
+    * The registry the documentation of parameters' types is added to, or
+    * <code>null</code> to inline it in the parameters' documentation.
+    */
+   private TypeDocs typeDocs;
+
+   /**
+    * The limits of the documentation rendered for a type.
+    */
+   private TypeDocBudget budget = TypeDocBudget.UNLIMITED;
+
+   /**
+    * The level of the type being rendered, zero for the type whose
+    * documentation is asked for.
+    */
+   private int depth;
+
+   /**
+    * The number of types not nested by the last rendering because of the
+    * depth budget.
+    */
+   private int depthHits;
+
+   /**
+    * The number of attributes not documented by the last rendering because
+    * of the attribute budget.
+    */
+   private int attributeHits;
+
+   /**
+    * The number of types not nested by the last rendering because of the
+    * length budget.
+    */
+   private int lengthHits;
+
+   /**
+    * Sets the registry the documentation of parameters' types is added to.
+    *
+    * @param registry the registry or <code>null</code> to inline the
+    *           documentation of types in the parameters' documentation.
+    */
+   public void setTypeDocs(final TypeDocs registry) {
+      typeDocs = registry;
+   }
+
+   /**
+    * Sets the limits of the documentation rendered for a type.
+    *
+    * @param limits the limits, {@link TypeDocBudget#UNLIMITED} for none.
+    */
+   public void setBudget(final TypeDocBudget limits) {
+      budget = limits;
+   }
+
+   /**
+    * Documents a parameter with the documentation of its type, as returned by
+    * {@link #getTypeDoc(TypeModel)}. If a registry is set (see
+    * {@link #setTypeDocs(TypeDocs)}), the documentation is registered once and
+    * the parameter refers to it; otherwise it becomes the parameter's
+    * documentation.
+    *
+    * @param param the parameter to document.
+    * @param type the parameter's type.
+    * @return <code>true</code> if the type is documented, <code>false</code>
+    *         if the parameter is left alone.
+    */
+   public boolean initTypeDoc(final BaseType param, final TypeModel type) {
+      final String doc = getTypeDoc(type);
+      if (depthHits > 0 || attributeHits > 0 || lengthHits > 0) {
+         LOG.warn("Documentation of " + param.getName() + " (" + type
+            + ") cut short by the budget (" + budget + "): " + depthHits
+            + " types too deep, " + attributeHits + " attributes too many, "
+            + lengthHits + " types too long");
+      }
+      final boolean documented = !doc.isEmpty();
+      if (documented) {
+         if (typeDocs == null) {
+            param.setJavadoc(doc);
+         } else {
+            param.setTypeDoc(typeDocs.register(type.toString(), doc));
+         }
+      }
+      return documented;
+   }
+
+   /**
+    * Returns as a string a list of attributes plus comments for the given
+    * type, formatted in an HTML table. This method will recurse if attributes
+    * are non java types, within the budget (see
+    * {@link #setBudget(TypeDocBudget)})
+    *
+    * @param type type info
+    * @return attribute data for the given type, empty if there is none
+    */
+   public String getTypeDoc(final TypeModel type) {
+      depth = 0;
+      depthHits = 0;
+      attributeHits = 0;
+      lengthHits = 0;
+      final StringBuilder buffer = new StringBuilder();
+      appendTypeDoc(type, buffer);
+      return buffer.toString();
+   }
+
+   /**
+    * Appends the documentation of a type, as returned by
+    * {@link #getTypeDoc(TypeModel)}, to a buffer shared with any enclosing
+    * rendering.
+    *
+    * @param type type info
+    * @param buffer the buffer
+    */
+   private void appendTypeDoc(final TypeModel type, final StringBuilder buffer) {
+      final int start = buffer.length();
+      appendTypeDoc(type, new ArrayList<String>(), true, buffer);
+      if (LOG.isInfoEnabled()) {
+         final String typeDoc = buffer.substring(start);
+         if (!typeDoc.trim().isEmpty()) {
+            LOG.info("Got documentation for type " + type + " : " + typeDoc);
+         }
+      }
+   }
+
+   /**
+    * Appends a list of attributes plus comments for the given iggroup complex
+    * type (or nothing if not iggroup), formatted in an HTML table, reusing
+    * the documentation already rendered if it's still valid. This method
+    * will recurse if attributes are iggroup complex types
+    *
+    * @param type
+    * @param processedTypes
+    * @param leafType
+    * @param buffer
+    */
+   private void appendTypeDoc(final TypeModel type,
+                              final List<String> processedTypes,
+                              final boolean leafType,
+                              final StringBuilder buffer) {
+
+      String key = TypeDocCache.key(type, leafType);
+      if (key != null
+         && (budget.getMaxDepth() > 0 || budget.getMaxAttributes() > 0)) {
+         // renderings within these budgets depend on them and on the level
+         key +=
+            "@" + depth + "/" + budget.getMaxDepth() + "/"
+               + budget.getMaxAttributes();
+      }
+      final int maxLength = budget.lengthLimit() - buffer.length();
+      final String cached =
+         key == null ? null : cache.get(key, processedTypes, maxLength);
+      if (cached != null) {
+         buffer.append(cached);
+      } else if (key == null) {
+         renderTypeDoc(type, processedTypes, leafType, buffer);
+      } else {
+         final int start = buffer.length();
+         final TypeDocCache.Recorder recorder = cache.begin(processedTypes);
+         try {
+            renderTypeDoc(type, processedTypes, leafType, buffer);
+            cache.put(key, recorder, buffer.substring(start), processedTypes);
+         } finally {
+            cache.end(recorder);
+         }
+      }
+   }
+
+   /**
+    * Renders the documentation of a type, see
+    * {@link #appendTypeDoc(TypeModel, List, boolean, StringBuilder)}.
+    *
+    * @param type
+    * @param processedTypes
+    * @param leafType
+    * @param buffer
+    */
+   private void renderTypeDoc(final TypeModel type,
+                              final List<String> processedTypes,
+                              final boolean leafType,
+                              final StringBuilder buffer) {
+
+      LOG.debug("getTypeDoc " + type + " leafType=" + leafType);
+
+      final ClassModel typeDoc = type.asClass();
+
+      if (typeDoc != null) {
+
+         // if this is a generic type then recurse with the last type argument
+         if (isParameterisedType(type)) {
+
+            LOG.debug(type.qualifiedTypeName());
+            final List<? extends TypeModel> typeArguments =
+               type.typeArguments();
+            appendTypeDoc(typeArguments.get(typeArguments.size() - 1), buffer);
+
+         } else if (isRelevantType(type)) {
+
+            if (LOG.isDebugEnabled()) {
+               LOG.debug(typeDoc.qualifiedName());
+               LOG.debug(" - " + typeDoc.commentText());
+            }
+
+            processedTypes.add(type.qualifiedTypeName());
+
+            // Wrap in a table tag if this is concrete type, dropped again
+            // below if nothing is documented
+            final int start = buffer.length();
+            if (leafType) {
+               buffer.append(TABLE_START);
+            }
+            final int content = buffer.length();
+
+            if (leafType && !typeDoc.commentText().isEmpty()) {
+               buffer.append(typeDoc.commentText());
+            }
+
+            if (typeDoc.isEnum()) {
+
+               appendEnumDoc(typeDoc, buffer);
+
+            } else { // class
+
+               LOG.debug("class type");
+
+               // first do base class
+               final TypeModel superclass = typeDoc.superclassType();
+               if (superclass != null) {
+
+                  LOG.debug("base type = " + superclass.qualifiedTypeName());
+
+                  final int row = buffer.length();
+                  buffer.append("<tr><td>");
+                  final int cell = buffer.length();
+                  appendTypeDoc(superclass, processedTypes, false, buffer);
+                  if (buffer.length() == cell) {
+                     buffer.setLength(row);
+                  } else {
+                     buffer.append("</td></tr>");
+                  }
+               }
+
+               appendPublicConstantDoc(typeDoc, buffer);
+
+               int attributes = 0;
+               int omitted = 0;
+               for (ClassModel.Member method : typeDoc.getters()) {
+                  if (budget.allowsAttribute(attributes)) {
+                     appendAttributeDoc(typeDoc, method, processedTypes,
+                        buffer);
+                     attributes++;
+                  } else {
+                     omitted++;
+                  }
+               }
+               if (omitted > 0) {
+                  attributeHits += omitted;
+                  cache.truncated();
+                  buffer.append("<tr><td>...</td><td>[See: ")
+                     .append(type.qualifiedTypeName()).append(", ")
+                     .append(omitted).append(" more attributes]</td></tr>");
+               }
+            }
+
+            if (leafType) {
+               if (buffer.length() == content) {
+                  buffer.setLength(start);
+               } else {
+                  buffer.append(TABLE_END);
+               }
+            }
+         }
+
+      }
+
+   }
+
+   /**
+    * Append the documentation for an enum type
+    *
+    * @param typeDoc
+    * @param buffer
+    */
+   private static void appendEnumDoc(final ClassModel typeDoc,
+                                     final StringBuilder buffer) {
+
+      for (ClassModel.Member constant : typeDoc.enumConstants()) {
+         buffer.append("<TR>");
+         buffer.append("<TD>").append(constant.name()).append("</TD>");
+         buffer.append("<TD>").append(constant.commentText()).append("</TD>");
+         buffer.append("</TR>");
+      }
+
+   }
+
+   /**
+    * Append the documentation for public constants
+    *
+    * @param typeDoc
+    * @param buffer
+    */
+   private static void appendPublicConstantDoc(final ClassModel typeDoc,
+                                               final StringBuilder buffer) {
+
+      for (ClassModel.Member field : typeDoc.constants()) {
+
+         buffer.append("<tr><td>").append(field.type().simpleTypeName())
+            .append(' ').append(field.name()).append("</td><td>")
+            .append(field.commentText()).append("</td></tr>");
+
+      }
+
+   }
+
+   /**
+    * Appends the documentation of an attribute, as a row with its type and
+    * name, and the documentation of its type if it's to be nested, its own
+    * comment otherwise.
+    *
+    * @param typeDoc the class of which it is an attribute
+    * @param method the attribute's getter
+    * @param processedTypes the types processed so far
+    * @param buffer the buffer
+    */
+   private void appendAttributeDoc(final ClassModel typeDoc,
+                                   final ClassModel.Member method,
+                                   final List<String> processedTypes,
+                                   final StringBuilder buffer) {
+
+      final TypeModel returnType = method.type();
+      final String attributeName = getAttributeNameFromMethod(method.name());
+
+      buffer.append("<tr><td>");
+      buffer.append(returnType.simpleTypeName());
+
+      // check if is this a parameterised type
+      final List<? extends TypeModel> typeArguments =
+         returnType.typeArguments();
+      if (!typeArguments.isEmpty()) {
+
+         buffer.append('[');
+         for (int i = 0; i < typeArguments.size(); i++) {
+            buffer.append(typeArguments.get(i).simpleTypeName());
+            if (i < typeArguments.size() - 1) {
+               buffer.append(", ");
+            }
+         }
+         buffer.append(']');
+
+      }
+
+      // Check if this is an array
+      buffer.append(returnType.dimension());
+
+      buffer.append(' ').append(attributeName).append("</td>");
+
+      buffer.append("<td>");
+      // If type or parameterised type then recurse
+      if (!cache.contains(processedTypes, returnType.qualifiedTypeName())
+         && isRelevantType(returnType)) {
+
+         if (!budget.allowsDepth(depth + 1)) {
+            depthHits++;
+            appendReference(typeDoc, returnType, attributeName, method, buffer);
+         } else if (!budget.allowsLength(buffer.length())) {
+            lengthHits++;
+            appendReference(typeDoc, returnType, attributeName, method, buffer);
+         } else {
+            depth++;
+            try {
+               appendTypeDoc(returnType, processedTypes, true, buffer);
+            } finally {
+               depth--;
+            }
+         }
+
+      } else {
+
+         appendFieldDoc(typeDoc, attributeName, method.commentText(), buffer);
+
+      }
+      buffer.append("</td></tr>");
+   }
+
+   /**
+    * Appends the documentation of an attribute whose type is beyond the
+    * budget: its own comment, and the name of its type instead of the type's
+    * documentation.
+    *
+    * @param typeDoc the class of which it is an attribute
+    * @param returnType the attribute's type
+    * @param attributeName the attribute's name
+    * @param method the attribute's getter
+    * @param buffer the buffer
+    */
+   private void appendReference(final ClassModel typeDoc,
+                                final TypeModel returnType,
+                                final String attributeName,
+                                final ClassModel.Member method,
+                                final StringBuilder buffer) {
+      cache.truncated();
+      appendFieldDoc(typeDoc, attributeName, method.commentText(), buffer);
+      buffer.append("<br>[See: ").append(returnType.toString()).append(']');
+   }
+
+   /**
+    * Append the documentation for a field: the longer of its comment and its
+    * getter's, followed by its validation rules.
+    *
+    * @param typeDoc
+    * @param attributeName
+    * @param methodComment
+    * @param buffer
+    */
+   private static void appendFieldDoc(final ClassModel typeDoc,
+                                      final String attributeName,
+                                      final String methodComment,
+                                      final StringBuilder buffer) {
+
+      LOG.debug("getFieldDoc " + typeDoc.qualifiedName() + " - "
+         + attributeName + " - " + methodComment);
+
+      final ClassModel.Member field = typeDoc.field(attributeName);
+      if (field != null) {
+         final String fieldComment = field.commentText();
+         if (methodComment.length() > fieldComment.length()) {
+            buffer.append(methodComment);
+         } else {
+            buffer.append(fieldComment);
+         }
+         // see if there are any validation
+         // constraints
+         buffer.append(field.rules());
+      }
+
+   }
+
+   /**
+    * Return true if this is not a java type
+    *
+    * @param type
+    * @return
+    */
+   private static boolean isRelevantType(final TypeModel type) {
+      final ClassModel classDoc = type.asClass();
+      return classDoc != null && classDoc.qualifiedName().indexOf("java") != 0
+         || isParameterisedType(type);
+   }
+
+   /**
+    * Return true if this this a parameterised type
+    *
+    * @param type
+    * @return
+    */
+   private static boolean isParameterisedType(final TypeModel type) {
+      return !type.typeArguments().isEmpty();
+   }
+
+   /**
+    * Derive an attribute name from a getter/setter
+    *
+    * @param methodName
+    * @return the methodName without the leading is/get/set
+    */
+   private static String getAttributeNameFromMethod(final String methodName) {
+
+      String attributeName;
+      if (methodName.startsWith(IS_PREFIX)) {
+         attributeName = methodName.substring(IS_PREFIX.length());
+      } else {
+         attributeName = methodName.substring(GETTER_PREFIX.length());
+      }
+
+      if (!attributeName.isEmpty()) {
+         attributeName =
+            attributeName.substring(0, 1).toLowerCase()
+               + attributeName.substring(1);
+      }
+
+      return attributeName;
+   }
+
+   /**
+    * Clears the documentation rendered so far.
+    */
+   public void clear() {
+      cache.clear();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString() {
+      return cache.size() + " types, " + cache.getHits() + " hits, "
+         + cache.getMisses() + " misses";
+   }
+
+}
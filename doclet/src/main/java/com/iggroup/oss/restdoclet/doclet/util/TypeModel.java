@@ -0,0 +1,89 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util;
+
+import java.util.List;
+
+/**
+ * A type whose documentation {@link TypeDocRenderer} renders, as the Java
+ * documentation tool names it, whichever front end it comes from: the
+ * doclet's Java documentation objects or the annotation processor's
+ * language model.
+ */
+public interface TypeModel {
+
+   /**
+    * Gets the class of this type: the class of the component type of arrays
+    * and the class of the erasure of type variables and wildcards.
+    *
+    * @return the class or <code>null</code> for primitive types.
+    */
+   ClassModel asClass();
+
+   /**
+    * Gets the qualified name of this type, without type arguments or
+    * dimension; type variables are named by their simple name.
+    *
+    * @return the name.
+    */
+   String qualifiedTypeName();
+
+   /**
+    * Gets the name of this type without its package, so nested classes are
+    * prefixed with the enclosing classes, and without type arguments or
+    * dimension.
+    *
+    * @return the name.
+    */
+   String simpleTypeName();
+
+   /**
+    * Gets the type arguments of this type, or of its component type if it's
+    * an array.
+    *
+    * @return the type arguments, empty if the type isn't parameterised.
+    */
+   List<? extends TypeModel> typeArguments();
+
+   /**
+    * Gets the dimension of this type.
+    *
+    * @return <code>[]</code> per dimension, empty if it isn't an array.
+    */
+   String dimension();
+
+   /**
+    * Checks if this type and its type arguments are all named types, i.e. if
+    * its documentation doesn't depend on where it is used.
+    *
+    * @return <code>true</code> if the type's name identifies it.
+    */
+   boolean isResolved();
+
+   /**
+    * Gets the text of this type: qualified names, with type arguments
+    * separated by a comma and a space.
+    *
+    * @return the text.
+    */
+   @Override
+   String toString();
+
+}
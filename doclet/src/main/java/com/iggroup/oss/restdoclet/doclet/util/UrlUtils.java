@@ -19,9 +19,14 @@
  */
 package com.iggroup.oss.restdoclet.doclet.util;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+
+import com.iggroup.oss.restdoclet.doclet.type.Uri;
 
 /**
  * Contains utility methods for parsing URLs defined in
@@ -32,6 +37,14 @@ import org.apache.commons.lang.StringUtils;
  */
 public final class UrlUtils {
 
+   private static final Logger LOG = Logger.getLogger(UrlUtils.class);
+
+   /**
+    * The tag listing the deprecated URIs of a method, in the form of
+    * {@link #parseMultiUri(String)}. Tags whose name contains it match.
+    */
+   public static final String DEPRECATED_TAG = "uriDeprecated";
+
    /**
     * The pattern of URLs defined in <code>RESTURLTreeHandlerMapping</code>.
     */
@@ -62,4 +75,54 @@ public final class UrlUtils {
 
       return value.split(",");
    }
+
+   /**
+    * Checks if a tag lists the deprecated URIs of a method.
+    * 
+    * @param tagName the name of the tag.
+    * @return <code>true</code> if the name contains {@link #DEPRECATED_TAG}.
+    */
+   public static boolean isDeprecatedTag(final String tagName) {
+      return StringUtils.contains(tagName, DEPRECATED_TAG);
+   }
+
+   /**
+    * Gets the URIs a method is mapped to, flagging the deprecated ones. A
+    * warning is logged if none of the deprecated URIs is mapped.
+    * 
+    * @param mapping the value of the method's <code>@RequestMapping</code>,
+    *           in the form of {@link #parseMultiUri(String)}.
+    * @param deprecatedURIs the URIs listed by the method's
+    *           {@link #DEPRECATED_TAG} tag or <code>null</code> if it has
+    *           none.
+    * @param methodName the name of the method.
+    * @return the URIs, in the order they're mapped.
+    */
+   public static List<Uri> parseUris(final String mapping,
+                                     final String[] deprecatedURIs,
+                                     final String methodName) {
+      final List<Uri> uris = new ArrayList<Uri>();
+      boolean deprecatedMatch = false;
+      for (final String uri : parseMultiUri(mapping)) {
+         LOG.debug("uri:" + uri);
+         boolean deprecated = false;
+         if (deprecatedURIs != null) {
+            for (final String deprecatedUri : deprecatedURIs) {
+               LOG.debug("deprecated:" + deprecatedUri);
+               if (StringUtils.equals(deprecatedUri, uri)) {
+                  LOG.debug("=DEPRECATED");
+                  deprecated = true;
+                  deprecatedMatch = true;
+                  break;
+               }
+            }
+         }
+         uris.add(new Uri(uri, deprecated));
+      }
+      if (deprecatedURIs != null && !deprecatedMatch) {
+         LOG.warn("Deprecated URI tag on method " + methodName
+            + " does not match any service URIs.");
+      }
+      return uris;
+   }
 }
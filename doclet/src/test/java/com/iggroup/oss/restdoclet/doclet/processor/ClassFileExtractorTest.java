@@ -0,0 +1,140 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.iggroup.oss.restdoclet.doclet.util.DocTypeUtilsTest;
+import com.iggroup.oss.restdoclet.doclet.util.JavadocFixture;
+
+/**
+ * Checks the documentation the extractor generates from class files is the
+ * same, byte for byte, as the doclet's from the sources.
+ */
+public class ClassFileExtractorTest {
+
+   /**
+    * The sources of the nested controller, relative to this module.
+    */
+   private static final String NESTED_SOURCES = "src/test/java";
+
+   /**
+    * The package of the nested controller.
+    */
+   private static final String NESTED =
+      "com.iggroup.oss.restdoclet.doclet.processor.nested";
+
+   /**
+    * The directory of the class files.
+    */
+   private File classes;
+
+   /**
+    * The directory the extractor writes to.
+    */
+   private File output;
+
+   /**
+    * Creates the directories.
+    *
+    * @throws IOException if a directory can't be created.
+    */
+   @Before
+   public void setUp() throws IOException {
+      classes = ControllerProcessorTest.createDirectory();
+      output = ControllerProcessorTest.createDirectory();
+   }
+
+   /**
+    * Deletes the directories.
+    */
+   @After
+   public void tearDown() {
+      ControllerProcessorTest.delete(classes);
+      ControllerProcessorTest.delete(output);
+   }
+
+   /**
+    * Compiles some packages and extracts the documentation of their
+    * controllers from the class files.
+    *
+    * @param sourcepath the sources.
+    * @param packages the packages.
+    * @return the extractor.
+    * @throws IOException if the documentation can't be written.
+    */
+   private ClassFileExtractor extract(final String sourcepath,
+                                      final String... packages)
+      throws IOException {
+      final String classpath = ControllerProcessorTest.classpath();
+      JavadocFixture.compile(sourcepath, classpath, classes, packages);
+      final ClassFileExtractor extractor =
+         new ClassFileExtractor(classes, JavadocFixture.sources(sourcepath)
+            .getPath(), output, classpath);
+      assertTrue(extractor.extract());
+      return extractor;
+   }
+
+   /**
+    * Checks the sample controllers are documented as the doclet does.
+    *
+    * @throws Exception if the documentation can't be written or read.
+    */
+   @Test
+   public void testSameAsDoclet() throws Exception {
+      final Map<String, String> expected =
+         ControllerProcessorTest.document(DocTypeUtilsTest.SAMPLE_SOURCES,
+            ControllerProcessorTest.classpath(),
+            ControllerProcessorTest.CONTROLLERS);
+      assertTrue(expected.size() > 0);
+      extract(DocTypeUtilsTest.SAMPLE_SOURCES,
+         ControllerProcessorTest.CONTROLLERS);
+      assertEquals(expected, ControllerProcessorTest.read(output));
+   }
+
+   /**
+    * Checks a nested controller is found by binary name and documented as
+    * the doclet does.
+    *
+    * @throws Exception if the documentation can't be written or read.
+    */
+   @Test
+   public void testNestedController() throws Exception {
+      final Map<String, String> expected =
+         ControllerProcessorTest.document(NESTED_SOURCES,
+            ControllerProcessorTest.classpath(), NESTED);
+      assertEquals(expected.keySet().toString(), 1, expected.size());
+      final ClassFileExtractor extractor = extract(NESTED_SOURCES, NESTED);
+      assertEquals(Arrays.asList(NESTED + ".Controllers$Api"), extractor
+         .findControllers());
+      assertEquals(expected, ControllerProcessorTest.read(output));
+   }
+
+}
@@ -0,0 +1,231 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.constraints.Size;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import com.iggroup.oss.restdoclet.doclet.type.builder.ControllerBuilder;
+import com.iggroup.oss.restdoclet.doclet.util.AnnotationUtils;
+import com.iggroup.oss.restdoclet.doclet.util.DocTypeUtils;
+import com.iggroup.oss.restdoclet.doclet.util.DocTypeUtilsTest;
+import com.iggroup.oss.restdoclet.doclet.util.JavadocFixture;
+import com.iggroup.oss.restdoclet.doclet.util.JiBXCodec;
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.RootDoc;
+
+/**
+ * Checks the annotation processor writes the same documentation of the
+ * sample controllers, byte for byte, as the doclet.
+ */
+public class ControllerProcessorTest {
+
+   /**
+    * The sample package containing the controllers.
+    */
+   static final String CONTROLLERS =
+      "com.iggroup.oss.sample.web.controller";
+
+   /**
+    * The directory the processor writes to.
+    */
+   private File output;
+
+   /**
+    * Creates the output directory.
+    *
+    * @throws IOException if the directory can't be created.
+    */
+   @Before
+   public void setUp() throws IOException {
+      output = createDirectory();
+   }
+
+   /**
+    * Creates a temporary directory.
+    *
+    * @return the directory.
+    * @throws IOException if the directory can't be created.
+    */
+   static File createDirectory() throws IOException {
+      final File directory = File.createTempFile("restdoclet", "");
+      assertTrue(directory.delete() && directory.mkdir());
+      return directory;
+   }
+
+   /**
+    * Deletes the output directory.
+    */
+   @After
+   public void tearDown() {
+      delete(output);
+   }
+
+   /**
+    * Deletes a file or a directory and its contents.
+    *
+    * @param file the file or directory.
+    */
+   static void delete(final File file) {
+      final File[] files = file.listFiles();
+      if (files != null) {
+         for (File child : files) {
+            delete(child);
+         }
+      }
+      file.delete();
+   }
+
+   /**
+    * Gets the class-path of the sample controllers.
+    *
+    * @return the class-path.
+    */
+   static String classpath() {
+      return JavadocFixture.classpath(Size.class, HttpServletResponse.class,
+         Logger.class, Autowired.class, Controller.class, RequestMapping.class);
+   }
+
+   /**
+    * Documents the controllers of some packages with the doclet.
+    *
+    * @param sourcepath the sources.
+    * @param classpath the class-path of the sources.
+    * @param packages the packages.
+    * @return the documentation, keyed by qualified name of controller.
+    * @throws Exception if the documentation can't be marshalled.
+    */
+   static Map<String, String> document(final String sourcepath,
+                                       final String classpath,
+                                       final String... packages)
+      throws Exception {
+      final RootDoc rootDoc =
+         JavadocFixture.run(sourcepath, classpath, packages);
+      DocTypeUtils.clearTypeDocCache();
+      final Map<String, String> documented = new TreeMap<String, String>();
+      for (ClassDoc classDoc : rootDoc.classes()) {
+         if (AnnotationUtils.isAnnotated(classDoc, Controller.class)) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            JiBXCodec.marshal(new ControllerBuilder().build(
+               new com.iggroup.oss.restdoclet.doclet.type.Controller(),
+               classDoc), bytes);
+            documented.put(classDoc.qualifiedName(), bytes.toString("UTF-8"));
+         }
+      }
+      return documented;
+   }
+
+   /**
+    * Documents the sample controllers with the annotation processor.
+    *
+    * @return the documentation, keyed by controller.
+    * @throws IOException if the documentation can't be read.
+    */
+   private Map<String, String> process() throws IOException {
+      JavadocFixture.process(DocTypeUtilsTest.SAMPLE_SOURCES, classpath(),
+         Arrays.asList("-A" + ControllerProcessor.OUTPUT_DIRECTORY + "="
+            + output.getPath()), new ControllerProcessor(), CONTROLLERS);
+      return read(output);
+   }
+
+   /**
+    * Reads the documentation files written to a directory.
+    *
+    * @param directory the directory.
+    * @return the documentation, keyed by qualified name of controller.
+    * @throws IOException if the documentation can't be read.
+    */
+   static Map<String, String> read(final File directory) throws IOException {
+      final Map<String, String> documented = new TreeMap<String, String>();
+      read(directory, "", documented);
+      return documented;
+   }
+
+   /**
+    * Reads the documentation files of a directory and its subdirectories.
+    */
+   private static void read(final File directory, final String pkg,
+                            final Map<String, String> processed)
+      throws IOException {
+      final String suffix =
+         com.iggroup.oss.restdoclet.doclet.type.Controller.FILE_SUFFIX;
+      for (File file : directory.listFiles()) {
+         if (file.isDirectory()) {
+            read(file, pkg + file.getName() + ".", processed);
+         } else if (file.getName().endsWith(suffix)) {
+            processed.put(pkg
+               + file.getName().substring(0,
+                  file.getName().length() - suffix.length()), readFile(file));
+         }
+      }
+   }
+
+   /**
+    * Reads a documentation file.
+    */
+   private static String readFile(final File file) throws IOException {
+      final InputStream input = new FileInputStream(file);
+      try {
+         final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+         final byte[] buffer = new byte[8192];
+         int read;
+         while ((read = input.read(buffer)) >= 0) {
+            bytes.write(buffer, 0, read);
+         }
+         return bytes.toString("UTF-8");
+      } finally {
+         input.close();
+      }
+   }
+
+   /**
+    * Checks each controller's documentation is the same.
+    *
+    * @throws Exception if the documentation can't be written or read.
+    */
+   @Test
+   public void testSameAsDoclet() throws Exception {
+      final Map<String, String> expected =
+         document(DocTypeUtilsTest.SAMPLE_SOURCES, classpath(), CONTROLLERS);
+      assertTrue(expected.size() > 0);
+      assertEquals(expected, process());
+   }
+
+}
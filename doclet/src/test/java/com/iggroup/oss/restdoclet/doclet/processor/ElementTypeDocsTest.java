@@ -0,0 +1,263 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.validation.constraints.Size;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.iggroup.oss.restdoclet.doclet.util.DocTypeUtils;
+import com.iggroup.oss.restdoclet.doclet.util.DocTypeUtilsTest;
+import com.iggroup.oss.restdoclet.doclet.util.InheritedJavadocIndexTest;
+import com.iggroup.oss.restdoclet.doclet.util.JavadocFixture;
+import com.iggroup.oss.restdoclet.doclet.util.TypeDocBudget;
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.MethodDoc;
+import com.sun.javadoc.RootDoc;
+
+/**
+ * Checks the annotation processor renders the same documentation for the
+ * sample domain types as the doclet, with and without a budget.
+ */
+public class ElementTypeDocsTest {
+
+   /**
+    * The budget of the last call to {@link #render(TypeDocBudget)}.
+    */
+   private static TypeDocBudget budget;
+
+   /**
+    * The documentation rendered by the last compilation, keyed by class or
+    * class#method as in {@link DocTypeUtilsTest}.
+    */
+   private static Map<String, String> rendered;
+
+   /**
+    * Renders the documentation of every class and of the return type of
+    * every method the Java documentation tool documents.
+    */
+   @SupportedAnnotationTypes("*")
+   public static final class Renderer extends AbstractProcessor {
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public SourceVersion getSupportedSourceVersion() {
+         return SourceVersion.latestSupported();
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public boolean process(final Set<? extends TypeElement> annotations,
+                             final RoundEnvironment roundEnv) {
+         if (!roundEnv.processingOver()) {
+            final ElementTypeDocs docs =
+               new ElementTypeDocs(processingEnv, null, budget, null);
+            for (TypeElement type : ElementFilter.typesIn(roundEnv
+               .getRootElements())) {
+               render(docs, type);
+            }
+         }
+         return false;
+      }
+
+      private void render(final ElementTypeDocs docs, final TypeElement type) {
+         final String name = type.getQualifiedName().toString();
+         // the Java documentation tool documents a class as a raw type
+         put(name, docs.getTypeDoc(processingEnv.getTypeUtils().erasure(
+            type.asType())));
+         for (ExecutableElement method : ElementFilter.methodsIn(type
+            .getEnclosedElements())) {
+            if (!method.getModifiers().contains(Modifier.PRIVATE)) {
+               put(name + "#" + method.getSimpleName(), docs
+                  .getTypeDoc(method.getReturnType()));
+            }
+         }
+         for (TypeElement nested : ElementFilter.typesIn(type
+            .getEnclosedElements())) {
+            render(docs, nested);
+         }
+      }
+
+   }
+
+   /**
+    * Resolves the documentation of every method of the classes compiled.
+    */
+   @SupportedAnnotationTypes("*")
+   public static final class MethodRenderer extends AbstractProcessor {
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public SourceVersion getSupportedSourceVersion() {
+         return SourceVersion.latestSupported();
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public boolean process(final Set<? extends TypeElement> annotations,
+                             final RoundEnvironment roundEnv) {
+         if (!roundEnv.processingOver()) {
+            final ElementTypeDocs docs =
+               new ElementTypeDocs(processingEnv, null,
+                  TypeDocBudget.UNLIMITED, null);
+            for (TypeElement type : ElementFilter.typesIn(roundEnv
+               .getRootElements())) {
+               for (ExecutableElement method : ElementFilter.methodsIn(type
+                  .getEnclosedElements())) {
+                  rendered.put(type.getSimpleName() + "#"
+                     + method.getSimpleName(), docs.getMethodJavadoc(method));
+               }
+            }
+         }
+         return false;
+      }
+
+   }
+
+   /**
+    * Records non-empty documentation.
+    *
+    * @param key the class or class#method.
+    * @param doc the rendered documentation.
+    */
+   private static void put(final String key, final String doc) {
+      if (!doc.isEmpty()) {
+         rendered.put(key, doc);
+      }
+   }
+
+   /**
+    * Renders the sample domain types with the annotation processor.
+    *
+    * @param limits the budget.
+    * @return the rendered documentation.
+    */
+   private static Map<String, String> render(final TypeDocBudget limits) {
+      budget = limits;
+      rendered = new TreeMap<String, String>();
+      JavadocFixture.process(DocTypeUtilsTest.SAMPLE_SOURCES, JavadocFixture
+         .classpath(Size.class), new Renderer(),
+         DocTypeUtilsTest.SAMPLE_PACKAGES);
+      return rendered;
+   }
+
+   /**
+    * Renders the sample domain types with the doclet.
+    *
+    * @param limits the budget.
+    * @return the rendered documentation.
+    */
+   private static Map<String, String> renderDoclet(final TypeDocBudget limits) {
+      DocTypeUtils.setBudget(limits);
+      return DocTypeUtilsTest.render();
+   }
+
+   /**
+    * Restores the doclet's budget.
+    */
+   @After
+   public void tearDown() {
+      DocTypeUtils.setBudget(TypeDocBudget.UNLIMITED);
+   }
+
+   /**
+    * Checks the documentation of methods, <code>{@inheritDoc}</code>
+    * resolved, is the same.
+    */
+   @Test
+   public void testSameMethodJavadocAsDoclet() {
+      final RootDoc rootDoc =
+         JavadocFixture.run(InheritedJavadocIndexTest.SOURCES, null,
+            InheritedJavadocIndexTest.PACKAGE);
+      DocTypeUtils.clearTypeDocCache();
+      final Map<String, String> expected = new TreeMap<String, String>();
+      for (ClassDoc classDoc : rootDoc.classes()) {
+         for (MethodDoc methodDoc : classDoc.methods()) {
+            expected.put(classDoc.name() + "#" + methodDoc.name(),
+               DocTypeUtils.getMethodJavadoc(methodDoc));
+         }
+      }
+      assertTrue(expected.size() > 0);
+
+      rendered = new TreeMap<String, String>();
+      JavadocFixture.process(InheritedJavadocIndexTest.SOURCES, null,
+         new MethodRenderer(), InheritedJavadocIndexTest.PACKAGE);
+      assertEquals(expected, rendered);
+   }
+
+   /**
+    * Checks the documentation is the same without a budget.
+    */
+   @Test
+   public void testSameAsDoclet() {
+      final Map<String, String> expected =
+         renderDoclet(TypeDocBudget.UNLIMITED);
+      assertTrue(expected.size() > 0);
+      assertEquals(expected, render(TypeDocBudget.UNLIMITED));
+   }
+
+   /**
+    * Checks the documentation is the same, and cut short, within a budget.
+    */
+   @Test
+   public void testSameAsDocletWithinBudget() {
+      final TypeDocBudget limits = new TypeDocBudget(1, 2, 600);
+      final Map<String, String> expected = renderDoclet(limits);
+      assertTrue(!expected.equals(renderDoclet(TypeDocBudget.UNLIMITED)));
+      assertEquals(expected, render(limits));
+   }
+
+   /**
+    * Checks the documentation is the same within each limit on its own.
+    */
+   @Test
+   public void testSameAsDocletWithinEachLimit() {
+      for (TypeDocBudget limits : Arrays.asList(new TypeDocBudget(1, 0, 0),
+         new TypeDocBudget(0, 1, 0), new TypeDocBudget(0, 0, 200))) {
+         assertEquals(limits.toString(), renderDoclet(limits), render(limits));
+      }
+   }
+
+}
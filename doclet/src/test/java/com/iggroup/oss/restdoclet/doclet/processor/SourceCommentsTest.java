@@ -0,0 +1,282 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+
+import org.junit.Test;
+
+import com.iggroup.oss.restdoclet.doclet.util.DocTypeUtilsTest;
+import com.iggroup.oss.restdoclet.doclet.util.InheritedJavadocIndexTest;
+import com.iggroup.oss.restdoclet.doclet.util.JavadocFixture;
+
+/**
+ * Checks the comments and parameter names read from source files by
+ * {@link SourceComments}: against those the compiler reads for the sample
+ * and test sources, and on declarations its lexer has to skip or tell apart.
+ */
+public class SourceCommentsTest {
+
+   /**
+    * The sources of the test fixtures, relative to this module.
+    */
+   private static final String TEST_SOURCES = "src/test/java";
+
+   /**
+    * The number of elements checked by the last compilation.
+    */
+   private static int checked;
+
+   /**
+    * The differences found by the last compilation.
+    */
+   private static List<String> differences;
+
+   /**
+    * Compares the comment and parameter names of every element compiled with
+    * those read from the source path.
+    */
+   @SupportedAnnotationTypes("*")
+   public static final class Comparer extends AbstractProcessor {
+
+      /**
+       * The source path the comments are read from.
+       */
+      private final String sourcePath;
+
+      /**
+       * Constructs a comparer.
+       *
+       * @param sourcePath the source path.
+       */
+      public Comparer(final String sourcePath) {
+         super();
+         this.sourcePath = sourcePath;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public SourceVersion getSupportedSourceVersion() {
+         return SourceVersion.latestSupported();
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public boolean process(final Set<? extends TypeElement> annotations,
+                             final RoundEnvironment roundEnv) {
+         if (!roundEnv.processingOver()) {
+            final SourceComments comments = new SourceComments(sourcePath);
+            for (TypeElement type : ElementFilter.typesIn(roundEnv
+               .getRootElements())) {
+               compare(comments, type);
+            }
+         }
+         return false;
+      }
+
+      /**
+       * Compares an element and, if it's a type, its members.
+       */
+      private void compare(final SourceComments comments,
+                           final Element element) {
+         if (isImplicit(element)) {
+            return;
+         }
+         final String expected =
+            processingEnv.getElementUtils().getDocComment(element);
+         final String actual = comments.get(element);
+         checked++;
+         if (expected == null ? actual != null : !expected.equals(actual)) {
+            differences.add(element.getEnclosingElement() + "#" + element
+               + ": expected <" + expected + "> but was <" + actual + ">");
+         }
+         if (element instanceof ExecutableElement) {
+            for (VariableElement param : ((ExecutableElement) element)
+               .getParameters()) {
+               final String name = comments.parameterName(param);
+               if (!param.getSimpleName().contentEquals(String.valueOf(name))) {
+                  differences.add(element + " parameter "
+                     + param.getSimpleName() + " named " + name);
+               }
+            }
+         }
+         if (element instanceof TypeElement) {
+            for (Element enclosed : element.getEnclosedElements()) {
+               compare(comments, enclosed);
+            }
+         }
+      }
+
+   }
+
+   /**
+    * Checks if an element is one of the methods the compiler declares in
+    * enums, which have no source.
+    */
+   private static boolean isImplicit(final Element element) {
+      return element.getKind() == ElementKind.METHOD
+         && element.getEnclosingElement().getKind() == ElementKind.ENUM
+         && (element.getSimpleName().contentEquals("values") || element
+            .getSimpleName().contentEquals("valueOf"))
+         && element.getModifiers().contains(Modifier.STATIC);
+   }
+
+   /**
+    * Compiles some packages and compares the comments of their elements.
+    *
+    * @param sourcepath the sources.
+    * @param classpath the class-path of the sources, or <code>null</code>.
+    * @param packages the packages.
+    */
+   private static void compare(final String sourcepath,
+                               final String classpath,
+                               final String... packages) {
+      checked = 0;
+      differences = new ArrayList<String>();
+      JavadocFixture.process(sourcepath, classpath, new Comparer(
+         JavadocFixture.sources(sourcepath).getPath()), packages);
+      assertTrue(checked > 0);
+      assertEquals(new ArrayList<String>(), differences);
+   }
+
+   /**
+    * Checks the comments of the sample sources are the compiler's.
+    */
+   @Test
+   public void testSameAsCompiler() {
+      compare(DocTypeUtilsTest.SAMPLE_SOURCES, ControllerProcessorTest
+         .classpath(), DocTypeUtilsTest.SAMPLE_PACKAGES);
+      compare(DocTypeUtilsTest.SAMPLE_SOURCES, ControllerProcessorTest
+         .classpath(), ControllerProcessorTest.CONTROLLERS);
+   }
+
+   /**
+    * Checks the comments of the test fixtures, with nested classes, generic
+    * and variable arguments, are the compiler's.
+    */
+   @Test
+   public void testFixturesSameAsCompiler() {
+      compare(TEST_SOURCES, ControllerProcessorTest.classpath(),
+         InheritedJavadocIndexTest.PACKAGE,
+         "com.iggroup.oss.restdoclet.doclet.processor.nested");
+   }
+
+   /**
+    * Checks comment openings in literals and method bodies are skipped.
+    */
+   @Test
+   public void testSkipsLiteralsAndBodies() {
+      final Map<String, String> comments =
+         new SourceComments.Lexer("/** A. */ class A {\n"
+            + "  String s = \"/** not a comment { \";\n"
+            + "  char c = '{';\n"
+            + "  /** Run. */ void run() { if (true) { /** Inner. */ int i; } }\n"
+            + "  /** After. */ int after;\n" + "}").comments();
+      assertEquals("A. ", comments.get("A"));
+      assertNull(comments.get("A#s"));
+      assertEquals("Run. ", comments.get("A#run()"));
+      assertNull(comments.get("A#i"));
+      assertEquals("After. ", comments.get("A#after"));
+      assertEquals(3, comments.size());
+   }
+
+   /**
+    * Checks methods are told apart by the simple names of their parameters'
+    * types, without type arguments.
+    */
+   @Test
+   public void testMethodSignatures() {
+      final Map<String, String> comments =
+         new SourceComments.Lexer("class A {\n"
+            + "  /** List. */ <T> T m(final java.util.List<? extends T> l,"
+            + " @Deprecated int[] a, String... s) { return null; }\n"
+            + "  /** Map. */ void m(java.util.Map<String, int[]> m) {}\n"
+            + "  /** Constructor. */ A(int i) {}\n" + "}").comments();
+      assertEquals("List. ", comments.get("A#m(List,int[],String[])"));
+      assertEquals("Map. ", comments.get("A#m(Map)"));
+      assertEquals("Constructor. ", comments.get("A#A(int)"));
+   }
+
+   /**
+    * Checks nested types, enum constants with arguments and bodies, fields
+    * declared together and annotation elements with defaults.
+    */
+   @Test
+   public void testDeclarations() {
+      final Map<String, String> comments =
+         new SourceComments.Lexer("class A {\n"
+            + "  /** Kind. */ enum Kind {\n"
+            + "    /** One. */ ONE(1) { void f() {} },\n"
+            + "    /** Two. */ @Deprecated TWO(2);\n"
+            + "    /** Value. */ private final int value;\n"
+            + "    Kind(int value) { this.value = value; }\n" + "  }\n"
+            + "  /** First. */ int first = 1, second;\n"
+            + "  /** Mark. */ @interface Mark {\n"
+            + "    /** Name. */ String name() default \"}\";\n" + "  }\n"
+            + "}").comments();
+      assertEquals("Kind. ", comments.get("A.Kind"));
+      assertEquals("One. ", comments.get("A.Kind#ONE"));
+      assertEquals("Two. ", comments.get("A.Kind#TWO"));
+      assertEquals("Value. ", comments.get("A.Kind#value"));
+      assertEquals("First. ", comments.get("A#first"));
+      assertNull(comments.get("A#second"));
+      assertEquals("Mark. ", comments.get("A.Mark"));
+      assertEquals("Name. ", comments.get("A.Mark#name()"));
+   }
+
+   /**
+    * Checks comments are stripped of their leading white-space and stars,
+    * whatever the line endings.
+    */
+   @Test
+   public void testStrip() {
+      assertEquals(" Text.\n  More.\nNo star.\n", SourceComments.Lexer
+         .strip("*\n * Text.\n *  More.\nNo star.\n "));
+      assertEquals(" Text.\n  More.\n", SourceComments.Lexer
+         .strip("\r\n * Text.\r\n *  More.\r\n "));
+      assertEquals("Two.\n x\n", SourceComments.Lexer
+         .strip("   Two.\n   * x\n   "));
+      assertEquals("One line. ", SourceComments.Lexer.strip(" One line. "));
+   }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.processor.nested;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * Holds the nested controller <code>ClassFileExtractorTest</code> documents.
+ */
+public final class Controllers {
+
+   private Controllers() {
+      super();
+   }
+
+   /**
+    * A controller nested in another class.
+    */
+   @Controller
+   public static class Api {
+
+      /**
+       * Finds the items of a group.
+       *
+       * @param group the group.
+       * @param limit the maximum number of items.
+       * @return the items.
+       */
+      @RequestMapping(value = "/groups/{group}/items",
+         method = RequestMethod.GET)
+      public String[] items(@PathVariable("group") final String group,
+                            @RequestParam("limit") final int limit) {
+         final Runnable unnamed = new Runnable() {
+
+            @Override
+            public void run() {
+               // an anonymous class the extractor skips
+            }
+         };
+         unnamed.run();
+         return new String[0];
+      }
+
+   }
+
+}
@@ -0,0 +1,549 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.validation.constraints.Size;
+
+import org.apache.log4j.Logger;
+import org.jibx.runtime.JiBXException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import com.iggroup.oss.restdoclet.doclet.type.Controller;
+import com.iggroup.oss.restdoclet.doclet.type.ControllerSummary;
+import com.iggroup.oss.restdoclet.doclet.type.Method;
+import com.iggroup.oss.restdoclet.doclet.type.Service;
+import com.iggroup.oss.restdoclet.doclet.type.Services;
+import com.iggroup.oss.restdoclet.doclet.type.Uri;
+import com.iggroup.oss.restdoclet.doclet.type.builder.ControllerBuilder;
+
+/**
+ * Checks the services of the sample controller survive being encoded and
+ * decoded: decoded services marshal to the same XML as the original ones.
+ */
+public class CatalogueCodecTest {
+
+   /**
+    * The sources of the sample project, relative to this module.
+    */
+   private static final String SAMPLE_SOURCES = "../sample/src/main/java";
+
+   /**
+    * The sample controller.
+    */
+   private static final String SAMPLE =
+      "com.iggroup.oss.sample.web.controller.SampleController";
+
+   /**
+    * The sample controller's documentation, built once.
+    */
+   private static Controller controller;
+
+   /**
+    * The file the codec writes to.
+    */
+   private File file;
+
+   /**
+    * Documents the sample controller.
+    */
+   @BeforeClass
+   public static void document() {
+      final String classpath =
+         JavadocFixture.classpath(Size.class,
+            org.springframework.stereotype.Controller.class,
+            RequestMapping.class, Logger.class);
+      DocTypeUtils.clearTypeDocCache();
+      controller =
+         new ControllerBuilder().build(new Controller(), JavadocFixture.run(
+            SAMPLE_SOURCES, classpath, "com.iggroup.oss.sample.web.controller")
+            .classNamed(SAMPLE));
+      assertTrue(controller.getMethods().size() > 1);
+   }
+
+   /**
+    * Gets the services of the sample controller, one per method, numbered
+    * from one.
+    *
+    * @return the services.
+    */
+   private static List<Service> services() {
+      final List<Service> services = new ArrayList<Service>();
+      for (Method method : controller.getMethods()) {
+         services.add(new Service(services.size() + 1, method.getUris(),
+            new Controller(controller.getType(), controller.getJavadoc(),
+               Collections.singletonList(method))));
+      }
+      return services;
+   }
+
+   /**
+    * Gets the listing of services of the sample controller.
+    *
+    * @return the listing.
+    */
+   private static Services listing() {
+      final ControllerSummary summary =
+         new ControllerSummary(controller.getType(), controller.getJavadoc());
+      summary.setServices(services());
+      final Services services = new Services();
+      services.addController(summary);
+      return services;
+   }
+
+   /**
+    * Marshals a document.
+    *
+    * @param document the document.
+    * @return the XML.
+    * @throws JiBXException if JiBX fails.
+    */
+   private static byte[] xml(final Object document) throws JiBXException {
+      final ByteArrayOutputStream output = new ByteArrayOutputStream();
+      JiBXCodec.marshal(document, output);
+      return output.toByteArray();
+   }
+
+   /**
+    * Checks a document marshals to the same XML as another.
+    *
+    * @param expected the original document.
+    * @param actual the decoded document.
+    * @throws JiBXException if JiBX fails.
+    * @throws IOException if the XML can't be decoded.
+    */
+   private static void assertSameXml(final Object expected,
+                                     final Object actual)
+      throws JiBXException, IOException {
+      final byte[] expectedXml = xml(expected);
+      final byte[] actualXml = xml(actual);
+      assertEquals(new String(expectedXml, JiBXUtils.ENCODING), new String(
+         actualXml, JiBXUtils.ENCODING));
+      assertTrue(Arrays.equals(expectedXml, actualXml));
+   }
+
+   /**
+    * Reads a file into a buffer.
+    *
+    * @param source the file.
+    * @return the buffer.
+    * @throws IOException if the file can't be read.
+    */
+   private static ByteBuffer read(final File source) throws IOException {
+      final byte[] bytes = new byte[(int) source.length()];
+      final DataInputStream input =
+         new DataInputStream(new FileInputStream(source));
+      try {
+         input.readFully(bytes);
+      } finally {
+         input.close();
+      }
+      return ByteBuffer.wrap(bytes);
+   }
+
+   /**
+    * Reads a service from a file.
+    */
+   private static Service readService(final File source) throws IOException {
+      final InputStream input = new FileInputStream(source);
+      try {
+         return CatalogueCodec.readService(input);
+      } finally {
+         input.close();
+      }
+   }
+
+   /**
+    * Overwrites a byte of a file.
+    */
+   private static void corrupt(final File target, final int index,
+                               final int value) throws IOException {
+      final byte[] bytes = read(target).array();
+      bytes[index] = (byte) value;
+      final OutputStream output = new FileOutputStream(target);
+      try {
+         output.write(bytes);
+      } finally {
+         output.close();
+      }
+   }
+
+   /**
+    * Creates the file the codec writes to.
+    *
+    * @throws IOException if the file can't be created.
+    */
+   @Before
+   public void setUp() throws IOException {
+      file = File.createTempFile("restdoc-catalogue", CatalogueCodec.SUFFIX);
+   }
+
+   /**
+    * Deletes the file the codec wrote to.
+    */
+   @After
+   public void tearDown() {
+      file.delete();
+   }
+
+   /**
+    * Checks each service of the sample controller survives a round trip
+    * through a file of its own.
+    *
+    * @throws IOException if the file can't be written or read.
+    * @throws JiBXException if JiBX fails.
+    */
+   @Test
+   public void testServiceRoundTrip() throws IOException, JiBXException {
+      for (Service service : services()) {
+         CatalogueCodec.writeService(service, file);
+         assertSameXml(service, readService(file));
+      }
+   }
+
+   /**
+    * Checks the listing of services of the sample controller survives a
+    * round trip.
+    *
+    * @throws IOException if the file can't be written or read.
+    * @throws JiBXException if JiBX fails.
+    */
+   @Test
+   public void testServicesRoundTrip() throws IOException, JiBXException {
+      final Services services = listing();
+      CatalogueCodec.writeServices(services, file);
+      final InputStream input = new FileInputStream(file);
+      try {
+         assertSameXml(services, CatalogueCodec.readServices(input));
+      } finally {
+         input.close();
+      }
+   }
+
+   /**
+    * Checks each service of the sample controller survives a round trip
+    * through a catalogue.
+    *
+    * @throws IOException if the file can't be written or read.
+    * @throws JiBXException if JiBX fails.
+    */
+   @Test
+   public void testCatalogueRoundTrip() throws IOException, JiBXException {
+      final List<Service> services = services();
+      CatalogueCodec.writeCatalogue(services, file);
+      final ByteBuffer catalogue = read(file);
+      for (Service service : services) {
+         assertSameXml(service, CatalogueCodec.readService(catalogue, service
+            .getIdentifier()));
+      }
+      assertEquals(0, catalogue.position());
+      assertEquals(file.length(), catalogue.limit());
+   }
+
+   /**
+    * Checks each service of the sample controller is read from a catalogue
+    * on disk, reading only the table of entries and the service's record.
+    *
+    * @throws IOException if the file can't be written or read.
+    * @throws JiBXException if JiBX fails.
+    */
+   @Test
+   public void testCatalogueChannelRoundTrip() throws IOException,
+      JiBXException {
+      final List<Service> services = services();
+      CatalogueCodec.writeCatalogue(services, file);
+      final FileInputStream input = new FileInputStream(file);
+      try {
+         final FileChannel channel = input.getChannel();
+         final ByteBuffer entries = CatalogueCodec.readEntries(channel);
+         assertEquals(10 + 12 * services.size(), entries.limit());
+         for (Service service : services) {
+            assertSameXml(service, CatalogueCodec.readService(channel,
+               entries, service.getIdentifier()));
+         }
+         assertNull(CatalogueCodec.readService(channel, entries, services
+            .get(services.size() - 1).getIdentifier() + 1));
+         assertEquals(0, channel.position());
+         assertEquals(0, entries.position());
+      } finally {
+         input.close();
+      }
+   }
+
+   /**
+    * Checks a catalogue truncated in its table of entries or in its last
+    * service is rejected, rather than decoded from another service's record.
+    *
+    * @throws IOException if the file can't be written or read.
+    */
+   @Test
+   public void testTruncatedCatalogue() throws IOException {
+      final List<Service> services = services();
+      CatalogueCodec.writeCatalogue(services, file);
+      truncate(file, file.length() - 1);
+      FileInputStream input = new FileInputStream(file);
+      try {
+         final FileChannel channel = input.getChannel();
+         final ByteBuffer entries = CatalogueCodec.readEntries(channel);
+         assertSameXml(services.get(0), CatalogueCodec.readService(channel,
+            entries, services.get(0).getIdentifier()));
+         CatalogueCodec.readService(channel, entries, services.get(
+            services.size() - 1).getIdentifier());
+         fail("Read " + file);
+      } catch (IOException e) {
+         assertEquals("Truncated catalogue", e.getMessage());
+      } catch (JiBXException e) {
+         throw new IllegalStateException(e);
+      } finally {
+         input.close();
+      }
+
+      truncate(file, 10 + 12 * services.size() - 1);
+      assertRejectedCatalogue(file, "Truncated catalogue");
+   }
+
+   /**
+    * Checks services are looked up by identifier in a catalogue whose
+    * identifiers have gaps and whose services were written out of order:
+    * the first, the last and every other one is found, identifiers before,
+    * between and after them aren't.
+    *
+    * @throws IOException if the file can't be written or read.
+    * @throws JiBXException if JiBX fails.
+    */
+   @Test
+   public void testCatalogueLookup() throws IOException, JiBXException {
+      final List<Service> services = services();
+      for (Service service : services) {
+         service.setIdentifier(service.getIdentifier() * 10);
+      }
+      final List<Service> reversed = new ArrayList<Service>(services);
+      Collections.reverse(reversed);
+      CatalogueCodec.writeCatalogue(reversed, file);
+      final ByteBuffer catalogue = read(file);
+
+      final int first = services.get(0).getIdentifier();
+      final int last = services.get(services.size() - 1).getIdentifier();
+      assertSameXml(services.get(0), CatalogueCodec.readService(catalogue,
+         first));
+      assertSameXml(services.get(services.size() - 1), CatalogueCodec
+         .readService(catalogue, last));
+      for (Service service : services) {
+         assertSameXml(service, CatalogueCodec.readService(catalogue, service
+            .getIdentifier()));
+         assertNull(CatalogueCodec.readService(catalogue, service
+            .getIdentifier() + 5));
+      }
+      for (int missing : new int[] {Integer.MIN_VALUE, 0, first - 1,
+         last + 1, Integer.MAX_VALUE}) {
+         assertNull(CatalogueCodec.readService(catalogue, missing));
+      }
+   }
+
+   /**
+    * Checks a service is looked up in a catalogue of one service.
+    *
+    * @throws IOException if the file can't be written or read.
+    * @throws JiBXException if JiBX fails.
+    */
+   @Test
+   public void testSingleEntryCatalogue() throws IOException, JiBXException {
+      final Service service = services().get(0);
+      service.setIdentifier(7);
+      CatalogueCodec.writeCatalogue(Collections.singletonList(service), file);
+      final ByteBuffer catalogue = read(file);
+      assertSameXml(service, CatalogueCodec.readService(catalogue, 7));
+      assertNull(CatalogueCodec.readService(catalogue, 6));
+      assertNull(CatalogueCodec.readService(catalogue, 8));
+   }
+
+   /**
+    * Checks an empty catalogue and an empty listing, which JiBX can't
+    * marshal, can be read.
+    *
+    * @throws IOException if the file can't be written or read.
+    */
+   @Test
+   public void testEmpty() throws IOException {
+      CatalogueCodec.writeCatalogue(Collections.<Service> emptyList(), file);
+      assertEquals(10, file.length());
+      assertNull(CatalogueCodec.readService(read(file), 1));
+
+      final Services services = new Services();
+      services.setControllers(new ArrayList<ControllerSummary>());
+      CatalogueCodec.writeServices(services, file);
+      InputStream input = new FileInputStream(file);
+      try {
+         assertTrue(CatalogueCodec.readServices(input).getControllers()
+            .isEmpty());
+      } finally {
+         input.close();
+      }
+      input = new FileInputStream(file);
+      try {
+         assertTrue(CatalogueCodec.readServiceSummaries(input).isEmpty());
+      } finally {
+         input.close();
+      }
+   }
+
+   /**
+    * Checks strings outside ASCII survive a round trip, including characters
+    * outside the basic multilingual plane, which JiBX can't marshal.
+    *
+    * @throws IOException if the file can't be written or read.
+    * @throws JiBXException if JiBX fails.
+    */
+   @Test
+   public void testNonAscii() throws IOException, JiBXException {
+      final Service original = services().get(0);
+      final String text = "Gr\u00f6\u00dfe \u2014 \u4fa1\u683c \u20ac";
+      final Uri uri = new Uri("/pr\u00e9f\u00e9rences/{r\u00e9f}", false);
+      final Service service =
+         new Service(original.getIdentifier(), Collections.singletonList(uri),
+            new Controller(original.getController().getType(), text,
+               original.getController().getMethods()));
+      CatalogueCodec.writeService(service, file);
+      final Service decoded = readService(file);
+      assertEquals(text, decoded.getController().getJavadoc());
+      assertSameXml(service, decoded);
+
+      CatalogueCodec.writeCatalogue(Collections.singletonList(service), file);
+      assertSameXml(service, CatalogueCodec.readService(read(file), service
+         .getIdentifier()));
+
+      final String supplementary = text + " \ud83d\ude00";
+      service.getController().setJavadoc(supplementary);
+      CatalogueCodec.writeService(service, file);
+      assertEquals(supplementary, readService(file).getController()
+         .getJavadoc());
+   }
+
+   /**
+    * Checks a file with another magic number is rejected.
+    *
+    * @throws IOException if the file can't be written.
+    */
+   @Test
+   public void testMagicMismatch() throws IOException {
+      CatalogueCodec.writeService(services().get(0), file);
+      corrupt(file, 0, 'X');
+      assertRejected(file, "Not a RESTdoclet catalogue");
+
+      CatalogueCodec.writeCatalogue(services(), file);
+      corrupt(file, 3, 'X');
+      assertRejectedCatalogue(file, "Not a RESTdoclet catalogue");
+   }
+
+   /**
+    * Checks a file of another version of the format is rejected.
+    *
+    * @throws IOException if the file can't be written.
+    */
+   @Test
+   public void testVersionMismatch() throws IOException {
+      CatalogueCodec.writeService(services().get(0), file);
+      corrupt(file, 4, 1);
+      assertRejected(file, "Unsupported catalogue version 1");
+
+      CatalogueCodec.writeCatalogue(services(), file);
+      corrupt(file, 4, 3);
+      assertRejectedCatalogue(file, "Unsupported catalogue version 3");
+   }
+
+   /**
+    * Checks a file of another kind is rejected.
+    *
+    * @throws IOException if the file can't be written.
+    */
+   @Test
+   public void testKindMismatch() throws IOException {
+      CatalogueCodec.writeCatalogue(services(), file);
+      assertRejected(file, "Unexpected catalogue kind 3");
+
+      CatalogueCodec.writeService(services().get(0), file);
+      assertRejectedCatalogue(file, "Unexpected catalogue kind 2");
+   }
+
+   private static void assertRejected(final File source, final String message) {
+      try {
+         readService(source);
+         fail("Read " + source);
+      } catch (IOException e) {
+         assertEquals(message, e.getMessage());
+      }
+   }
+
+   private static void assertRejectedCatalogue(final File source,
+                                               final String message)
+      throws IOException {
+      final ByteBuffer catalogue = read(source);
+      try {
+         CatalogueCodec.readService(catalogue, 1);
+         fail("Read " + source);
+      } catch (IOException e) {
+         assertEquals(message, e.getMessage());
+      }
+      final FileInputStream input = new FileInputStream(source);
+      try {
+         CatalogueCodec.readEntries(input.getChannel());
+         fail("Read " + source);
+      } catch (IOException e) {
+         assertEquals(message, e.getMessage());
+      } finally {
+         input.close();
+      }
+   }
+
+   private static void truncate(final File target, final long length)
+      throws IOException {
+      final RandomAccessFile output = new RandomAccessFile(target, "rw");
+      try {
+         output.setLength(length);
+      } finally {
+         output.close();
+      }
+   }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.validation.constraints.Size;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.javadoc.ClassDoc;
+
+/**
+ * Checks that the fingerprints of the last run are only reused by runs with
+ * the same options. A sample domain type stands in for a controller.
+ */
+public class ControllerFingerprintsTest {
+
+   /**
+    * The sources of the sample project, relative to this module.
+    */
+   private static final String SAMPLE_SOURCES = "../sample/src/main/java";
+
+   /**
+    * The class fingerprinted.
+    */
+   private static final String SAMPLE = "com.iggroup.oss.sample.domain.Sample";
+
+   /**
+    * The manifest shared by the runs.
+    */
+   private static File manifest;
+
+   /**
+    * The documentation file of the sample.
+    */
+   private static File documentation;
+
+   /**
+    * Fingerprints the sample in a sequence of runs, each run loading the
+    * manifest stored by the previous one.
+    *
+    * @param options the options of each run.
+    * @return for each run, whether the sample was unchanged and whether the
+    *         manifest was compatible.
+    * @throws IOException if the manifest can't be read or written.
+    */
+   private static List<List<Boolean>> run(
+      final List<Map<String, String>> options) throws IOException {
+      final ClassDoc sample =
+         JavadocFixture.run(SAMPLE_SOURCES,
+            JavadocFixture.classpath(Size.class),
+            "com.iggroup.oss.sample.domain").classNamed(SAMPLE);
+      final List<List<Boolean>> results = new ArrayList<List<Boolean>>();
+      for (Map<String, String> run : options) {
+         final ControllerFingerprints fingerprints =
+            new ControllerFingerprints(manifest, run);
+         results.add(asList(fingerprints.isUnchanged(sample, documentation),
+            fingerprints.isCompatible()));
+         fingerprints.store();
+      }
+      return results;
+   }
+
+   private static Map<String, String> options(final String registry,
+                                              final String maxDepth) {
+      final Map<String, String> options = new TreeMap<String, String>();
+      options.put("RESTDOCLET_TYPE_REGISTRY", registry);
+      options.put("RESTDOCLET_TYPE_DOC_MAX_DEPTH", maxDepth);
+      return options;
+   }
+
+   /**
+    * Creates the documentation file; the manifest doesn't exist yet.
+    *
+    * @throws IOException if the files can't be created.
+    */
+   @Before
+   public void setUp() throws IOException {
+      manifest = File.createTempFile("restdoc-fingerprints", ".properties");
+      manifest.delete();
+      documentation = File.createTempFile("Sample", ".controller.xml");
+   }
+
+   /**
+    * Deletes the manifest and the documentation file.
+    */
+   @After
+   public void tearDown() {
+      manifest.delete();
+      documentation.delete();
+   }
+
+   /**
+    * Checks a class is unchanged in runs with the same options.
+    *
+    * @throws IOException if the manifest can't be read or written.
+    */
+   @Test
+   public void testUnchangedWithSameOptions() throws IOException {
+      final Map<String, String> inline = options("false", "0");
+      assertEquals(asList(asList(false, false), asList(true, true), asList(
+         true, true)), run(asList(inline, inline, inline)));
+   }
+
+   /**
+    * Checks a class is changed in a run enabling the type registry and in a
+    * run disabling it again.
+    *
+    * @throws IOException if the manifest can't be read or written.
+    */
+   @Test
+   public void testChangedWithOtherRegistry() throws IOException {
+      final Map<String, String> inline = options("false", "0");
+      final Map<String, String> registry = options("true", "0");
+      assertEquals(asList(asList(false, false), asList(false, false), asList(
+         false, false), asList(true, true)), run(asList(inline, registry,
+         inline, inline)));
+   }
+
+   /**
+    * Checks a class is changed in a run with another budget.
+    *
+    * @throws IOException if the manifest can't be read or written.
+    */
+   @Test
+   public void testChangedWithOtherBudget() throws IOException {
+      assertEquals(asList(asList(false, false), asList(false, false)),
+         run(asList(options("false", "0"), options("false", "2"))));
+   }
+
+   /**
+    * Checks the manifest of a run that documented nothing is still
+    * compatible with a run with the same options.
+    *
+    * @throws IOException if the manifest can't be read or written.
+    */
+   @Test
+   public void testCompatibleWithoutControllers() throws IOException {
+      final Map<String, String> inline = options("false", "0");
+      new ControllerFingerprints(manifest, inline).store();
+      assertEquals(true, new ControllerFingerprints(manifest, inline)
+         .isCompatible());
+      assertEquals(false, new ControllerFingerprints(manifest, Collections
+         .<String, String> emptyMap()).isCompatible());
+   }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import javax.validation.constraints.Size;
+
+import org.junit.Test;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.MethodDoc;
+import com.sun.javadoc.RootDoc;
+
+/**
+ * Checks the documentation rendered for the sample domain types against the
+ * documentation rendered before <code>DocTypeUtils</code> was changed to
+ * stream into a buffer.
+ */
+public class DocTypeUtilsTest {
+
+   /**
+    * The documentation rendered by the previous implementation.
+    */
+   private static final String EXPECTED = "DocTypeUtilsTest.properties";
+
+   /**
+    * The packages of two types with the same simple name.
+    */
+   private static final String[] NAMED_PACKAGES = {
+      "com.iggroup.oss.restdoclet.doclet.util.named.first",
+      "com.iggroup.oss.restdoclet.doclet.util.named.second"};
+
+   /**
+    * The comment of the type containing itself.
+    */
+   private static final String CONTAINS_ITSELF =
+      "An item containing an item of its own type.";
+
+   /**
+    * The sources of the sample project, relative to this module.
+    */
+   public static final String SAMPLE_SOURCES = "../sample/src/main/java";
+
+   /**
+    * The sample packages containing types used as parameters, return types
+    * and exceptions.
+    */
+   public static final String[] SAMPLE_PACKAGES = {
+      "com.iggroup.oss.sample.domain",
+      "com.iggroup.oss.sample.domain.exception",
+      "com.iggroup.oss.sample.web.controller.error",
+      "com.iggroup.oss.sample.web.controller.error.common"};
+
+   /**
+    * Records non-empty documentation.
+    *
+    * @param rendered the documentation rendered so far.
+    * @param key the class or class#method.
+    * @param doc the rendered documentation.
+    */
+   private static void put(final Map<String, String> rendered,
+                           final String key, final String doc) {
+      if (!doc.isEmpty()) {
+         rendered.put(key, doc);
+      }
+   }
+
+   /**
+    * Renders the sample domain types.
+    *
+    * @return the rendered documentation, keyed by class or class#method.
+    */
+   public static Map<String, String> render() {
+      return render(SAMPLE_SOURCES, SAMPLE_PACKAGES);
+   }
+
+   /**
+    * Renders the documentation of every class of some packages and of the
+    * return type of every method.
+    *
+    * @param sourcepath the sources, relative to this module.
+    * @param packages the packages.
+    * @return the rendered documentation, keyed by class or class#method.
+    */
+   private static Map<String, String> render(final String sourcepath,
+                                             final String... packages) {
+      final RootDoc rootDoc =
+         JavadocFixture.run(sourcepath, JavadocFixture.classpath(Size.class),
+            packages);
+      final Map<String, String> rendered = new TreeMap<String, String>();
+      DocTypeUtils.clearTypeDocCache();
+      for (ClassDoc classDoc : rootDoc.classes()) {
+         put(rendered, classDoc.qualifiedName(), DocTypeUtils
+            .getTypeDoc(classDoc));
+         for (MethodDoc methodDoc : classDoc.methods()) {
+            put(rendered, classDoc.qualifiedName() + "#" + methodDoc.name(),
+               DocTypeUtils.getTypeDoc(methodDoc.returnType()));
+         }
+      }
+      return rendered;
+   }
+
+   /**
+    * Checks the rendered documentation is unchanged.
+    *
+    * @throws IOException if the expected documentation can't be read.
+    */
+   @Test
+   public void testTypeDocUnchanged() throws IOException {
+      final Properties expected = new Properties();
+      final InputStream input =
+         DocTypeUtilsTest.class.getResourceAsStream(EXPECTED);
+      try {
+         expected.load(input);
+      } finally {
+         input.close();
+      }
+
+      final Map<String, String> actual = render();
+      assertTrue(actual.size() > 0);
+      assertEquals(new TreeMap<Object, Object>(expected).keySet(), actual
+         .keySet());
+      for (Map.Entry<String, String> entry : actual.entrySet()) {
+         assertEquals(entry.getKey(), expected.getProperty(entry.getKey()),
+            entry.getValue());
+      }
+   }
+
+   /**
+    * Checks the types processed so far are told apart by qualified name: a
+    * type with the same simple name as the type containing it is documented,
+    * and a type containing itself is documented once.
+    */
+   @Test
+   public void testSameSimpleName() {
+      final Map<String, String> actual =
+         render("src/test/java", NAMED_PACKAGES);
+      final String first =
+         actual.get("com.iggroup.oss.restdoclet.doclet.util.named.first.Item");
+      final String second =
+         actual.get("com.iggroup.oss.restdoclet.doclet.util.named.second.Item");
+      assertTrue(first, first.contains(CONTAINS_ITSELF));
+      assertEquals(second, second.indexOf(CONTAINS_ITSELF), second
+         .lastIndexOf(CONTAINS_ITSELF));
+   }
+
+}
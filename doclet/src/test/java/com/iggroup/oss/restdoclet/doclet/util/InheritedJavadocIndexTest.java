@@ -0,0 +1,140 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.MethodDoc;
+import com.sun.javadoc.RootDoc;
+
+/**
+ * Checks the documentation methods inherit from the classes and interfaces
+ * of the hierarchy in the <code>inherited</code> package.
+ */
+public class InheritedJavadocIndexTest {
+
+   /**
+    * The sources of the hierarchy, relative to this module.
+    */
+   public static final String SOURCES = "src/test/java";
+
+   /**
+    * The package of the hierarchy.
+    */
+   public static final String PACKAGE =
+      "com.iggroup.oss.restdoclet.doclet.util.inherited";
+
+   /**
+    * The inherited documentation of every method, keyed by class#method.
+    */
+   private static final Map<String, String> INHERITED =
+      new HashMap<String, String>();
+
+   /**
+    * The documentation of every method, <code>{@inheritDoc}</code>
+    * resolved, keyed by class#method.
+    */
+   private static final Map<String, String> JAVADOC =
+      new HashMap<String, String>();
+
+   /**
+    * Documents the hierarchy and looks up the inherited documentation of
+    * every method.
+    */
+   @BeforeClass
+   public static void setUpClass() {
+      final RootDoc rootDoc = JavadocFixture.run(SOURCES, null, PACKAGE);
+      final InheritedJavadocIndex index = new InheritedJavadocIndex();
+      DocTypeUtils.clearTypeDocCache();
+      for (ClassDoc classDoc : rootDoc.classes()) {
+         for (MethodDoc methodDoc : classDoc.methods()) {
+            final String key = classDoc.name() + "#" + methodDoc.name();
+            INHERITED.put(key, index.inherited(JavadocTypeModel
+               .classModel(classDoc), JavadocTypeModel.method(methodDoc)));
+            JAVADOC.put(key, DocTypeUtils.getMethodJavadoc(methodDoc));
+         }
+      }
+   }
+
+   /**
+    * Checks a method inherits the documentation of its grandparent through
+    * a parent that inherits it too.
+    */
+   @Test
+   public void testGrandparentComment() {
+      assertEquals("Grandparent total.", INHERITED.get("Parent#total"));
+      assertEquals("Grandparent total.", INHERITED.get("Child#total"));
+      assertEquals("Grandparent total.", JAVADOC.get("Child#total"));
+   }
+
+   /**
+    * Checks methods with generic and variable arguments match by signature.
+    */
+   @Test
+   public void testSignatureComment() {
+      assertEquals("Grandparent join.", INHERITED.get("Child#join"));
+      assertEquals("Grandparent join.", JAVADOC.get("Child#join"));
+   }
+
+   /**
+    * Checks a method inherits the documentation of its interface, and that
+    * the super-classes come before the interfaces.
+    */
+   @Test
+   public void testInterfaceComment() {
+      assertEquals("Interface name.", INHERITED.get("Child#name"));
+      assertEquals("Interface name.", JAVADOC.get("Child#name"));
+      assertEquals("Grandparent description.", JAVADOC
+         .get("Child#describe"));
+   }
+
+   /**
+    * Checks an override with a blank comment doesn't hide the documentation
+    * of the method it overrides.
+    */
+   @Test
+   public void testBlankOverrideFallsThrough() {
+      assertEquals("", JAVADOC.get("Parent#describe"));
+      assertEquals("Grandparent description.", INHERITED
+         .get("Parent#describe"));
+      assertEquals("Grandparent description.", INHERITED
+         .get("Child#describe"));
+   }
+
+   /**
+    * Checks a method that overrides nothing inherits nothing, and keeps its
+    * own comment.
+    */
+   @Test
+   public void testNothingToInherit() {
+      assertNull(INHERITED.get("Child#unique"));
+      assertNull(INHERITED.get("GrandParent#describe"));
+      assertEquals("{@inheritDoc}", JAVADOC.get("Child#unique"));
+   }
+
+}
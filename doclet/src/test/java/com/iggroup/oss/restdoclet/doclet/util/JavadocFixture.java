@@ -0,0 +1,252 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.processing.Processor;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import com.sun.javadoc.LanguageVersion;
+import com.sun.javadoc.RootDoc;
+
+/**
+ * Runs the Java documentation tool, or the Java compiler with an annotation
+ * processor, in-process over some packages of sources, so that tests and
+ * benchmarks can document real classes.
+ * <p>
+ * Sources are found relative to the base directory of the module, given by
+ * the <code>basedir</code> system property Maven sets, unless their path is
+ * absolute. A run that fails throws an {@link IllegalStateException} with the
+ * messages of the tool.
+ */
+public final class JavadocFixture {
+
+   /**
+    * The root document of the current run of the Java documentation tool.
+    */
+   private static RootDoc root;
+
+   /**
+    * Private constructor to "silence" PMD.
+    */
+   private JavadocFixture() {
+      super();
+   }
+
+   /**
+    * Invoked by the Java documentation tool: keeps the root document.
+    *
+    * @param rootDoc the root Java documentation object.
+    * @return <code>true</code>.
+    */
+   public static boolean start(final RootDoc rootDoc) {
+      root = rootDoc;
+      return true;
+   }
+
+   /**
+    * Makes the Java documentation tool process generics.
+    *
+    * @return {@link LanguageVersion#JAVA_1_5}.
+    */
+   public static LanguageVersion languageVersion() {
+      return LanguageVersion.JAVA_1_5;
+   }
+
+   /**
+    * Documents some packages with the Java documentation tool.
+    *
+    * @param sourcepath the sources.
+    * @param classpath the class-path of the sources, or <code>null</code>.
+    * @param packages the packages.
+    * @return the root document, whose classes can still be documented once
+    *         the tool is done.
+    */
+   public static synchronized RootDoc run(final String sourcepath,
+                                          final String classpath,
+                                          final String... packages) {
+      final List<String> args = new ArrayList<String>();
+      args.add("-quiet");
+      args.add("-sourcepath");
+      args.add(sources(sourcepath).getPath());
+      if (classpath != null) {
+         args.add("-classpath");
+         args.add(classpath);
+      }
+      args.addAll(Arrays.asList(packages));
+
+      final StringWriter log = new StringWriter();
+      final PrintWriter writer = new PrintWriter(log);
+      root = null;
+      final int status =
+         com.sun.tools.javadoc.Main.execute("javadoc", writer, writer, writer,
+            JavadocFixture.class.getName(), JavadocFixture.class
+               .getClassLoader(), args.toArray(new String[args.size()]));
+      writer.flush();
+      if (status != 0 || root == null) {
+         throw new IllegalStateException("javadoc exited with " + status
+            + ":\n" + log);
+      }
+      final RootDoc result = root;
+      root = null;
+      return result;
+   }
+
+   /**
+    * Compiles some packages with an annotation processor and without
+    * generating classes, as the processor would see them in a build.
+    *
+    * @param sourcepath the sources.
+    * @param classpath the class-path of the sources, or <code>null</code>.
+    * @param processor the annotation processor.
+    * @param packages the packages, each compiled with all its sources.
+    */
+   public static void process(final String sourcepath, final String classpath,
+                              final Processor processor,
+                              final String... packages) {
+      process(sourcepath, classpath, Collections.<String> emptyList(),
+         processor, packages);
+   }
+
+   /**
+    * Compiles some packages with an annotation processor and without
+    * generating classes, passing options to the compiler.
+    *
+    * @param sourcepath the sources.
+    * @param classpath the class-path of the sources, or <code>null</code>.
+    * @param compilerOptions the options, such as <code>-Akey=value</code>.
+    * @param processor the annotation processor.
+    * @param packages the packages, each compiled with all its sources.
+    */
+   public static void process(final String sourcepath, final String classpath,
+                              final List<String> compilerOptions,
+                              final Processor processor,
+                              final String... packages) {
+      final List<String> options = new ArrayList<String>();
+      options.add("-proc:only");
+      options.addAll(compilerOptions);
+      javac(sourcepath, classpath, options, processor, packages);
+   }
+
+   /**
+    * Compiles some packages, and the sources they refer to, to class files.
+    *
+    * @param sourcepath the sources.
+    * @param classpath the class-path of the sources, or <code>null</code>.
+    * @param destination the directory of the class files.
+    * @param packages the packages, each compiled with all its sources.
+    */
+   public static void compile(final String sourcepath, final String classpath,
+                              final File destination,
+                              final String... packages) {
+      javac(sourcepath, classpath, Arrays.asList("-proc:none", "-d",
+         destination.getPath()), null, packages);
+   }
+
+   /**
+    * Runs the Java compiler.
+    *
+    * @param processor the annotation processor or <code>null</code>.
+    */
+   private static void javac(final String sourcepath, final String classpath,
+                             final List<String> compilerOptions,
+                             final Processor processor,
+                             final String... packages) {
+      final File sources = sources(sourcepath);
+      final List<File> files = new ArrayList<File>();
+      for (String pkg : packages) {
+         final File[] sourceFiles =
+            new File(sources, pkg.replace('.', File.separatorChar))
+               .listFiles();
+         if (sourceFiles == null) {
+            throw new IllegalStateException("No package " + pkg + " in "
+               + sources);
+         }
+         Arrays.sort(sourceFiles);
+         for (File file : sourceFiles) {
+            if (file.getName().endsWith(".java")) {
+               files.add(file);
+            }
+         }
+      }
+      final List<String> options = new ArrayList<String>(compilerOptions);
+      options.add("-sourcepath");
+      options.add(sources.getPath());
+      if (classpath != null) {
+         options.add("-classpath");
+         options.add(classpath);
+      }
+
+      final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+      final StandardJavaFileManager fileManager =
+         compiler.getStandardFileManager(null, null, null);
+      final StringWriter log = new StringWriter();
+      final JavaCompiler.CompilationTask task =
+         compiler.getTask(log, fileManager, null, options, null, fileManager
+            .getJavaFileObjectsFromFiles(files));
+      if (processor != null) {
+         task.setProcessors(Collections.singleton(processor));
+      }
+      if (!task.call()) {
+         throw new IllegalStateException("javac failed:\n" + log);
+      }
+   }
+
+   /**
+    * Gets the class-path of the archives or directories some classes are
+    * loaded from.
+    *
+    * @param types the classes.
+    * @return the class-path.
+    */
+   public static String classpath(final Class<?>... types) {
+      final StringBuilder classpath = new StringBuilder();
+      for (Class<?> type : types) {
+         if (classpath.length() > 0) {
+            classpath.append(File.pathSeparatorChar);
+         }
+         classpath.append(type.getProtectionDomain().getCodeSource()
+            .getLocation().getPath());
+      }
+      return classpath.toString();
+   }
+
+   /**
+    * Resolves sources against the base directory of the module.
+    *
+    * @param sourcepath the sources.
+    * @return the directory of the sources.
+    */
+   public static File sources(final String sourcepath) {
+      final File sources = new File(sourcepath);
+      return sources.isAbsolute() ? sources : new File(System.getProperty(
+         "basedir", "."), sourcepath);
+   }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util.inherited;
+
+/**
+ * The interface of the hierarchy whose inherited documentation
+ * <code>InheritedJavadocIndexTest</code> checks.
+ */
+public interface Documented {
+
+   /**
+    * Interface name.
+    *
+    * @return the name.
+    */
+   String name();
+
+   /**
+    * Interface description.
+    *
+    * @return the description.
+    */
+   String describe();
+
+}
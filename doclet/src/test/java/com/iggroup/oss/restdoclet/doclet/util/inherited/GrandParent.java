@@ -0,0 +1,59 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util.inherited;
+
+import java.util.List;
+
+/**
+ * The root of the hierarchy whose inherited documentation
+ * <code>InheritedJavadocIndexTest</code> checks.
+ */
+public class GrandParent {
+
+   /**
+    * Grandparent description.
+    *
+    * @return the description.
+    */
+   public String describe() {
+      return null;
+   }
+
+   /**
+    * Grandparent total.
+    *
+    * @return the total.
+    */
+   public int total() {
+      return 0;
+   }
+
+   /**
+    * Grandparent join.
+    *
+    * @param parts the parts.
+    * @param separators the separators.
+    * @return the joined parts.
+    */
+   public String join(final List<String> parts, final String... separators) {
+      return null;
+   }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * #%L
+ * restdoc-doclet
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.doclet.util.named.second;
+
+/**
+ * An item containing an item of its own type.
+ */
+public class Item {
+
+   /**
+    * The label.
+    */
+   private String label;
+
+   /**
+    * The parent item.
+    */
+   private Item parent;
+
+   /**
+    * Gets the label.
+    *
+    * @return the label.
+    */
+   public String getLabel() {
+      return label;
+   }
+
+   /**
+    * Gets the parent item.
+    *
+    * @return the parent.
+    */
+   public Item getParent() {
+      return parent;
+   }
+
+}
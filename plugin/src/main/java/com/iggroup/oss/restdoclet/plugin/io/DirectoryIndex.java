@@ -0,0 +1,366 @@
+/*
+ * #%L
+ * restdoc-plugin
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.plugin.io;
+
+import static com.iggroup.oss.restdoclet.plugin.util.MavenUtils.SRC_DIR;
+import static com.iggroup.oss.restdoclet.plugin.util.MavenUtils.TEST_DIR;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Index of the files of a directory tree accepted by a filter, persisted
+ * between builds so that directories that haven't changed since aren't
+ * listed again.
+ * <p>
+ * A walk never enters version control, <code>node_modules</code> or Maven's
+ * test directories. A directory is only listed again if its modification
+ * time changed, which it does when files are added to, removed from or
+ * renamed in it, but not when their content changes, so an index can be
+ * walked again after files were written. The listing of a directory
+ * modified in the few seconds before it was listed is neither reused nor
+ * persisted, as a change in the same tick of the file system's clock
+ * wouldn't be noticed. Files are returned in the order of their paths,
+ * directory by directory.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class DirectoryIndex {
+
+   /**
+    * The name of the index file.
+    */
+   public static final String FILE = "restdoc-directories.properties";
+
+   /**
+    * The names of the directories never entered.
+    */
+   public static final Set<String> PRUNED =
+      Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(".git",
+         ".svn", ".hg", ".bzr", "CVS", "node_modules")));
+
+   private static final Logger LOG = Logger.getLogger(DirectoryIndex.class);
+
+   /**
+    * How long, in milliseconds, before being listed a directory must have
+    * last been modified for its listing to be reused.
+    */
+   private static final long SETTLE_TIME = 2000;
+
+   /**
+    * The separator of names in the index file, which no file name contains,
+    * doubled between the parts of an entry.
+    */
+   private static final String SEPARATOR = "/";
+
+   private static final String PART_SEPARATOR = SEPARATOR + SEPARATOR;
+
+   /**
+    * The index file, or <code>null</code> if the index isn't persisted.
+    */
+   private final File file;
+
+   /**
+    * The filter of the files indexed.
+    */
+   private final FilenameFilter filter;
+
+   /**
+    * The listings of the last build, keyed by directory path.
+    */
+   private final Map<String, Listing> previous =
+      new HashMap<String, Listing>();
+
+   /**
+    * The listings of the directories walked, keyed by directory path.
+    */
+   private final Map<String, Listing> current =
+      new HashMap<String, Listing>();
+
+   /**
+    * The number of directories listed.
+    */
+   private int listed;
+
+   /**
+    * Constructs an index that isn't persisted.
+    *
+    * @param filter the filter of the files indexed.
+    */
+   public DirectoryIndex(final FilenameFilter filter) {
+      super();
+      this.file = null;
+      this.filter = filter;
+   }
+
+   /**
+    * Constructs an index, loading the one of the last build, if any.
+    *
+    * @param file the index file.
+    * @param filter the filter of the files indexed.
+    * @throws IOException if the index file can't be read.
+    */
+   public DirectoryIndex(final File file, final FilenameFilter filter)
+      throws IOException {
+      super();
+      this.file = file;
+      this.filter = filter;
+      if (file.isFile()) {
+         final Properties properties = new Properties();
+         final InputStream input = new FileInputStream(file);
+         try {
+            properties.load(input);
+         } finally {
+            input.close();
+         }
+         for (String path : properties.stringPropertyNames()) {
+            final Listing listing =
+               Listing.parse(properties.getProperty(path));
+            if (listing != null) {
+               previous.put(path, listing);
+            }
+         }
+      }
+   }
+
+   /**
+    * Gets the files of a directory tree accepted by this index's filter.
+    *
+    * @param start the directory at the root of the tree.
+    * @return the files.
+    */
+   public List<File> files(final File start) {
+      final int before = listed;
+      final List<File> files = new ArrayList<File>();
+      final int walked = walk(start, files);
+      LOG.info("Walked " + walked + " directories from " + start
+         + ", listed " + (listed - before));
+      return files;
+   }
+
+   /**
+    * Gets the files of a directory tree accepted by a filter as well as this
+    * index's filter.
+    *
+    * @param start the directory at the root of the tree.
+    * @param accept the filter.
+    * @return the files.
+    */
+   public List<File> files(final File start, final FilenameFilter accept) {
+      final List<File> files = new ArrayList<File>();
+      for (File candidate : files(start)) {
+         if (accept.accept(candidate.getParentFile(), candidate.getName())) {
+            files.add(candidate);
+         }
+      }
+      return files;
+   }
+
+   /**
+    * Walks a directory tree.
+    *
+    * @return the number of directories walked.
+    */
+   private int walk(final File dir, final Collection<File> files) {
+      final String path = dir.getPath();
+      final long modified = dir.lastModified();
+      Listing listing = current.get(path);
+      if (!isValid(listing, modified)) {
+         listing = previous.get(path);
+         if (!isValid(listing, modified)) {
+            listing = list(dir, modified);
+         }
+         current.put(path, listing);
+      }
+      for (String name : listing.files) {
+         files.add(new File(dir, name));
+      }
+      int walked = 1;
+      for (String name : listing.directories) {
+         walked += walk(new File(dir, name), files);
+      }
+      return walked;
+   }
+
+   /**
+    * Checks if a listing can be reused for a directory.
+    */
+   private static boolean isValid(final Listing listing, final long modified) {
+      return listing != null && listing.settled
+         && listing.modified == modified;
+   }
+
+   private Listing list(final File dir, final long modified) {
+      listed++;
+      final Listing listing =
+         new Listing(modified, modified < System.currentTimeMillis()
+            - SETTLE_TIME);
+      final String[] names = dir.list();
+      if (names != null) {
+         Arrays.sort(names);
+         for (String name : names) {
+            final File child = new File(dir, name);
+            if (child.isDirectory()) {
+               if (!isPruned(dir, name)) {
+                  listing.directories.add(name);
+               }
+            } else if (filter.accept(dir, name)) {
+               listing.files.add(name);
+            }
+         }
+      }
+      return listing;
+   }
+
+   /**
+    * Checks if a directory is never entered.
+    */
+   private static boolean isPruned(final File parent, final String name) {
+      return PRUNED.contains(name) || TEST_DIR.equals(name)
+         && SRC_DIR.equals(parent.getName());
+   }
+
+   /**
+    * Writes the listings of the directories walked to the index file.
+    * Directories no longer walked are dropped.
+    *
+    * @throws IOException if the index file can't be written.
+    */
+   public void store() throws IOException {
+      if (file == null) {
+         return;
+      }
+      final Properties properties = new Properties();
+      for (Map.Entry<String, Listing> entry : current.entrySet()) {
+         final Listing listing = entry.getValue();
+         if (listing.settled && listing.modified != 0) {
+            properties.setProperty(entry.getKey(), listing.format());
+         }
+      }
+      file.getParentFile().mkdirs();
+      final OutputStream output = new FileOutputStream(file);
+      try {
+         properties.store(output, "RESTdoclet directory index");
+      } finally {
+         output.close();
+      }
+   }
+
+   /**
+    * The sub-directories and accepted files of a directory.
+    */
+   private static final class Listing {
+
+      /**
+       * The modification time of the directory when it was listed.
+       */
+      private final long modified;
+
+      /**
+       * <code>true</code> if the directory was last modified long enough
+       * before it was listed for the listing to be reused.
+       */
+      private final boolean settled;
+
+      /**
+       * The names of the sub-directories entered, in order.
+       */
+      private final List<String> directories = new ArrayList<String>();
+
+      /**
+       * The names of the files accepted, in order.
+       */
+      private final List<String> files = new ArrayList<String>();
+
+      private Listing(final long modified, final boolean settled) {
+         this.modified = modified;
+         this.settled = settled;
+      }
+
+      /**
+       * Formats this listing: its modification time, sub-directories and
+       * files.
+       */
+      private String format() {
+         final StringBuilder buffer = new StringBuilder();
+         buffer.append(modified).append(PART_SEPARATOR);
+         join(buffer, directories);
+         buffer.append(PART_SEPARATOR);
+         join(buffer, files);
+         return buffer.toString();
+      }
+
+      private static void join(final StringBuilder buffer,
+                               final List<String> names) {
+         for (int i = 0; i < names.size(); i++) {
+            if (i > 0) {
+               buffer.append(SEPARATOR);
+            }
+            buffer.append(names.get(i));
+         }
+      }
+
+      /**
+       * Parses a listing formatted by {@link #format()}.
+       *
+       * @return the listing, or <code>null</code> if malformed.
+       */
+      private static Listing parse(final String value) {
+         final String[] parts = value.split(PART_SEPARATOR, -1);
+         if (parts.length != 3) {
+            return null;
+         }
+         final Listing listing;
+         try {
+            listing = new Listing(Long.parseLong(parts[0]), true);
+         } catch (NumberFormatException e) {
+            return null;
+         }
+         split(parts[1], listing.directories);
+         split(parts[2], listing.files);
+         return listing;
+      }
+
+      private static void split(final String part, final List<String> names) {
+         if (part.length() > 0) {
+            names.addAll(Arrays.asList(part.split(SEPARATOR)));
+         }
+      }
+
+   }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * #%L
+ * restdoc-plugin
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.plugin.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.jibx.runtime.JiBXException;
+
+import com.iggroup.oss.restdoclet.doclet.type.Controller;
+import com.iggroup.oss.restdoclet.doclet.type.TypeDocs;
+import com.iggroup.oss.restdoclet.doclet.util.JiBXCodec;
+import com.iggroup.oss.restdoclet.plugin.util.ServiceUtils;
+
+/**
+ * The documentation of controllers and the type registries created by
+ * XmlDoclet in directory trees, unmarshalled once per tree so that the
+ * projects of a reactor sharing a build directory don't unmarshal it again.
+ * <p>
+ * The files of a tree are found through an index of documentation files. The
+ * documentation of a tree is unmarshalled again if a file was added, removed
+ * or changed, in size or modification time, since it was last unmarshalled.
+ * The documentation returned is shared and must not be modified.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class DocumentationCache {
+
+   private static final Logger LOG =
+      Logger.getLogger(DocumentationCache.class);
+
+   /**
+    * The index of documentation files.
+    */
+   private final DirectoryIndex index;
+
+   /**
+    * The documentation of the trees, keyed by the path of their root.
+    */
+   private final Map<String, Documentation> trees =
+      new HashMap<String, Documentation>();
+
+   /**
+    * Constructs an empty cache.
+    *
+    * @param index the index of documentation files, see
+    *           {@link ServiceUtils#documentationIndex(File)}.
+    */
+   public DocumentationCache(final DirectoryIndex index) {
+      super();
+      this.index = index;
+   }
+
+   /**
+    * Gets the index of documentation files.
+    *
+    * @return the index.
+    */
+   public DirectoryIndex getIndex() {
+      return index;
+   }
+
+   /**
+    * Gets the documentation of a directory tree, unmarshalling it if it isn't
+    * cached or its files changed since.
+    *
+    * @param start the directory at the root of the tree.
+    * @return the documentation.
+    * @throws IOException if a documentation file can't be read.
+    * @throws JiBXException if a documentation file can't be unmarshalled.
+    */
+   public Documentation get(final File start) throws IOException,
+      JiBXException {
+      final Collection<File> controllerFiles =
+         ServiceUtils.collectControllerJavadocs(start, index);
+      final Collection<File> typeFiles =
+         ServiceUtils.collectTypeDocs(start, index);
+      final List<String> stamps = new ArrayList<String>();
+      stamp(controllerFiles, stamps);
+      stamp(typeFiles, stamps);
+
+      Documentation documentation = trees.get(start.getPath());
+      if (documentation != null && documentation.stamps.equals(stamps)) {
+         LOG.info("Reusing the documentation of " + start);
+      } else {
+         final List<Controller> controllers = new ArrayList<Controller>();
+         for (File file : controllerFiles) {
+            controllers.add(JiBXCodec.unmarshal(Controller.class, file));
+         }
+         final TypeDocs typeDocs = new TypeDocs();
+         for (File file : typeFiles) {
+            typeDocs.addAll(JiBXCodec.unmarshal(TypeDocs.class, file));
+         }
+         documentation = new Documentation(stamps, controllers, typeDocs);
+         trees.put(start.getPath(), documentation);
+      }
+      return documentation;
+   }
+
+   /**
+    * Adds the stamps of files: their paths, sizes and modification times.
+    */
+   private static void stamp(final Collection<File> files,
+                             final List<String> stamps) {
+      for (File file : files) {
+         stamps.add(file.getPath() + '@' + file.length() + '@'
+            + file.lastModified());
+      }
+   }
+
+   /**
+    * The documentation of a directory tree.
+    */
+   public static final class Documentation {
+
+      /**
+       * The stamps of the files the documentation was unmarshalled from.
+       */
+      private final List<String> stamps;
+
+      private final List<Controller> controllers;
+
+      private final TypeDocs typeDocs;
+
+      private Documentation(final List<String> stamps,
+                            final List<Controller> controllers,
+                            final TypeDocs typeDocs) {
+         this.stamps = stamps;
+         this.controllers = Collections.unmodifiableList(controllers);
+         this.typeDocs = typeDocs;
+      }
+
+      /**
+       * Gets the documentation of the controllers, in the order of their
+       * files.
+       *
+       * @return the controllers.
+       */
+      public List<Controller> getControllers() {
+         return controllers;
+      }
+
+      /**
+       * Gets the documentation of types of all the type registries.
+       *
+       * @return the documentation of types.
+       */
+      public TypeDocs getTypeDocs() {
+         return typeDocs;
+      }
+
+   }
+
+}
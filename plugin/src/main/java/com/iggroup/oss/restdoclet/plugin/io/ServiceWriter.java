@@ -0,0 +1,238 @@
+/*
+ * #%L
+ * restdoc-plugin
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.plugin.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.jibx.runtime.JiBXException;
+
+import com.iggroup.oss.restdoclet.doclet.type.Service;
+import com.iggroup.oss.restdoclet.doclet.util.CatalogueCodec;
+import com.iggroup.oss.restdoclet.doclet.util.JiBXCodec;
+import com.iggroup.oss.restdoclet.plugin.util.ServiceUtils;
+
+/**
+ * Writes the files of services concurrently, on a bounded number of threads.
+ * <p>
+ * Services must have their identifiers, and so the names of their files,
+ * assigned before they're written. The threads marshal the services with
+ * {@link JiBXCodec}, which pools its marshalling contexts. Once a
+ * thread fails, the others stop after the file they're writing and the
+ * failure is rethrown when all of them have stopped.
+ */
+public final class ServiceWriter {
+
+   private static final Logger LOG = Logger.getLogger(ServiceWriter.class);
+
+   /**
+    * The directories the files are written to.
+    */
+   private final DirectoryBuilder dirs;
+
+   /**
+    * The maximum number of threads.
+    */
+   private final int threads;
+
+   /**
+    * <code>true</code> if the binary files are written too.
+    */
+   private final boolean binary;
+
+   /**
+    * The number of files written.
+    */
+   private final AtomicInteger files = new AtomicInteger();
+
+   /**
+    * The number of bytes written.
+    */
+   private final AtomicLong bytes = new AtomicLong();
+
+   /**
+    * Constructs a writer.
+    *
+    * @param dirs the directories the files are written to.
+    * @param threads the maximum number of threads, the number of processors
+    *           if zero or less.
+    * @param binary <code>true</code> if the binary files of services (see
+    *           {@link CatalogueCodec}) are written too.
+    */
+   public ServiceWriter(final DirectoryBuilder dirs, final int threads,
+                        final boolean binary) {
+      super();
+      this.dirs = dirs;
+      this.threads =
+         threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+      this.binary = binary;
+   }
+
+   /**
+    * Writes the files of services. Doesn't return, even if a thread fails or
+    * the calling thread is interrupted, before all the threads have stopped.
+    *
+    * @param services the services, with distinct identifiers.
+    * @throws IOException if a file can't be written.
+    * @throws JiBXException if a service can't be marshalled.
+    */
+   public void write(final List<Service> services) throws IOException,
+      JiBXException {
+      final int size = Math.min(threads, services.size());
+      if (size == 0) {
+         return;
+      }
+      final AtomicInteger next = new AtomicInteger();
+      final AtomicBoolean failed = new AtomicBoolean();
+      final ExecutorService executor = Executors.newFixedThreadPool(size);
+      try {
+         final List<Future<Void>> results = new ArrayList<Future<Void>>();
+         for (int i = 0; i < size; i++) {
+            results.add(executor.submit(new Callable<Void>() {
+               @Override
+               public Void call() throws IOException, JiBXException {
+                  boolean completed = false;
+                  try {
+                     int index = next.getAndIncrement();
+                     while (index < services.size() && !failed.get()
+                        && !Thread.currentThread().isInterrupted()) {
+                        write(services.get(index));
+                        index = next.getAndIncrement();
+                     }
+                     completed = true;
+                  } finally {
+                     if (!completed) {
+                        failed.set(true);
+                     }
+                  }
+                  return null;
+               }
+            }));
+         }
+         for (Future<Void> result : results) {
+            get(result);
+         }
+      } finally {
+         shutdown(executor);
+      }
+      LOG.info("Wrote " + files + " service files, " + bytes + " bytes, on "
+         + size + " threads");
+   }
+
+   /**
+    * Writes the files of a service.
+    */
+   private void write(final Service service) throws IOException,
+      JiBXException {
+      final File file =
+         ServiceUtils.serviceFile(dirs, service.getIdentifier());
+      JiBXCodec.marshal(service, file);
+      count(file);
+      if (binary) {
+         final File binaryFile =
+            ServiceUtils.binaryServiceFile(dirs, service.getIdentifier());
+         CatalogueCodec.writeService(service, binaryFile);
+         count(binaryFile);
+      }
+   }
+
+   private void count(final File file) {
+      files.incrementAndGet();
+      bytes.addAndGet(file.length());
+   }
+
+   /**
+    * Interrupts the threads and waits for them to stop, so that no file is
+    * still being written once {@link #write(List)} returns or throws. An
+    * interruption while waiting is restored once they have.
+    */
+   private static void shutdown(final ExecutorService executor) {
+      executor.shutdownNow();
+      boolean interrupted = false;
+      try {
+         while (!executor.isTerminated()) {
+            try {
+               executor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+               interrupted = true;
+            }
+         }
+      } finally {
+         if (interrupted) {
+            Thread.currentThread().interrupt();
+         }
+      }
+   }
+
+   /**
+    * Waits for a thread to complete, rethrowing its exception if it failed.
+    */
+   private static void get(final Future<Void> result) throws IOException,
+      JiBXException {
+      try {
+         result.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new IOException("Interrupted while writing services");
+      } catch (ExecutionException e) {
+         final Throwable cause = e.getCause();
+         if (cause instanceof IOException) {
+            throw (IOException) cause;
+         } else if (cause instanceof JiBXException) {
+            throw (JiBXException) cause;
+         } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+         } else {
+            throw (Error) cause;
+         }
+      }
+   }
+
+   /**
+    * Gets the number of files written.
+    *
+    * @return the number of files.
+    */
+   public int getFiles() {
+      return files.get();
+   }
+
+   /**
+    * Gets the number of bytes written.
+    *
+    * @return the number of bytes.
+    */
+   public long getBytes() {
+      return bytes.get();
+   }
+
+}
@@ -11,33 +11,41 @@
 package com.iggroup.oss.restdoclet.plugin.mojo;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.log4j.Logger;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
 import org.jibx.runtime.JiBXException;
 
+import com.iggroup.oss.restdoclet.doclet.type.BaseType;
 import com.iggroup.oss.restdoclet.doclet.type.Controller;
-import com.iggroup.oss.restdoclet.doclet.type.ControllerSummary;
 import com.iggroup.oss.restdoclet.doclet.type.Method;
 import com.iggroup.oss.restdoclet.doclet.type.Service;
 import com.iggroup.oss.restdoclet.doclet.type.Services;
-import com.iggroup.oss.restdoclet.doclet.type.Uri;
-import com.iggroup.oss.restdoclet.doclet.util.ControllerTypePredicate;
+import com.iggroup.oss.restdoclet.doclet.type.TypeDoc;
+import com.iggroup.oss.restdoclet.doclet.type.TypeDocs;
 import com.iggroup.oss.restdoclet.doclet.util.DocletUtils;
-import com.iggroup.oss.restdoclet.doclet.util.JiBXUtils;
+import com.iggroup.oss.restdoclet.doclet.util.CatalogueCodec;
+import com.iggroup.oss.restdoclet.doclet.util.JiBXCodec;
 import com.iggroup.oss.restdoclet.plugin.io.ConfigCopier;
 import com.iggroup.oss.restdoclet.plugin.io.DirectoryBuilder;
+import com.iggroup.oss.restdoclet.plugin.io.DirectoryIndex;
+import com.iggroup.oss.restdoclet.plugin.io.DocumentationCache;
+import com.iggroup.oss.restdoclet.plugin.io.DocumentationCache.Documentation;
 import com.iggroup.oss.restdoclet.plugin.io.JarBuilder;
+import com.iggroup.oss.restdoclet.plugin.io.ServiceWriter;
 import com.iggroup.oss.restdoclet.plugin.util.JavadocNotFoundException;
 import com.iggroup.oss.restdoclet.plugin.util.MavenUtils;
+import com.iggroup.oss.restdoclet.plugin.util.ServiceAggregator;
 import com.iggroup.oss.restdoclet.plugin.util.ServiceUtils;
 
 /**
@@ -49,9 +57,25 @@ import com.iggroup.oss.restdoclet.plugin.util.ServiceUtils;
  */
 public class RestDocumentationMojo extends AbstractMojo {
 
+   /**
+    * The discovery mode looking for documentation in the build directories
+    * of the projects of the reactor.
+    */
+   public static final String REACTOR_DISCOVERY = "reactor";
+
    private static final Logger LOG = Logger
       .getLogger(RestDocumentationMojo.class);
 
+   /**
+    * The documentation shared by the projects of a reactor, with its index of
+    * documentation files, keyed by build session. Sessions are weakly
+    * referenced, so a Maven process running several builds, e.g. a daemon or
+    * an embedded Maven, doesn't keep the documentation of a build once it's
+    * over.
+    */
+   private static final Map<MavenSession, DocumentationCache> SESSION_CACHES =
+      new WeakHashMap<MavenSession, DocumentationCache>();
+
    /**
     * The artifact identifier of the module this Mojo is running on.
     * 
@@ -132,42 +156,119 @@ public class RestDocumentationMojo extends AbstractMojo {
     */
    private transient List<String> excludes;
 
+   /**
+    * How the documentation of controllers is found: <code>tree</code>, the
+    * default, looks for it in the whole multi-module tree the project is part
+    * of; <code>reactor</code> only in the build directories of the project and
+    * of the projects of the reactor it depends on, sharing what's found with
+    * the other projects of the reactor.
+    * 
+    * @parameter expression="${restdoclet.discovery}" default-value="tree"
+    */
+   private transient String discovery;
+
+   /**
+    * The project RestDocumentationMojo is running on.
+    * 
+    * @parameter expression="${project}"
+    * @readonly
+    */
+   private transient MavenProject project;
+
+   /**
+    * The projects of the reactor.
+    * 
+    * @parameter expression="${reactorProjects}"
+    * @readonly
+    */
+   private transient List<MavenProject> reactorProjects;
+
+   /**
+    * The build session.
+    * 
+    * @parameter expression="${session}"
+    * @readonly
+    */
+   private transient MavenSession session;
+
+   /**
+    * Whether services are also written in the compact binary form read by
+    * {@link CatalogueCodec}, next to the XML, together with a catalogue packing
+    * all the services into one file. It is set to <code>false</code> by
+    * default.
+    * 
+    * @parameter expression="${restdoclet.binary}" default-value="false"
+    */
+   private transient boolean binary;
+
+   /**
+    * The maximum number of threads the files of services are written on. It
+    * is set to the number of processors if zero or less, the default.
+    * 
+    * @parameter expression="${restdoclet.threads}" default-value="0"
+    */
+   private transient int threads;
+
    /**
     * The documentation of controllers generated by XmlDoclet.
     */
    private final transient Collection<Controller> controllers =
       new ArrayList<Controller>();
 
+   /**
+    * The documentation of types generated by XmlDoclet, if its type registry
+    * is enabled.
+    */
+   private final transient TypeDocs typeDocs = new TypeDocs();
+
    /**
     * Collects documentations of controllers and data-binders.
     * 
     * @throws CloneNotSupportedException if a data-binder's documentation can't
     *            be cloned.
-    * @throws FileNotFoundException if the file containing documentation can't
-    *            be found.
+    * @throws IOException if the file containing documentation can't be
+    *            read.
     * @throws JiBXException if a JiBX exception occurs.
     */
-   private void javadocs() throws CloneNotSupportedException,
-   FileNotFoundException, JiBXException {
+   private void javadocs() throws CloneNotSupportedException, IOException,
+   JiBXException {
       LOG.info("Collecting controller javadocs");
-      /* root directory */
-      File root = baseDirectory;
-      while (root.getParentFile() != null
-         && new File(root.getParentFile(), MavenUtils.POM_FILE).exists()) {
-         root = root.getParentFile();
+      final DocumentationCache cache;
+      final List<File> starts;
+      if (REACTOR_DISCOVERY.equals(discovery)) {
+         cache = sessionCache(session);
+         starts = MavenUtils.getBuildDirectories(project, reactorProjects);
+      } else {
+         /* root directory */
+         File root = baseDirectory;
+         while (root.getParentFile() != null
+            && new File(root.getParentFile(), MavenUtils.POM_FILE).exists()) {
+            root = root.getParentFile();
+         }
+         cache =
+            new DocumentationCache(ServiceUtils.documentationIndex(indexFile(
+               baseDirectory)));
+         starts = Collections.singletonList(root);
+      }
+      synchronized (cache) {
+         for (File start : starts) {
+            javadocs(cache.get(start));
+         }
+         cache.getIndex().store();
       }
-      /* collect controller javadocs */
-      LOG.info("Collecting Controller javadocs");
-      final Collection<File> cfiles =
-         ServiceUtils.collectControllerJavadocs(root);
-      if (cfiles.size() == 0) {
+      if (controllers.isEmpty()) {
          throw new IllegalArgumentException(
             "No controller javadoc found.  Is the javadoc plugin configured correctly?");
       }
-      for (final File file : cfiles) {
-         LOG.debug(file.getAbsolutePath() + File.separatorChar
-            + file.getName());
-         final Controller cntrl = JiBXUtils.unmarshallController(file);
+   }
+
+   /**
+    * Collects the documentation of controllers and types of a directory tree.
+    * 
+    * @param documentation the documentation of the tree.
+    */
+   private void javadocs(final Documentation documentation) {
+      for (Controller cntrl : documentation.getControllers()) {
          LOG.info(cntrl.getType());
          for (Method m : cntrl.getMethods()) {
             LOG.info(m.toString());
@@ -176,6 +277,43 @@ public class RestDocumentationMojo extends AbstractMojo {
             controllers.add(cntrl);
          }
       }
+      typeDocs.addAll(documentation.getTypeDocs());
+   }
+
+   /**
+    * Gets the documentation shared by the projects of a reactor, creating it
+    * for the first project of the reactor. Its index of documentation files
+    * is kept in the build directory of the directory the build was started
+    * from, whichever project stores it.
+    * 
+    * @param session the build session.
+    * @return the documentation.
+    * @throws IOException if the index file can't be read.
+    */
+   private static DocumentationCache sessionCache(final MavenSession session)
+      throws IOException {
+      synchronized (SESSION_CACHES) {
+         DocumentationCache cache = SESSION_CACHES.get(session);
+         if (cache == null) {
+            cache =
+               new DocumentationCache(ServiceUtils
+                  .documentationIndex(indexFile(new File(session
+                     .getExecutionRootDirectory()))));
+            SESSION_CACHES.put(session, cache);
+         }
+         return cache;
+      }
+   }
+
+   /**
+    * Gets the index file of documentation files of a project.
+    * 
+    * @param base the base-directory of the project.
+    * @return the index file, in the project's build directory.
+    */
+   private static File indexFile(final File base) {
+      return new File(new File(base, MavenUtils.TARGET_DIR),
+         DirectoryIndex.FILE);
    }
 
    /**
@@ -195,16 +333,8 @@ public class RestDocumentationMojo extends AbstractMojo {
       DirectoryBuilder dirs =
          new DirectoryBuilder(baseDirectory, outputDirectory);
 
-      int identifier = 1;
-      List<Service> services = new ArrayList<Service>();
-
       LOG.info("Looking for mappings");
-      HashMap<String, ArrayList<Method>> uriMethodMappings =
-         new HashMap<String, ArrayList<Method>>();
-      HashMap<String, Controller> uriControllerMappings =
-         new HashMap<String, Controller>();
-      HashMap<String, Collection<Uri>> multiUriMappings =
-         new HashMap<String, Collection<Uri>>();
+      final ServiceAggregator aggregator = new ServiceAggregator();
       for (Controller controller : controllers) {
          LOG.info(new StringBuilder().append("- Controller ")
             .append(controller.getType()).toString());
@@ -215,72 +345,95 @@ public class RestDocumentationMojo extends AbstractMojo {
             if (excludeMethod(method)) {
                continue;
             }
-
-            // Collate multiple uris into one string key.
-            Collection<Uri> uris = method.getUris();
-            if (!uris.isEmpty()) {
-               String multiUri = "";
-               for (Uri uri : uris) {
-                  multiUri = multiUri + ", " + uri;
-               }
-
-               multiUriMappings.put(multiUri, uris);
-               ArrayList<Method> methodList = uriMethodMappings.get(multiUri);
-               if (methodList == null) {
-                  methodList = new ArrayList<Method>();
-                  uriMethodMappings.put(multiUri, methodList);
-               }
-               methodList.add(method);
-               uriControllerMappings.put(multiUri, controller);
-            }
+            aggregator.add(controller, method);
          }
 
       }
 
       LOG.info("Processing controllers...");
-      for (String uri : uriControllerMappings.keySet()) {
+      final List<Service> services = aggregator.services();
+      for (Service service : services) {
          LOG.info(new StringBuilder().append("Processing controllers for ")
-            .append(uri).toString());
-         Controller controller = uriControllerMappings.get(uri);
+            .append(service.getUris()).toString());
          LOG.info(new StringBuilder().append("Found controller ")
-            .append(uriControllerMappings.get(uri).getType()).toString());
-         ArrayList<Method> matches = uriMethodMappings.get(uri);
+            .append(service.getController().getType()).toString());
          LOG.info(new StringBuilder().append("Found methods ")
-            .append(matches.toString()).append(" ").append(matches.size())
+            .append(service.getController().getMethods().toString())
+            .append(" ").append(service.getController().getMethods().size())
             .toString());
-
-         Service service =
-            new Service(identifier, multiUriMappings.get(uri), new Controller(
-               controller.getType(), controller.getJavadoc(), matches));
-         services.add(service);
          service.assertValid();
-         JiBXUtils.marshallService(service,
-            ServiceUtils.serviceFile(dirs, identifier));
-         identifier++;
+      }
+
+      LOG.info("Writing services...");
+      final ServiceWriter writer = new ServiceWriter(dirs, threads, binary);
+      writer.write(services);
+
+      if (binary) {
+         CatalogueCodec.writeCatalogue(services,
+            ServiceUtils.catalogueFile(dirs));
+      }
+
+      if (typeDocs.size() > 0) {
+         LOG.info("Marshalling types...");
+         JiBXCodec.marshal(typeDocs(services),
+            ServiceUtils.typeDocsFile(dirs));
       }
 
       LOG.info("Processing services...");
-      Services list = new Services();
+      Services list = ServiceAggregator.summarise(services);
+
+      LOG.info("Marshalling services...");
+      list.assertValid();
+      JiBXCodec.marshal(list, ServiceUtils.servicesFile(dirs));
+      if (binary) {
+         CatalogueCodec.writeServices(list,
+            ServiceUtils.binaryServicesFile(dirs));
+      }
+   }
+
+   /**
+    * Collects the documentation of the types the parameters of services refer
+    * to.
+    * 
+    * @param services the services.
+    * @return the documentation of the types referred to.
+    */
+   private TypeDocs typeDocs(final Collection<Service> services) {
+      final TypeDocs used = new TypeDocs();
       for (Service service : services) {
-         org.apache.commons.collections.Predicate predicate =
-            new ControllerTypePredicate(service.getController().getType());
-         if (CollectionUtils.exists(list.getControllers(), predicate)) {
-            ControllerSummary controller =
-               (ControllerSummary) CollectionUtils.find(list.getControllers(),
-                  predicate);
-            controller.addService(service);
-         } else {
-            ControllerSummary controller =
-               new ControllerSummary(service.getController().getType(),
-                  service.getController().getJavadoc());
-            controller.addService(service);
-            list.addController(controller);
+         for (Method method : service.getController().getMethods()) {
+            addTypeDocs(used, method.getResponseParams());
+            addTypeDocs(used, method.getRequestParams());
+            addTypeDocs(used, method.getPathParams());
+            addTypeDocs(used, method.getModelParams());
+            addTypeDocs(used, method.getBodyParams());
          }
       }
+      LOG.info(used.size() + " of " + typeDocs.size() + " types used");
+      return used;
+   }
 
-      LOG.info("Marshalling services...");
-      list.assertValid();
-      JiBXUtils.marshallServices(list, ServiceUtils.servicesFile(dirs));
+   /**
+    * Adds the documentation of the types some parameters refer to.
+    * 
+    * @param used the documentation of the types referred to so far.
+    * @param params the parameters or <code>null</code>.
+    */
+   private void addTypeDocs(final TypeDocs used,
+                            final Collection<? extends BaseType> params) {
+      if (params != null) {
+         for (BaseType param : params) {
+            if (param.getTypeDoc() != null) {
+               final TypeDoc typeDoc = typeDocs.get(param.getTypeDoc());
+               if (typeDoc == null) {
+                  LOG.warn("Missing documentation of type " + param.getType()
+                     + " (" + param.getTypeDoc() + ")");
+               } else {
+                  used.add(typeDoc);
+               }
+            }
+         }
+      }
    }
 
    /**
@@ -20,6 +20,17 @@
 package com.iggroup.oss.restdoclet.plugin.util;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.project.MavenProject;
 
 /**
  * Contains utility-methods for Maven operations.
@@ -79,4 +90,51 @@ public final class MavenUtils {
       return ref;
    }
 
+   /**
+    * Gets the build directories of a project and of the projects of the
+    * reactor it depends on, directly or not. A dependency is only on a
+    * project of the reactor if their group, artifact and version match.
+    * 
+    * @param project the project.
+    * @param reactorProjects the projects of the reactor.
+    * @return the build directories, the project's first, then in
+    *         breadth-first order of dependencies.
+    */
+   public static List<File> getBuildDirectories(final MavenProject project,
+                                                final Collection<MavenProject> reactorProjects) {
+      final Map<String, MavenProject> reactor =
+         new HashMap<String, MavenProject>();
+      for (MavenProject reactorProject : reactorProjects) {
+         reactor.put(key(reactorProject.getGroupId(),
+            reactorProject.getArtifactId(), reactorProject.getVersion()),
+            reactorProject);
+      }
+      final List<File> directories = new ArrayList<File>();
+      final Set<String> visited = new HashSet<String>();
+      final LinkedList<MavenProject> pending = new LinkedList<MavenProject>();
+      visited.add(key(project.getGroupId(), project.getArtifactId(), project
+         .getVersion()));
+      pending.add(project);
+      while (!pending.isEmpty()) {
+         final MavenProject current = pending.removeFirst();
+         directories.add(new File(current.getBuild().getDirectory()));
+         for (Object object : current.getDependencies()) {
+            final Dependency dependency = (Dependency) object;
+            final String key =
+               key(dependency.getGroupId(), dependency.getArtifactId(),
+                  dependency.getVersion());
+            final MavenProject reactorProject = reactor.get(key);
+            if (reactorProject != null && visited.add(key)) {
+               pending.add(reactorProject);
+            }
+         }
+      }
+      return directories;
+   }
+
+   private static String key(final String groupId, final String artifactId,
+                             final String version) {
+      return groupId + ':' + artifactId + ':' + version;
+   }
+
 }
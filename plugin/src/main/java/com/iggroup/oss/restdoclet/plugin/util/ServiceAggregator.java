@@ -0,0 +1,173 @@
+/*
+ * #%L
+ * restdoc-plugin
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.plugin.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.iggroup.oss.restdoclet.doclet.type.Controller;
+import com.iggroup.oss.restdoclet.doclet.type.ControllerSummary;
+import com.iggroup.oss.restdoclet.doclet.type.Method;
+import com.iggroup.oss.restdoclet.doclet.type.Service;
+import com.iggroup.oss.restdoclet.doclet.type.Services;
+import com.iggroup.oss.restdoclet.doclet.type.Uri;
+
+/**
+ * Groups the methods of controllers into services, one per set of URIs.
+ * <p>
+ * Methods are grouped by a key computed once per method from its URIs, and
+ * services by the type of their controller, in hash maps: aggregating is
+ * linear in the number of methods. Services are numbered in the order their
+ * URIs are first added and grouped in the order their controllers first
+ * appear, so that the same controllers always give the same services.
+ */
+public final class ServiceAggregator {
+
+   /**
+    * The methods added so far, grouped by the key of their URIs, in the
+    * order the keys were first added.
+    */
+   private final Map<String, Group> groups =
+      new LinkedHashMap<String, Group>();
+
+   /**
+    * Adds a method of a controller. Methods without URIs are ignored.
+    *
+    * @param controller the controller.
+    * @param method the method.
+    * @return <code>true</code> if the method was added.
+    */
+   public boolean add(final Controller controller, final Method method) {
+      final Collection<Uri> uris = method.getUris();
+      if (uris.isEmpty()) {
+         return false;
+      }
+      final String key = key(uris);
+      Group group = groups.get(key);
+      if (group == null) {
+         group = new Group();
+         groups.put(key, group);
+      }
+      group.add(controller, method);
+      return true;
+   }
+
+   /**
+    * Gets the number of services the methods added so far are grouped into.
+    *
+    * @return the number of services.
+    */
+   public int size() {
+      return groups.size();
+   }
+
+   /**
+    * Gets the services of the methods added so far, numbered from one in the
+    * order their URIs were first added. Methods with the same URIs form a
+    * single service, documented by the controller of the last one added.
+    *
+    * @return the services.
+    */
+   public List<Service> services() {
+      final List<Service> services = new ArrayList<Service>(groups.size());
+      int identifier = 1;
+      for (Group group : groups.values()) {
+         services.add(new Service(identifier, group.uris, new Controller(
+            group.controller.getType(), group.controller.getJavadoc(),
+            group.methods)));
+         identifier++;
+      }
+      return services;
+   }
+
+   /**
+    * Groups services by the type of their controller.
+    *
+    * @param services the services.
+    * @return the services grouped by controller, in the order the controllers
+    *         first appear.
+    */
+   public static Services summarise(final Collection<Service> services) {
+      final Map<String, ControllerSummary> summaries =
+         new LinkedHashMap<String, ControllerSummary>();
+      final Services list = new Services();
+      for (Service service : services) {
+         final Controller controller = service.getController();
+         ControllerSummary summary = summaries.get(controller.getType());
+         if (summary == null) {
+            summary =
+               new ControllerSummary(controller.getType(),
+                  controller.getJavadoc());
+            summaries.put(controller.getType(), summary);
+            list.addController(summary);
+         }
+         summary.addService(service);
+      }
+      return list;
+   }
+
+   /**
+    * Computes the key of a set of URIs: their paths and deprecation, in
+    * order.
+    *
+    * @param uris the URIs.
+    * @return the key.
+    */
+   private static String key(final Collection<Uri> uris) {
+      final StringBuilder key = new StringBuilder();
+      for (Uri uri : uris) {
+         key.append(", ").append(uri.getUri()).append(' ')
+            .append(uri.getDeprecated());
+      }
+      return key.toString();
+   }
+
+   /**
+    * The methods sharing a set of URIs.
+    */
+   private static final class Group {
+
+      /**
+       * The URIs, those of the last method added.
+       */
+      private Collection<Uri> uris;
+
+      /**
+       * The controller of the last method added.
+       */
+      private Controller controller;
+
+      /**
+       * The methods, in the order they were added.
+       */
+      private final List<Method> methods = new ArrayList<Method>();
+
+      private void add(final Controller controller, final Method method) {
+         this.uris = method.getUris();
+         this.controller = controller;
+         methods.add(method);
+      }
+
+   }
+
+}
@@ -20,17 +20,20 @@
 package com.iggroup.oss.restdoclet.plugin.util;
 
 import java.io.File;
+import java.io.FilenameFilter;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collection;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 
 import com.iggroup.oss.restdoclet.doclet.type.Controller;
+import com.iggroup.oss.restdoclet.doclet.type.TypeDocs;
+import com.iggroup.oss.restdoclet.doclet.util.CatalogueCodec;
 import com.iggroup.oss.restdoclet.plugin.io.ControllerJavadocFilenameFilter;
 import com.iggroup.oss.restdoclet.plugin.io.DirectoryBuilder;
-import com.iggroup.oss.restdoclet.plugin.io.MavenDirectoryFilter;
+import com.iggroup.oss.restdoclet.plugin.io.DirectoryIndex;
+import com.iggroup.oss.restdoclet.plugin.io.TypeDocsFilenameFilter;
 
 /**
  * This class contains utility methods for generating services.
@@ -67,26 +70,50 @@ public final class ServiceUtils {
    }
 
    /**
-    * Collects documentation of controllers created by XmlDoclet. It collects
-    * documentation from the current directory and all its sub-directories
-    * recursively.
+    * Creates an index of the documentation files created by XmlDoclet:
+    * documentation of controllers and type registries.
     * 
-    * @param start the directory to start looking for documentation.
-    * @param javadocs the collection to which documentation files are added.
-    */
-   private static void collectControllerJavadocs(final File start,
-                                                 final Collection<File> javadocs) {
-      final ControllerJavadocFilenameFilter jfilter =
-         new ControllerJavadocFilenameFilter();
-      for (File javadoc : start.listFiles(jfilter)) {
-         javadocs.add(javadoc);
-         LOG.info(javadoc.getAbsolutePath());
-      }
-      final MavenDirectoryFilter dfilter =
-         new MavenDirectoryFilter(true, false);
-      for (File dir : start.listFiles(dfilter)) {
-         collectControllerJavadocs(dir, javadocs);
+    * @param file the index file, persisted between builds.
+    * @return the index.
+    * @throws IOException if the index file can't be read.
+    */
+   public static DirectoryIndex documentationIndex(final File file)
+      throws IOException {
+      return new DirectoryIndex(file, documentationFilter());
+   }
+
+   /**
+    * Creates a filter of the documentation files created by XmlDoclet.
+    * 
+    * @return the filter.
+    */
+   private static FilenameFilter documentationFilter() {
+      final FilenameFilter controllers = new ControllerJavadocFilenameFilter();
+      final FilenameFilter registries = new TypeDocsFilenameFilter();
+      return new FilenameFilter() {
+         public boolean accept(final File dir, final String name) {
+            return controllers.accept(dir, name)
+               || registries.accept(dir, name);
+         }
+      };
+   }
+
+   /**
+    * Collects files from a directory and all its sub-directories recursively.
+    * 
+    * @param start the directory to start looking for files.
+    * @param index the index of the files.
+    * @param filter the filter the files have to match.
+    * @return the files found.
+    */
+   private static Collection<File> collect(final File start,
+                                           final DirectoryIndex index,
+                                           final FilenameFilter filter) {
+      final Collection<File> files = index.files(start, filter);
+      for (File file : files) {
+         LOG.info(file.getAbsolutePath());
       }
+      return files;
    }
 
    /**
@@ -98,10 +125,54 @@ public final class ServiceUtils {
     * @return the collection to which documentation files are added.
     */
    public static Collection<File> collectControllerJavadocs(final File start) {
-      final Collection<File> javadocs = new ArrayList<File>();
+      return collectControllerJavadocs(start, new DirectoryIndex(
+         documentationFilter()));
+   }
+
+   /**
+    * This method collects documentation of controllers created by XmlDoclet
+    * through an index. It collects documentation from the current directory
+    * and all its sub-directories.
+    * 
+    * @param start the directory to start looking for documentation.
+    * @param index the index of documentation files, see
+    *           {@link #documentationIndex(File)}.
+    * @return the documentation files found.
+    */
+   public static Collection<File> collectControllerJavadocs(final File start,
+                                                            final DirectoryIndex index) {
       LOG.info("Controllers: " + start);
-      collectControllerJavadocs(start, javadocs);
-      return javadocs;
+      return collect(start, index, new ControllerJavadocFilenameFilter());
+   }
+
+   /**
+    * This method collects the type registries created by XmlDoclet. It
+    * collects registries from the current directory and all its
+    * sub-directories.
+    * 
+    * @param start the directory to start looking for registries.
+    * @return the registry files found.
+    * @see TypeDocs
+    */
+   public static Collection<File> collectTypeDocs(final File start) {
+      return collectTypeDocs(start, new DirectoryIndex(documentationFilter()));
+   }
+
+   /**
+    * This method collects the type registries created by XmlDoclet through an
+    * index. It collects registries from the current directory and all its
+    * sub-directories.
+    * 
+    * @param start the directory to start looking for registries.
+    * @param index the index of documentation files, see
+    *           {@link #documentationIndex(File)}.
+    * @return the registry files found.
+    * @see TypeDocs
+    */
+   public static Collection<File> collectTypeDocs(final File start,
+                                                  final DirectoryIndex index) {
+      LOG.info("Type registries: " + start);
+      return collect(start, index, new TypeDocsFilenameFilter());
    }
 
    /**
@@ -153,4 +224,66 @@ public final class ServiceUtils {
          + SERVICES_FILE_SUFFIX);
    }
 
+   /**
+    * Returns a file containing the binary form of the service corresponding to
+    * an identifier.
+    * 
+    * @param dirs the directories containing all the services.
+    * @param identifier the identifier of the service.
+    * @return the binary service file.
+    * @throws IOException if the properties of <code>web</code> module can't be
+    *            read.
+    * @see CatalogueCodec
+    */
+   public static File binaryServiceFile(final DirectoryBuilder dirs,
+                                        final int identifier)
+      throws IOException {
+      return new File(dirs.getClassesDirectory(), SERVICES_FILE_PREFIX
+         + SERVICE_FILE_PREFIX + identifier + CatalogueCodec.SUFFIX);
+   }
+
+   /**
+    * Returns the file containing the binary form of the listing of services.
+    * 
+    * @param dirs the directories containing all the services.
+    * @return the file containing the binary listing of services.
+    * @throws IOException if the properties of <code>web</code> module can't be
+    *            read.
+    * @see CatalogueCodec
+    */
+   public static File binaryServicesFile(final DirectoryBuilder dirs)
+      throws IOException {
+      return new File(dirs.getClassesDirectory(), SERVICES_FILE_PREFIX
+         + SERVICES_FILE_SUFFIX.replace(SERVICE_FILE_SUFFIX,
+            CatalogueCodec.SUFFIX));
+   }
+
+   /**
+    * Returns the file containing the catalogue of all the services.
+    * 
+    * @param dirs the directories containing all the services.
+    * @return the catalogue file.
+    * @throws IOException if the properties of <code>web</code> module can't be
+    *            read.
+    * @see CatalogueCodec#writeCatalogue(Collection, File)
+    */
+   public static File catalogueFile(final DirectoryBuilder dirs)
+      throws IOException {
+      return new File(dirs.getClassesDirectory(), CatalogueCodec.CATALOGUE_FILE);
+   }
+
+   /**
+    * Returns the file containing the type registry of the services.
+    * 
+    * @param dirs the directories containing all the services.
+    * @return the type registry file.
+    * @throws IOException if the properties of <code>web</code> module can't be
+    *            read.
+    * @see TypeDocs
+    */
+   public static File typeDocsFile(final DirectoryBuilder dirs)
+      throws IOException {
+      return new File(dirs.getClassesDirectory(), TypeDocs.FILE);
+   }
+
 }
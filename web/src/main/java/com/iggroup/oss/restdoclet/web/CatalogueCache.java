@@ -0,0 +1,286 @@
+/*
+ * #%L
+ * restdoc-indexer
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.web;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Bounded, least-recently-used cache of objects unmarshalled from catalogue
+ * files. An entry is keyed by the absolute path of the file it was loaded from
+ * (and by the part of the file, if several objects are loaded from one file)
+ * and is only returned while that file is unchanged on disk.
+ *
+ * @param <T> the type of the cached objects.
+ */
+public class CatalogueCache<T> {
+
+   private static final Logger LOGGER = Logger.getLogger(CatalogueCache.class);
+
+   /**
+    * The name of this cache, used for logging.
+    */
+   private final String name;
+
+   /**
+    * The maximum number of entries held by this cache.
+    */
+   private final int maxEntries;
+
+   /**
+    * The cached entries, in access order.
+    */
+   private final Map<String, Entry<T>> entries;
+
+   /**
+    * The number of lookups answered from this cache.
+    */
+   private long hits;
+
+   /**
+    * The number of lookups that had to go to disk.
+    */
+   private long misses;
+
+   /**
+    * Constructs an empty cache.
+    *
+    * @param name the name of the cache, used for logging.
+    * @param maxEntries the maximum number of entries to hold.
+    */
+   public CatalogueCache(final String name, final int maxEntries) {
+      if (maxEntries < 1) {
+         throw new IllegalArgumentException(name + " cache size must be > 0");
+      }
+      this.name = name;
+      this.maxEntries = maxEntries;
+      this.entries = new LinkedHashMap<String, Entry<T>>(16, 0.75f, true) {
+
+         private static final long serialVersionUID = 1L;
+
+         @Override
+         protected boolean removeEldestEntry(final Map.Entry<String, Entry<T>> eldest) {
+            final boolean evict = size() > CatalogueCache.this.maxEntries;
+            if (evict) {
+               LOGGER.debug(CatalogueCache.this.name + " cache evicting "
+                  + eldest.getKey());
+            }
+            return evict;
+         }
+      };
+   }
+
+   /**
+    * Gets the object loaded from a file, if it is cached and the file hasn't
+    * changed since.
+    *
+    * @param file the file the object was loaded from.
+    * @return the cached object or <code>null</code> if it has to be (re)loaded.
+    */
+   public T get(final File file) {
+      return get(file, null);
+   }
+
+   /**
+    * Gets the object loaded from a part of a file, if it is cached and the
+    * file hasn't changed since.
+    *
+    * @param file the file the object was loaded from.
+    * @param part the part of the file, e.g. the identifier of a service in a
+    *           catalogue, or <code>null</code> for the whole file.
+    * @return the cached object or <code>null</code> if it has to be (re)loaded.
+    */
+   public synchronized T get(final File file, final String part) {
+      final String key = key(file, part);
+      final Entry<T> entry = entries.get(key);
+      T value = null;
+      if (entry != null) {
+         if (entry.version.equals(Version.of(file))) {
+            value = entry.value;
+         } else {
+            LOGGER.debug(name + " cache entry " + key + " is stale");
+            entries.remove(key);
+         }
+      }
+      if (value == null) {
+         misses++;
+      } else {
+         hits++;
+      }
+      return value;
+   }
+
+   /**
+    * Caches the object loaded from a file.
+    *
+    * @param file the file the object was loaded from.
+    * @param version the version of the file taken <i>before</i> it was read.
+    * @param value the loaded object.
+    */
+   public void put(final File file, final Version version, final T value) {
+      put(file, null, version, value);
+   }
+
+   /**
+    * Caches the object loaded from a part of a file.
+    *
+    * @param file the file the object was loaded from.
+    * @param part the part of the file, or <code>null</code> for the whole
+    *           file.
+    * @param version the version of the file taken <i>before</i> it was read.
+    * @param value the loaded object.
+    */
+   public synchronized void put(final File file, final String part,
+                                final Version version, final T value) {
+      entries.put(key(file, part), new Entry<T>(version, value));
+      if (LOGGER.isDebugEnabled()) {
+         LOGGER.debug(name + " cache: " + entries.size() + " entries, " + hits
+            + " hits, " + misses + " misses");
+      }
+   }
+
+   /**
+    * Gets the key of an entry.
+    */
+   private static String key(final File file, final String part) {
+      final String path = file.getAbsolutePath();
+      return part == null ? path : path + '#' + part;
+   }
+
+   /**
+    * Removes all entries from this cache.
+    */
+   public synchronized void clear() {
+      entries.clear();
+   }
+
+   /**
+    * Gets the number of entries in this cache.
+    *
+    * @return the number of entries.
+    */
+   public synchronized int size() {
+      return entries.size();
+   }
+
+   /**
+    * Gets the number of lookups answered from this cache.
+    *
+    * @return the number of hits.
+    */
+   public synchronized long getHits() {
+      return hits;
+   }
+
+   /**
+    * Gets the number of lookups that had to go to disk.
+    *
+    * @return the number of misses.
+    */
+   public synchronized long getMisses() {
+      return misses;
+   }
+
+   /**
+    * The on-disk version of a catalogue file: its modification time and size.
+    */
+   public static final class Version {
+
+      private final long lastModified;
+
+      private final long length;
+
+      /**
+       * Constructs a version.
+       *
+       * @param lastModified the modification time of the file.
+       * @param length the size of the file.
+       */
+      private Version(final long lastModified, final long length) {
+         this.lastModified = lastModified;
+         this.length = length;
+      }
+
+      /**
+       * Gets the current version of a file.
+       *
+       * @param file the file.
+       * @return the file's version.
+       */
+      public static Version of(final File file) {
+         return new Version(file.lastModified(), file.length());
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public boolean equals(final Object obj) {
+         boolean result;
+         if (obj instanceof Version) {
+            final Version version = (Version) obj;
+            result =
+               lastModified == version.lastModified && length == version.length;
+         } else {
+            result = false;
+         }
+         return result;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public int hashCode() {
+         return (int) (lastModified ^ (lastModified >>> 32)) * 31
+            + (int) (length ^ (length >>> 32));
+      }
+
+   }
+
+   /**
+    * A cached object together with the version of the file it was loaded
+    * from.
+    *
+    * @param <T> the type of the cached object.
+    */
+   private static final class Entry<T> {
+
+      private final Version version;
+
+      private final T value;
+
+      /**
+       * Constructs an entry.
+       *
+       * @param version the version of the file.
+       * @param value the cached object.
+       */
+      private Entry(final Version version, final T value) {
+         this.version = version;
+         this.value = value;
+      }
+
+   }
+
+}
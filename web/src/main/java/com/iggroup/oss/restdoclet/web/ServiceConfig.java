@@ -21,19 +21,32 @@ package com.iggroup.oss.restdoclet.web;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+import javax.xml.stream.XMLStreamException;
+
 import org.apache.log4j.Logger;
 import org.jibx.runtime.JiBXException;
 
 import com.iggroup.oss.restdoclet.doclet.RestDocumentationProperties;
+import com.iggroup.oss.restdoclet.doclet.type.BaseType;
 import com.iggroup.oss.restdoclet.doclet.type.Service;
-import com.iggroup.oss.restdoclet.doclet.type.Services;
-import com.iggroup.oss.restdoclet.doclet.type.Uri;
-import com.iggroup.oss.restdoclet.doclet.util.JiBXUtils;
+import com.iggroup.oss.restdoclet.doclet.type.ServiceSummary;
+import com.iggroup.oss.restdoclet.doclet.type.TypeDoc;
+import com.iggroup.oss.restdoclet.doclet.type.TypeDocs;
+import com.iggroup.oss.restdoclet.doclet.util.CatalogueCodec;
+import com.iggroup.oss.restdoclet.doclet.util.JiBXCodec;
+import com.iggroup.oss.restdoclet.doclet.util.ServiceSummaryReader;
+import com.iggroup.oss.restdoclet.web.CatalogueCache.Version;
 
 /**
  * Static class for accessing service configuration loaded from
@@ -42,6 +55,59 @@ public final class ServiceConfig {
 
    private static final Logger LOGGER = Logger.getLogger(ServiceConfig.class);
 
+   /**
+    * System property for the maximum number of applications whose services
+    * listing is kept in memory.
+    */
+   public static final String CACHE_APPLICATIONS = "RESTDOCLET_CACHE_APPLICATIONS";
+
+   /**
+    * System property for the maximum number of individual services kept in
+    * memory.
+    */
+   public static final String CACHE_SERVICES = "RESTDOCLET_CACHE_SERVICES";
+
+   private static final int DEFAULT_CACHE_APPLICATIONS = 128;
+
+   private static final int DEFAULT_CACHE_SERVICES = 1024;
+
+   /**
+    * Services listings, keyed by <code>restdoc-services.xml</code> (or
+    * <code>.bin</code>) file.
+    */
+   private static final CatalogueCache<Collection<ServiceSummary>> SERVICES_CACHE =
+      new CatalogueCache<Collection<ServiceSummary>>("services", Integer
+         .getInteger(CACHE_APPLICATIONS, DEFAULT_CACHE_APPLICATIONS));
+
+   /**
+    * Individual services, keyed by <code>restdoc-service-N.xml</code> (or
+    * <code>.bin</code>) file.
+    */
+   private static final CatalogueCache<Service> SERVICE_CACHE =
+      new CatalogueCache<Service>("service", Integer.getInteger(CACHE_SERVICES,
+         DEFAULT_CACHE_SERVICES));
+
+   /**
+    * Headers and tables of entries of <code>restdoc-catalogue.bin</code>
+    * files, keyed by file.
+    */
+   private static final CatalogueCache<ByteBuffer> CATALOGUE_CACHE =
+      new CatalogueCache<ByteBuffer>("catalogue", Integer.getInteger(
+         CACHE_APPLICATIONS, DEFAULT_CACHE_APPLICATIONS));
+
+   /**
+    * Documentation of types keyed by identifier, keyed by
+    * <code>restdoc-types.xml</code> file.
+    */
+   private static final CatalogueCache<Map<String, String>> TYPES_CACHE =
+      new CatalogueCache<Map<String, String>>("types", Integer.getInteger(
+         CACHE_APPLICATIONS, DEFAULT_CACHE_APPLICATIONS));
+
+   /**
+    * URI index of the whole catalogue, replaced when the catalogue changes.
+    */
+   private static volatile UriIndex uriIndex;
+
    private static String configPath;
 
    /**
@@ -108,31 +174,88 @@ public final class ServiceConfig {
     * 
     * @param searchTerm
     * @return list of service summary objects
-    * @throws FileNotFoundException
-    * @throws JiBXException if the service configuration files don't parse
+    * @throws IOException
+    * @throws XMLStreamException if the service configuration files don't
+    *            parse
     */
-   public static Collection<Service> findServices(final String searchTerm)
-      throws FileNotFoundException, JiBXException {
+   public static Collection<ServiceSummary> findServices(final String searchTerm)
+      throws IOException, XMLStreamException {
 
       LOGGER.info("Searching for " + searchTerm);
 
-      Collection<Service> matchingServices = new ArrayList<Service>();
+      return uriIndex().find(searchTerm.toLowerCase());
+   }
 
-      String lowerSearchTerm = searchTerm.toLowerCase();
-      for (String application : getApplicationNames()) {
+   /**
+    * Gets the URI index of the current catalogue, rebuilding it if any
+    * application has been added, removed or redeployed since it was built.
+    * 
+    * @return the URI index
+    * @throws IOException
+    * @throws XMLStreamException if the service configuration files don't
+    *            parse
+    */
+   private static UriIndex uriIndex() throws IOException, XMLStreamException {
 
-         for (Service service : getServices(application)) {
+      final Map<String, Version> version = new LinkedHashMap<String, Version>();
+      for (String application : getApplicationNames()) {
+         version.put(application, Version.of(servicesFile(application)));
+      }
 
-            for (Uri uri : service.getUris()) {
+      UriIndex index = uriIndex;
+      if (index == null || !index.getVersion().equals(version)) {
 
-               if (uri.getUri().contains(lowerSearchTerm)) {
-                  matchingServices.add(service);
-               }
-            }
+         Collection<ServiceSummary> services = new ArrayList<ServiceSummary>();
+         for (String application : version.keySet()) {
+            services.addAll(getServices(application));
          }
+
+         index = new UriIndex(version, services);
+         uriIndex = index;
+         LOGGER.info("Indexed " + index.size() + " URIs of "
+            + version.size() + " applications");
       }
 
-      return matchingServices;
+      return index;
+   }
+
+   /**
+    * Return the services listing file of an application, preferring the
+    * binary form written by the plugin when it is present
+    * 
+    * @param applicationName application name
+    * @return the <code>restdoc-services.bin</code> or
+    *         <code>restdoc-services.xml</code> file
+    */
+   private static File servicesFile(final String applicationName) {
+      return catalogueFile(applicationName, "restdoc-services");
+   }
+
+   /**
+    * Return a file of an application's catalogue, preferring the binary form
+    * when it is present
+    * 
+    * @param applicationName application name
+    * @param name the name of the file without its suffix
+    * @return the binary file if it exists, the XML file otherwise
+    */
+   private static File catalogueFile(final String applicationName,
+                                     final String name) {
+      final String path =
+         configPath + File.separator + applicationName + File.separator + name;
+      final File binary = new File(path + CatalogueCodec.SUFFIX);
+      return binary.isFile() ? binary : new File(path + ".xml");
+   }
+
+   /**
+    * Check whether a catalogue file is in the binary form
+    * 
+    * @param file the file
+    * @return <code>true</code> if the file was written by
+    *         {@link CatalogueCodec}
+    */
+   private static boolean isBinary(final File file) {
+      return file.getName().endsWith(CatalogueCodec.SUFFIX);
    }
 
    /**
@@ -140,58 +263,191 @@ public final class ServiceConfig {
     * 
     * @param applicationName application name
     * @return list of service summaries
-    * @throws FileNotFoundException
-    * @throws JiBXException if the service configuration does not parse
+    * @throws IOException
+    * @throws XMLStreamException if the service configuration does not parse
     */
-   public static Collection<Service> getServices(final String applicationName)
-      throws FileNotFoundException, JiBXException {
+   public static Collection<ServiceSummary> getServices(final String applicationName)
+      throws IOException, XMLStreamException {
 
       LOGGER.debug("getServices " + configPath + "/" + applicationName);
-      Services services;
 
-      File servicesConfigFile =
-         new File(configPath + File.separator + applicationName
-            + File.separator + "restdoc-services.xml");
+      File servicesConfigFile = servicesFile(applicationName);
 
-      services =
-         JiBXUtils.unmarshallServices(new FileInputStream(servicesConfigFile));
+      Collection<ServiceSummary> services =
+         SERVICES_CACHE.get(servicesConfigFile);
+      if (services == null) {
 
-      for (Service service : services.getServices()) {
-         service.setContext(applicationName);
+         final Version version = Version.of(servicesConfigFile);
+         final FileInputStream input = new FileInputStream(servicesConfigFile);
+         try {
+            if (isBinary(servicesConfigFile)) {
+               services = CatalogueCodec.readServiceSummaries(input);
+            } else {
+               services = ServiceSummaryReader.readServices(input);
+            }
+         } finally {
+            input.close();
+         }
+
+         for (ServiceSummary service : services) {
+            service.setContext(applicationName);
+         }
+
+         services = Collections.unmodifiableCollection(services);
+         SERVICES_CACHE.put(servicesConfigFile, version, services);
       }
 
-      return services.getServices();
+      return services;
 
    }
 
    /**
-    * Get a service by application name and service id
+    * Get a service by application name and service id. If the application
+    * has a packed catalogue, only the service's record is read from the
+    * catalogue; otherwise the service is read from its own file.
     * 
     * @param applicationName
     * @param id
     * @return service
-    * @throws FileNotFoundException
+    * @throws IOException
     * @throws JiBXException parsing error
     */
    public static Service getService(final String applicationName,
                                     final String id)
-                                       throws FileNotFoundException, JiBXException {
+                                       throws IOException, JiBXException {
 
-      Service service;
+      File packedFile =
+         new File(configPath + File.separator + applicationName
+            + File.separator + CatalogueCodec.CATALOGUE_FILE);
+      if (packedFile.isFile()) {
+         return getPackedService(applicationName, packedFile, id);
+      }
 
       File serviceConfigFile =
-         new File(configPath + File.separator + applicationName
-            + File.separator + "restdoc-service-" + id + ".xml");
+         catalogueFile(applicationName, "restdoc-service-" + id);
+
+      Service service = SERVICE_CACHE.get(serviceConfigFile);
+      if (service == null) {
+
+         final Version version = Version.of(serviceConfigFile);
+         final FileInputStream input = new FileInputStream(serviceConfigFile);
+         try {
+            if (isBinary(serviceConfigFile)) {
+               service = CatalogueCodec.readService(input);
+            } else {
+               service = JiBXCodec.unmarshal(Service.class, input);
+            }
+         } finally {
+            input.close();
+         }
+
+         service.setContext(applicationName);
+
+         SERVICE_CACHE.put(serviceConfigFile, version, service);
+      }
+
+      return service;
+
+   }
+
+   /**
+    * Get a service from an application's packed catalogue. The catalogue's
+    * table of entries is read once and cached; the service's record is read
+    * at its offset, with the file open only while it is read, so that the
+    * file can be replaced by a redeployment while the application is
+    * running.
+    * 
+    * @param applicationName application name
+    * @param packedFile the <code>restdoc-catalogue.bin</code> file
+    * @param id service id
+    * @return service
+    * @throws IOException if the catalogue can't be read or doesn't contain
+    *            the service
+    */
+   private static Service getPackedService(final String applicationName,
+                                           final File packedFile,
+                                           final String id) throws IOException {
+
+      Service service = SERVICE_CACHE.get(packedFile, id);
+      if (service == null) {
+
+         final Version version = Version.of(packedFile);
+         final FileInputStream input = new FileInputStream(packedFile);
+         try {
+            final FileChannel channel = input.getChannel();
+            ByteBuffer entries = CATALOGUE_CACHE.get(packedFile);
+            if (entries == null) {
+               entries = CatalogueCodec.readEntries(channel);
+               CATALOGUE_CACHE.put(packedFile, version, entries);
+            }
+            service =
+               CatalogueCodec.readService(channel, entries, Integer
+                  .parseInt(id));
+         } catch (NumberFormatException e) {
+            LOGGER.debug("Invalid service id " + id);
+         } finally {
+            input.close();
+         }
+         if (service == null) {
+            throw new FileNotFoundException("Service " + id + " not found in "
+               + packedFile);
+         }
 
-      service =
-         JiBXUtils.unmarshallService(new FileInputStream(serviceConfigFile));
+         service.setContext(applicationName);
 
-      service.setContext(applicationName);
+         SERVICE_CACHE.put(packedFile, id, version, service);
+      }
 
       return service;
 
    }
 
+   /**
+    * Get the documentation of the types the parameters of an application's
+    * services refer to, shared by all the services of the application
+    * 
+    * @param applicationName application name
+    * @return the documentation of types keyed by identifier, empty if the
+    *         application has no type registry
+    * @throws IOException
+    * @throws JiBXException parsing error
+    * @see BaseType#getTypeDoc()
+    */
+   public static Map<String, String> getTypeDocs(final String applicationName)
+      throws IOException, JiBXException {
+
+      File typesFile =
+         new File(configPath + File.separator + applicationName
+            + File.separator + TypeDocs.FILE);
+      if (!typesFile.isFile()) {
+         return Collections.emptyMap();
+      }
+
+      Map<String, String> types = TYPES_CACHE.get(typesFile);
+      if (types == null) {
+
+         final Version version = Version.of(typesFile);
+         final TypeDocs typeDocs;
+         final FileInputStream input = new FileInputStream(typesFile);
+         try {
+            typeDocs = JiBXCodec.unmarshal(TypeDocs.class, input);
+         } finally {
+            input.close();
+         }
+
+         types = new HashMap<String, String>(typeDocs.size() * 2);
+         for (TypeDoc typeDoc : typeDocs.getTypes()) {
+            types.put(typeDoc.getId(), typeDoc.getJavadoc());
+         }
+
+         types = Collections.unmodifiableMap(types);
+         TYPES_CACHE.put(typesFile, version, types);
+      }
+
+      return types;
+
+   }
+
    /**
     * Get an application's properties
     * 
@@ -0,0 +1,241 @@
+/*
+ * #%L
+ * restdoc-indexer
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.web;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.iggroup.oss.restdoclet.doclet.type.ServiceSummary;
+import com.iggroup.oss.restdoclet.doclet.type.Uri;
+
+/**
+ * Immutable trigram index over the URIs of a set of services. Each URI is
+ * broken into its overlapping three-character substrings; a search term is
+ * answered by intersecting the postings of its own trigrams and confirming
+ * the few remaining candidates with <code>String.contains</code>. Terms
+ * shorter than a trigram fall back to a scan of the (already flattened) URIs.
+ */
+public final class UriIndex {
+
+   /**
+    * The length of the substrings indexed.
+    */
+   private static final int GRAM = 3;
+
+   /**
+    * The version of the catalogue this index was built from.
+    */
+   private final Object version;
+
+   /**
+    * The URI of each posting, in catalogue order.
+    */
+   private final String[] uris;
+
+   /**
+    * The service of each posting, in catalogue order.
+    */
+   private final ServiceSummary[] services;
+
+   /**
+    * The ascending posting numbers of the URIs containing each trigram.
+    */
+   private final Map<String, int[]> grams;
+
+   /**
+    * Constructs an index.
+    *
+    * @param version the version of the catalogue the services were read from.
+    * @param services the services to index, in catalogue order.
+    */
+   public UriIndex(final Object version,
+                   final Collection<ServiceSummary> services) {
+      this.version = version;
+
+      final List<String> uriList = new ArrayList<String>();
+      final List<ServiceSummary> serviceList =
+         new ArrayList<ServiceSummary>();
+      for (ServiceSummary service : services) {
+         for (Uri uri : service.getUris()) {
+            uriList.add(uri.getUri());
+            serviceList.add(service);
+         }
+      }
+      this.uris = uriList.toArray(new String[uriList.size()]);
+      this.services =
+         serviceList.toArray(new ServiceSummary[serviceList.size()]);
+
+      final Map<String, IntList> postings = new HashMap<String, IntList>();
+      for (int i = 0; i < uris.length; i++) {
+         final String uri = uris[i];
+         for (int j = 0; j + GRAM <= uri.length(); j++) {
+            final String gram = uri.substring(j, j + GRAM);
+            IntList list = postings.get(gram);
+            if (list == null) {
+               list = new IntList();
+               postings.put(gram, list);
+            }
+            list.add(i);
+         }
+      }
+      this.grams = new HashMap<String, int[]>(postings.size() * 2);
+      for (Map.Entry<String, IntList> entry : postings.entrySet()) {
+         grams.put(entry.getKey(), entry.getValue().toArray());
+      }
+   }
+
+   /**
+    * Gets the version of the catalogue this index was built from.
+    *
+    * @return the catalogue's version.
+    */
+   public Object getVersion() {
+      return version;
+   }
+
+   /**
+    * Gets the number of URIs in this index.
+    *
+    * @return the number of URIs.
+    */
+   public int size() {
+      return uris.length;
+   }
+
+   /**
+    * Finds the services with URIs containing a term. A service is returned
+    * once for every one of its URIs that matches, in catalogue order.
+    *
+    * @param term the term to look for.
+    * @return the matching services.
+    */
+   public Collection<ServiceSummary> find(final String term) {
+      final Collection<ServiceSummary> result =
+         new ArrayList<ServiceSummary>();
+      if (term.length() < GRAM) {
+         for (int i = 0; i < uris.length; i++) {
+            if (uris[i].contains(term)) {
+               result.add(services[i]);
+            }
+         }
+      } else {
+         final int[] candidates = candidates(term);
+         if (candidates != null) {
+            for (int i : candidates) {
+               if (uris[i].contains(term)) {
+                  result.add(services[i]);
+               }
+            }
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Gets the postings of the URIs that contain every trigram of a term.
+    *
+    * @param term the term, at least one trigram long.
+    * @return the candidate postings in ascending order or <code>null</code> if
+    *         no URI can contain the term.
+    */
+   private int[] candidates(final String term) {
+      int[] result = null;
+      for (int j = 0; j + GRAM <= term.length(); j++) {
+         final int[] postings = grams.get(term.substring(j, j + GRAM));
+         if (postings == null) {
+            result = null;
+            break;
+         }
+         result = result == null ? postings : intersect(result, postings);
+         if (result.length == 0) {
+            break;
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Intersects two ascending arrays of postings.
+    *
+    * @param left the first array.
+    * @param right the second array.
+    * @return the postings in both arrays, in ascending order.
+    */
+   private static int[] intersect(final int[] left, final int[] right) {
+      final IntList result = new IntList();
+      int i = 0;
+      int j = 0;
+      while (i < left.length && j < right.length) {
+         if (left[i] < right[j]) {
+            i++;
+         } else if (left[i] > right[j]) {
+            j++;
+         } else {
+            result.add(left[i]);
+            i++;
+            j++;
+         }
+      }
+      return result.toArray();
+   }
+
+   /**
+    * Growable list of ascending postings. A URI repeating a trigram is only
+    * recorded once.
+    */
+   private static final class IntList {
+
+      private int[] values = new int[4];
+
+      private int size;
+
+      /**
+       * Appends a posting unless it's the same as the last one.
+       *
+       * @param value the posting.
+       */
+      private void add(final int value) {
+         if (size == 0 || values[size - 1] != value) {
+            if (size == values.length) {
+               final int[] grown = new int[size * 2];
+               System.arraycopy(values, 0, grown, 0, size);
+               values = grown;
+            }
+            values[size++] = value;
+         }
+      }
+
+      /**
+       * Copies the postings into an array.
+       *
+       * @return the postings.
+       */
+      private int[] toArray() {
+         final int[] result = new int[size];
+         System.arraycopy(values, 0, result, 0, size);
+         return result;
+      }
+
+   }
+
+}
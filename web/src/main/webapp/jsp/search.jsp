@@ -56,7 +56,7 @@
 
                      <tr>
                         <td class="requestMethod">${method.requestMethod}</td>
-                        <td class="javadoc">${method.javadoc}</td>
+                        <td class="javadoc">${method.summary}</td>
                      </tr>
 
                   </c:forEach>
@@ -3,6 +3,7 @@
 <head>
    <c:set var="service" value="<%= ServiceConfig.getService(request.getParameter(\"APPLICATION\"), request.getParameter(\"SERVICE_ID\")) %>"/>
    <c:set var="props"   value="<%= ServiceConfig.getProperties(request.getParameter(\"APPLICATION\")) %>"/>
+   <c:set var="types"   value="<%= ServiceConfig.getTypeDocs(request.getParameter(\"APPLICATION\")) %>"/>
 </head>
 
 <body>
@@ -61,7 +62,7 @@
                            ${parameter.type} ${parameter.name}
                      </td>
                      <td class="javadoc">
-                           ${parameter.javadoc}
+                           ${parameter.javadoc}${types[parameter.typeDoc]}
                      </td>
                      <td class="path">
                         Path (Mandatory)
@@ -86,7 +87,7 @@
                      <td class="name">
                            ${parameter.type} ${parameter.name}</td>
                      <td class="javadoc">
-                           ${parameter.javadoc}</td>
+                           ${parameter.javadoc}${types[parameter.typeDoc]}</td>
                      <td class="path">
                         Request
                         <c:if test="${parameter.required == 'true'}">
@@ -120,7 +121,7 @@
                <c:forEach var="parameter" items="${method.responseParams}">
                   <tr>
                      <td class="type">${parameter.type}</td>
-                     <td class="javadoc">${parameter.javadoc}</td>
+                     <td class="javadoc">${parameter.javadoc}${types[parameter.typeDoc]}</td>
                   </tr>
                </c:forEach>
                </tbody>
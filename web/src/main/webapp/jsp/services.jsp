@@ -45,14 +45,7 @@
 
       <c:forEach var="service" items="${services}">
 
-         <c:set var="showRow" value="false"/>
-         <c:forEach var="uri" items="${service.uris}">
-            <c:if test="${!uri.deprecated}">
-               <c:set var="showRow" value="true"/>
-            </c:if>
-         </c:forEach>
-
-         <c:if test="${showRow == 'true'}">
+         <c:if test="${!service.deprecated}">
             <tr>
 
                <td class="uri">
@@ -74,7 +67,7 @@
                      <c:forEach var="method" items="${service.methods}">
                         <tr>
                            <td class="requestMethod">${method.requestMethod}</td class="javadoc">
-                           <td class="javadoc">${method.javadoc}</td>
+                           <td class="javadoc">${method.summary}</td>
                         </tr>
                      </c:forEach>
                   </table>
@@ -0,0 +1,198 @@
+/*
+ * #%L
+ * restdoc-indexer
+ * %%
+ * Copyright (C) 2012 IG Group
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.iggroup.oss.restdoclet.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.iggroup.oss.restdoclet.doclet.type.ServiceSummary;
+import com.iggroup.oss.restdoclet.doclet.type.Uri;
+
+/**
+ * Checks the services found by a {@link UriIndex} are those found by
+ * scanning the URIs of every service with <code>String.contains</code>, as
+ * {@link ServiceConfig#findServices(String)} did before the index, in the
+ * same order and with the same duplicates.
+ */
+public class UriIndexTest {
+
+   /**
+    * The URIs of each service: path variables, mixed case, repeated
+    * trigrams, URIs shorter than a trigram and services with several URIs.
+    */
+   private static final String[][] URIS = { {"/samples/{reference}"},
+      {"/samples"}, {"/map", "/deprecated"},
+      {"/Accounts/{accountId}/positions/{positionId}"},
+      {"/accounts/{accountId}/orders", "/accounts/{accountId}/workingorders"},
+      {"/aaaa/aaa"}, {"/"}, {"ab"}, {"/{id}/{id}/{ID}"}};
+
+   /**
+    * Terms that aren't substrings of the URIs.
+    */
+   private static final String[] OTHER_TERMS = {"", "z", "zz", "zzz",
+      "/samples/{reference}/x", "aaaaa", "/{ref", "{}", "sample s", "ACCOUNTS",
+      "{accountid}", "/Samples"};
+
+   /**
+    * The services.
+    */
+   private final List<ServiceSummary> services = services();
+
+   /**
+    * The index of the services.
+    */
+   private final UriIndex index = new UriIndex("version", services);
+
+   private static List<ServiceSummary> services() {
+      final List<ServiceSummary> services = new ArrayList<ServiceSummary>();
+      for (String[] uris : URIS) {
+         final ServiceSummary service = new ServiceSummary();
+         service.setIdentifier(services.size() + 1);
+         for (String uri : uris) {
+            service.addUri(new Uri(uri, false));
+         }
+         services.add(service);
+      }
+      return services;
+   }
+
+   /**
+    * Finds the services with URIs containing a term by scanning them all.
+    *
+    * @param term the term to look for.
+    * @return the matching services.
+    */
+   private List<ServiceSummary> scan(final String term) {
+      final List<ServiceSummary> matching = new ArrayList<ServiceSummary>();
+      for (ServiceSummary service : services) {
+         for (Uri uri : service.getUris()) {
+            if (uri.getUri().contains(term)) {
+               matching.add(service);
+            }
+         }
+      }
+      return matching;
+   }
+
+   /**
+    * Gets the terms searched for: every substring of every URI, and terms
+    * that aren't substrings.
+    *
+    * @return the terms.
+    */
+   private static List<String> terms() {
+      final List<String> terms = new ArrayList<String>();
+      for (String[] uris : URIS) {
+         for (String uri : uris) {
+            for (int i = 0; i < uri.length(); i++) {
+               for (int j = i + 1; j <= uri.length(); j++) {
+                  terms.add(uri.substring(i, j));
+               }
+            }
+         }
+      }
+      terms.addAll(Arrays.asList(OTHER_TERMS));
+      return terms;
+   }
+
+   /**
+    * Checks the index finds the same services as a scan.
+    *
+    * @param term the term to look for.
+    */
+   private void assertSameAsScan(final String term) {
+      final Collection<ServiceSummary> found = index.find(term);
+      final List<ServiceSummary> expected = scan(term);
+      assertEquals(term, expected.size(), found.size());
+      int i = 0;
+      for (ServiceSummary service : found) {
+         assertSame(term, expected.get(i++), service);
+      }
+   }
+
+   /**
+    * Checks every term finds the same services as a scan.
+    */
+   @Test
+   public void testSameAsScan() {
+      for (String term : terms()) {
+         assertSameAsScan(term);
+      }
+   }
+
+   /**
+    * Checks terms shorter than a trigram, which are answered by a scan, find
+    * the same services.
+    */
+   @Test
+   public void testShortTerms() {
+      for (String term : Arrays.asList("", "/", "a", "s", "{", "}", "ab",
+         "/a", "}/", "d}", "zz")) {
+         assertSameAsScan(term);
+      }
+      assertEquals(11, index.find("").size());
+      assertEquals(11, index.size());
+   }
+
+   /**
+    * Checks terms are matched case-sensitively, and that lower-case terms,
+    * as {@link ServiceConfig#findServices(String)} searches for, only find
+    * lower-case URIs.
+    */
+   @Test
+   public void testMixedCase() {
+      for (String term : Arrays.asList("Accounts", "accounts", "ACCOUNTS",
+         "ID}", "{ID}", "{id}", "accountId", "accountid", "Samples")) {
+         assertSameAsScan(term);
+         assertSameAsScan(term.toLowerCase());
+      }
+      assertEquals(Arrays.asList(services.get(3), services.get(4), services
+         .get(4)), new ArrayList<ServiceSummary>(index.find("ccounts/")));
+      assertEquals(Arrays.asList(services.get(3)),
+         new ArrayList<ServiceSummary>(index.find("/Acc")));
+      assertTrue(index.find("/ACC").isEmpty());
+   }
+
+   /**
+    * Checks terms containing path variables find the services once per
+    * matching URI.
+    */
+   @Test
+   public void testPathVariables() {
+      for (String term : Arrays.asList("{reference}", "/{accountId}/",
+         "{positionId}", "{id}/{id}", "/{id}/{ID}", "}/{", "{accountId}/o",
+         "{accountId}/w")) {
+         assertSameAsScan(term);
+      }
+      assertEquals(Arrays.asList(services.get(3), services.get(4), services
+         .get(4)), new ArrayList<ServiceSummary>(index.find("{accountId}")));
+      assertEquals(Arrays.asList(services.get(0)),
+         new ArrayList<ServiceSummary>(index.find("/samples/{")));
+   }
+
+}